@@ -0,0 +1,77 @@
+package in.acode.utdatagen;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import javax.sql.DataSource;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executors of the async operations of the fixtures, one per DataSource, shared by all the fixtures of the DataSource
+ * <br>An executor has as many threads as the max size of the connection pool of the DataSource, so the operations started at once
+ * don't wait for connections inside the pool, but in the queue of the executor. The pool size is read from the pools which expose it -
+ * <br>&emsp;1. <code>getMaximumPoolSize()</code> of HikariCP, the default pool of Spring Boot
+ * <br>&emsp;2. <code>getMaxTotal()</code> of Commons DBCP2
+ * <br>&emsp;3. <code>getMaxActive()</code> of Tomcat JDBC
+ * <br>Other DataSources, e.g. the ones which open a new connection each time, get as many threads as there are processors.
+ * The threads are daemons, and stop when they have been idle for a while
+ */
+class AsyncExecutors {
+
+    private static final Log LOG = LogFactory.getLog(AsyncExecutors.class);
+
+    private static final String[] POOL_SIZE_GETTERS = {"getMaximumPoolSize", "getMaxTotal", "getMaxActive"};
+    private static final long KEEP_ALIVE_SECONDS = 60;
+
+    private static final Map<DataSource, ExecutorService> EXECUTORS = new WeakHashMap<>();
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    private AsyncExecutors() {
+    }
+
+    static synchronized ExecutorService forDataSource(DataSource dataSource) {
+        return EXECUTORS.computeIfAbsent(dataSource, key -> {
+            int numOfThreads = getPoolSize(dataSource);
+            LOG.info("Created an executor of [" + numOfThreads + "] threads for the async fixture operations");
+
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(numOfThreads, numOfThreads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "utdatagen-async-" + THREAD_COUNTER.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            executor.allowCoreThreadTimeOut(true);
+            return executor;
+        });
+    }
+
+    /**
+     * Returns the max number of connections of the pool behind the DataSource, or the number of processors if it is not known
+     */
+    static int getPoolSize(DataSource dataSource) {
+        DataSource targetDataSource = dataSource;
+        while (targetDataSource instanceof DelegatingDataSource && ((DelegatingDataSource) targetDataSource).getTargetDataSource() != null) {
+            targetDataSource = ((DelegatingDataSource) targetDataSource).getTargetDataSource();
+        }
+
+        for (String poolSizeGetter : POOL_SIZE_GETTERS) {
+            try {
+                Method method = targetDataSource.getClass().getMethod(poolSizeGetter);
+                Object poolSize = method.invoke(targetDataSource);
+                if (poolSize instanceof Integer && (Integer) poolSize > 0) {
+                    return (Integer) poolSize;
+                }
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                //not a pool with this getter
+            }
+        }
+        return Runtime.getRuntime().availableProcessors();
+    }
+}
@@ -0,0 +1,35 @@
+package in.acode.utdatagen;
+
+import in.acode.utdatagen.meta.DBColumnMetadata;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Writer for InsertionStrategy.BATCHED_STATEMENTS
+ * Executes a single-row INSERT statement as a JDBC batch, with an entry per row
+ */
+class BatchedStatementWriter extends RowWriter {
+
+    private final PreparedStatement preparedStatement;
+
+    BatchedStatementWriter(Connection connection, String tableName, List<DBColumnMetadata> columns) throws SQLException {
+        super(connection, tableName, columns);
+        this.preparedStatement = connection.prepareStatement(getInsertStatement(1));
+    }
+
+    @Override
+    void write(RowBatch rows) throws SQLException {
+        for (int rowIdx = 0; rowIdx < rows.size(); rowIdx++) {
+            bindRow(this.preparedStatement, 1, rows, rowIdx);
+            this.preparedStatement.addBatch();
+        }
+        this.preparedStatement.executeBatch();
+    }
+
+    @Override
+    public void close() throws SQLException {
+        this.preparedStatement.close();
+    }
+}
@@ -0,0 +1,256 @@
+package in.acode.utdatagen;
+
+import in.acode.utdatagen.meta.DBColumnMetadata;
+import in.acode.utdatagen.utils.JdbcTypeUtils;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.temporal.TemporalAccessor;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Writer for InsertionStrategy.BULK_LOAD
+ * <br>Each batch of rows is encoded as text while it is being read by the native bulk-loader of the DB -
+ * <br>&emsp;1. MySQL - <code>LOAD DATA LOCAL INFILE</code>, reading from an InputStream set on the statement.
+ * The connection must allow local infiles e.g. with <code>allowLoadLocalInfile=true</code> in the JDBC URL
+ * <br>&emsp;2. PostgreSQL - <code>COPY ... FROM STDIN</code>, using the CopyManager of the driver
+ * <br>&emsp;3. H2 - <code>CSVREAD</code>, which can only read files, so each batch is written to a temporary file first
+ * <br>The drivers are accessed reflectively, so that none of them is needed to compile this library
+ * <br>Binary values are encoded as hex, which MySQL decodes with <code>UNHEX()</code> and PostgreSQL reads as the hex format of bytea.
+ * H2 reads text into a binary column as hex or as UTF-8 depending on its compatibility mode, so binary values are rejected on H2,
+ * as are the values of other types without a text form
+ */
+class BulkLoadWriter extends RowWriter {
+
+    private static final String[] MYSQL_STATEMENT_CLASSES = {"com.mysql.cj.jdbc.JdbcStatement", "com.mysql.jdbc.Statement"};
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final Dialect dialect;
+    private final String columnList;
+
+    BulkLoadWriter(Connection connection, String tableName, List<DBColumnMetadata> columns) throws SQLException {
+        super(connection, tableName, columns);
+        this.dialect = getSupportedDialect(connection.getMetaData().getDatabaseProductName());
+        this.columnList = columns.stream().map(DBColumnMetadata::getColumnName).collect(Collectors.joining(", "));
+    }
+
+    @Override
+    void write(RowBatch rows) throws SQLException {
+        if (rows.size() == 0) return;
+
+        switch (this.dialect) {
+            case MYSQL:
+                loadWithMySql(rows);
+                break;
+            case POSTGRESQL:
+                loadWithPostgreSql(rows);
+                break;
+            default:
+                loadWithH2(rows);
+        }
+    }
+
+    @Override
+    public void close() {
+        //Nothing is kept open between the batches
+    }
+
+    private void loadWithMySql(RowBatch rows) throws SQLException {
+        String sql = "LOAD DATA LOCAL INFILE 'utdatagen.tsv' INTO TABLE " + this.tableName
+            + " CHARACTER SET utf8mb4 FIELDS TERMINATED BY '\\t' ESCAPED BY '\\\\' LINES TERMINATED BY '\\n'"
+            + getMySqlColumnList(this.columns);
+
+        try (Statement statement = this.connection.createStatement()) {
+            Class<?> mySqlStatementClass = getMySqlStatementClass(statement);
+            invoke(mySqlStatementClass, "setLocalInfileInputStream", statement.unwrap(mySqlStatementClass),
+                new Class<?>[] {InputStream.class}, new RowsInputStream(rows, (rowBuilder, sqlArgs) -> appendTextRow(rowBuilder, sqlArgs, Dialect.MYSQL)));
+            statement.execute(sql);
+        }
+    }
+
+    /**
+     * Returns the column list of LOAD DATA, in which the binary columns are read into variables and set from their hex text
+     */
+    static String getMySqlColumnList(List<DBColumnMetadata> columns) {
+        StringBuilder columnList = new StringBuilder(" (");
+        StringBuilder setClause = new StringBuilder();
+        for (int i = 0; i < columns.size(); i++) {
+            String columnName = columns.get(i).getColumnName();
+            if (i > 0) columnList.append(", ");
+
+            if (isBinary(columns.get(i).getDataType())) {
+                columnList.append('@').append(columnName);
+                setClause.append(setClause.length() == 0 ? " SET " : ", ").append(columnName).append(" = UNHEX(@").append(columnName).append(')');
+            } else {
+                columnList.append(columnName);
+            }
+        }
+        return columnList.append(')').append(setClause).toString();
+    }
+
+    private static boolean isBinary(int dataType) {
+        return dataType == Types.BINARY || dataType == Types.VARBINARY || dataType == Types.LONGVARBINARY || dataType == Types.BLOB;
+    }
+
+    private Class<?> getMySqlStatementClass(Statement statement) throws SQLException {
+        for (String className : MYSQL_STATEMENT_CLASSES) {
+            try {
+                Class<?> mySqlStatementClass = Class.forName(className);
+                if (statement.isWrapperFor(mySqlStatementClass)) {
+                    return mySqlStatementClass;
+                }
+            } catch (ClassNotFoundException e) {
+                //Try the class of the other version of the driver
+            }
+        }
+        throw new IllegalStateException("Bulk load on MySQL needs the MySQL Connector/J driver");
+    }
+
+    private void loadWithPostgreSql(RowBatch rows) throws SQLException {
+        String sql = "COPY " + this.tableName + " (" + this.columnList + ") FROM STDIN";
+
+        try {
+            Class<?> pgConnectionClass = Class.forName("org.postgresql.PGConnection");
+            Object copyManager = invoke(pgConnectionClass, "getCopyAPI", this.connection.unwrap(pgConnectionClass), new Class<?>[0]);
+            invoke(Class.forName("org.postgresql.copy.CopyManager"), "copyIn", copyManager,
+                new Class<?>[] {String.class, InputStream.class}, sql, new RowsInputStream(rows, (rowBuilder, sqlArgs) -> appendTextRow(rowBuilder, sqlArgs, Dialect.POSTGRESQL)));
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Bulk load on PostgreSQL needs the PostgreSQL JDBC driver", e);
+        }
+    }
+
+    private void loadWithH2(RowBatch rows) throws SQLException {
+        Path csvFile = null;
+        try {
+            csvFile = Files.createTempFile("utdatagen-", ".csv");
+            Files.copy(new RowsInputStream(rows, BulkLoadWriter::appendCsvRow), csvFile, StandardCopyOption.REPLACE_EXISTING);
+
+            String sql = "INSERT INTO " + this.tableName + " (" + this.columnList + ") SELECT * FROM CSVREAD("
+                + toSqlLiteral(csvFile.toString()) + ", " + toSqlLiteral(this.columnList.replace(" ", "")) + ", 'charset=UTF-8 fieldSeparator=,')";
+            try (Statement statement = this.connection.createStatement()) {
+                statement.executeUpdate(sql);
+            }
+        } catch (IOException e) {
+            throw new SQLException("Failed to write the rows to a temporary file", e);
+        } finally {
+            deleteQuietly(csvFile);
+        }
+    }
+
+    /**
+     * Encodes a row in the text format of MySQL and PostgreSQL -
+     * tab separated values with backslash escapes, and \N for nulls
+     */
+    static void appendTextRow(StringBuilder rowBuilder, Object[] sqlArgs, Dialect dialect) {
+        for (int i = 0; i < sqlArgs.length; i++) {
+            if (i > 0) rowBuilder.append('\t');
+
+            String text = toText(sqlArgs[i], dialect);
+            if (text == null) {
+                rowBuilder.append("\\N");
+                continue;
+            }
+
+            for (int j = 0; j < text.length(); j++) {
+                char c = text.charAt(j);
+                switch (c) {
+                    case '\\': rowBuilder.append("\\\\"); break;
+                    case '\t': rowBuilder.append("\\t"); break;
+                    case '\n': rowBuilder.append("\\n"); break;
+                    case '\r': rowBuilder.append("\\r"); break;
+                    default: rowBuilder.append(c);
+                }
+            }
+        }
+        rowBuilder.append('\n');
+    }
+
+    /**
+     * Encodes a row as comma separated values, with all values quoted and nulls left empty and unquoted
+     */
+    static void appendCsvRow(StringBuilder rowBuilder, Object[] sqlArgs) {
+        for (int i = 0; i < sqlArgs.length; i++) {
+            if (i > 0) rowBuilder.append(',');
+
+            String text = toText(sqlArgs[i], Dialect.H2);
+            if (text == null) continue;
+
+            rowBuilder.append('"');
+            for (int j = 0; j < text.length(); j++) {
+                char c = text.charAt(j);
+                if (c == '"') rowBuilder.append('"');
+                rowBuilder.append(c);
+            }
+            rowBuilder.append('"');
+        }
+        rowBuilder.append('\n');
+    }
+
+    /**
+     * Returns the text of a value as read by the bulk-loader of the DB, or null for a null value
+     * @throws IllegalArgumentException if the value has no text form
+     */
+    static String toText(Object value, Dialect dialect) {
+        if (value instanceof byte[] && dialect != Dialect.H2) {
+            byte[] bytes = (byte[]) value;
+            StringBuilder hex = new StringBuilder(2 + bytes.length * 2);
+            if (dialect == Dialect.POSTGRESQL) hex.append("\\x");
+            for (byte b : bytes) {
+                hex.append(HEX_DIGITS[(b >> 4) & 0xf]).append(HEX_DIGITS[b & 0xf]);
+            }
+            return hex.toString();
+        }
+
+        if (value != null && !(value instanceof CharSequence || value instanceof Number || value instanceof Boolean || value instanceof Character
+            || value instanceof java.util.Date || value instanceof TemporalAccessor || value instanceof UUID)) {
+            throw new IllegalArgumentException("Values of type [" + value.getClass().getName() + "] can't be bulk-loaded on " + dialect);
+        }
+        return JdbcTypeUtils.toSQLText(value);
+    }
+
+    /**
+     * Returns the dialect of the DB, which must be one of those with a bulk load
+     */
+    static Dialect getSupportedDialect(String databaseProductName) {
+        Dialect dialect = Dialect.getDialect(databaseProductName);
+        if (dialect == Dialect.OTHER) {
+            throw new IllegalStateException("Bulk load is not supported for the DB [" + databaseProductName + "]");
+        }
+        return dialect;
+    }
+
+    private static Object invoke(Class<?> declaringClass, String methodName, Object target, Class<?>[] parameterTypes, Object... args) throws SQLException {
+        try {
+            return declaringClass.getMethod(methodName, parameterTypes).invoke(target, args);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof SQLException) {
+                throw (SQLException) e.getCause();
+            }
+            throw new SQLException("Bulk load failed", e.getCause());
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalStateException("Unsupported version of the JDBC driver for bulk load", e);
+        }
+    }
+
+    private static String toSqlLiteral(String s) {
+        return "'" + s.replace("'", "''") + "'";
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) return;
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            //A leftover temporary file is not worth failing the insertion for
+        }
+    }
+}
@@ -0,0 +1,508 @@
+package in.acode.utdatagen;
+
+import in.acode.utdatagen.meta.DBColumnMetadata;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+
+/**
+ * Rows read from a table, held column by column, and exposed as a list of maps of column-name to value
+ * <br>The column names are held once for all the rows, and the values of each column in an array of its own -
+ * a primitive array where the JDBC driver returns an Integer, Long, Double or Boolean for the column, with a bitset of the nulls.
+ * A row is a view over its index into these arrays, so the rows take no map or boxed value each, until a value is read
+ * <br>The views are equal to (and have the same hash code as) any other map of the same columns and values, e.g. a HashMap.
+ * A row which is changed, e.g. to remove a column before comparing it, is copied into a HashMap of its own, which replaces the view in the list.
+ * This includes the changes through its key set, its entry set and their iterators and entries.
+ * <br>The list can be changed like an ArrayList. On the first row added or removed, all the rows are copied into HashMaps of their own,
+ * which are held in an ArrayList from then on
+ */
+final class ColumnarRows extends AbstractList<Map<String, Object>> implements RandomAccess {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final String[] columnNames;
+    private final Map<String, Integer> columnIdxs;
+    private final Column[] columns;
+    private int size;
+
+    /**
+     * Copies of the rows which were changed, by their index, which replace their views
+     */
+    private Map<Integer, Map<String, Object>> detachedRows;
+
+    /**
+     * All the rows, as copies, once a row was added to or removed from the list, null until then
+     */
+    private List<Map<String, Object>> copiedRows;
+
+    private ColumnarRows(String[] columnNames, Column[] columns) {
+        this.columnNames = columnNames;
+        this.columns = columns;
+        this.columnIdxs = new LinkedHashMap<>();
+        for (int i = 0; i < columnNames.length; i++) {
+            this.columnIdxs.put(columnNames[i], i);
+        }
+        this.size = 0;
+    }
+
+    /**
+     * Reads all the rows of the ResultSet, with the values of the given columns
+     * <br>The index of each column in the ResultSet and its kind of values are resolved once, before the first row
+     */
+    static ColumnarRows read(ResultSet resultSet, List<DBColumnMetadata> columnMetadata) throws SQLException {
+        ResultSetMetaData resultSetMetaData = resultSet.getMetaData();
+        String[] columnNames = new String[columnMetadata.size()];
+        int[] resultSetIdxs = new int[columnMetadata.size()];
+        Column[] columns = new Column[columnMetadata.size()];
+
+        for (int i = 0; i < columns.length; i++) {
+            columnNames[i] = columnMetadata.get(i).getColumnName();
+            resultSetIdxs[i] = resultSet.findColumn(columnNames[i]);
+            columns[i] = Column.forClassName(resultSetMetaData.getColumnClassName(resultSetIdxs[i]));
+        }
+
+        ColumnarRows rows = new ColumnarRows(columnNames, columns);
+        while (resultSet.next()) {
+            for (int i = 0; i < columns.length; i++) {
+                columns[i].read(resultSet, resultSetIdxs[i], rows.size);
+            }
+            rows.size++;
+        }
+        return rows;
+    }
+
+    @Override
+    public Map<String, Object> get(int rowIdx) {
+        if (this.copiedRows != null) return this.copiedRows.get(rowIdx);
+        if (rowIdx < 0 || rowIdx >= this.size) {
+            throw new IndexOutOfBoundsException("Index: " + rowIdx + ", Size: " + this.size);
+        }
+        Map<String, Object> detachedRow = this.detachedRows != null ? this.detachedRows.get(rowIdx) : null;
+        return detachedRow != null ? detachedRow : new RowView(rowIdx);
+    }
+
+    /**
+     * Replaces a row with the given map, like the row of a list of maps
+     */
+    @Override
+    public Map<String, Object> set(int rowIdx, Map<String, Object> row) {
+        if (this.copiedRows != null) return this.copiedRows.set(rowIdx, row);
+
+        Map<String, Object> prevRow = get(rowIdx);
+        if (this.detachedRows == null) {
+            this.detachedRows = new HashMap<>();
+        }
+        this.detachedRows.put(rowIdx, row);
+        return prevRow;
+    }
+
+    @Override
+    public int size() {
+        return this.copiedRows != null ? this.copiedRows.size() : this.size;
+    }
+
+    @Override
+    public void add(int rowIdx, Map<String, Object> row) {
+        copyRows().add(rowIdx, row);
+        this.modCount++;
+    }
+
+    @Override
+    public Map<String, Object> remove(int rowIdx) {
+        Map<String, Object> row = copyRows().remove(rowIdx);
+        this.modCount++;
+        return row;
+    }
+
+    @Override
+    public boolean addAll(int rowIdx, Collection<? extends Map<String, Object>> rows) {
+        this.modCount++;
+        return copyRows().addAll(rowIdx, rows);
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super Map<String, Object>> filter) {
+        this.modCount++;
+        return copyRows().removeIf(filter);
+    }
+
+    @Override
+    public void clear() {
+        this.copiedRows = new ArrayList<>();
+        this.modCount++;
+    }
+
+    @Override
+    protected void removeRange(int fromRowIdx, int toRowIdx) {
+        copyRows().subList(fromRowIdx, toRowIdx).clear();
+        this.modCount++;
+    }
+
+    /**
+     * Returns the list of the copies of all the rows, copying the rows on the first call
+     * <br>The copies also replace the views of the rows, so the views taken earlier read and change the same rows as the list
+     */
+    private List<Map<String, Object>> copyRows() {
+        if (this.copiedRows == null) {
+            List<Map<String, Object>> rows = new ArrayList<>(Math.max(this.size * 2, INITIAL_CAPACITY));
+            for (int rowIdx = 0; rowIdx < this.size; rowIdx++) {
+                rows.add(detach(rowIdx));
+            }
+            this.copiedRows = rows;
+        }
+        return this.copiedRows;
+    }
+
+    /**
+     * Returns the copy of a row which replaces its view, copying the values on the first call
+     */
+    private Map<String, Object> detach(int rowIdx) {
+        if (this.detachedRows == null) {
+            this.detachedRows = new HashMap<>();
+        }
+        Map<String, Object> detachedRow = this.detachedRows.get(rowIdx);
+        if (detachedRow == null) {
+            detachedRow = new HashMap<>(new RowView(rowIdx));
+            this.detachedRows.put(rowIdx, detachedRow);
+        }
+        return detachedRow;
+    }
+
+    /**
+     * Values of a column, held in an array which grows as the rows are read
+     */
+    private abstract static class Column {
+
+        protected final BitSet nulls = new BitSet();
+
+        static Column forClassName(String className) {
+            if (Integer.class.getName().equals(className)) return new IntColumn();
+            if (Long.class.getName().equals(className)) return new LongColumn();
+            if (Double.class.getName().equals(className)) return new DoubleColumn();
+            if (Boolean.class.getName().equals(className)) return new BooleanColumn();
+            return new ObjectColumn();
+        }
+
+        abstract void read(ResultSet resultSet, int resultSetIdx, int rowIdx) throws SQLException;
+
+        abstract Object get(int rowIdx);
+
+        protected static int grow(int capacity, int rowIdx) {
+            return rowIdx < capacity ? capacity : Math.max(INITIAL_CAPACITY, Math.max(capacity * 2, rowIdx + 1));
+        }
+    }
+
+    private static class IntColumn extends Column {
+
+        private int[] values = new int[0];
+
+        @Override
+        void read(ResultSet resultSet, int resultSetIdx, int rowIdx) throws SQLException {
+            if (rowIdx == this.values.length) {
+                this.values = Arrays.copyOf(this.values, grow(this.values.length, rowIdx));
+            }
+            this.values[rowIdx] = resultSet.getInt(resultSetIdx);
+            if (resultSet.wasNull()) {
+                this.nulls.set(rowIdx);
+            }
+        }
+
+        @Override
+        Object get(int rowIdx) {
+            return this.nulls.get(rowIdx) ? null : this.values[rowIdx];
+        }
+    }
+
+    private static class LongColumn extends Column {
+
+        private long[] values = new long[0];
+
+        @Override
+        void read(ResultSet resultSet, int resultSetIdx, int rowIdx) throws SQLException {
+            if (rowIdx == this.values.length) {
+                this.values = Arrays.copyOf(this.values, grow(this.values.length, rowIdx));
+            }
+            this.values[rowIdx] = resultSet.getLong(resultSetIdx);
+            if (resultSet.wasNull()) {
+                this.nulls.set(rowIdx);
+            }
+        }
+
+        @Override
+        Object get(int rowIdx) {
+            return this.nulls.get(rowIdx) ? null : this.values[rowIdx];
+        }
+    }
+
+    private static class DoubleColumn extends Column {
+
+        private double[] values = new double[0];
+
+        @Override
+        void read(ResultSet resultSet, int resultSetIdx, int rowIdx) throws SQLException {
+            if (rowIdx == this.values.length) {
+                this.values = Arrays.copyOf(this.values, grow(this.values.length, rowIdx));
+            }
+            this.values[rowIdx] = resultSet.getDouble(resultSetIdx);
+            if (resultSet.wasNull()) {
+                this.nulls.set(rowIdx);
+            }
+        }
+
+        @Override
+        Object get(int rowIdx) {
+            return this.nulls.get(rowIdx) ? null : this.values[rowIdx];
+        }
+    }
+
+    private static class BooleanColumn extends Column {
+
+        private final BitSet values = new BitSet();
+
+        @Override
+        void read(ResultSet resultSet, int resultSetIdx, int rowIdx) throws SQLException {
+            if (resultSet.getBoolean(resultSetIdx)) {
+                this.values.set(rowIdx);
+            }
+            if (resultSet.wasNull()) {
+                this.nulls.set(rowIdx);
+            }
+        }
+
+        @Override
+        Object get(int rowIdx) {
+            return this.nulls.get(rowIdx) ? null : this.values.get(rowIdx);
+        }
+    }
+
+    private static class ObjectColumn extends Column {
+
+        private Object[] values = new Object[0];
+
+        @Override
+        void read(ResultSet resultSet, int resultSetIdx, int rowIdx) throws SQLException {
+            if (rowIdx == this.values.length) {
+                this.values = Arrays.copyOf(this.values, grow(this.values.length, rowIdx));
+            }
+            this.values[rowIdx] = resultSet.getObject(resultSetIdx);
+        }
+
+        @Override
+        Object get(int rowIdx) {
+            return this.values[rowIdx];
+        }
+    }
+
+    /**
+     * A row, as a map over the columns, which is detached into a copy of its own on the first change
+     */
+    private class RowView extends AbstractMap<String, Object> {
+
+        private final int rowIdx;
+
+        RowView(int rowIdx) {
+            this.rowIdx = rowIdx;
+        }
+
+        @Override
+        public Object get(Object columnName) {
+            Map<String, Object> detachedRow = getDetachedRow();
+            if (detachedRow != null) return detachedRow.get(columnName);
+
+            Integer columnIdx = ColumnarRows.this.columnIdxs.get(columnName);
+            return columnIdx != null ? ColumnarRows.this.columns[columnIdx].get(this.rowIdx) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object columnName) {
+            Map<String, Object> detachedRow = getDetachedRow();
+            return detachedRow != null ? detachedRow.containsKey(columnName) : ColumnarRows.this.columnIdxs.containsKey(columnName);
+        }
+
+        @Override
+        public int size() {
+            Map<String, Object> detachedRow = getDetachedRow();
+            return detachedRow != null ? detachedRow.size() : ColumnarRows.this.columnNames.length;
+        }
+
+        @Override
+        public Set<String> keySet() {
+            return new AbstractSet<String>() {
+                @Override
+                public Iterator<String> iterator() {
+                    Map<String, Object> detachedRow = getDetachedRow();
+                    return detachedRow != null ? detachedRow.keySet().iterator() : new ColumnIterator<>(columnIdx -> ColumnarRows.this.columnNames[columnIdx]);
+                }
+
+                @Override
+                public int size() {
+                    return RowView.this.size();
+                }
+
+                @Override
+                public boolean contains(Object columnName) {
+                    return containsKey(columnName);
+                }
+
+                @Override
+                public boolean remove(Object columnName) {
+                    if (!containsKey(columnName)) return false;
+
+                    RowView.this.remove(columnName);
+                    return true;
+                }
+
+                @Override
+                public void clear() {
+                    RowView.this.clear();
+                }
+            };
+        }
+
+        @Override
+        public Object put(String columnName, Object value) {
+            return detach().put(columnName, value);
+        }
+
+        @Override
+        public Object remove(Object columnName) {
+            return detach().remove(columnName);
+        }
+
+        @Override
+        public void clear() {
+            detach().clear();
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return new AbstractSet<Entry<String, Object>>() {
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    Map<String, Object> detachedRow = getDetachedRow();
+                    return detachedRow != null ? detachedRow.entrySet().iterator() : new ColumnIterator<>(RowEntry::new);
+                }
+
+                @Override
+                public int size() {
+                    return RowView.this.size();
+                }
+
+                @Override
+                public void clear() {
+                    RowView.this.clear();
+                }
+            };
+        }
+
+        private Map<String, Object> getDetachedRow() {
+            return ColumnarRows.this.detachedRows != null ? ColumnarRows.this.detachedRows.get(this.rowIdx) : null;
+        }
+
+        /**
+         * Returns the copy of the row which replaces the view of this row in the list, copying the values on the first call
+         */
+        private Map<String, Object> detach() {
+            return ColumnarRows.this.detach(this.rowIdx);
+        }
+
+        /**
+         * Iterates over the columns of the view, and removes a column from the row by detaching it
+         */
+        private class ColumnIterator<E> implements Iterator<E> {
+
+            private final IntFunction<E> elementOfColumn;
+            private int columnIdx = 0;
+            private boolean removable = false;
+
+            ColumnIterator(IntFunction<E> elementOfColumn) {
+                this.elementOfColumn = elementOfColumn;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return this.columnIdx < ColumnarRows.this.columnNames.length;
+            }
+
+            @Override
+            public E next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                this.removable = true;
+                return this.elementOfColumn.apply(this.columnIdx++);
+            }
+
+            @Override
+            public void remove() {
+                if (!this.removable) {
+                    throw new IllegalStateException();
+                }
+                this.removable = false;
+                detach().remove(ColumnarRows.this.columnNames[this.columnIdx - 1]);
+            }
+        }
+
+        /**
+         * An entry of a column of the view, which reads and changes the value through the row, so a change detaches the row
+         */
+        private class RowEntry implements Entry<String, Object> {
+
+            private final String columnName;
+
+            RowEntry(int columnIdx) {
+                this.columnName = ColumnarRows.this.columnNames[columnIdx];
+            }
+
+            @Override
+            public String getKey() {
+                return this.columnName;
+            }
+
+            @Override
+            public Object getValue() {
+                return get(this.columnName);
+            }
+
+            @Override
+            public Object setValue(Object value) {
+                return put(this.columnName, value);
+            }
+
+            @Override
+            public boolean equals(Object o) {
+                if (!(o instanceof Entry)) return false;
+                Entry<?, ?> that = (Entry<?, ?>) o;
+                return Objects.equals(this.columnName, that.getKey()) && Objects.equals(getValue(), that.getValue());
+            }
+
+            @Override
+            public int hashCode() {
+                return Objects.hashCode(this.columnName) ^ Objects.hashCode(getValue());
+            }
+
+            @Override
+            public String toString() {
+                return this.columnName + "=" + getValue();
+            }
+        }
+    }
+}
@@ -1,23 +1,43 @@
 package in.acode.utdatagen;
 
 import in.acode.utdatagen.meta.DBColumnMetadata;
-import in.acode.utdatagen.meta.DBColumnMetadataBuilder;
-import in.acode.utdatagen.utils.JdbcTypeUtils;
+import in.acode.utdatagen.meta.DBIndexMetadata;
+import in.acode.utdatagen.meta.DBMetadataCache;
+import in.acode.utdatagen.meta.DBTableMetadata;
 import in.acode.utdatagen.utils.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
 import org.springframework.jdbc.core.RowMapper;
-import java.sql.DatabaseMetaData;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.sql.Connection;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.sql.Types;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.function.BiFunction;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Central class of the framework which is to be used by the clients of this library
@@ -28,44 +48,238 @@ public class DBTableFixture {
 
     private static final Log LOG = LogFactory.getLog(DBTableFixture.class);
 
+    /**
+     * Number of rows generated and sent to the DB in one JDBC batch, unless specified otherwise
+     */
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    /**
+     * Number of generated batches which can wait to be inserted in a pipelined insertion, unless specified otherwise
+     */
+    public static final int DEFAULT_PIPELINE_DEPTH = 4;
+
+    /**
+     * Row count returned when resetting a table with a ResetStrategy which can't tell how many rows were removed
+     */
+    public static final int UNKNOWN_ROW_COUNT = -1;
+
     private String tableName;
     private JdbcTemplate jdbcTemplate;
     private volatile List<DBColumnMetadata> columns;
+    private int batchSize;
+    private int pipelineDepth;
+    private InsertionStrategy insertionStrategy;
+    private int maxBindParameters;
+    private int maxPacketSize;
+    private ResetStrategy resetStrategy;
+    private boolean foreignKeyChecksDisabled;
+    private boolean datasetCompressed;
+    private int digestChunkWidth;
+
+    /**
+     * Executor of the async operations, null for the shared executor of the DataSource, see AsyncExecutors
+     */
+    private Executor asyncExecutor;
 
     private DBTableFixture(String tableName, JdbcTemplate jdbcTemplate) {
         this.tableName = tableName;
         this.jdbcTemplate = jdbcTemplate;
         this.columns = new ArrayList<>();
+        this.batchSize = DEFAULT_BATCH_SIZE;
+        this.pipelineDepth = DEFAULT_PIPELINE_DEPTH;
+        this.insertionStrategy = InsertionStrategy.BATCHED_STATEMENTS;
+        this.maxBindParameters = 0;
+        this.maxPacketSize = MultiRowValuesWriter.DEFAULT_MAX_PACKET_SIZE;
+        this.resetStrategy = ResetStrategy.DELETE;
+        this.foreignKeyChecksDisabled = false;
+        this.datasetCompressed = false;
+        this.digestChunkWidth = TableDigest.DEFAULT_CHUNK_WIDTH;
     }
 
     public static DBTableFixture getInstance(String tableName, JdbcTemplate jdbcTemplate) {
         return new DBTableFixture(tableName, jdbcTemplate);
     }
 
+    /**
+     * Sets the number of rows which are generated and inserted together in a single JDBC batch
+     * <br>Only one batch of rows is held in memory at a time, so the memory used by <code>insertRows()</code>
+     * depends on the batch size and not on the total number of rows being inserted
+     */
+    public DBTableFixture withBatchSize(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be more than 0");
+        }
+
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Sets the max number of generated batches which can wait to be inserted in <code>insertRowsPipelined()</code>
+     * <br>A deeper pipeline smooths out the differences in speed of the generation and the DB writes,
+     * at the cost of holding more batches in memory
+     */
+    public DBTableFixture withPipelineDepth(int pipelineDepth) {
+        if (pipelineDepth <= 0) {
+            throw new IllegalArgumentException("Pipeline depth must be more than 0");
+        }
+
+        this.pipelineDepth = pipelineDepth;
+        return this;
+    }
+
+    public int getPipelineDepth() {
+        return pipelineDepth;
+    }
+
+    /**
+     * Sets the way in which the generated rows are sent to the DB, see InsertionStrategy
+     */
+    public DBTableFixture withInsertionStrategy(InsertionStrategy insertionStrategy) {
+        if (insertionStrategy == null) {
+            throw new IllegalArgumentException("Insertion strategy must not be null");
+        }
+
+        this.insertionStrategy = insertionStrategy;
+        return this;
+    }
+
+    public InsertionStrategy getInsertionStrategy() {
+        return insertionStrategy;
+    }
+
+    /**
+     * Sets the max number of bind-parameters in a single statement, used by InsertionStrategy.MULTI_ROW_VALUES
+     * <br>By default, the limit is chosen based on the DB product the fixture is connected to
+     */
+    public DBTableFixture withMaxBindParameters(int maxBindParameters) {
+        if (maxBindParameters <= 0) {
+            throw new IllegalArgumentException("Max bind parameters must be more than 0");
+        }
+
+        this.maxBindParameters = maxBindParameters;
+        return this;
+    }
+
+    /**
+     * Sets the max size in bytes of a single statement, used by InsertionStrategy.MULTI_ROW_VALUES
+     * <br>It should not be more than the max packet size accepted by the DB server e.g. max_allowed_packet for MySQL.
+     * The default is 4 MB
+     */
+    public DBTableFixture withMaxPacketSize(int maxPacketSize) {
+        if (maxPacketSize <= 0) {
+            throw new IllegalArgumentException("Max packet size must be more than 0");
+        }
+
+        this.maxPacketSize = maxPacketSize;
+        return this;
+    }
+
+    /**
+     * Sets the way in which <code>truncateTable()</code> removes the rows, see ResetStrategy
+     */
+    public DBTableFixture withResetStrategy(ResetStrategy resetStrategy) {
+        if (resetStrategy == null) {
+            throw new IllegalArgumentException("Reset strategy must not be null");
+        }
+
+        this.resetStrategy = resetStrategy;
+        return this;
+    }
+
+    public ResetStrategy getResetStrategy() {
+        return resetStrategy;
+    }
+
+    /**
+     * Sets whether the foreign key checks are disabled while the table is being reset, so that it can be reset before the tables referencing it
+     * <br>Supported on MySQL (for the session) and H2 (for the table). It leaves the rows referencing this table orphaned
+     */
+    public DBTableFixture withForeignKeyChecksDisabled(boolean foreignKeyChecksDisabled) {
+        this.foreignKeyChecksDisabled = foreignKeyChecksDisabled;
+        return this;
+    }
+
+    /**
+     * Sets whether the dataset files saved by the fixture are compressed, see <code>saveDataset()</code>
+     * <br>Each block of the file is deflated separately with the fastest level, which is worth it for slow disks or datasets kept in a repository
+     */
+    public DBTableFixture withDatasetCompression(boolean datasetCompressed) {
+        this.datasetCompressed = datasetCompressed;
+        return this;
+    }
+
+    /**
+     * Sets the number of keys in a chunk of the digests computed by the fixture, see <code>computeDigest()</code>
+     * <br>A mismatch is narrowed down to chunks of this width, so narrower chunks fetch fewer rows for a mismatch, at the cost of more chunks in a digest
+     */
+    public DBTableFixture withDigestChunkWidth(int digestChunkWidth) {
+        if (digestChunkWidth <= 0) {
+            throw new IllegalArgumentException("Digest chunk width must be more than 0");
+        }
+
+        this.digestChunkWidth = digestChunkWidth;
+        return this;
+    }
+
+    /**
+     * Sets the executor which runs the async operations of the fixture, e.g. <code>insertRowsAsync()</code>
+     * <br>By default they run on an executor shared by all the fixtures of the DataSource, with as many threads as the max size of its connection pool
+     */
+    public DBTableFixture withAsyncExecutor(Executor asyncExecutor) {
+        if (asyncExecutor == null) {
+            throw new IllegalArgumentException("Async executor must not be null");
+        }
+
+        this.asyncExecutor = asyncExecutor;
+        return this;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    JdbcTemplate getJdbcTemplate() {
+        return jdbcTemplate;
+    }
+
     public List<DBColumnMetadata> getColumns() {
         return columns;
     }
 
+    /**
+     * Returns the metadata of the table including its primary key, foreign keys and indexes, null if the table does not exist
+     * <br>It comes from DBMetadataCache, which may have been primed for the whole schema by DBSchemaIntrospector
+     */
+    public DBTableMetadata getTableMetadata() {
+        return DBMetadataCache.getInstance().getTable(this.jdbcTemplate, null, null, this.tableName);
+    }
+
     /**
      * Fetches all rows and returns them in a list
      * Each item in the list is a Map, with column-name as the key and corresponding data as the value
+     * <br>The rows are held column by column, with the values of the numeric and boolean columns in primitive arrays,
+     * and each Map is a view of a row over them, which is copied when it is changed (see ColumnarRows). The list can be changed like an ArrayList
      * @param orderByClause columns to order the data e.g. "EMPLOYEE_ID" or "EMPLOYEE_ID DESC"
      * @return list with an item per row
      */
     public List<Map<String, Object>> getAllRows(String... orderByClause) {
         String sql = getSelectSQL(orderByClause);
-        List<Map<String, Object>> listOfDataMaps = new ArrayList<>();
         fillInternalStateWithDBMetadata();
+        List<DBColumnMetadata> columns = this.columns;
 
-        jdbcTemplate.query(sql, resultSet -> {
-            HashMap<String, Object> rowData = new HashMap<>();
-            for(DBColumnMetadata columnMetadata : DBTableFixture.this.columns) {
-                rowData.put(columnMetadata.getColumnName(), resultSet.getObject(columnMetadata.getColumnName()));
-            }
-            listOfDataMaps.add(rowData);
-        });
+        return jdbcTemplate.query(sql, (ResultSetExtractor<List<Map<String, Object>>>) resultSet -> ColumnarRows.read(resultSet, columns));
+    }
 
-        return listOfDataMaps;
+    /**
+     * Fetches all rows like <code>getAllRows()</code>, on the async executor of the fixture, see <code>withAsyncExecutor()</code>
+     */
+    public CompletableFuture<List<Map<String, Object>>> getAllRowsAsync(String... orderByClause) {
+        return runAsync(() -> getAllRows(orderByClause));
     }
 
     /**
@@ -95,119 +309,931 @@ public class DBTableFixture {
         return sqlBuilder.toString();
     }
 
-    public void insertRows(InsertionCriteria criteria) {
-        fillInternalStateWithDBMetadata();
+    /**
+     * Streams the rows specified by the criteria, reading them as the stream is consumed, unlike <code>getAllRows()</code> which holds all of them in a list
+     * Each item in the stream is a Map, with column-name as the key and corresponding data as the value
+     * <br>The stream must be closed, e.g. with try-with-resources, unless it is consumed to the end
+     */
+    public Stream<Map<String, Object>> streamRows(SelectionCriteria criteria) {
+        return streamRows(criteria, RowStreams.newMapRowMapper());
+    }
 
-        int numOfColumnsToSet = (int)this.columns.stream().filter(c -> c.isValueEditable()).count();
-        if (numOfColumnsToSet == 0) {
-            throw new IllegalStateException("The table [" + this.tableName + "] does not contain any editable columns!");
+    /**
+     * Streams the rows specified by the criteria, reading them as the stream is consumed
+     * Each item in the stream is an object created by the supplied <code>rowMapper</code>
+     * <br>Over a cursor, the connection is held until the stream is consumed to the end or closed.
+     * Inside a FixtureSession, the stream reads over the connection of the session, and sees the rows inserted in it
+     * @throws IllegalStateException for keyset pagination, if the table has no primary key
+     * @throws IllegalArgumentException for keyset pagination, if an order is set too
+     */
+    public <T> Stream<T> streamRows(SelectionCriteria criteria, RowMapper<T> rowMapper) {
+        List<String> columnNames = new ArrayList<>(criteria.getColumnNames());
+        String filter = StringUtils.isEmpty(criteria.getFilter()) ? null : criteria.getFilter();
+
+        if (criteria.isKeysetPagination()) {
+            if (!criteria.getOrderByClause().isEmpty()) {
+                throw new IllegalArgumentException("The rows of a keyset pagination are in the order of the primary key, no other order can be set");
+            }
+
+            DBTableMetadata tableMetadata = getTableMetadata();
+            List<String> keyColumnNames = tableMetadata != null ? tableMetadata.getPrimaryKeyColumnNames() : Collections.emptyList();
+            if (keyColumnNames.isEmpty()) {
+                throw new IllegalStateException("The table [" + this.tableName + "] has no primary key to paginate by");
+            }
+
+            if (!columnNames.isEmpty()) {
+                for (String keyColumnName : keyColumnNames) {
+                    if (columnNames.stream().noneMatch(keyColumnName::equalsIgnoreCase)) {
+                        columnNames.add(keyColumnName);
+                    }
+                }
+            }
+            return RowStreams.openPages(this.jdbcTemplate, this.tableName, getColumnList(columnNames), keyColumnNames,
+                filter, criteria.getFilterArgs(), criteria.getPageSize(), rowMapper);
+        }
+
+        StringBuilder sqlBuilder = new StringBuilder("SELECT " + getColumnList(columnNames) + " FROM " + this.tableName);
+        if (filter != null) {
+            sqlBuilder.append(" WHERE ").append(filter);
+        }
+        if (!criteria.getOrderByClause().isEmpty()) {
+            sqlBuilder.append(" ORDER BY ").append(String.join(", ", criteria.getOrderByClause()));
+        }
+
+        int fetchSize = criteria.getFetchSize() > 0 ? criteria.getFetchSize() : this.batchSize;
+        return RowStreams.openCursor(this.jdbcTemplate, sqlBuilder.toString(), criteria.getFilterArgs(), fetchSize, rowMapper);
+    }
+
+    private static String getColumnList(List<String> columnNames) {
+        return columnNames.isEmpty() ? "*" : String.join(", ", columnNames);
+    }
+
+    /**
+     * Generates and inserts the rows specified by the criteria
+     * Rows are generated in batches of <code>batchSize</code> rows, and each batch is inserted before the next one is generated
+     * <br>Use <code>InsertionCriteria.ensureDataset()</code> to skip the insertion when the table already holds the same rows,
+     * or <code>InsertionCriteria.appendToTable()</code> to continue after the rows it already holds
+     * @return timings of the generation and insertion of the rows
+     */
+    public InsertionStats insertRows(InsertionCriteria criteria) {
+        return ensureDataset(criteria, () -> generateAndInsert(criteria));
+    }
+
+    /**
+     * Generates and inserts the rows like <code>insertRows()</code>, on the async executor of the fixture, see <code>withAsyncExecutor()</code>
+     * <br>The seeding of several tables can be started at once and joined, e.g.
+     * <code>CompletableFuture.allOf(ordersFixture.insertRowsAsync(orderCriteria), productsFixture.insertRowsAsync(productCriteria)).join()</code>.
+     * The criteria and the fixture must not be changed until the future completes
+     */
+    public CompletableFuture<InsertionStats> insertRowsAsync(InsertionCriteria criteria) {
+        return runAsync(() -> insertRows(criteria));
+    }
+
+    private InsertionStats generateAndInsert(InsertionCriteria criteria) {
+        prepareForInsertion();
+        long startTime = System.nanoTime();
+
+        RowPlan plan = compilePlan(criteria);
+        RowGenerator rowGenerator = newRowGenerator(criteria, plan);
+        LOG.info("Starting row insertion with seed [" + plan.getSeed() + "] ...");
+        long[] insertionStats = insertAllRows(rowGenerator);
+
+        InsertionStats stats = new InsertionStats(criteria.getNumOfRows(), plan.getSeed(), (int)insertionStats[0], insertionStats[1], insertionStats[2], 0, 0, System.nanoTime() - startTime);
+        LOG.info("Finished row insertion ... " + stats);
+        logUniqueValues(rowGenerator.getUniqueValues());
+        return stats;
+    }
+
+    /**
+     * Generates and inserts the rows specified by the criteria, with the generation and the insertion running in parallel
+     * <br>A separate thread generates batches of <code>batchSize</code> rows and puts them in a queue,
+     * while the calling thread takes them from the queue and inserts them.
+     * The generator waits when <code>pipelineDepth</code> batches are already waiting in the queue, which bounds the memory in use
+     * <br>The generated rows are the same as the ones generated by <code>insertRows()</code> with the same seed
+     * @return timings of both the stages, use them to find out which stage limits the throughput
+     */
+    public InsertionStats insertRowsPipelined(InsertionCriteria criteria) {
+        return ensureDataset(criteria, () -> generateAndInsertPipelined(criteria));
+    }
+
+    private InsertionStats generateAndInsertPipelined(InsertionCriteria criteria) {
+        prepareForInsertion();
+        RowPlan plan = compilePlan(criteria);
+        RowGenerator rowGenerator = newRowGenerator(criteria, plan);
+        long startTime = System.nanoTime();
+        InsertionStats stats;
+
+        LOG.info("Starting pipelined row insertion with seed [" + plan.getSeed() + "] ...");
+        try (RowPipeline pipeline = new RowPipeline(rowGenerator, this.batchSize, this.pipelineDepth, "utdatagen-generator-" + this.tableName)) {
+            pipeline.start();
+            long[] writerStats = writeAllBatches(pipeline);
+
+            stats = new InsertionStats(criteria.getNumOfRows(), plan.getSeed(), (int)writerStats[0], pipeline.getGenerationNanos(), writerStats[1],
+                pipeline.getGeneratorWaitNanos(), writerStats[2], System.nanoTime() - startTime);
+        }
+
+        LOG.info("Finished pipelined row insertion ... " + stats);
+        logUniqueValues(rowGenerator.getUniqueValues());
+        return stats;
+    }
+
+    /**
+     * Generates and inserts the rows specified by the criteria, using multiple worker threads
+     * <br>The range of row indexes is split in <code>numOfWorkers</code> contiguous partitions.
+     * Each worker generates the rows of its partition and inserts them in batches, over its own connection from the DataSource
+     * <br>The generated rows are the same as the ones generated by <code>insertRows()</code> with the same seed, provided that -
+     * <br>&emsp;1. The value-suppliers are thread-safe, and use CellRandom for random values
+     * <br>&emsp;2. The suppliers which use the previous value depend only on the row-index and the previous value.
+     * The previous values at the partition boundaries are found by replaying such suppliers from the first row, before the workers start
+     * <br>The rows are inserted without any ordering across the partitions
+     * <br>The values of the unique columns are kept unique across the partitions. A duplicate is generated again by the worker which generates it last,
+     * so the rows differ from the ones of <code>insertRows()</code> when duplicates are generated
+     * <br>Inside a FixtureSession, or any other transaction on the DataSource, the workers' connections would be outside the transaction.
+     * So the rows are inserted by <code>insertRowsPipelined()</code> instead, over the connection of the transaction
+     * @return timings of the insertion, generation and write times are summed across the workers
+     */
+    public InsertionStats insertRowsInParallel(InsertionCriteria criteria, int numOfWorkers) {
+        if (numOfWorkers <= 0) {
+            throw new IllegalArgumentException("Number of workers must be more than 0");
+        }
+        if (FixtureSession.isActive(this.jdbcTemplate.getDataSource())) {
+            LOG.warn("A transaction is active on the DataSource, inserting the rows over its connection instead of in parallel");
+            return insertRowsPipelined(criteria);
+        }
+
+        return ensureDataset(criteria, () -> generateAndInsertInParallel(criteria, numOfWorkers));
+    }
+
+    private InsertionStats generateAndInsertInParallel(InsertionCriteria criteria, int numOfWorkers) {
+        prepareForInsertion();
+        long startTime = System.nanoTime();
+        int numOfRows = criteria.getNumOfRows();
+        int numOfPartitions = Math.min(numOfWorkers, numOfRows);
+        RowPlan plan = compilePlan(criteria);
+        int startRowIdx = getStartRowIdx(criteria);
+
+        int[] partitionStarts = new int[numOfPartitions];
+        for (int i = 0; i < numOfPartitions; i++) {
+            partitionStarts[i] = startRowIdx + (int)((long)numOfRows * i / numOfPartitions);
         }
+        List<Object[]> prevValuesAtPartitionStarts = RowGenerator.getPrevValuesAt(plan, startRowIdx, getStartPrevValues(criteria, plan), partitionStarts);
+        UniqueValues uniqueValues = UniqueValues.forPlan(plan);
+
+        AtomicInteger threadCounter = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(numOfPartitions, runnable -> {
+            Thread thread = new Thread(runnable, "utdatagen-worker-" + this.tableName + "-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
 
-        String SQL = getInsertStatement();
-        List<Object[]> listOfSQLArgs = getInsertionArguments(criteria, numOfColumnsToSet);
+        LOG.info("Starting parallel row insertion with [" + numOfPartitions + "] workers and seed [" + plan.getSeed() + "] ...");
+        List<Future<long[]>> futures = new ArrayList<>();
+        for (int i = 0; i < numOfPartitions; i++) {
+            int endRowIdx = (i == numOfPartitions - 1) ? startRowIdx + numOfRows : partitionStarts[i + 1];
+            RowGenerator rowGenerator = new RowGenerator(plan, partitionStarts[i], endRowIdx, prevValuesAtPartitionStarts.get(i), uniqueValues);
+            futures.add(executor.submit(() -> insertAllRows(rowGenerator)));
+        }
 
-        LOG.info("Starting row insertion ...");
-        jdbcTemplate.batchUpdate(SQL, listOfSQLArgs);
-        LOG.info("Finished row insertion ...");
+        long generationNanos = 0, writeNanos = 0, numOfBatches = 0;
+        try {
+            for (Future<long[]> future : futures) {
+                long[] partitionStats = future.get();
+                numOfBatches += partitionStats[0];
+                generationNanos += partitionStats[1];
+                writeNanos += partitionStats[2];
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the workers to insert rows", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Failed to insert rows", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        InsertionStats stats = new InsertionStats(numOfRows, plan.getSeed(), (int)numOfBatches, generationNanos, writeNanos, 0, 0, System.nanoTime() - startTime);
+        LOG.info("Finished parallel row insertion ... " + stats);
+        logUniqueValues(uniqueValues);
+        if (uniqueValues != null && uniqueValues.getNumOfDuplicates() > 0) {
+            LOG.warn("[" + uniqueValues.getNumOfDuplicates() + "] duplicates of the unique columns of [" + this.tableName + "] were generated again in parallel,"
+                + " so the rows may differ from the ones of the seed [" + plan.getSeed() + "] inserted serially or pipelined");
+        }
+        return stats;
     }
 
-    private String getInsertStatement() {
-        StringBuilder insertPartBuilder = new StringBuilder("INSERT INTO " + this.tableName + " (");
-        StringBuilder valuesPartBuilder = new StringBuilder("VALUES (");
+    /**
+     * Runs the insertion, unless the criteria ensures a dataset which the table already holds, see <code>InsertionCriteria.ensureDataset()</code>
+     * <br>Before inserting the rows of such a criteria, its marker is removed and the table is reset, and the marker is put back after inserting them.
+     * Any other insertion removes the marker, as the table no longer holds just the dataset
+     */
+    private InsertionStats ensureDataset(InsertionCriteria criteria, Supplier<InsertionStats> insertion) {
+        DatasetMarker datasetMarker = new DatasetMarker(this.jdbcTemplate, this.tableName);
+        if (!criteria.isEnsureDataset()) {
+            datasetMarker.remove();
+            return insertion.get();
+        }
+        if (criteria.getSeed() == null) {
+            throw new IllegalArgumentException("Seed must be set to ensure a dataset");
+        }
+        if (criteria.isAppendToTable()) {
+            throw new IllegalArgumentException("A dataset can't be ensured while appending to the table, as the table holds more than the dataset");
+        }
+        if (FixtureSession.isActive(this.jdbcTemplate.getDataSource())) {
+            throw new IllegalStateException("A dataset can't be ensured inside a transaction, as its marker would be rolled back with the transaction");
+        }
 
-        for (DBColumnMetadata column : this.columns) {
-            if (column.isValueEditable()) {
-                insertPartBuilder = insertPartBuilder.append(column.getColumnName()).append(", ");
-                valuesPartBuilder = valuesPartBuilder.append("?, ");
+        prepareForInsertion();
+        long startTime = System.nanoTime();
+        String fingerprint = DatasetMarker.getFingerprint(criteria, compilePlan(criteria), this.columns);
+
+        if (datasetMarker.matches(fingerprint, criteria.getNumOfRows())) {
+            InsertionStats stats = InsertionStats.skipped(criteria.getNumOfRows(), criteria.getSeed(), System.nanoTime() - startTime);
+            LOG.info("Skipped row insertion, the table [" + this.tableName + "] already holds the dataset ... " + stats);
+            return stats;
+        }
+
+        LOG.info("The table [" + this.tableName + "] does not hold the dataset [" + fingerprint + "], inserting it");
+        datasetMarker.remove();
+        truncateTable();
+        InsertionStats stats = insertion.get();
+        datasetMarker.put(fingerprint, criteria.getNumOfRows());
+        return stats;
+    }
+
+    /**
+     * Generates the rows specified by the criteria and saves them to a dataset file, without inserting them
+     * <br>The file is compact binary, holding the values of each batch column by column, see <code>withDatasetCompression()</code>.
+     * <code>restoreDataset()</code> inserts the same rows again without calling any value-supplier
+     * @return number of rows saved
+     */
+    public long saveDataset(InsertionCriteria criteria, Path file) {
+        prepareForInsertion();
+        RowPlan plan = compilePlan(criteria);
+        RowGenerator rowGenerator = new RowGenerator(plan);
+
+        LOG.info("Starting to save a dataset with seed [" + plan.getSeed() + "] to [" + file + "] ...");
+        long numOfRows;
+        try (DatasetWriter datasetWriter = new DatasetWriter(file, plan, this.batchSize, plan.getSeed(), this.datasetCompressed)) {
+            RowBatch batch = rowGenerator.newBatch(this.batchSize);
+            while (rowGenerator.hasNext()) {
+                rowGenerator.nextBatch(batch);
+                datasetWriter.write(batch);
+            }
+            numOfRows = datasetWriter.finish();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to save the dataset [" + file + "]", e);
+        }
+
+        LOG.info("Finished saving [" + numOfRows + "] rows to the dataset [" + file + "]");
+        return numOfRows;
+    }
+
+    /**
+     * Saves the current rows of the table to a dataset file, see <code>saveDataset()</code>
+     * <br>Only the editable columns are saved, the same ones which the fixture inserts, so e.g. the auto-increment keys are generated again on restoring.
+     * The rows are read <code>batchSize</code> at a time, so the memory used does not depend on the size of the table
+     * @return number of rows saved
+     */
+    public long saveTableDataset(Path file) {
+        prepareForInsertion();
+        RowPlan plan = RowPlan.forTableColumns(this.columns);
+        String columnList = getEditableColumns().stream().map(DBColumnMetadata::getColumnName).collect(Collectors.joining(", "));
+
+        LOG.info("Starting to save the rows of the table [" + this.tableName + "] to [" + file + "] ...");
+        RowBatch batch = new RowBatch(plan, this.batchSize);
+        String sql = "SELECT " + columnList + " FROM " + this.tableName;
+        long numOfRows;
+        try (DatasetWriter datasetWriter = new DatasetWriter(file, plan, this.batchSize, null, this.datasetCompressed);
+             Stream<RowBatch> rows = RowStreams.openCursor(this.jdbcTemplate, sql, new Object[0], this.batchSize, (resultSet, rowNum) -> {
+                 readRow(resultSet, plan, batch, rowNum % this.batchSize);
+                 return batch;
+             })) {
+            Iterator<RowBatch> rowIterator = rows.iterator();
+            int rowIdx = 0;
+            while (rowIterator.hasNext()) {
+                rowIterator.next();
+                if (++rowIdx == this.batchSize) {
+                    batch.setSize(rowIdx);
+                    datasetWriter.write(batch);
+                    rowIdx = 0;
+                }
             }
+            batch.setSize(rowIdx);
+            datasetWriter.write(batch);
+            numOfRows = datasetWriter.finish();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to save the dataset [" + file + "]", e);
         }
 
-        insertPartBuilder.setLength(insertPartBuilder.length() - 2);
-        insertPartBuilder = insertPartBuilder.append(") ");
+        LOG.info("Finished saving [" + numOfRows + "] rows to the dataset [" + file + "]");
+        return numOfRows;
+    }
+
+    private static void readRow(ResultSet resultSet, RowPlan plan, RowBatch batch, int rowIdx) throws SQLException {
+        for (int slot = 0; slot < plan.getNumOfColumns(); slot++) {
+            switch (plan.getValueKind(slot)) {
+                case INT:
+                    batch.getLongValues(slot)[rowIdx] = resultSet.getInt(slot + 1);
+                    break;
+                case LONG:
+                    batch.getLongValues(slot)[rowIdx] = resultSet.getLong(slot + 1);
+                    break;
+                case BOOLEAN:
+                    batch.getLongValues(slot)[rowIdx] = resultSet.getBoolean(slot + 1) ? 1 : 0;
+                    break;
+                case DOUBLE:
+                    batch.getDoubleValues(slot)[rowIdx] = resultSet.getDouble(slot + 1);
+                    break;
+                default:
+                    batch.getObjectValues(slot)[rowIdx] = resultSet.getObject(slot + 1);
+            }
+        }
+    }
+
+    /**
+     * Inserts the rows of a dataset file saved by <code>saveDataset()</code> or <code>saveTableDataset()</code>
+     * <br>No value is generated, a separate thread reads and decodes the batches of the file while the calling thread inserts them,
+     * with the insertion strategy of the fixture. So restoring is bound by the I/O of the file and the DB, use InsertionStrategy.BULK_LOAD for the fastest one
+     * <br>The columns of the dataset must be the editable columns of the table, in any order. The batches are as big as they were when the dataset was saved
+     * @return timings of the restoration, where the generation time is the time spent reading the file.
+     * The seed is the one of the generated rows, or 0 for the rows saved from a table
+     */
+    public InsertionStats restoreDataset(Path file) {
+        prepareForInsertion();
+        long startTime = System.nanoTime();
+        InsertionStats stats;
+
+        LOG.info("Starting to restore the dataset [" + file + "] ...");
+        new DatasetMarker(this.jdbcTemplate, this.tableName).remove();
+        try (DatasetReader datasetReader = new DatasetReader(file)) {
+            datasetReader.mapTo(getEditableColumns().stream().map(DBColumnMetadata::getColumnName).collect(Collectors.toList()));
+
+            try (RowPipeline pipeline = new RowPipeline(datasetReader, datasetReader.getMaxBlockRows(), this.pipelineDepth, "utdatagen-dataset-reader-" + this.tableName)) {
+                pipeline.start();
+                long[] writerStats = writeAllBatches(pipeline);
 
-        valuesPartBuilder.setLength(valuesPartBuilder.length() - 2);
-        valuesPartBuilder = valuesPartBuilder.append(") ");
+                long seed = datasetReader.getSeed() != null ? datasetReader.getSeed() : 0;
+                stats = new InsertionStats((int) datasetReader.getNumOfRows(), seed, (int) writerStats[0], pipeline.getGenerationNanos(), writerStats[1],
+                    pipeline.getGeneratorWaitNanos(), writerStats[2], System.nanoTime() - startTime);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to restore the dataset [" + file + "]", e);
+        }
 
-        return insertPartBuilder.toString() + valuesPartBuilder.toString();
+        LOG.info("Finished restoring the dataset ... " + stats);
+        return stats;
     }
 
-    private List<Object[]> getInsertionArguments(InsertionCriteria criteria, int numOfColumnsToSet) {
-        List<Object[]> listOfSQLArgs = new ArrayList<>();
-        HashMap<String, Object> prevValues = new HashMap<>();
+    /**
+     * Reads the distinct keys of a column of the table into a KeyIndex, e.g. to fill the foreign key column of a child table with
+     * <br>The keys are streamed <code>batchSize</code> rows at a time, and collected as primitives when they are integers,
+     * so only the index itself takes memory
+     */
+    public KeyIndex loadKeyIndex(String columnName) {
+        LOG.info("Starting to load the keys of [" + this.tableName + "." + columnName + "] ...");
+        KeyIndex.Builder builder = new KeyIndex.Builder();
+        String sql = "SELECT " + columnName + " FROM " + this.tableName;
+        try (Stream<Object> keys = RowStreams.openCursor(this.jdbcTemplate, sql, new Object[0], this.batchSize, (resultSet, rowNum) -> resultSet.getObject(1))) {
+            keys.forEach(builder::add);
+        }
+        KeyIndex keyIndex = builder.build();
+        LOG.info("Finished loading the keys of [" + this.tableName + "." + columnName + "] ... " + keyIndex);
+        return keyIndex;
+    }
 
-        for (int i = 0; i < criteria.getNumOfRows(); i++) {
-            Object[] sqlArgs = new Object[numOfColumnsToSet];
-            int colIdx = 0;
+    /**
+     * Generates the values of a column specified by the criteria into a KeyIndex, without reading the table or inserting anything
+     * <br>Only the column is generated, and its values are the same as the ones inserted by the criteria with the same seed,
+     * provided that its value-supplier depends on nothing but the row-index and the previous value, and uses CellRandom for random values.
+     * So the keys of a parent table can be indexed while or even before it is inserted
+     * @param columnName an editable column, whose generated values are the keys
+     */
+    public KeyIndex generateKeyIndex(InsertionCriteria criteria, String columnName) {
+        if (criteria.getSeed() == null) {
+            throw new IllegalArgumentException("Seed must be set to generate a key index");
+        }
 
-            for (int j = 0; j < this.columns.size(); j++) {
-                DBColumnMetadata column = this.columns.get(j);
-                if (!column.isValueEditable()) continue;
+        prepareForInsertion();
+        RowPlan plan = compilePlan(criteria).select(columnName);
+        RowGenerator rowGenerator = new RowGenerator(plan);
+        KeyIndex.Builder builder = new KeyIndex.Builder();
 
-                BiFunction<Integer, Object, Object> columnValueSupplier = criteria.getSupplierForColumn(column.getColumnName());
-                if (columnValueSupplier == null) {
-                    if (!column.isNullable() || criteria.isInsertDefaultsForNullableColumns()) {
-                        columnValueSupplier = column.getDefaultValueSupplier();
+        RowBatch batch = rowGenerator.newBatch(this.batchSize);
+        while (rowGenerator.hasNext()) {
+            rowGenerator.nextBatch(batch);
+            switch (plan.getValueKind(0)) {
+                case INT:
+                    long[] intValues = batch.getLongValues(0);
+                    for (int i = 0; i < batch.size(); i++) {
+                        builder.add((int) intValues[i]);
                     }
+                    break;
+                case LONG:
+                    long[] longValues = batch.getLongValues(0);
+                    for (int i = 0; i < batch.size(); i++) {
+                        builder.add(longValues[i]);
+                    }
+                    break;
+                default:
+                    for (int i = 0; i < batch.size(); i++) {
+                        builder.add(batch.getValue(i, 0));
+                    }
+            }
+        }
+
+        KeyIndex keyIndex = builder.build();
+        LOG.info("Generated the keys of [" + this.tableName + "." + columnName + "] with seed [" + plan.getSeed() + "] ... " + keyIndex);
+        return keyIndex;
+    }
+
+    /**
+     * Computes an order-independent digest of the columns of the rows of the table, see TableDigest
+     * <br>The rows are hashed in SQL aggregates where the DB and the types of the columns allow it, so only the digests are read,
+     * else they are streamed <code>batchSize</code> rows at a time
+     * @param keyColumnName an integer column e.g. the primary key, to keep the digest of each chunk of keys, null for just the digest of all the rows
+     * @param columnNames columns to digest, the editable columns if none are specified
+     */
+    public TableDigest computeDigest(String keyColumnName, String... columnNames) {
+        List<DBColumnMetadata> digestColumns = getDigestColumns(columnNames);
+        DBColumnMetadata keyColumn = keyColumnName != null ? getColumn(keyColumnName) : null;
+        TableDigester tableDigester = new TableDigester(this.jdbcTemplate, this.tableName, digestColumns, keyColumn, this.digestChunkWidth, this.batchSize);
+
+        LOG.info("Starting to compute the digest of [" + this.tableName + "]" + (tableDigester.isPushedDown() ? " in the DB" : " by streaming the rows") + " ...");
+        TableDigest tableDigest = tableDigester.digest();
+        LOG.info("Finished computing the digest of [" + this.tableName + "] ... " + tableDigest);
+        return tableDigest;
+    }
+
+    /**
+     * Computes the digest of the rows specified by the criteria without inserting them, to compare with the digest of the table after inserting them
+     * <br>The values which the DB changes on insertion, e.g. rounds to the precision of a FLOAT column, may not be digested the same way,
+     * see RowHasher for how the values are hashed
+     * @param keyColumnName an editable integer column, null for just the digest of all the rows
+     * @param columnNames editable columns to digest, all the editable columns if none are specified
+     */
+    public TableDigest computeDigest(InsertionCriteria criteria, String keyColumnName, String... columnNames) {
+        prepareForInsertion();
+        RowPlan plan = compilePlan(criteria);
+        List<String> slotColumnNames = new ArrayList<>();
+        for (int slot = 0; slot < plan.getNumOfColumns(); slot++) {
+            slotColumnNames.add(plan.getColumnName(slot));
+        }
+
+        TableDigest tableDigest = digestRows(new RowGenerator(plan), slotColumnNames, keyColumnName, getDigestColumns(columnNames));
+        LOG.info("Computed the digest of the rows of [" + this.tableName + "] with seed [" + plan.getSeed() + "] ... " + tableDigest);
+        return tableDigest;
+    }
+
+    /**
+     * Computes the digest of the rows of a dataset file, see <code>saveDataset()</code>, as a snapshot of the rows the table is expected to hold
+     * @param keyColumnName an integer column of the dataset, null for just the digest of all the rows
+     * @param columnNames columns of the dataset to digest, all the editable columns of the table if none are specified
+     */
+    public TableDigest computeDigest(Path file, String keyColumnName, String... columnNames) {
+        List<DBColumnMetadata> digestColumns = getDigestColumns(columnNames);
+        TableDigest tableDigest;
+        try (DatasetReader datasetReader = new DatasetReader(file)) {
+            tableDigest = digestRows(datasetReader, datasetReader.getColumnNames(), keyColumnName, digestColumns);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read the dataset [" + file + "]", e);
+        }
+
+        LOG.info("Computed the digest of the dataset [" + file + "] ... " + tableDigest);
+        return tableDigest;
+    }
+
+    /**
+     * Narrows a mismatch between the table and the expected digest down to the chunks of keys whose rows differ,
+     * so that only their rows need to be fetched, see <code>TableDigest.KeyRange.toSelectionCriteria()</code>
+     * <br>The chunks are found by bisection, see TableDigester, with a query for each step which narrows down a mismatched range
+     * @param expectedDigest a digest with a key column, e.g. of the generated rows or of a dataset file
+     * @return the mismatched chunks in the order of the keys, none if the table matches the digest
+     */
+    public List<TableDigest.KeyRange> findMismatchedKeyRanges(TableDigest expectedDigest) {
+        if (expectedDigest.getKeyColumnName() == null) {
+            throw new IllegalArgumentException("The digest has no key column to narrow the mismatches down by");
+        }
+
+        List<DBColumnMetadata> digestColumns = getDigestColumns(expectedDigest.getColumnNames().toArray(new String[0]));
+        DBColumnMetadata keyColumn = getColumn(expectedDigest.getKeyColumnName());
+        TableDigester tableDigester = new TableDigester(this.jdbcTemplate, this.tableName, digestColumns, keyColumn, expectedDigest.getChunkWidth(), this.batchSize);
+
+        List<TableDigest.KeyRange> mismatchedKeyRanges = tableDigester.findMismatchedKeyRanges(expectedDigest);
+        LOG.info("Found [" + mismatchedKeyRanges.size() + "] key ranges of [" + this.tableName + "] which don't match the digest " + expectedDigest);
+        return mismatchedKeyRanges;
+    }
+
+    private TableDigest digestRows(RowSource rowSource, List<String> slotColumnNames, String keyColumnName, List<DBColumnMetadata> digestColumns) {
+        int[] slots = new int[digestColumns.size()];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = getSlot(slotColumnNames, digestColumns.get(i).getColumnName());
+        }
+        int keySlot = keyColumnName != null ? getSlot(slotColumnNames, keyColumnName) : -1;
+
+        List<String> digestColumnNames = digestColumns.stream().map(DBColumnMetadata::getColumnName).collect(Collectors.toList());
+        TableDigest.Builder builder = new TableDigest.Builder(digestColumnNames, keyColumnName, this.digestChunkWidth);
+        RowHasher rowHasher = new RowHasher(digestColumns);
+        Object[] values = new Object[slots.length];
+
+        RowBatch batch = rowSource.newBatch(this.batchSize);
+        while (rowSource.hasNext()) {
+            rowSource.nextBatch(batch);
+            for (int rowIdx = 0; rowIdx < batch.size(); rowIdx++) {
+                for (int i = 0; i < slots.length; i++) {
+                    values[i] = batch.getValue(rowIdx, slots[i]);
                 }
+                long rowHash = rowHasher.hash(values);
 
-                Object value = null;
-                if (columnValueSupplier != null) {
-                    value = columnValueSupplier.apply(i, prevValues.get(column.getColumnName()));
+                if (keySlot == -1) {
+                    builder.add(rowHash);
+                    continue;
                 }
-                sqlArgs[colIdx++] = JdbcTypeUtils.toSQLType(value);
-                prevValues.put(column.getColumnName(), value);
+                Object key = batch.getValue(rowIdx, keySlot);
+                if (!(key instanceof Number)) {
+                    throw new IllegalArgumentException("The key column [" + keyColumnName + "] has a value which is not an integer [" + key + "]");
+                }
+                builder.add(((Number) key).longValue(), rowHash);
             }
+        }
+        return builder.build();
+    }
+
+    private static int getSlot(List<String> slotColumnNames, String columnName) {
+        for (int slot = 0; slot < slotColumnNames.size(); slot++) {
+            if (slotColumnNames.get(slot).equalsIgnoreCase(columnName)) return slot;
+        }
+        throw new IllegalArgumentException("The column [" + columnName + "] is not one of the columns " + slotColumnNames);
+    }
 
-            listOfSQLArgs.add(sqlArgs);
+    private List<DBColumnMetadata> getDigestColumns(String... columnNames) {
+        fillInternalStateWithDBMetadata();
+        if (columnNames.length == 0) {
+            return getEditableColumns();
         }
-        return listOfSQLArgs;
+        return Arrays.stream(columnNames).map(this::getColumn).collect(Collectors.toList());
+    }
+
+    private DBColumnMetadata getColumn(String columnName) {
+        fillInternalStateWithDBMetadata();
+        return this.columns.stream()
+            .filter(column -> column.getColumnName().equalsIgnoreCase(columnName))
+            .findFirst()
+            .orElseThrow(() -> new IllegalArgumentException("The column [" + columnName + "] is not a column of the table [" + this.tableName + "]"));
     }
 
+    /**
+     * Creates the generator of all the rows of the plan, continuing after the rows of the table for <code>InsertionCriteria.appendToTable()</code>
+     */
+    private RowGenerator newRowGenerator(InsertionCriteria criteria, RowPlan plan) {
+        if (!criteria.isAppendToTable()) {
+            return new RowGenerator(plan);
+        }
+        int startRowIdx = getStartRowIdx(criteria);
+        return new RowGenerator(plan, startRowIdx, startRowIdx + plan.getNumOfRows(), getStartPrevValues(criteria, plan));
+    }
+
+    /**
+     * Returns the row-index of the first row to insert, i.e. the number of rows of the table when appending to it, else 0
+     */
+    private int getStartRowIdx(InsertionCriteria criteria) {
+        if (!criteria.isAppendToTable()) return 0;
+
+        long numOfRows = this.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + this.tableName, Long.class);
+        if (numOfRows + criteria.getNumOfRows() > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Can't append [" + criteria.getNumOfRows() + "] rows after the [" + numOfRows + "] rows of the table ["
+                + this.tableName + "], the row-indexes would overflow");
+        }
+        LOG.info("Appending after the [" + numOfRows + "] rows of the table [" + this.tableName + "]");
+        return (int) numOfRows;
+    }
+
+    /**
+     * Returns the previous values by slot of the plan for the first row to insert,
+     * i.e. the MAX of each column whose value-supplier depends on the previous value when appending to the table
+     * <br>A null means the previous value for the first row, as for an empty column
+     */
+    private Object[] getStartPrevValues(InsertionCriteria criteria, RowPlan plan) {
+        Object[] prevValues = new Object[plan.getNumOfColumns()];
+        List<Integer> slots = new ArrayList<>();
+        for (int slot = 0; slot < plan.getNumOfColumns(); slot++) {
+            if (plan.isPrevValueDependent(slot)) {
+                slots.add(slot);
+            }
+        }
+        if (!criteria.isAppendToTable() || slots.isEmpty()) return prevValues;
+
+        String maxList = slots.stream().map(slot -> "MAX(" + plan.getColumnName(slot) + ")").collect(Collectors.joining(", "));
+        this.jdbcTemplate.query("SELECT " + maxList + " FROM " + this.tableName, resultSet -> {
+            for (int i = 0; i < slots.size(); i++) {
+                int slot = slots.get(i);
+                prevValues[slot] = toPrevValue(resultSet.getObject(i + 1), plan.getValueKind(slot));
+            }
+        });
+        return prevValues;
+    }
+
+    /**
+     * Converts a value read from the table to the kind of values the value-supplier of a slot generates
+     */
+    private static Object toPrevValue(Object value, RowPlan.ValueKind valueKind) {
+        if (value == null) return null;
+
+        switch (valueKind) {
+            case INT:
+                return ((Number) value).intValue();
+            case LONG:
+                return ((Number) value).longValue();
+            case DOUBLE:
+                return ((Number) value).doubleValue();
+            case BOOLEAN:
+                return value instanceof Boolean ? value : ((Number) value).intValue() != 0;
+            default:
+                if (value instanceof java.sql.Date) return ((java.sql.Date) value).toLocalDate();
+                if (value instanceof java.sql.Timestamp) return ((java.sql.Timestamp) value).toLocalDateTime();
+                return value;
+        }
+    }
+
+    /**
+     * Compiles the criteria for the columns of the table, with the columns whose values must be unique, see <code>getUniqueColumnNames()</code>,
+     * and those of them which the DB compares ignoring case
+     */
+    private RowPlan compilePlan(InsertionCriteria criteria) {
+        Set<String> uniqueColumnNames = criteria.isGuardUniqueValues() ? getUniqueColumnNames() : Collections.emptySet();
+        return RowPlan.compile(criteria, this.columns, uniqueColumnNames, getCaseInsensitiveColumnNames(uniqueColumnNames));
+    }
+
+    /**
+     * Returns the lower-case names of the character columns among the specified ones, which the DB compares ignoring case,
+     * as told by the JDBC driver from e.g. the collation of the column
+     */
+    private Set<String> getCaseInsensitiveColumnNames(Set<String> columnNames) {
+        List<String> characterColumnNames = this.columns.stream()
+            .filter(column -> columnNames.contains(column.getColumnName().toLowerCase()) && isCharacterType(column.getDataType()))
+            .map(DBColumnMetadata::getColumnName)
+            .collect(Collectors.toList());
+        if (characterColumnNames.isEmpty()) return Collections.emptySet();
+
+        String sql = "SELECT " + String.join(", ", characterColumnNames) + " FROM " + this.tableName + " WHERE 1 = 0";
+        return this.jdbcTemplate.query(sql, (ResultSetExtractor<Set<String>>) resultSet -> {
+            Set<String> caseInsensitiveColumnNames = new HashSet<>();
+            ResultSetMetaData resultSetMetaData = resultSet.getMetaData();
+            for (int i = 1; i <= resultSetMetaData.getColumnCount(); i++) {
+                if (!resultSetMetaData.isCaseSensitive(i)) {
+                    caseInsensitiveColumnNames.add(characterColumnNames.get(i - 1).toLowerCase());
+                }
+            }
+            return caseInsensitiveColumnNames;
+        });
+    }
+
+    private static boolean isCharacterType(int dataType) {
+        return dataType == Types.CHAR || dataType == Types.VARCHAR || dataType == Types.LONGVARCHAR
+            || dataType == Types.NCHAR || dataType == Types.NVARCHAR || dataType == Types.LONGNVARCHAR;
+    }
+
+    /**
+     * Returns the lower-case names of the columns which are a unique index or the primary key of the table by themselves
+     * <br>The indexes of several columns are left out, as the values of each column are generated on their own
+     */
+    private Set<String> getUniqueColumnNames() {
+        Set<String> uniqueColumnNames = new HashSet<>();
+        DBTableMetadata tableMetadata = getTableMetadata();
+        if (tableMetadata == null) return uniqueColumnNames;
+
+        if (tableMetadata.getPrimaryKeyColumnNames().size() == 1) {
+            uniqueColumnNames.add(tableMetadata.getPrimaryKeyColumnNames().get(0).toLowerCase());
+        }
+        for (DBIndexMetadata index : tableMetadata.getIndexes()) {
+            if (index.isUnique() && index.getColumnNames().size() == 1) {
+                uniqueColumnNames.add(index.getColumnNames().get(0).toLowerCase());
+            }
+        }
+        return uniqueColumnNames;
+    }
+
+    /**
+     * Runs an operation of the fixture on its async executor
+     * <br>Inside a FixtureSession, or any other transaction on the DataSource, the operation runs on the calling thread instead,
+     * as the threads of the executor would be outside the transaction. The future is then already complete when it is returned
+     */
+    private <T> CompletableFuture<T> runAsync(Supplier<T> operation) {
+        if (FixtureSession.isActive(this.jdbcTemplate.getDataSource())) {
+            CompletableFuture<T> future = new CompletableFuture<>();
+            try {
+                future.complete(operation.get());
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+            return future;
+        }
+
+        Executor executor = this.asyncExecutor != null ? this.asyncExecutor : AsyncExecutors.forDataSource(this.jdbcTemplate.getDataSource());
+        return CompletableFuture.supplyAsync(operation, executor);
+    }
+
+    /**
+     * Reports the number of values of the unique columns and the memory they took
+     */
+    private void logUniqueValues(UniqueValues uniqueValues) {
+        if (uniqueValues != null) {
+            LOG.info("Kept the values of the unique columns of [" + this.tableName + "] unique in [" + (uniqueValues.getMemoryBytes() + 1023) / 1024 + "] KB ... "
+                + uniqueValues);
+        }
+    }
+
+    /**
+     * Inserts all rows of the generator over a single connection
+     * A single batch is filled again for each batch of rows, so the arrays holding the rows are allocated only once
+     * @return number of batches, generation-time and write-time
+     */
+    private long[] insertAllRows(RowGenerator rowGenerator) {
+        return jdbcTemplate.execute((ConnectionCallback<long[]>) connection -> {
+            long[] insertionStats = new long[3];
+
+            try (RowWriter rowWriter = createRowWriter(connection)) {
+                RowBatch batch = rowGenerator.newBatch(this.batchSize);
+                while (rowGenerator.hasNext()) {
+                    long batchStartTime = System.nanoTime();
+                    rowGenerator.nextBatch(batch);
+                    long batchGeneratedTime = System.nanoTime();
+                    rowWriter.write(batch);
+
+                    insertionStats[0]++;
+                    insertionStats[1] += batchGeneratedTime - batchStartTime;
+                    insertionStats[2] += System.nanoTime() - batchGeneratedTime;
+                }
+            }
+            return insertionStats;
+        });
+    }
+
+    /**
+     * Inserts all the batches of the pipeline over a single connection, on the calling thread
+     * @return number of batches, write-time and the time spent waiting for the batches
+     */
+    private long[] writeAllBatches(RowPipeline pipeline) {
+        return jdbcTemplate.execute((ConnectionCallback<long[]>) connection -> {
+            long numOfBatches = 0, writeNanos = 0, writerWaitNanos = 0;
+
+            try (RowWriter rowWriter = createRowWriter(connection)) {
+                while (true) {
+                    long waitStartTime = System.nanoTime();
+                    RowBatch batch = pipeline.take();
+                    long batchReceivedTime = System.nanoTime();
+                    writerWaitNanos += batchReceivedTime - waitStartTime;
+                    if (batch == null) break;
+
+                    rowWriter.write(batch);
+                    pipeline.recycle(batch);
+                    writeNanos += System.nanoTime() - batchReceivedTime;
+                    numOfBatches++;
+                }
+            }
+            return new long[] {numOfBatches, writeNanos, writerWaitNanos};
+        });
+    }
+
+    /**
+     * Creates a writer for the insertion strategy of this fixture
+     */
+    private RowWriter createRowWriter(Connection connection) throws SQLException {
+        List<DBColumnMetadata> editableColumns = getEditableColumns();
+
+        switch (this.insertionStrategy) {
+            case MULTI_ROW_VALUES:
+                int maxBindParameters = this.maxBindParameters > 0 ? this.maxBindParameters
+                    : MultiRowValuesWriter.getMaxBindParameters(connection.getMetaData().getDatabaseProductName());
+                return new MultiRowValuesWriter(connection, this.tableName, editableColumns, maxBindParameters, this.maxPacketSize);
+            case BULK_LOAD:
+                return new BulkLoadWriter(connection, this.tableName, editableColumns);
+            default:
+                return new BatchedStatementWriter(connection, this.tableName, editableColumns);
+        }
+    }
+
+    /**
+     * Makes sure that the metadata is loaded and that there is something to insert
+     */
+    private void prepareForInsertion() {
+        fillInternalStateWithDBMetadata();
+
+        if (getEditableColumns().isEmpty()) {
+            throw new IllegalStateException("The table [" + this.tableName + "] does not contain any editable columns!");
+        }
+    }
+
+    private List<DBColumnMetadata> getEditableColumns() {
+        return this.columns.stream().filter(c -> c.isValueEditable()).collect(Collectors.toList());
+    }
+
+    /**
+     * Removes all the rows of the table with the reset strategy of the fixture, see <code>withResetStrategy()</code>
+     * <br>Inside a FixtureSession only ResetStrategy.DELETE is allowed, as the others would commit the transaction of the session
+     * @return number of rows removed, or UNKNOWN_ROW_COUNT if the strategy can't tell
+     */
     public int truncateTable() {
-        LOG.info("Started truncating table [" + this.tableName + "]");
-        int rowCount = jdbcTemplate.update("DELETE FROM " + this.tableName);
+        if (this.resetStrategy != ResetStrategy.DELETE && FixtureSession.isActive(this.jdbcTemplate.getDataSource())) {
+            throw new IllegalStateException("The reset strategy [" + this.resetStrategy + "] commits implicitly, it can't be used inside a transaction");
+        }
+
+        LOG.info("Started truncating table [" + this.tableName + "] with [" + this.resetStrategy + "]");
+        new DatasetMarker(this.jdbcTemplate, this.tableName).remove();
+        int rowCount = jdbcTemplate.execute((ConnectionCallback<Integer>) connection ->
+            new TableResetter(connection, this.tableName).reset(this.resetStrategy, this.foreignKeyChecksDisabled));
         LOG.info("Finished truncating table [" + this.tableName + "]");
         return rowCount;
     }
 
     /**
-     * Fetches column metadata from the DB and caches it for use by other methods
-     * Uses double-checking algorithm to make sure that concurrent attempts to fill metadata
-     * only load it once
+     * Removes all the rows of the table like <code>truncateTable()</code>, on the async executor of the fixture, see <code>withAsyncExecutor()</code>
+     * <br>The tables are reset in the order the futures run, use <code>truncateTables()</code> for tables with foreign keys between them
      */
-    protected void fillInternalStateWithDBMetadata() {
-        if (this.columns != null && this.columns.size() > 0) return;
+    public CompletableFuture<Integer> truncateTableAsync() {
+        return runAsync(this::truncateTable);
+    }
 
-        synchronized (this) {
-            if (this.columns != null && this.columns.size() > 0) return;
+    /**
+     * Removes all the rows of the tables of the fixtures, each with its own reset strategy
+     * <br>The tables are reset in the order of the foreign keys between them, the tables referencing others first.
+     * The tables which don't reference each other are reset in parallel, by up to <code>numOfWorkers</code> threads
+     * <br>Inside a FixtureSession the tables are reset one by one on the current thread, over the connection of the session
+     * @return number of rows removed by table, in the order they were reset
+     */
+    public static Map<String, Integer> truncateTables(List<DBTableFixture> fixtures, int numOfWorkers) {
+        if (numOfWorkers <= 0) {
+            throw new IllegalArgumentException("Number of workers must be more than 0");
+        }
 
-            try {
-                DatabaseMetaData metaData = jdbcTemplate.getDataSource().getConnection().getMetaData();
-                ResultSet columns = metaData.getColumns(null, null, this.tableName, null);
-                List<DBColumnMetadata> tmpColumnsList = new ArrayList<>();
-
-                while (columns.next()) {
-                    DBColumnMetadata dbColumnMetadata = DBColumnMetadataBuilder.getInstance()
-                            .withColumnName(columns.getString("COLUMN_NAME"))
-                            .withDataType(columns.getInt("DATA_TYPE"))
-                            .withDataTypeName(columns.getString("TYPE_NAME"))
-                            .withPrecision(columns.getInt("COLUMN_SIZE"))
-                            .withScale(columns.getInt("DECIMAL_DIGITS"))
-                            .withIsNullable(columns.getInt("NULLABLE") == 1)
-                            .withHasDefaultValue(!StringUtils.isEmpty(columns.getString("COLUMN_DEF")))
-                            .withMaxSize(columns.getInt("CHAR_OCTET_LENGTH"))
-                            .withOrdinalPos(columns.getInt("ORDINAL_POSITION"))
-                            .withIsAutoInc(columns.getString("IS_AUTOINCREMENT").equals("YES"))
-                            .withIsGenerated(columns.getString("IS_GENERATEDCOLUMN").equals("YES"))
-                            .createDBColumnMetadata();
-                    tmpColumnsList.add(dbColumnMetadata);
+        List<List<DBTableFixture>> layers = TableDependencies.getLayers(fixtures);
+        Collections.reverse(layers);
+        Map<String, Integer> rowCounts = new LinkedHashMap<>();
+
+        if (fixtures.stream().anyMatch(fixture -> FixtureSession.isActive(fixture.jdbcTemplate.getDataSource()))) {
+            LOG.info("Starting to truncate [" + fixtures.size() + "] tables in a transaction ...");
+            for (List<DBTableFixture> layer : layers) {
+                for (DBTableFixture fixture : layer) {
+                    rowCounts.put(fixture.getTableName(), fixture.truncateTable());
                 }
+            }
+            LOG.info("Finished truncating tables " + rowCounts);
+            return rowCounts;
+        }
 
-                this.columns = tmpColumnsList;
-            } catch (SQLException e) {
-                throw new DataRetrievalFailureException("Failed to fetch DB metadata", e);
+        AtomicInteger threadCounter = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(numOfWorkers, runnable -> {
+            Thread thread = new Thread(runnable, "utdatagen-reset-worker-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        LOG.info("Starting to truncate [" + fixtures.size() + "] tables in [" + layers.size() + "] layers ...");
+        try {
+            for (List<DBTableFixture> layer : layers) {
+                List<Future<Integer>> futures = new ArrayList<>();
+                for (DBTableFixture fixture : layer) {
+                    futures.add(executor.submit(fixture::truncateTable));
+                }
+                for (int i = 0; i < layer.size(); i++) {
+                    rowCounts.put(layer.get(i).getTableName(), futures.get(i).get());
+                }
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the tables to be truncated", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Failed to truncate the tables", e.getCause());
+        } finally {
+            executor.shutdownNow();
         }
+
+        LOG.info("Finished truncating tables " + rowCounts);
+        return rowCounts;
+    }
+
+    /**
+     * Drops the cached metadata of the table and reads it again from the DB, e.g. after the table was altered
+     * <br>The metadata is shared by all the fixtures of the table, see DBMetadataCache
+     */
+    public DBTableFixture refreshMetadata() {
+        DBMetadataCache.getInstance().invalidate(this.jdbcTemplate.getDataSource(), this.tableName);
+        this.columns = new ArrayList<>();
+        fillInternalStateWithDBMetadata();
+        return this;
+    }
+
+    /**
+     * Fetches column metadata of the table from DBMetadataCache, which reads it from the DB only once for all the fixtures of the table
+     * The cache is consulted on every call, so the fixture sees an invalidation of the cache or the expiry of its time-to-live
+     */
+    protected void fillInternalStateWithDBMetadata() {
+        this.columns = DBMetadataCache.getInstance().getColumns(this.jdbcTemplate, null, null, this.tableName);
     }
 
 }
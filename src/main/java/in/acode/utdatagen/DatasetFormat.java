@@ -0,0 +1,51 @@
+package in.acode.utdatagen;
+
+/**
+ * The binary format of the dataset files written by DatasetWriter and read by DatasetReader
+ * <br>A file has a header, followed by blocks of rows and an end marker -
+ * <br>&emsp;1. Header - magic, format version, flags, seed, max number of rows in a block, and the name and ValueKind of each column
+ * <br>&emsp;2. Block - number of rows, length of the values before and after compression, CRC32 of the values, and the values.
+ * The values are held column by column - INT as 4 bytes, LONG and DOUBLE as 8 bytes, BOOLEAN as a byte,
+ * and OBJECT as a tag of its type followed by the value, see the tags below.
+ * Dates and times are held as they read, whatever the time zone of the JVM - DATE as its epoch-day, TIME as its nano-of-day,
+ * and TIMESTAMP as the epoch-second and nanos of its local date-time taken as UTC
+ * <br>&emsp;3. End marker - a block of 0 rows, followed by the total number of rows, so an incomplete file is never taken for a complete one
+ * <br>When the file is compressed, the values of each block are deflated separately
+ */
+final class DatasetFormat {
+
+    static final int MAGIC = 0x55544452;
+    static final byte FORMAT_VERSION = 2;
+
+    static final byte FLAG_COMPRESSED = 1;
+    static final byte FLAG_SEED = 2;
+
+    /**
+     * Number of bytes before the columns in the header
+     */
+    static final int HEADER_LENGTH = 22;
+
+    /**
+     * Number of bytes before the values in a block
+     */
+    static final int BLOCK_HEADER_LENGTH = 16;
+
+    static final byte TAG_NULL = 0;
+    static final byte TAG_STRING = 1;
+    static final byte TAG_INTEGER = 2;
+    static final byte TAG_LONG = 3;
+    static final byte TAG_SHORT = 4;
+    static final byte TAG_BYTE = 5;
+    static final byte TAG_BOOLEAN = 6;
+    static final byte TAG_DOUBLE = 7;
+    static final byte TAG_FLOAT = 8;
+    static final byte TAG_BIG_DECIMAL = 9;
+    static final byte TAG_BIG_INTEGER = 10;
+    static final byte TAG_DATE = 11;
+    static final byte TAG_TIME = 12;
+    static final byte TAG_TIMESTAMP = 13;
+    static final byte TAG_BYTES = 14;
+
+    private DatasetFormat() {
+    }
+}
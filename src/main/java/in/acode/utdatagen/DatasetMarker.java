@@ -0,0 +1,200 @@
+package in.acode.utdatagen;
+
+import in.acode.utdatagen.meta.DBColumnMetadata;
+import in.acode.utdatagen.meta.DBMetadataCache;
+import org.springframework.jdbc.core.JdbcTemplate;
+import javax.sql.DataSource;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.temporal.TemporalAccessor;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.function.BiFunction;
+
+/**
+ * Records which dataset a table holds, in a marker table shared by all the tables of the DB, see <code>InsertionCriteria.ensureDataset()</code>
+ * <br>A dataset is identified by a fingerprint of -
+ * <br>&emsp;1. the number of rows and the seed
+ * <br>&emsp;2. the metadata of the columns of the table, so a dataset is generated again when the table changes
+ * <br>&emsp;3. the identity of the value-supplier of each column, i.e. whether it is the default one of the column or a custom one,
+ * and the class and the immutable captured values of a custom one. The value-suppliers are never called, as they may have state or side effects
+ * <br>&emsp;4. the dataset version of the criteria, as a change to the code of a lambda does not change its identity
+ * <br>The marker table is created on first use. A table holds the dataset if its marker matches, the number of rows in the marker is trusted.
+ * The fixture removes the marker of a table whenever it writes to the table other than for the dataset, but changes made outside the fixture are not detected
+ */
+class DatasetMarker {
+
+    static final String MARKER_TABLE = "utdatagen_dataset_marker";
+
+    /**
+     * Number of elements of a captured array which are added to the fingerprint, along with its length
+     */
+    private static final int MAX_ARRAY_ELEMENTS = 16;
+
+    /**
+     * How deep the values captured by a lambda are followed, for the lambdas wrapping other lambdas
+     */
+    private static final int MAX_CAPTURE_DEPTH = 4;
+
+    private static final String LAMBDA_CLASS_SUFFIX = "$$Lambda$";
+
+    /**
+     * DataSources whose marker table is known to exist or not, so that it is looked up once
+     */
+    private static final Map<DataSource, Boolean> MARKER_TABLE_EXISTS = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String tableName;
+
+    DatasetMarker(JdbcTemplate jdbcTemplate, String tableName) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.tableName = tableName.toLowerCase();
+    }
+
+    /**
+     * Checks whether the table holds the dataset with the fingerprint, with a lookup of the primary key of the marker table
+     */
+    boolean matches(String fingerprint, int numOfRows) {
+        createMarkerTableIfMissing();
+        List<Map<String, Object>> markers = this.jdbcTemplate.queryForList("SELECT fingerprint, row_count FROM " + MARKER_TABLE + " WHERE table_name = ?", this.tableName);
+
+        return !markers.isEmpty() && fingerprint.equals(markers.get(0).get("fingerprint"))
+            && ((Number) markers.get(0).get("row_count")).longValue() == numOfRows;
+    }
+
+    /**
+     * Removes the marker of the table, if the marker table exists
+     */
+    void remove() {
+        if (markerTableExists()) {
+            this.jdbcTemplate.update("DELETE FROM " + MARKER_TABLE + " WHERE table_name = ?", this.tableName);
+        }
+    }
+
+    void put(String fingerprint, int numOfRows) {
+        createMarkerTableIfMissing();
+        this.jdbcTemplate.update("DELETE FROM " + MARKER_TABLE + " WHERE table_name = ?", this.tableName);
+        this.jdbcTemplate.update("INSERT INTO " + MARKER_TABLE + " (table_name, fingerprint, row_count) VALUES (?, ?, ?)", this.tableName, fingerprint, numOfRows);
+    }
+
+    private boolean markerTableExists() {
+        DataSource dataSource = this.jdbcTemplate.getDataSource();
+        Boolean exists = MARKER_TABLE_EXISTS.get(dataSource);
+        if (exists == null) {
+            exists = !DBMetadataCache.getInstance().getColumns(this.jdbcTemplate, null, null, MARKER_TABLE).isEmpty();
+            MARKER_TABLE_EXISTS.put(dataSource, exists);
+        }
+        return exists;
+    }
+
+    private void createMarkerTableIfMissing() {
+        if (markerTableExists()) return;
+
+        this.jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + MARKER_TABLE
+            + " (table_name VARCHAR(128) NOT NULL, fingerprint CHAR(64) NOT NULL, row_count BIGINT NOT NULL, PRIMARY KEY (table_name))");
+        MARKER_TABLE_EXISTS.put(this.jdbcTemplate.getDataSource(), true);
+    }
+
+    /**
+     * Computes the fingerprint of the dataset generated by the criteria, as a hex SHA-256
+     * @param plan plan compiled from the criteria
+     * @param columns all the columns of the table
+     */
+    static String getFingerprint(InsertionCriteria criteria, RowPlan plan, List<DBColumnMetadata> columns) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+
+        StringBuilder fingerprintSource = new StringBuilder();
+        fingerprintSource.append(plan.getNumOfRows()).append('|').append(plan.getSeed()).append('|').append(criteria.getDatasetVersion()).append('\n');
+        for (DBColumnMetadata column : columns) {
+            fingerprintSource.append(column.getColumnName().toLowerCase()).append('|').append(column.getDataType()).append('|')
+                .append(column.getDataTypeName()).append('|').append(column.getPrecision()).append('|').append(column.getScale()).append('|')
+                .append(column.isNullable()).append('|').append(column.isValueEditable()).append('\n');
+        }
+
+        for (int slot = 0; slot < plan.getNumOfColumns(); slot++) {
+            String columnName = plan.getColumnName(slot);
+            fingerprintSource.append(columnName.toLowerCase()).append('|').append(plan.getValueKind(slot)).append('|');
+
+            BiFunction<Integer, Object, Object> customSupplier = criteria.getSupplierForColumn(columnName);
+            if (customSupplier != null) {
+                fingerprintSource.append("custom|").append(plan.isPrevValueDependent(slot)).append('|').append(plan.getInitialPrevValue(slot)).append('|');
+                appendIdentity(fingerprintSource, customSupplier, 0);
+            } else if (plan.getSupplier(slot) != null || plan.getPrimitiveSupplier(slot) != null) {
+                fingerprintSource.append("default");
+            } else {
+                fingerprintSource.append("null");
+            }
+            fingerprintSource.append('\n');
+        }
+        digest.update(fingerprintSource.toString().getBytes(StandardCharsets.UTF_8));
+
+        StringBuilder fingerprint = new StringBuilder();
+        for (byte b : digest.digest()) {
+            fingerprint.append(String.format("%02x", b));
+        }
+        return fingerprint.toString();
+    }
+
+    /**
+     * Appends the class of a value-supplier, without the part of a lambda's class name which differs from one run to the next,
+     * followed by the values it captured
+     * <br>Only the values of immutable types are added, and the first elements of arrays. Other objects e.g. counters are added as their class
+     */
+    private static void appendIdentity(StringBuilder identity, Object value, int depth) {
+        if (value == null) {
+            identity.append("null");
+        } else if (isImmutableValue(value)) {
+            identity.append(value.getClass().getName()).append(':').append(value);
+        } else if (value.getClass().isArray()) {
+            int length = Array.getLength(value);
+            identity.append(value.getClass().getComponentType().getName()).append('[').append(length).append("](");
+            for (int i = 0; i < Math.min(length, MAX_ARRAY_ELEMENTS); i++) {
+                appendIdentity(identity, Array.get(value, i), depth);
+                identity.append(',');
+            }
+            identity.append(')');
+        } else {
+            String className = value.getClass().getName();
+            int lambdaSuffixIdx = className.indexOf(LAMBDA_CLASS_SUFFIX);
+            if (lambdaSuffixIdx < 0) {
+                identity.append(className);
+                return;
+            }
+
+            identity.append(className, 0, lambdaSuffixIdx).append("$$Lambda(");
+            if (depth < MAX_CAPTURE_DEPTH) {
+                for (Field field : value.getClass().getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers())) continue;
+                    try {
+                        field.setAccessible(true);
+                        appendIdentity(identity, field.get(value), depth + 1);
+                    } catch (ReflectiveOperationException | RuntimeException e) {
+                        identity.append('?');
+                    }
+                    identity.append(',');
+                }
+            }
+            identity.append(')');
+        }
+    }
+
+    private static boolean isImmutableValue(Object value) {
+        return value instanceof String || value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte
+            || value instanceof Double || value instanceof Float || value instanceof BigDecimal || value instanceof BigInteger
+            || value instanceof Boolean || value instanceof Character || value instanceof Enum
+            || (value instanceof TemporalAccessor && value.getClass().getName().startsWith("java.time."));
+    }
+}
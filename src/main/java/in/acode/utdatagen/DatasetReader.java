@@ -0,0 +1,378 @@
+package in.acode.utdatagen;
+
+import static in.acode.utdatagen.DatasetFormat.*;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads the batches of rows of a dataset file, see DatasetFormat
+ * <br>Each block of the file is read into a batch of its own, so the batches must be able to hold the biggest block,
+ * see <code>getMaxBlockRows()</code>. The values are checked against the CRC32 of their block, and the file against the total number of rows at its end
+ * <br>The columns of the batches are those of the file, unless they are mapped to the columns of a table with <code>mapTo()</code>
+ */
+class DatasetReader implements RowSource, AutoCloseable {
+
+    private final Path path;
+    private final FileChannel channel;
+    private final boolean compressed;
+    private final Long seed;
+    private final int maxBlockRows;
+    private final String[] columnNames;
+    private final RowPlan.ValueKind[] valueKinds;
+    private final Inflater inflater;
+    private final CRC32 crc32;
+
+    /**
+     * Header of the next block, after its number of rows
+     */
+    private final ByteBuffer blockHeader;
+    private ByteBuffer storedValues;
+    private ByteBuffer values;
+
+    /**
+     * Plan of the batches, and the slot of the batches for each column of the file
+     */
+    private RowPlan plan;
+    private int[] batchSlots;
+
+    private int nextBlockRows;
+    private long numOfRows;
+
+    DatasetReader(Path path) throws IOException {
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.crc32 = new CRC32();
+        this.blockHeader = ByteBuffer.allocate(BLOCK_HEADER_LENGTH - 4);
+        this.storedValues = ByteBuffer.allocate(64 * 1024);
+        this.numOfRows = 0;
+
+        try {
+            ByteBuffer header = readFully(ByteBuffer.allocate(HEADER_LENGTH));
+            if (header.getInt() != MAGIC || header.get() != FORMAT_VERSION) {
+                throw new IllegalStateException("The file [" + path + "] is not a dataset of this format");
+            }
+
+            byte flags = header.get();
+            long seed = header.getLong();
+            this.compressed = (flags & FLAG_COMPRESSED) != 0;
+            this.seed = (flags & FLAG_SEED) != 0 ? seed : null;
+            this.maxBlockRows = header.getInt();
+            int numOfColumns = header.getInt();
+            if (this.maxBlockRows < 0 || numOfColumns < 0) {
+                throw corrupt();
+            }
+
+            this.columnNames = new String[numOfColumns];
+            this.valueKinds = new RowPlan.ValueKind[numOfColumns];
+            RowPlan.ValueKind[] allValueKinds = RowPlan.ValueKind.values();
+            ByteBuffer nameLength = ByteBuffer.allocate(2);
+            for (int slot = 0; slot < numOfColumns; slot++) {
+                nameLength.clear();
+                byte[] name = new byte[readFully(nameLength).getShort() & 0xffff];
+                readFully(ByteBuffer.wrap(name));
+                this.columnNames[slot] = new String(name, StandardCharsets.UTF_8);
+
+                int valueKind = readFully(ByteBuffer.allocate(1)).get();
+                if (valueKind < 0 || valueKind >= allValueKinds.length) {
+                    throw corrupt();
+                }
+                this.valueKinds[slot] = allValueKinds[valueKind];
+            }
+        } catch (IOException | RuntimeException e) {
+            this.channel.close();
+            throw e;
+        }
+
+        this.inflater = this.compressed ? new Inflater() : null;
+        this.values = this.compressed ? ByteBuffer.allocate(64 * 1024) : null;
+        this.plan = RowPlan.forValueKinds(this.columnNames, this.valueKinds);
+        this.batchSlots = new int[this.columnNames.length];
+        for (int slot = 0; slot < this.batchSlots.length; slot++) {
+            this.batchSlots[slot] = slot;
+        }
+
+        try {
+            readNextBlockHeader();
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    List<String> getColumnNames() {
+        return Arrays.asList(columnNames);
+    }
+
+    /**
+     * Seed of the rows, null if they were not generated e.g. they were read from a table
+     */
+    Long getSeed() {
+        return seed;
+    }
+
+    int getMaxBlockRows() {
+        return maxBlockRows;
+    }
+
+    /**
+     * Number of rows read so far
+     */
+    long getNumOfRows() {
+        return numOfRows;
+    }
+
+    /**
+     * Puts the values of each column of the file in the slot of the column with the same name, ignoring case
+     * @param columnNames columns of the batches, which must be the same as the columns of the file in any order
+     */
+    void mapTo(List<String> columnNames) {
+        List<String> lowerCaseColumnNames = columnNames.stream().map(String::toLowerCase).collect(Collectors.toList());
+        int[] batchSlots = new int[this.columnNames.length];
+        RowPlan.ValueKind[] batchValueKinds = new RowPlan.ValueKind[this.columnNames.length];
+
+        for (int slot = 0; slot < this.columnNames.length; slot++) {
+            batchSlots[slot] = lowerCaseColumnNames.indexOf(this.columnNames[slot].toLowerCase());
+            if (batchSlots[slot] == -1 || columnNames.size() != this.columnNames.length) {
+                throw new IllegalStateException("The columns of the dataset " + getColumnNames() + " don't match the columns " + columnNames);
+            }
+            batchValueKinds[batchSlots[slot]] = this.valueKinds[slot];
+        }
+
+        this.batchSlots = batchSlots;
+        this.plan = RowPlan.forValueKinds(columnNames.toArray(new String[0]), batchValueKinds);
+    }
+
+    @Override
+    public boolean hasNext() {
+        return this.nextBlockRows > 0;
+    }
+
+    @Override
+    public RowBatch newBatch(int batchSize) {
+        return new RowBatch(this.plan, batchSize);
+    }
+
+    @Override
+    public void nextBatch(RowBatch batch) {
+        if (this.nextBlockRows > batch.getCapacity()) {
+            throw new IllegalArgumentException("A block of [" + this.nextBlockRows + "] rows doesn't fit a batch of [" + batch.getCapacity() + "] rows");
+        }
+
+        try {
+            ByteBuffer values = readBlockValues();
+            for (int slot = 0; slot < this.columnNames.length; slot++) {
+                decodeColumn(values, batch, slot, this.nextBlockRows);
+            }
+            if (values.hasRemaining()) {
+                throw corrupt();
+            }
+
+            batch.setSize(this.nextBlockRows);
+            this.numOfRows += this.nextBlockRows;
+            readNextBlockHeader();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read the dataset [" + this.path + "]", e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (this.inflater != null) {
+            this.inflater.end();
+        }
+        this.channel.close();
+    }
+
+    /**
+     * Reads the header of the next block, or the end marker
+     */
+    private void readNextBlockHeader() throws IOException {
+        this.nextBlockRows = readFully(ByteBuffer.allocate(4)).getInt();
+        if (this.nextBlockRows < 0) {
+            throw corrupt();
+        }
+
+        if (this.nextBlockRows == 0) {
+            long totalRows = readFully(ByteBuffer.allocate(8)).getLong();
+            if (totalRows != this.numOfRows) {
+                throw corrupt();
+            }
+            return;
+        }
+
+        this.blockHeader.clear();
+        readFully(this.blockHeader);
+    }
+
+    /**
+     * Reads the values of the block whose header was read last, and checks them against its CRC32
+     */
+    private ByteBuffer readBlockValues() throws IOException {
+        int valuesLength = this.blockHeader.getInt();
+        int storedLength = this.blockHeader.getInt();
+        int checksum = this.blockHeader.getInt();
+        if (valuesLength < 0 || storedLength < 0 || storedLength > this.channel.size() - this.channel.position()) {
+            throw corrupt();
+        }
+
+        this.storedValues = ensureCapacity(this.storedValues, storedLength);
+        this.storedValues.clear().limit(storedLength);
+        readFully(this.storedValues);
+
+        ByteBuffer values = this.storedValues;
+        if (this.compressed) {
+            values = this.values = ensureCapacity(this.values, valuesLength);
+            this.inflater.reset();
+            this.inflater.setInput(this.storedValues.array(), 0, storedLength);
+            try {
+                if (this.inflater.inflate(values.array(), 0, valuesLength) != valuesLength || !this.inflater.finished()) {
+                    throw corrupt();
+                }
+            } catch (DataFormatException e) {
+                throw corrupt();
+            }
+            values.clear().limit(valuesLength);
+        } else if (valuesLength != storedLength) {
+            throw corrupt();
+        }
+
+        this.crc32.reset();
+        this.crc32.update(values.duplicate());
+        if ((int) this.crc32.getValue() != checksum) {
+            throw corrupt();
+        }
+        return values;
+    }
+
+    /**
+     * Decodes the values of a column of the file into its slot of the batch
+     */
+    private void decodeColumn(ByteBuffer values, RowBatch batch, int slot, int size) {
+        int batchSlot = this.batchSlots[slot];
+
+        switch (this.valueKinds[slot]) {
+            case INT:
+                long[] intValues = batch.getLongValues(batchSlot);
+                for (int i = 0; i < size; i++) {
+                    intValues[i] = values.getInt();
+                }
+                break;
+            case LONG:
+                values.asLongBuffer().get(batch.getLongValues(batchSlot), 0, size);
+                values.position(values.position() + 8 * size);
+                break;
+            case BOOLEAN:
+                long[] booleanValues = batch.getLongValues(batchSlot);
+                for (int i = 0; i < size; i++) {
+                    booleanValues[i] = values.get();
+                }
+                break;
+            case DOUBLE:
+                values.asDoubleBuffer().get(batch.getDoubleValues(batchSlot), 0, size);
+                values.position(values.position() + 8 * size);
+                break;
+            default:
+                Object[] objectValues = batch.getObjectValues(batchSlot);
+                for (int i = 0; i < size; i++) {
+                    objectValues[i] = decodeObject(values);
+                }
+        }
+    }
+
+    private Object decodeObject(ByteBuffer values) {
+        byte tag = values.get();
+        switch (tag) {
+            case TAG_NULL:
+                return null;
+            case TAG_STRING:
+                return new String(getBytes(values), StandardCharsets.UTF_8);
+            case TAG_INTEGER:
+                return values.getInt();
+            case TAG_LONG:
+                return values.getLong();
+            case TAG_SHORT:
+                return values.getShort();
+            case TAG_BYTE:
+                return values.get();
+            case TAG_BOOLEAN:
+                return values.get() != 0;
+            case TAG_DOUBLE:
+                return values.getDouble();
+            case TAG_FLOAT:
+                return values.getFloat();
+            case TAG_BIG_DECIMAL:
+                int scale = values.getInt();
+                return new BigDecimal(new BigInteger(getBytes(values)), scale);
+            case TAG_BIG_INTEGER:
+                return new BigInteger(getBytes(values));
+            case TAG_DATE:
+                return Date.valueOf(LocalDate.ofEpochDay(values.getLong()));
+            case TAG_TIME:
+                long nanoOfDay = values.getLong();
+                Time time = Time.valueOf(LocalTime.ofNanoOfDay(nanoOfDay));
+                time.setTime(time.getTime() + nanoOfDay / 1000000L % 1000L);
+                return time;
+            case TAG_TIMESTAMP:
+                long epochSecond = values.getLong();
+                return Timestamp.valueOf(LocalDateTime.ofEpochSecond(epochSecond, values.getInt(), ZoneOffset.UTC));
+            case TAG_BYTES:
+                return getBytes(values);
+            default:
+                throw corrupt();
+        }
+    }
+
+    private byte[] getBytes(ByteBuffer values) {
+        int length = values.getInt();
+        if (length < 0 || length > values.remaining()) {
+            throw corrupt();
+        }
+
+        byte[] bytes = new byte[length];
+        values.get(bytes);
+        return bytes;
+    }
+
+    private static ByteBuffer ensureCapacity(ByteBuffer buffer, int capacity) {
+        return buffer.capacity() >= capacity ? buffer : ByteBuffer.allocate(Math.max(capacity, buffer.capacity() * 2));
+    }
+
+    /**
+     * Fills the remaining bytes of the buffer from the file, and flips it for reading
+     */
+    private ByteBuffer readFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (this.channel.read(buffer) < 0) {
+                throw new EOFException("The dataset [" + this.path + "] is incomplete");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private IllegalStateException corrupt() {
+        return new IllegalStateException("The dataset [" + this.path + "] is corrupt");
+    }
+}
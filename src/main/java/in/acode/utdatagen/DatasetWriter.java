@@ -0,0 +1,291 @@
+package in.acode.utdatagen;
+
+import static in.acode.utdatagen.DatasetFormat.*;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes batches of rows to a dataset file, see DatasetFormat
+ * <br>Each batch is encoded as a block, column by column, into a buffer which is reused for all the blocks,
+ * and written with a single gathering write of the FileChannel
+ * <br>The file is written to a temporary file, which is moved in place by <code>finish()</code>.
+ * So a writer closed without finishing, e.g. after a failure, leaves any earlier file of the same path untouched
+ */
+class DatasetWriter implements AutoCloseable {
+
+    private final Path path;
+    private final Path tmpPath;
+    private final FileChannel channel;
+    private final RowPlan plan;
+    private final int maxBlockRows;
+    private final Deflater deflater;
+    private final CRC32 crc32;
+    private final ByteBuffer blockHeader;
+    private ByteBuffer values;
+    private byte[] compressedValues;
+    private long numOfRows;
+    private boolean finished;
+
+    /**
+     * @param plan plan of the batches, which decides the columns and the ValueKind of each of them
+     * @param maxBlockRows max number of rows in a batch
+     * @param seed seed of the generated rows, null if the rows were not generated
+     */
+    DatasetWriter(Path path, RowPlan plan, int maxBlockRows, Long seed, boolean compressed) throws IOException {
+        this.path = path;
+        this.plan = plan;
+        this.maxBlockRows = maxBlockRows;
+        this.deflater = compressed ? new Deflater(Deflater.BEST_SPEED) : null;
+        this.crc32 = new CRC32();
+        this.blockHeader = ByteBuffer.allocate(BLOCK_HEADER_LENGTH);
+        this.values = ByteBuffer.allocate(64 * 1024);
+        this.compressedValues = compressed ? new byte[64 * 1024] : null;
+        this.numOfRows = 0;
+        this.finished = false;
+
+        Path parent = path.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        this.tmpPath = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+        this.channel = FileChannel.open(this.tmpPath, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+
+        writeHeader(seed);
+    }
+
+    private void writeHeader(Long seed) throws IOException {
+        byte[][] columnNames = new byte[this.plan.getNumOfColumns()][];
+        int headerLength = HEADER_LENGTH;
+        for (int slot = 0; slot < columnNames.length; slot++) {
+            columnNames[slot] = this.plan.getColumnName(slot).getBytes(StandardCharsets.UTF_8);
+            headerLength += 3 + columnNames[slot].length;
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(headerLength);
+        header.putInt(MAGIC);
+        header.put(FORMAT_VERSION);
+        header.put((byte) ((this.deflater != null ? FLAG_COMPRESSED : 0) | (seed != null ? FLAG_SEED : 0)));
+        header.putLong(seed != null ? seed : 0);
+        header.putInt(this.maxBlockRows);
+        header.putInt(columnNames.length);
+        for (int slot = 0; slot < columnNames.length; slot++) {
+            header.putShort((short) columnNames[slot].length);
+            header.put(columnNames[slot]);
+            header.put((byte) this.plan.getValueKind(slot).ordinal());
+        }
+
+        header.flip();
+        writeFully(header);
+    }
+
+    /**
+     * Writes the rows of the batch as a block
+     */
+    void write(RowBatch rows) throws IOException {
+        if (rows.size() == 0) return;
+        if (rows.size() > this.maxBlockRows) {
+            throw new IllegalArgumentException("A batch of [" + rows.size() + "] rows is bigger than the max of the dataset [" + this.maxBlockRows + "]");
+        }
+
+        this.values.clear();
+        for (int slot = 0; slot < rows.getNumOfColumns(); slot++) {
+            encodeColumn(rows, slot);
+        }
+        this.values.flip();
+
+        int valuesLength = this.values.remaining();
+        this.crc32.reset();
+        this.crc32.update(this.values.duplicate());
+
+        ByteBuffer storedValues = this.deflater != null ? compress(valuesLength) : this.values;
+
+        this.blockHeader.clear();
+        this.blockHeader.putInt(rows.size());
+        this.blockHeader.putInt(valuesLength);
+        this.blockHeader.putInt(storedValues.remaining());
+        this.blockHeader.putInt((int) this.crc32.getValue());
+        this.blockHeader.flip();
+
+        ByteBuffer[] block = {this.blockHeader, storedValues};
+        while (this.blockHeader.hasRemaining() || storedValues.hasRemaining()) {
+            this.channel.write(block);
+        }
+        this.numOfRows += rows.size();
+    }
+
+    /**
+     * Writes the end marker, and moves the file in place
+     * @return number of rows written
+     */
+    long finish() throws IOException {
+        ByteBuffer endMarker = ByteBuffer.allocate(12);
+        endMarker.putInt(0);
+        endMarker.putLong(this.numOfRows);
+        endMarker.flip();
+        writeFully(endMarker);
+
+        this.channel.force(false);
+        this.channel.close();
+        Files.move(this.tmpPath, this.path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        this.finished = true;
+        return this.numOfRows;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (this.deflater != null) {
+            this.deflater.end();
+        }
+        if (!this.finished) {
+            this.channel.close();
+            Files.deleteIfExists(this.tmpPath);
+        }
+    }
+
+    private void encodeColumn(RowBatch rows, int slot) {
+        int size = rows.size();
+
+        switch (this.plan.getValueKind(slot)) {
+            case INT:
+                long[] intValues = rows.getLongValues(slot);
+                ensureRemaining(4 * size);
+                for (int i = 0; i < size; i++) {
+                    this.values.putInt((int) intValues[i]);
+                }
+                break;
+            case LONG:
+                ensureRemaining(8 * size);
+                this.values.asLongBuffer().put(rows.getLongValues(slot), 0, size);
+                this.values.position(this.values.position() + 8 * size);
+                break;
+            case BOOLEAN:
+                long[] booleanValues = rows.getLongValues(slot);
+                ensureRemaining(size);
+                for (int i = 0; i < size; i++) {
+                    this.values.put((byte) booleanValues[i]);
+                }
+                break;
+            case DOUBLE:
+                ensureRemaining(8 * size);
+                this.values.asDoubleBuffer().put(rows.getDoubleValues(slot), 0, size);
+                this.values.position(this.values.position() + 8 * size);
+                break;
+            default:
+                Object[] objectValues = rows.getObjectValues(slot);
+                for (int i = 0; i < size; i++) {
+                    encodeObject(objectValues[i]);
+                }
+        }
+    }
+
+    /**
+     * Encodes a value of an SQL type with the tag of its type
+     */
+    private void encodeObject(Object value) {
+        if (value == null) {
+            ensureRemaining(1);
+            this.values.put(TAG_NULL);
+        } else if (value instanceof String || value instanceof Character) {
+            putBytes(TAG_STRING, value.toString().getBytes(StandardCharsets.UTF_8));
+        } else if (value instanceof Integer) {
+            ensureRemaining(5);
+            this.values.put(TAG_INTEGER).putInt((Integer) value);
+        } else if (value instanceof Long) {
+            ensureRemaining(9);
+            this.values.put(TAG_LONG).putLong((Long) value);
+        } else if (value instanceof Short) {
+            ensureRemaining(3);
+            this.values.put(TAG_SHORT).putShort((Short) value);
+        } else if (value instanceof Byte) {
+            ensureRemaining(2);
+            this.values.put(TAG_BYTE).put((Byte) value);
+        } else if (value instanceof Boolean) {
+            ensureRemaining(2);
+            this.values.put(TAG_BOOLEAN).put((byte) ((Boolean) value ? 1 : 0));
+        } else if (value instanceof Double) {
+            ensureRemaining(9);
+            this.values.put(TAG_DOUBLE).putDouble((Double) value);
+        } else if (value instanceof Float) {
+            ensureRemaining(5);
+            this.values.put(TAG_FLOAT).putFloat((Float) value);
+        } else if (value instanceof BigDecimal) {
+            BigDecimal decimal = (BigDecimal) value;
+            byte[] unscaledValue = decimal.unscaledValue().toByteArray();
+            ensureRemaining(9 + unscaledValue.length);
+            this.values.put(TAG_BIG_DECIMAL).putInt(decimal.scale()).putInt(unscaledValue.length).put(unscaledValue);
+        } else if (value instanceof BigInteger) {
+            putBytes(TAG_BIG_INTEGER, ((BigInteger) value).toByteArray());
+        } else if (value instanceof Date) {
+            ensureRemaining(9);
+            this.values.put(TAG_DATE).putLong(((Date) value).toLocalDate().toEpochDay());
+        } else if (value instanceof Time) {
+            Time time = (Time) value;
+            ensureRemaining(9);
+            this.values.put(TAG_TIME).putLong(time.toLocalTime().toNanoOfDay() + Math.floorMod(time.getTime(), 1000L) * 1000000L);
+        } else if (value instanceof java.util.Date) {
+            Timestamp timestamp = value instanceof Timestamp ? (Timestamp) value : new Timestamp(((java.util.Date) value).getTime());
+            LocalDateTime dateTime = timestamp.toLocalDateTime();
+            ensureRemaining(13);
+            this.values.put(TAG_TIMESTAMP).putLong(dateTime.toEpochSecond(ZoneOffset.UTC)).putInt(dateTime.getNano());
+        } else if (value instanceof byte[]) {
+            putBytes(TAG_BYTES, (byte[]) value);
+        } else {
+            throw new IllegalArgumentException("Values of type [" + value.getClass().getName() + "] can't be saved in a dataset");
+        }
+    }
+
+    private void putBytes(byte tag, byte[] bytes) {
+        ensureRemaining(5 + bytes.length);
+        this.values.put(tag).putInt(bytes.length).put(bytes);
+    }
+
+    /**
+     * Grows the buffer of the values, if it can't hold the specified number of bytes more
+     */
+    private void ensureRemaining(int numOfBytes) {
+        if (this.values.remaining() >= numOfBytes) return;
+
+        int capacity = Math.max(this.values.capacity() * 2, this.values.position() + numOfBytes);
+        ByteBuffer values = ByteBuffer.allocate(capacity);
+        this.values.flip();
+        values.put(this.values);
+        this.values = values;
+    }
+
+    private ByteBuffer compress(int valuesLength) {
+        this.deflater.reset();
+        this.deflater.setInput(this.values.array(), 0, valuesLength);
+        this.deflater.finish();
+
+        int compressedLength = 0;
+        while (!this.deflater.finished()) {
+            if (compressedLength == this.compressedValues.length) {
+                byte[] compressedValues = new byte[this.compressedValues.length * 2];
+                System.arraycopy(this.compressedValues, 0, compressedValues, 0, compressedLength);
+                this.compressedValues = compressedValues;
+            }
+            compressedLength += this.deflater.deflate(this.compressedValues, compressedLength, this.compressedValues.length - compressedLength);
+        }
+        return ByteBuffer.wrap(this.compressedValues, 0, compressedLength);
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            this.channel.write(buffer);
+        }
+    }
+}
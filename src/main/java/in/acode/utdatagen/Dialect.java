@@ -0,0 +1,30 @@
+package in.acode.utdatagen;
+
+/**
+ * The DBs whose SQL differs in the statements generated by the fixtures, told apart by the product name of the JDBC driver
+ * <br>MariaDB is taken as MySQL, and any DB which is not known is OTHER
+ */
+enum Dialect {
+    MYSQL,
+    POSTGRESQL,
+    H2,
+    OTHER;
+
+    /**
+     * Returns the dialect of <code>DatabaseMetaData.getDatabaseProductName()</code>
+     */
+    static Dialect getDialect(String databaseProductName) {
+        String productName = databaseProductName == null ? "" : databaseProductName.toLowerCase();
+
+        if (productName.contains("mysql") || productName.contains("mariadb")) {
+            return MYSQL;
+        }
+        if (productName.contains("postgresql")) {
+            return POSTGRESQL;
+        }
+        if (productName.contains("h2")) {
+            return H2;
+        }
+        return OTHER;
+    }
+}
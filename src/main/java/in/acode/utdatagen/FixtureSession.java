@@ -0,0 +1,101 @@
+package in.acode.utdatagen;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import javax.sql.DataSource;
+import java.sql.Savepoint;
+
+/**
+ * A transaction shared by all the fixture operations on a DataSource, which is rolled back at the end, e.g. of a test
+ * <br>While a session is open, the fixtures of its DataSource use the single connection of the session on the thread which began it,
+ * so the inserted rows are never committed and the cleanup is a rollback instead of a reset of every table -
+ * <code>
+ * <br>try (FixtureSession session = FixtureSession.begin(jdbcTemplate)) {
+ * <br>&emsp;testTableFixture.insertRows(criteria);
+ * <br>&emsp;// test the code which uses the same DataSource/JdbcTemplate
+ * <br>}
+ * </code>
+ * <br>A session begun inside another one is nested, i.e. it is a savepoint of the outer transaction and closing it rolls back to the savepoint.
+ * So an outer session can seed a baseline once, and a nested session per test method keeps the baseline intact.
+ * Savepoints can also be created and rolled back to within a session
+ * <br>Inside a session -
+ * <br>&emsp;1. Reset strategies other than DELETE are not allowed, as TRUNCATE and DDL commit implicitly on most DBs
+ * <br>&emsp;2. Parallel insertion writes all the rows on the thread of the session, and multi-table resets don't use other threads
+ * <br>A session is bound to the thread which began it, and must be closed on the same thread, the nested sessions before the outer ones
+ */
+public class FixtureSession implements AutoCloseable {
+
+    private static final Log LOG = LogFactory.getLog(FixtureSession.class);
+
+    private final DataSourceTransactionManager transactionManager;
+    private final TransactionStatus transactionStatus;
+    private boolean closed;
+
+    private FixtureSession(DataSource dataSource) {
+        this.transactionManager = new DataSourceTransactionManager(dataSource);
+        this.transactionStatus = this.transactionManager.getTransaction(new DefaultTransactionDefinition(TransactionDefinition.PROPAGATION_NESTED));
+        this.closed = false;
+    }
+
+    /**
+     * Begins a session on the DataSource of the JdbcTemplate, nested if there is already a transaction on it in this thread
+     */
+    public static FixtureSession begin(JdbcTemplate jdbcTemplate) {
+        FixtureSession session = new FixtureSession(jdbcTemplate.getDataSource());
+        LOG.info("Began " + (session.isNested() ? "a nested" : "a") + " fixture session");
+        return session;
+    }
+
+    /**
+     * Checks whether the current thread is in a transaction on the DataSource, of a session or otherwise
+     */
+    public static boolean isActive(DataSource dataSource) {
+        return TransactionSynchronizationManager.hasResource(dataSource);
+    }
+
+    public boolean isNested() {
+        return !this.transactionStatus.isNewTransaction();
+    }
+
+    public Savepoint createSavepoint() {
+        checkNotClosed();
+        return (Savepoint) this.transactionStatus.createSavepoint();
+    }
+
+    /**
+     * Rolls back the changes made after the savepoint, which stays valid and can be rolled back to again
+     */
+    public void rollbackToSavepoint(Savepoint savepoint) {
+        checkNotClosed();
+        this.transactionStatus.rollbackToSavepoint(savepoint);
+    }
+
+    public void releaseSavepoint(Savepoint savepoint) {
+        checkNotClosed();
+        this.transactionStatus.releaseSavepoint(savepoint);
+    }
+
+    /**
+     * Rolls back everything done in the session, and releases its connection unless it is nested
+     */
+    @Override
+    public void close() {
+        if (this.closed) return;
+
+        this.closed = true;
+        this.transactionManager.rollback(this.transactionStatus);
+        LOG.info("Rolled back " + (isNested() ? "a nested" : "a") + " fixture session");
+    }
+
+    private void checkNotClosed() {
+        if (this.closed) {
+            throw new IllegalStateException("The fixture session is closed");
+        }
+    }
+}
@@ -1,8 +1,14 @@
 package in.acode.utdatagen;
 
+import in.acode.utdatagen.suppliers.BooleanColumnSupplier;
+import in.acode.utdatagen.suppliers.DoubleColumnSupplier;
+import in.acode.utdatagen.suppliers.IntColumnSupplier;
+import in.acode.utdatagen.suppliers.LongColumnSupplier;
+import in.acode.utdatagen.suppliers.PrimitiveColumnSupplier;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.function.Supplier;
@@ -15,6 +21,10 @@ import java.util.function.Supplier;
  * <br>&emsp;1. Index of the row being inserted
  * <br>&emsp;2. Value inserted in the previous row
  * <br>If you do not explicitly specify a custom value, then a default value appropriate to the column's data-type is used
+ * <br></p>Use the <code>withIntCondition()</code>, <code>withLongCondition()</code>, <code>withDoubleCondition()</code> and
+ * <code>withBooleanCondition()</code> methods for value-suppliers of numeric/boolean columns, which work with primitive values.
+ * The values they generate are not boxed, and are bound to the INSERT statement as primitives
+ * <br></p>Use the <code>withSeed()</code> method to make the random values reproducible, see CellRandom
  * <p>Note that OBJECTS of this class ARE MUTABLE.
  * You can create an object and insert some rows using it.
  * Then you can make some changes to the same object and insert some more rows using the modified version</p>
@@ -23,22 +33,74 @@ public class InsertionCriteria {
 
     private int numOfRows;
     private boolean insertDefaultsForNullableColumns;
+    private boolean ensureDataset;
+    private boolean appendToTable;
+    private boolean guardUniqueValues;
+    private int maxGuardedValues;
+
+    /**
+     * Seed of the random values, null if a new seed is to be picked for each insertion
+     */
+    private Long seed;
+
+    /**
+     * Version of the dataset ensured by the criteria, changed by the user when the code of its value-suppliers changes
+     */
+    private String datasetVersion;
 
     /**
      * A map of column-names and their value-suppliers
      */
     private HashMap<String, BiFunction<Integer, Object, Object>> columnValueSuppliers;
 
+    /**
+     * Names of the columns whose value-supplier uses the value inserted in the previous row
+     */
+    private HashSet<String> prevValueDependentColumns;
+
+    /**
+     * A map of column-names and their primitive value-suppliers, along with the previous value passed to them for the first row
+     * <br>Such columns also have a boxing equivalent of the supplier in <code>columnValueSuppliers</code>
+     */
+    private HashMap<String, PrimitiveColumnSupplier> primitiveColumnSuppliers;
+    private HashMap<String, Object> initialPrevValues;
+
     public InsertionCriteria(int numOfRows) {
         this.forNumberOfRows(numOfRows);
         this.insertDefaultsForNullableColumns = false;
+        this.ensureDataset = false;
+        this.appendToTable = false;
+        this.guardUniqueValues = true;
+        this.maxGuardedValues = UniqueValues.DEFAULT_MAX_GUARDED_VALUES;
         columnValueSuppliers = new HashMap<>();
+        prevValueDependentColumns = new HashSet<>();
+        primitiveColumnSuppliers = new HashMap<>();
+        initialPrevValues = new HashMap<>();
     }
 
     public static InsertionCriteria newInstance() {
         return new InsertionCriteria(1);
     }
 
+    /**
+     * Returns a copy of the criteria, which can be changed without changing this one. The value-suppliers are shared by both
+     */
+    InsertionCriteria copy() {
+        InsertionCriteria copy = new InsertionCriteria(this.numOfRows);
+        copy.insertDefaultsForNullableColumns = this.insertDefaultsForNullableColumns;
+        copy.ensureDataset = this.ensureDataset;
+        copy.appendToTable = this.appendToTable;
+        copy.guardUniqueValues = this.guardUniqueValues;
+        copy.maxGuardedValues = this.maxGuardedValues;
+        copy.seed = this.seed;
+        copy.datasetVersion = this.datasetVersion;
+        copy.columnValueSuppliers.putAll(this.columnValueSuppliers);
+        copy.prevValueDependentColumns.addAll(this.prevValueDependentColumns);
+        copy.primitiveColumnSuppliers.putAll(this.primitiveColumnSuppliers);
+        copy.initialPrevValues.putAll(this.initialPrevValues);
+        return copy;
+    }
+
     public InsertionCriteria forNumberOfRows(int numOfRows) {
         if (numOfRows <= 0) {
             throw new IllegalArgumentException("Number of rows must be more than 0");
@@ -57,99 +119,321 @@ public class InsertionCriteria {
         return insertDefaultsForNullableColumns;
     }
 
+    /**
+     * Sets the seed of the random values generated by the built-in suppliers, the default values, and the custom suppliers using CellRandom
+     * <br>With the same seed, the same rows are generated, whether they are inserted serially, pipelined or in parallel -
+     * unless a unique column generates duplicates in parallel, as the worker which generates a duplicate last generates it again.
+     * A warning is logged when that happens
+     * Without a seed, a new seed is picked for each insertion, and can be found from the InsertionStats to generate the same rows again
+     */
+    public InsertionCriteria withSeed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    public Long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Sets whether the rows are inserted only if the table does not already hold them, e.g. from an earlier test class or run
+     * <br>The dataset is identified by a fingerprint of the number of rows, the seed, the dataset version, the columns of the table
+     * and the identity of the value-suppliers i.e. their classes and captured values, which is kept in a marker table along with the number of rows, see DatasetMarker. If both match, the insertion is skipped without reading the table.
+     * Otherwise the table is reset with its ResetStrategy, and the rows are inserted and recorded
+     * <br>The seed must be set, as the rows of a random seed are never the same. The marker is removed when the fixture writes other rows to the table,
+     * but changes made to the table outside the fixture are not detected. It can't be used inside a FixtureSession, which would roll back the marker
+     */
+    public InsertionCriteria ensureDataset(boolean ensure) {
+        this.ensureDataset = ensure;
+        return this;
+    }
+
+    public boolean isEnsureDataset() {
+        return ensureDataset;
+    }
+
+    /**
+     * Sets the version of the dataset ensured by the criteria, see <code>ensureDataset()</code>
+     * <br>The value-suppliers are not called to fingerprint the dataset, so a change to the code of a lambda is not seen.
+     * Change the version along with the code to have the dataset inserted again
+     */
+    public InsertionCriteria withDatasetVersion(String datasetVersion) {
+        this.datasetVersion = datasetVersion;
+        return this;
+    }
+
+    public String getDatasetVersion() {
+        return datasetVersion;
+    }
+
+    /**
+     * Sets whether the rows are appended after the rows the table already holds, continuing their sequences instead of starting over
+     * <br>Before the insertion, the fixture reads with aggregate queries -
+     * <br>&emsp;1. the number of rows of the table, which becomes the row-index of the first inserted row
+     * <br>&emsp;2. the MAX of each column whose value-supplier depends on the previous value, which becomes the previous value for the first inserted row
+     * <br>So a table can be grown at the cost of only the new rows, e.g. from 1M to 2M rows, provided that the suppliers depending on the previous value
+     * generate non-decreasing values. An empty column, or an empty table, starts from the initial previous value as usual.
+     * The values of the unique columns are kept unique among the appended rows, not against the existing ones
+     */
+    public InsertionCriteria appendToTable(boolean append) {
+        this.appendToTable = append;
+        return this;
+    }
+
+    public boolean isAppendToTable() {
+        return appendToTable;
+    }
+
+    /**
+     * Sets whether the values of the columns with a unique index of their own, or a single-column primary key, are kept unique, the default is true
+     * <br>A value already generated for such a column is generated again, until the value-supplier gives one which is not,
+     * so random defaults don't fail the insertion with a duplicate key. The values generated so far are held in memory, see UniqueValues,
+     * bounded by <code>withMaxGuardedValues()</code>
+     * <br>Turn it off to save the memory when the value-suppliers are unique by themselves e.g. derived from the row-index
+     */
+    public InsertionCriteria guardUniqueValues(boolean guard) {
+        this.guardUniqueValues = guard;
+        return this;
+    }
+
+    public boolean isGuardUniqueValues() {
+        return guardUniqueValues;
+    }
+
+    /**
+     * Sets the max number of values of a unique column which are held in memory to keep them unique, the default is about 4M
+     * <br>The INT columns are kept unique with a bitset once they have more values. The insertion of more rows than this into any other unique column
+     * fails before a row is inserted, unless the unique values are not guarded
+     */
+    public InsertionCriteria withMaxGuardedValues(int maxGuardedValues) {
+        if (maxGuardedValues <= 0) {
+            throw new IllegalArgumentException("Max guarded values must be more than 0");
+        }
+
+        this.maxGuardedValues = maxGuardedValues;
+        return this;
+    }
+
+    public int getMaxGuardedValues() {
+        return maxGuardedValues;
+    }
+
     public InsertionCriteria withCondition(String columnName, BiFunction<Integer, Object, Object> valueSupplier) {
-        columnValueSuppliers.put(columnName, valueSupplier);
+        putSupplier(columnName, valueSupplier, true);
         return this;
     }
 
     public InsertionCriteria withCondition(String columnName, Function<Integer, Object> valueSupplier) {
         BiFunction<Integer, Object, Object> biFunction = (idx, prevVal) -> valueSupplier.apply(idx);
-        columnValueSuppliers.put(columnName, biFunction);
+        putSupplier(columnName, biFunction, false);
         return this;
     }
 
     public InsertionCriteria withCondition(String columnName, Supplier valueSupplier) {
         BiFunction<Integer, Object, Object> biFunction = (idx, prevVal) -> valueSupplier.get();
-        columnValueSuppliers.put(columnName, biFunction);
+        putSupplier(columnName, biFunction, false);
         return this;
     }
 
     public InsertionCriteria withCondition(String columnName, String value) {
         BiFunction<Integer, Object, Object> biFunction = (idx, prevVal) -> value;
-        columnValueSuppliers.put(columnName, biFunction);
+        putSupplier(columnName, biFunction, false);
         return this;
     }
 
     public InsertionCriteria withCondition(String columnName, String... value) {
         BiFunction<Integer, Object, Object> biFunction = (idx, prevVal) -> (value.length == 0 ? null : value[idx % value.length]);
-        columnValueSuppliers.put(columnName, biFunction);
+        putSupplier(columnName, biFunction, false);
         return this;
     }
 
     public InsertionCriteria withCondition(String columnName, int value) {
-        BiFunction<Integer, Object, Object> biFunction = (idx, prevVal) -> value;
-        columnValueSuppliers.put(columnName, biFunction);
+        IntColumnSupplier intSupplier = (idx, prevVal) -> value;
+        putSupplier(columnName, (idx, prevVal) -> value, false, intSupplier, 0);
         return this;
     }
 
     public InsertionCriteria withCondition(String columnName, int... value) {
-        BiFunction<Integer, Object, Object> biFunction = (idx, prevVal) -> (value.length == 0 ? null : value[idx % value.length]);
-        columnValueSuppliers.put(columnName, biFunction);
+        if (value.length == 0) {
+            putSupplier(columnName, (idx, prevVal) -> null, false);
+            return this;
+        }
+
+        IntColumnSupplier intSupplier = (idx, prevVal) -> value[idx % value.length];
+        putSupplier(columnName, (idx, prevVal) -> value[idx % value.length], false, intSupplier, 0);
         return this;
     }
 
     public InsertionCriteria withCondition(String columnName, float value) {
         BiFunction<Integer, Object, Object> biFunction = (idx, prevVal) -> value;
-        columnValueSuppliers.put(columnName, biFunction);
+        putSupplier(columnName, biFunction, false);
         return this;
     }
 
     public InsertionCriteria withCondition(String columnName, float... value) {
         BiFunction<Integer, Object, Object> biFunction = (idx, prevVal) -> (value.length == 0 ? null : value[idx % value.length]);
-        columnValueSuppliers.put(columnName, biFunction);
+        putSupplier(columnName, biFunction, false);
         return this;
     }
 
     public InsertionCriteria withCondition(String columnName, boolean value) {
-        BiFunction<Integer, Object, Object> biFunction = (idx, prevVal) -> value;
-        columnValueSuppliers.put(columnName, biFunction);
+        BooleanColumnSupplier booleanSupplier = (idx, prevVal) -> value;
+        putSupplier(columnName, (idx, prevVal) -> value, false, booleanSupplier, false);
         return this;
     }
 
     public InsertionCriteria withCondition(String columnName, boolean... value) {
-        BiFunction<Integer, Object, Object> biFunction = (idx, prevVal) -> (value.length == 0 ? null : value[idx % value.length]);
-        columnValueSuppliers.put(columnName, biFunction);
+        if (value.length == 0) {
+            putSupplier(columnName, (idx, prevVal) -> null, false);
+            return this;
+        }
+
+        BooleanColumnSupplier booleanSupplier = (idx, prevVal) -> value[idx % value.length];
+        putSupplier(columnName, (idx, prevVal) -> value[idx % value.length], false, booleanSupplier, false);
         return this;
     }
 
     public InsertionCriteria withCondition(String columnName, LocalDate value) {
         BiFunction<Integer, Object, Object> biFunction = (idx, prevVal) -> value;
-        columnValueSuppliers.put(columnName, biFunction);
+        putSupplier(columnName, biFunction, false);
         return this;
     }
 
     public InsertionCriteria withCondition(String columnName, LocalDate... value) {
         BiFunction<Integer, Object, Object> biFunction = (idx, prevVal) -> (value.length == 0 ? null : value[idx % value.length]);
-        columnValueSuppliers.put(columnName, biFunction);
+        putSupplier(columnName, biFunction, false);
         return this;
     }
 
     public InsertionCriteria withCondition(String columnName, LocalDateTime value) {
         BiFunction<Integer, Object, Object> biFunction = (idx, prevVal) -> value;
-        columnValueSuppliers.put(columnName, biFunction);
+        putSupplier(columnName, biFunction, false);
         return this;
     }
 
     public InsertionCriteria withCondition(String columnName, LocalDateTime... value) {
         BiFunction<Integer, Object, Object> biFunction = (idx, prevVal) -> (value.length == 0 ? null : value[idx % value.length]);
-        columnValueSuppliers.put(columnName, biFunction);
+        putSupplier(columnName, biFunction, false);
+        return this;
+    }
+
+    /**
+     * Specifies an int value-supplier for a column, the previous value for the first row is 0
+     */
+    public InsertionCriteria withIntCondition(String columnName, IntColumnSupplier valueSupplier) {
+        return withIntCondition(columnName, 0, valueSupplier);
+    }
+
+    /**
+     * Specifies an int value-supplier for a column
+     * @param initialPrevValue value passed as the previous value for the first row
+     */
+    public InsertionCriteria withIntCondition(String columnName, int initialPrevValue, IntColumnSupplier valueSupplier) {
+        BiFunction<Integer, Object, Object> biFunction = (idx, prevVal) -> valueSupplier.getAsInt(idx, prevVal == null ? initialPrevValue : (Integer) prevVal);
+        putSupplier(columnName, biFunction, true, valueSupplier, initialPrevValue);
+        return this;
+    }
+
+    /**
+     * Specifies a long value-supplier for a column, the previous value for the first row is 0
+     */
+    public InsertionCriteria withLongCondition(String columnName, LongColumnSupplier valueSupplier) {
+        return withLongCondition(columnName, 0L, valueSupplier);
+    }
+
+    /**
+     * Specifies a long value-supplier for a column
+     * @param initialPrevValue value passed as the previous value for the first row
+     */
+    public InsertionCriteria withLongCondition(String columnName, long initialPrevValue, LongColumnSupplier valueSupplier) {
+        BiFunction<Integer, Object, Object> biFunction = (idx, prevVal) -> valueSupplier.getAsLong(idx, prevVal == null ? initialPrevValue : (Long) prevVal);
+        putSupplier(columnName, biFunction, true, valueSupplier, initialPrevValue);
+        return this;
+    }
+
+    /**
+     * Specifies a double value-supplier for a column, the previous value for the first row is 0
+     */
+    public InsertionCriteria withDoubleCondition(String columnName, DoubleColumnSupplier valueSupplier) {
+        return withDoubleCondition(columnName, 0.0, valueSupplier);
+    }
+
+    /**
+     * Specifies a double value-supplier for a column
+     * @param initialPrevValue value passed as the previous value for the first row
+     */
+    public InsertionCriteria withDoubleCondition(String columnName, double initialPrevValue, DoubleColumnSupplier valueSupplier) {
+        BiFunction<Integer, Object, Object> biFunction = (idx, prevVal) -> valueSupplier.getAsDouble(idx, prevVal == null ? initialPrevValue : (Double) prevVal);
+        putSupplier(columnName, biFunction, true, valueSupplier, initialPrevValue);
+        return this;
+    }
+
+    /**
+     * Specifies a boolean value-supplier for a column, the previous value for the first row is false
+     */
+    public InsertionCriteria withBooleanCondition(String columnName, BooleanColumnSupplier valueSupplier) {
+        return withBooleanCondition(columnName, false, valueSupplier);
+    }
+
+    /**
+     * Specifies a boolean value-supplier for a column
+     * @param initialPrevValue value passed as the previous value for the first row
+     */
+    public InsertionCriteria withBooleanCondition(String columnName, boolean initialPrevValue, BooleanColumnSupplier valueSupplier) {
+        BiFunction<Integer, Object, Object> biFunction = (idx, prevVal) -> valueSupplier.getAsBoolean(idx, prevVal == null ? initialPrevValue : (Boolean) prevVal);
+        putSupplier(columnName, biFunction, true, valueSupplier, initialPrevValue);
         return this;
     }
 
+    private void putSupplier(String columnName, BiFunction<Integer, Object, Object> valueSupplier, boolean dependsOnPrevValue) {
+        putSupplier(columnName, valueSupplier, dependsOnPrevValue, null, null);
+    }
+
+    private void putSupplier(String columnName, BiFunction<Integer, Object, Object> valueSupplier, boolean dependsOnPrevValue,
+                             PrimitiveColumnSupplier primitiveValueSupplier, Object initialPrevValue) {
+        columnValueSuppliers.put(columnName, valueSupplier);
+        if (dependsOnPrevValue) {
+            prevValueDependentColumns.add(columnName);
+        } else {
+            prevValueDependentColumns.remove(columnName);
+        }
+
+        if (primitiveValueSupplier != null) {
+            primitiveColumnSuppliers.put(columnName, primitiveValueSupplier);
+            initialPrevValues.put(columnName, initialPrevValue);
+        } else {
+            primitiveColumnSuppliers.remove(columnName);
+            initialPrevValues.remove(columnName);
+        }
+    }
+
     public BiFunction<Integer, Object, Object> getSupplierForColumn(String columnName) {
         return this.columnValueSuppliers.get(columnName);
     }
 
+    /**
+     * Returns the primitive value-supplier of the column, or null if the column has none
+     * <br>For such columns, <code>getSupplierForColumn()</code> returns an equivalent supplier which boxes the values
+     */
+    public PrimitiveColumnSupplier getPrimitiveSupplierForColumn(String columnName) {
+        return this.primitiveColumnSuppliers.get(columnName);
+    }
+
+    /**
+     * Returns the (boxed) value passed to the primitive value-supplier of the column as the previous value for the first row
+     */
+    public Object getInitialPrevValue(String columnName) {
+        return this.initialPrevValues.get(columnName);
+    }
+
+    /**
+     * Tells if the value-supplier of the column may use the value inserted in the previous row
+     * <br>Only the suppliers specified as a <code>BiFunction</code> or as a primitive value-supplier have access to the previous value
+     */
+    public boolean dependsOnPrevValue(String columnName) {
+        return this.prevValueDependentColumns.contains(columnName);
+    }
+
     public int getNumOfRows() {
         return numOfRows;
     }
@@ -0,0 +1,125 @@
+package in.acode.utdatagen;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timings collected while inserting rows
+ * <br>Generation and writing are timed separately, along with the time each of them spent waiting for the other.
+ * In a pipelined insertion, the side that waits less is the one limiting the throughput -
+ * <br>&emsp;1. A generator that keeps waiting for space in the queue means that the DB writes are the bottleneck
+ * <br>&emsp;2. A writer that keeps waiting for rows means that the row generation is the bottleneck
+ * <br>The seed of the random values is included, so that the same rows can be generated again
+ */
+public class InsertionStats {
+
+    private final int numOfRows;
+    private final long seed;
+    private final int numOfBatches;
+    private final long generationNanos;
+    private final long writeNanos;
+    private final long generatorWaitNanos;
+    private final long writerWaitNanos;
+    private final long elapsedNanos;
+    private final boolean skipped;
+
+    InsertionStats(int numOfRows, long seed, int numOfBatches, long generationNanos, long writeNanos, long generatorWaitNanos, long writerWaitNanos, long elapsedNanos) {
+        this(numOfRows, seed, numOfBatches, generationNanos, writeNanos, generatorWaitNanos, writerWaitNanos, elapsedNanos, false);
+    }
+
+    private InsertionStats(int numOfRows, long seed, int numOfBatches, long generationNanos, long writeNanos, long generatorWaitNanos, long writerWaitNanos, long elapsedNanos,
+                           boolean skipped) {
+        this.numOfRows = numOfRows;
+        this.seed = seed;
+        this.numOfBatches = numOfBatches;
+        this.generationNanos = generationNanos;
+        this.writeNanos = writeNanos;
+        this.generatorWaitNanos = generatorWaitNanos;
+        this.writerWaitNanos = writerWaitNanos;
+        this.elapsedNanos = elapsedNanos;
+        this.skipped = skipped;
+    }
+
+    /**
+     * Stats of an insertion which was skipped, as the table already held the rows, see <code>InsertionCriteria.ensureDataset()</code>
+     */
+    static InsertionStats skipped(int numOfRows, long seed, long elapsedNanos) {
+        return new InsertionStats(numOfRows, seed, 0, 0, 0, 0, 0, elapsedNanos, true);
+    }
+
+    public int getNumOfRows() {
+        return numOfRows;
+    }
+
+    /**
+     * Seed of the random values, pass it to <code>InsertionCriteria.withSeed()</code> to generate the same rows again
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getNumOfBatches() {
+        return numOfBatches;
+    }
+
+    /**
+     * Time spent in generating the values of the rows
+     */
+    public long getGenerationNanos() {
+        return generationNanos;
+    }
+
+    /**
+     * Time spent in sending the rows to the DB
+     */
+    public long getWriteNanos() {
+        return writeNanos;
+    }
+
+    /**
+     * Time the generator spent waiting for the writer to make space for more rows
+     */
+    public long getGeneratorWaitNanos() {
+        return generatorWaitNanos;
+    }
+
+    /**
+     * Time the writer spent waiting for the generator to supply more rows
+     */
+    public long getWriterWaitNanos() {
+        return writerWaitNanos;
+    }
+
+    /**
+     * Wall-clock time of the whole insertion
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Whether the insertion was skipped as the table already held the rows
+     */
+    public boolean isSkipped() {
+        return skipped;
+    }
+
+    public double getRowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : numOfRows * (double)TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "InsertionStats{"
+            + "rows=" + numOfRows
+            + ", seed=" + seed
+            + ", batches=" + numOfBatches
+            + ", generationMs=" + TimeUnit.NANOSECONDS.toMillis(generationNanos)
+            + ", writeMs=" + TimeUnit.NANOSECONDS.toMillis(writeNanos)
+            + ", generatorWaitMs=" + TimeUnit.NANOSECONDS.toMillis(generatorWaitNanos)
+            + ", writerWaitMs=" + TimeUnit.NANOSECONDS.toMillis(writerWaitNanos)
+            + ", elapsedMs=" + TimeUnit.NANOSECONDS.toMillis(elapsedNanos)
+            + ", rowsPerSecond=" + (long)getRowsPerSecond()
+            + (skipped ? ", skipped" : "")
+            + "}";
+    }
+}
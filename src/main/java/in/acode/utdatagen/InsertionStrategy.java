@@ -0,0 +1,28 @@
+package in.acode.utdatagen;
+
+/**
+ * The ways in which a DBTableFixture can send the generated rows to the DB
+ */
+public enum InsertionStrategy {
+
+    /**
+     * A single-row <code>INSERT ... VALUES (?, ?, ...)</code> statement, executed as a JDBC batch with one entry per row
+     * <br>The number of round-trips depends on whether the driver rewrites the batch
+     */
+    BATCHED_STATEMENTS,
+
+    /**
+     * A multi-row <code>INSERT ... VALUES (?, ?, ...), (?, ?, ...), ...</code> statement,
+     * with as many rows per statement as the bind-parameter limit and the max packet size allow
+     * <br>Needs far fewer round-trips and statement parses than single-row statements, especially for wide tables
+     */
+    MULTI_ROW_VALUES,
+
+    /**
+     * The native bulk-loader of the DB, fed with the rows encoded as text while they are being read -
+     * <code>LOAD DATA LOCAL INFILE</code> on MySQL, <code>COPY ... FROM STDIN</code> on PostgreSQL and <code>CSVREAD</code> on H2
+     * <br>Values come from the same suppliers and conversions as the INSERT based strategies, so the data is the same.
+     * Every batch is a separate load, so use a large batch size (e.g. 50000 rows) with this strategy
+     */
+    BULK_LOAD
+}
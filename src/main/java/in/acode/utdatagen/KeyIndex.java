@@ -0,0 +1,318 @@
+package in.acode.utdatagen;
+
+import in.acode.utdatagen.suppliers.CellRandom;
+import in.acode.utdatagen.suppliers.IntColumnSupplier;
+import in.acode.utdatagen.suppliers.LongColumnSupplier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * The distinct keys of a column held in memory, e.g. the keys of a parent table, to fill the foreign key column of a child table with
+ * <br>Integer keys are held in a sorted long[], any other keys e.g. strings in a sorted dictionary holding each distinct key once.
+ * Sorting makes the keys, and so the values picked from them, independent of the order in which they were read
+ * <br>The suppliers of an index pick a key in constant time -
+ * <br>&emsp;1. <code>random()</code> picks any of the keys, each as likely as the other
+ * <br>&emsp;2. <code>sequential()</code> picks the keys in order, the row-index wraps around them
+ * <br>&emsp;3. <code>skewed()</code> picks the smaller keys more often than the bigger ones, like older parents having more children
+ * <br>The random keys come from CellRandom, so they are reproducible with the seed of the InsertionCriteria.
+ * The primitive suppliers e.g. <code>randomAsLong()</code> are meant for integer keys, and allocate nothing per value.
+ * The others box the integer keys as they were read, and return the keys of the dictionary as they are
+ * <br>An index is immutable, and can be shared by generators running on different threads.
+ * Use <code>DBTableFixture.loadKeyIndex()</code> to read the keys of a table, or <code>DBTableFixture.generateKeyIndex()</code> for the keys it generates
+ */
+public final class KeyIndex {
+
+    /**
+     * Keys of an index of integer keys, null for an index of other keys
+     */
+    private final long[] longKeys;
+
+    /**
+     * Whether all the integer keys were read as Integer, Short or Byte, so that they are boxed as Integer
+     */
+    private final boolean intKeys;
+    private final Object[] objectKeys;
+
+    private KeyIndex(long[] longKeys, boolean intKeys, Object[] objectKeys) {
+        this.longKeys = longKeys;
+        this.intKeys = intKeys;
+        this.objectKeys = objectKeys;
+    }
+
+    /**
+     * Creates an index of the specified integer keys, duplicates are held once
+     */
+    public static KeyIndex ofLongs(long... keys) {
+        Builder builder = new Builder();
+        for (long key : keys) {
+            builder.add(key);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Creates an index of the specified keys, duplicates and nulls are left out
+     * @param keys Integer, Long, Short or Byte keys for an index of integer keys, or other keys which are Comparable with each other
+     */
+    public static KeyIndex of(Collection<?> keys) {
+        Builder builder = new Builder();
+        keys.forEach(builder::add);
+        return builder.build();
+    }
+
+    /**
+     * Number of distinct keys
+     */
+    public int size() {
+        return this.longKeys != null ? this.longKeys.length : this.objectKeys.length;
+    }
+
+    /**
+     * Tells if the keys are integers, held as primitives, so that the primitive suppliers can be used
+     */
+    public boolean hasLongKeys() {
+        return this.longKeys != null;
+    }
+
+    /**
+     * Returns the key at the specified position in the sorted keys
+     */
+    public Object get(int keyIdx) {
+        if (this.longKeys == null) {
+            return this.objectKeys[keyIdx];
+        }
+        return this.intKeys ? (Object) (int) this.longKeys[keyIdx] : (Object) this.longKeys[keyIdx];
+    }
+
+    /**
+     * Same as <code>get()</code>, for an index of integer keys
+     */
+    public long getAsLong(int keyIdx) {
+        return getLongKeys()[keyIdx];
+    }
+
+    /**
+     * Returns a supplier, which in-turn would supply any of the keys at random
+     */
+    public Supplier<Object> random() {
+        int numOfKeys = nonEmptySize();
+        return () -> get(CellRandom.current().nextInt(numOfKeys));
+    }
+
+    /**
+     * Returns a supplier, which in-turn would supply the keys in order, starting again from the smallest one after the biggest one
+     */
+    public Function<Integer, Object> sequential() {
+        int numOfKeys = nonEmptySize();
+        return rowIdx -> get(rowIdx % numOfKeys);
+    }
+
+    /**
+     * Returns a supplier, which in-turn would supply the smaller keys more often than the bigger ones
+     * <br>A key is picked at a position <code>numOfKeys * r^exponent</code> for a random r in [0, 1),
+     * e.g. with an exponent of 2 the smallest quarter of the keys get half of the values
+     * @param exponent 1 for no skew, the bigger it is the more the values crowd around the smallest keys
+     */
+    public Supplier<Object> skewed(double exponent) {
+        int numOfKeys = nonEmptySize();
+        validateExponent(exponent);
+        return () -> get(nextSkewedIdx(numOfKeys, exponent));
+    }
+
+    /**
+     * Same as <code>random()</code>, but returns a supplier of primitive longs, for use with <code>InsertionCriteria.withLongCondition()</code>
+     */
+    public LongColumnSupplier randomAsLong() {
+        long[] keys = getLongKeys();
+        int numOfKeys = nonEmptySize();
+        return (idx, prevValue) -> keys[CellRandom.current().nextInt(numOfKeys)];
+    }
+
+    /**
+     * Same as <code>sequential()</code>, but returns a supplier of primitive longs, for use with <code>InsertionCriteria.withLongCondition()</code>
+     */
+    public LongColumnSupplier sequentialAsLong() {
+        long[] keys = getLongKeys();
+        int numOfKeys = nonEmptySize();
+        return (idx, prevValue) -> keys[idx % numOfKeys];
+    }
+
+    /**
+     * Same as <code>skewed()</code>, but returns a supplier of primitive longs, for use with <code>InsertionCriteria.withLongCondition()</code>
+     */
+    public LongColumnSupplier skewedAsLong(double exponent) {
+        long[] keys = getLongKeys();
+        int numOfKeys = nonEmptySize();
+        validateExponent(exponent);
+        return (idx, prevValue) -> keys[nextSkewedIdx(numOfKeys, exponent)];
+    }
+
+    /**
+     * Same as <code>random()</code>, but returns a supplier of primitive ints, for use with <code>InsertionCriteria.withIntCondition()</code>
+     */
+    public IntColumnSupplier randomAsInt() {
+        long[] keys = getIntKeys();
+        int numOfKeys = nonEmptySize();
+        return (idx, prevValue) -> (int) keys[CellRandom.current().nextInt(numOfKeys)];
+    }
+
+    /**
+     * Same as <code>sequential()</code>, but returns a supplier of primitive ints, for use with <code>InsertionCriteria.withIntCondition()</code>
+     */
+    public IntColumnSupplier sequentialAsInt() {
+        long[] keys = getIntKeys();
+        int numOfKeys = nonEmptySize();
+        return (idx, prevValue) -> (int) keys[idx % numOfKeys];
+    }
+
+    /**
+     * Same as <code>skewed()</code>, but returns a supplier of primitive ints, for use with <code>InsertionCriteria.withIntCondition()</code>
+     */
+    public IntColumnSupplier skewedAsInt(double exponent) {
+        long[] keys = getIntKeys();
+        int numOfKeys = nonEmptySize();
+        validateExponent(exponent);
+        return (idx, prevValue) -> (int) keys[nextSkewedIdx(numOfKeys, exponent)];
+    }
+
+    @Override
+    public String toString() {
+        return "KeyIndex{" + size() + (hasLongKeys() ? " integer keys" : " keys") + "}";
+    }
+
+    private static int nextSkewedIdx(int numOfKeys, double exponent) {
+        return Math.min((int) (numOfKeys * Math.pow(CellRandom.current().nextDouble(), exponent)), numOfKeys - 1);
+    }
+
+    private static void validateExponent(double exponent) {
+        if (!(exponent >= 1)) {
+            throw new IllegalArgumentException("Exponent must be 1 or more");
+        }
+    }
+
+    private int nonEmptySize() {
+        if (size() == 0) {
+            throw new IllegalStateException("There are no keys to pick from");
+        }
+        return size();
+    }
+
+    private long[] getLongKeys() {
+        if (this.longKeys == null) {
+            throw new IllegalStateException("The keys are not integers");
+        }
+        return this.longKeys;
+    }
+
+    private long[] getIntKeys() {
+        long[] keys = getLongKeys();
+        if (keys.length > 0 && (keys[0] < Integer.MIN_VALUE || keys[keys.length - 1] > Integer.MAX_VALUE)) {
+            throw new IllegalStateException("The keys don't fit in an int");
+        }
+        return keys;
+    }
+
+    /**
+     * Collects the keys of an index one by one, e.g. while they are read from a table
+     * <br>The integer keys are collected in a growing long[], until a key of another type comes, when all of them are boxed in a list instead
+     */
+    static class Builder {
+
+        private long[] longKeys;
+        private int numOfLongKeys;
+        private boolean intKeys;
+        private List<Object> objectKeys;
+
+        Builder() {
+            this.longKeys = new long[1024];
+            this.numOfLongKeys = 0;
+            this.intKeys = true;
+        }
+
+        void add(long key) {
+            if (this.objectKeys != null) {
+                this.objectKeys.add(key);
+                return;
+            }
+            append(key);
+            this.intKeys = false;
+        }
+
+        void add(int key) {
+            if (this.objectKeys != null) {
+                this.objectKeys.add(key);
+                return;
+            }
+            append(key);
+        }
+
+        /**
+         * Adds a key of any type, a null is left out
+         */
+        void add(Object key) {
+            if (key == null) return;
+
+            if (this.objectKeys == null) {
+                if (key instanceof Integer || key instanceof Short || key instanceof Byte) {
+                    add(((Number) key).intValue());
+                    return;
+                }
+                if (key instanceof Long) {
+                    add(((Long) key).longValue());
+                    return;
+                }
+
+                this.objectKeys = new ArrayList<>(Math.max(this.numOfLongKeys * 2, 16));
+                for (int i = 0; i < this.numOfLongKeys; i++) {
+                    this.objectKeys.add(this.intKeys ? (Object) (int) this.longKeys[i] : (Object) this.longKeys[i]);
+                }
+                this.longKeys = null;
+            }
+            this.objectKeys.add(key);
+        }
+
+        private void append(long key) {
+            if (this.numOfLongKeys == this.longKeys.length) {
+                this.longKeys = Arrays.copyOf(this.longKeys, this.longKeys.length * 2);
+            }
+            this.longKeys[this.numOfLongKeys++] = key;
+        }
+
+        /**
+         * Sorts the keys, and leaves out the duplicates
+         */
+        @SuppressWarnings("unchecked")
+        KeyIndex build() {
+            if (this.objectKeys == null) {
+                long[] keys = this.longKeys;
+                Arrays.sort(keys, 0, this.numOfLongKeys);
+                int numOfKeys = 0;
+                for (int i = 0; i < this.numOfLongKeys; i++) {
+                    if (numOfKeys == 0 || keys[i] != keys[numOfKeys - 1]) {
+                        keys[numOfKeys++] = keys[i];
+                    }
+                }
+                return new KeyIndex(Arrays.copyOf(keys, numOfKeys), this.intKeys, null);
+            }
+
+            Object[] keys = this.objectKeys.toArray();
+            try {
+                Arrays.sort(keys, (key1, key2) -> ((Comparable<Object>) key1).compareTo(key2));
+            } catch (ClassCastException e) {
+                throw new IllegalArgumentException("The keys can't be indexed, they must be Comparable with each other", e);
+            }
+
+            int numOfKeys = 0;
+            for (int i = 0; i < keys.length; i++) {
+                if (numOfKeys == 0 || !keys[i].equals(keys[numOfKeys - 1])) {
+                    keys[numOfKeys++] = keys[i];
+                }
+            }
+            return new KeyIndex(null, false, Arrays.copyOf(keys, numOfKeys));
+        }
+    }
+}
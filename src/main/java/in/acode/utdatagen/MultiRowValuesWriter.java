@@ -0,0 +1,163 @@
+package in.acode.utdatagen;
+
+import in.acode.utdatagen.meta.DBColumnMetadata;
+import java.sql.Connection;
+import java.sql.JDBCType;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Writer for InsertionStrategy.MULTI_ROW_VALUES
+ * <br>Inserts many rows with a single <code>INSERT ... VALUES (...), (...), ...</code> statement.
+ * The number of rows per statement is limited by -
+ * <br>&emsp;1. The max number of bind-parameters the DB/driver accepts in a statement
+ * <br>&emsp;2. The max packet size, using an estimate of the size of a row based on the column metadata
+ * <br>A batch is split into as many full statements as possible, which are executed as a JDBC batch,
+ * and a smaller statement for the remaining rows
+ */
+class MultiRowValuesWriter extends RowWriter {
+
+    static final int DEFAULT_MAX_PACKET_SIZE = 4 * 1024 * 1024;
+
+    /**
+     * Bind-parameter limit used when the DB is not one of the known ones
+     */
+    static final int DEFAULT_MAX_BIND_PARAMETERS = Short.MAX_VALUE;
+
+    /**
+     * Estimated bytes taken by the placeholder and separator of a value in the SQL, e.g. "?, "
+     */
+    private static final int VALUE_OVERHEAD_SIZE = 4;
+
+    private final int rowsPerStatement;
+    private PreparedStatement fullStatement;
+
+    MultiRowValuesWriter(Connection connection, String tableName, List<DBColumnMetadata> columns, int maxBindParameters, int maxPacketSize) {
+        super(connection, tableName, columns);
+        this.rowsPerStatement = getRowsPerStatement(columns, maxBindParameters, maxPacketSize);
+    }
+
+    int getRowsPerStatement() {
+        return rowsPerStatement;
+    }
+
+    @Override
+    void write(RowBatch rows) throws SQLException {
+        int numOfFullStatements = rows.size() / this.rowsPerStatement;
+        int rowIdx = 0;
+
+        if (numOfFullStatements > 0) {
+            if (this.fullStatement == null) {
+                this.fullStatement = this.connection.prepareStatement(getInsertStatement(this.rowsPerStatement));
+            }
+
+            for (int i = 0; i < numOfFullStatements; i++) {
+                rowIdx = bindRows(this.fullStatement, rows, rowIdx, this.rowsPerStatement);
+                this.fullStatement.addBatch();
+            }
+            this.fullStatement.executeBatch();
+        }
+
+        int numOfRemainingRows = rows.size() - rowIdx;
+        if (numOfRemainingRows > 0) {
+            try (PreparedStatement remainderStatement = this.connection.prepareStatement(getInsertStatement(numOfRemainingRows))) {
+                bindRows(remainderStatement, rows, rowIdx, numOfRemainingRows);
+                remainderStatement.executeUpdate();
+            }
+        }
+    }
+
+    /**
+     * Binds the values of <code>numOfRows</code> rows starting at <code>rowIdx</code>
+     * @return index of the next row to be bound
+     */
+    private int bindRows(PreparedStatement preparedStatement, RowBatch rows, int rowIdx, int numOfRows) throws SQLException {
+        int parameterIdx = 1;
+        for (int i = 0; i < numOfRows; i++) {
+            bindRow(preparedStatement, parameterIdx, rows, rowIdx++);
+            parameterIdx += this.columns.size();
+        }
+        return rowIdx;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        if (this.fullStatement != null) {
+            this.fullStatement.close();
+        }
+    }
+
+    /**
+     * Finds how many rows can be inserted by a single statement
+     */
+    static int getRowsPerStatement(List<DBColumnMetadata> columns, int maxBindParameters, int maxPacketSize) {
+        int rowsWithinBindLimit = maxBindParameters / columns.size();
+        long rowsWithinPacketSize = maxPacketSize / estimateRowSize(columns);
+        return (int)Math.max(1, Math.min(rowsWithinBindLimit, rowsWithinPacketSize));
+    }
+
+    /**
+     * Estimates the number of bytes a row takes in an INSERT statement
+     * The estimate is on the higher side, as the values are sent as literals by drivers which do client-side prepares
+     */
+    static long estimateRowSize(List<DBColumnMetadata> columns) {
+        long rowSize = 2; //brackets around the row
+        for (DBColumnMetadata column : columns) {
+            rowSize += VALUE_OVERHEAD_SIZE + estimateValueSize(column);
+        }
+        return rowSize;
+    }
+
+    private static long estimateValueSize(DBColumnMetadata column) {
+        JDBCType jdbcType;
+        try {
+            jdbcType = JDBCType.valueOf(column.getDataType());
+        } catch (IllegalArgumentException e) {
+            return 32;
+        }
+
+        switch (jdbcType) {
+            case CHAR:
+            case VARCHAR:
+            case LONGVARCHAR:
+            case NCHAR:
+            case NVARCHAR:
+            case LONGNVARCHAR:
+                return 2L + 2L * Math.max(column.getMaxSize(), 1); //quotes, and room for escaped characters
+            case DECIMAL:
+            case NUMERIC:
+                return 2L + Math.max(column.getPrecision(), 1);
+            case DATE:
+            case TIME:
+            case TIME_WITH_TIMEZONE:
+            case TIMESTAMP:
+            case TIMESTAMP_WITH_TIMEZONE:
+                return 40;
+            default:
+                return 24;
+        }
+    }
+
+    /**
+     * Returns the max number of bind-parameters in a statement for the known DBs
+     */
+    static int getMaxBindParameters(String databaseProductName) {
+        Dialect dialect = Dialect.getDialect(databaseProductName);
+        if (dialect == Dialect.MYSQL || dialect == Dialect.H2) {
+            return 65535;
+        }
+        if (dialect == Dialect.POSTGRESQL) {
+            return Short.MAX_VALUE;
+        }
+
+        String productName = databaseProductName == null ? "" : databaseProductName.toLowerCase();
+        if (productName.contains("microsoft sql server")) {
+            return 2099;
+        }
+        if (productName.contains("sqlite")) {
+            return 999;
+        }
+        return DEFAULT_MAX_BIND_PARAMETERS;
+    }
+}
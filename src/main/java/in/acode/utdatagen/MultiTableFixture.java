@@ -0,0 +1,263 @@
+package in.acode.utdatagen;
+
+import in.acode.utdatagen.meta.DBForeignKeyMetadata;
+import in.acode.utdatagen.meta.DBTableMetadata;
+import in.acode.utdatagen.suppliers.CellRandom;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates and inserts the rows of a set of tables related by foreign keys, each with its own InsertionCriteria
+ * <br>The tables are inserted in the order of the foreign keys between them, parents first, see TableDependencies.
+ * A table is inserted as soon as the tables it references are done, so the tables which don't depend on each other are inserted concurrently,
+ * each over its own connection, and the whole set takes about as long as its longest chain of dependent tables
+ * <br>The columns of a foreign key to another table of the set are filled with the keys of that table, read once it has been inserted.
+ * The keys are picked at random, reproducibly with the seed of the criteria. The keys of a single-column foreign key are read into a KeyIndex,
+ * and all the columns of a multi-column foreign key are picked from the same row
+ * The value-suppliers of the foreign key columns are set on a copy of the criteria made for each insertion, so the criteria are left as they are
+ * <br>A foreign key column with a value-supplier of its own in the criteria is left as it is, as are the foreign keys to the tables outside the set
+ * and those of a table to itself or within a cycle of tables
+ * <br>Inside a FixtureSession, the tables are inserted one by one on the calling thread, over the connection of the session
+ */
+public class MultiTableFixture {
+
+    private static final Log LOG = LogFactory.getLog(MultiTableFixture.class);
+
+    private final Map<String, DBTableFixture> fixtures;
+    private final Map<String, InsertionCriteria> criteria;
+    private int numOfWorkers;
+
+    /**
+     * Index of the layer of each table in the current insertion, a table is filled only with the keys of the tables of the earlier layers
+     */
+    private volatile Map<String, Integer> layerIndexes;
+
+    private MultiTableFixture() {
+        this.fixtures = new LinkedHashMap<>();
+        this.criteria = new HashMap<>();
+        this.numOfWorkers = 4;
+        this.layerIndexes = new HashMap<>();
+    }
+
+    public static MultiTableFixture getInstance() {
+        return new MultiTableFixture();
+    }
+
+    /**
+     * Adds a table to the set, the value-suppliers of its foreign key columns are set on a copy of the criteria when it is inserted
+     */
+    public MultiTableFixture withTable(DBTableFixture fixture, InsertionCriteria criteria) {
+        String tableName = fixture.getTableName().toLowerCase();
+        this.fixtures.put(tableName, fixture);
+        this.criteria.put(tableName, criteria);
+        return this;
+    }
+
+    /**
+     * Sets the max number of tables which are inserted concurrently, each over its own connection
+     */
+    public MultiTableFixture withNumOfWorkers(int numOfWorkers) {
+        if (numOfWorkers <= 0) {
+            throw new IllegalArgumentException("Number of workers must be more than 0");
+        }
+
+        this.numOfWorkers = numOfWorkers;
+        return this;
+    }
+
+    public DBTableFixture getFixture(String tableName) {
+        return this.fixtures.get(tableName.toLowerCase());
+    }
+
+    /**
+     * Inserts the rows of all the tables of the set
+     * @return timings of the insertion by table, in the order the tables were done
+     */
+    public Map<String, InsertionStats> insertRows() {
+        List<List<DBTableFixture>> layers = TableDependencies.getLayers(new ArrayList<>(this.fixtures.values()));
+        Map<String, InsertionStats> stats = Collections.synchronizedMap(new LinkedHashMap<>());
+        Map<String, Integer> layerIndexes = new HashMap<>();
+        for (int i = 0; i < layers.size(); i++) {
+            for (DBTableFixture fixture : layers.get(i)) {
+                layerIndexes.put(fixture.getTableName().toLowerCase(), i);
+            }
+        }
+        this.layerIndexes = layerIndexes;
+
+        LOG.info("Starting to insert rows in [" + this.fixtures.size() + "] tables in [" + layers.size() + "] layers ...");
+        if (this.fixtures.values().stream().anyMatch(fixture -> FixtureSession.isActive(fixture.getJdbcTemplate().getDataSource()))) {
+            for (List<DBTableFixture> layer : layers) {
+                for (DBTableFixture fixture : layer) {
+                    stats.put(fixture.getTableName(), insertRows(fixture));
+                }
+            }
+            LOG.info("Finished inserting rows in [" + stats.size() + "] tables");
+            return stats;
+        }
+
+        AtomicInteger threadCounter = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(this.numOfWorkers, runnable -> {
+            Thread thread = new Thread(runnable, "utdatagen-table-worker-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Map<String, CompletableFuture<Void>> insertions = new HashMap<>();
+        try {
+            for (List<DBTableFixture> layer : layers) {
+                for (DBTableFixture fixture : layer) {
+                    CompletableFuture<?>[] parentInsertions = getReferencedTables(fixture).stream()
+                        .map(insertions::get)
+                        .toArray(CompletableFuture[]::new);
+
+                    insertions.put(fixture.getTableName().toLowerCase(), CompletableFuture.allOf(parentInsertions)
+                        .thenRunAsync(() -> stats.put(fixture.getTableName(), insertRows(fixture)), executor));
+                }
+            }
+            CompletableFuture.allOf(insertions.values().toArray(new CompletableFuture[0])).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the tables to be inserted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() instanceof CompletionException ? e.getCause().getCause() : e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException("Failed to insert rows", cause);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        LOG.info("Finished inserting rows in [" + stats.size() + "] tables");
+        return stats;
+    }
+
+    /**
+     * Removes all the rows of the tables of the set, children first, see <code>DBTableFixture.truncateTables()</code>
+     */
+    public Map<String, Integer> truncateTables() {
+        return DBTableFixture.truncateTables(new ArrayList<>(this.fixtures.values()), this.numOfWorkers);
+    }
+
+    private InsertionStats insertRows(DBTableFixture fixture) {
+        InsertionCriteria criteria = this.criteria.get(fixture.getTableName().toLowerCase()).copy();
+        fillForeignKeyColumns(fixture, criteria);
+        return fixture.insertRows(criteria);
+    }
+
+    /**
+     * The other tables of the set referenced by the foreign keys of the table
+     */
+    private Set<String> getReferencedTables(DBTableFixture fixture) {
+        Set<String> referencedTables = new HashSet<>();
+        for (DBForeignKeyMetadata foreignKey : getForeignKeys(fixture)) {
+            referencedTables.add(foreignKey.getReferencedTableName().toLowerCase());
+        }
+        return referencedTables;
+    }
+
+    /**
+     * The foreign keys of the table to the tables of the earlier layers of the set
+     * <br>The foreign keys within a cycle of tables, which are all in the last layer, are left out as there are no keys to fill them with yet
+     */
+    private List<DBForeignKeyMetadata> getForeignKeys(DBTableFixture fixture) {
+        List<DBForeignKeyMetadata> foreignKeys = new ArrayList<>();
+        DBTableMetadata tableMetadata = fixture.getTableMetadata();
+        if (tableMetadata == null) return foreignKeys;
+
+        Integer layerIndex = this.layerIndexes.get(fixture.getTableName().toLowerCase());
+        for (DBForeignKeyMetadata foreignKey : tableMetadata.getForeignKeys()) {
+            Integer referencedLayerIndex = this.layerIndexes.get(foreignKey.getReferencedTableName().toLowerCase());
+            if (referencedLayerIndex != null && layerIndex != null && referencedLayerIndex < layerIndex) {
+                foreignKeys.add(foreignKey);
+            }
+        }
+        return foreignKeys;
+    }
+
+    /**
+     * Sets a value-supplier on each foreign key column of the copy of the criteria, which picks from the keys of the referenced table
+     * <br>The keys are boxed as they were read, e.g. as Integer for an INT column, and the value-suppliers don't use the previous value
+     */
+    private void fillForeignKeyColumns(DBTableFixture fixture, InsertionCriteria criteria) {
+        long seed = criteria.getSeed() != null ? criteria.getSeed() : ThreadLocalRandom.current().nextLong();
+
+        for (DBForeignKeyMetadata foreignKey : getForeignKeys(fixture)) {
+            List<String> columnNames = foreignKey.getColumnNames();
+            if (columnNames.stream().anyMatch(columnName -> criteria.getSupplierForColumn(columnName) != null)) continue;
+
+            DBTableFixture referencedFixture = this.fixtures.get(foreignKey.getReferencedTableName().toLowerCase());
+            if (columnNames.size() == 1) {
+                String columnName = columnNames.get(0);
+                KeyIndex keyIndex = referencedFixture.loadKeyIndex(foreignKey.getReferencedColumnNames().get(0));
+                if (keyIndex.size() == 0) {
+                    throw noReferencedRows(fixture, referencedFixture);
+                }
+
+                criteria.withCondition(columnName, keyIndex.random());
+                LOG.info("Filling the foreign key " + foreignKey + " with " + keyIndex);
+                continue;
+            }
+
+            Object[][] keys = readKeys(referencedFixture, foreignKey.getReferencedColumnNames());
+            if (keys[0].length == 0) {
+                throw noReferencedRows(fixture, referencedFixture);
+            }
+
+            long foreignKeySeed = CellRandom.getColumnSeed(seed, foreignKey.getReferencedTableName() + "." + String.join(",", columnNames));
+            int numOfKeys = keys[0].length;
+            for (int i = 0; i < columnNames.size(); i++) {
+                Object[] columnKeys = keys[i];
+                criteria.withCondition(columnNames.get(i), (Integer rowIdx) -> {
+                    CellRandom cellRandom = CellRandom.current();
+                    cellRandom.position(foreignKeySeed, rowIdx);
+                    return columnKeys[cellRandom.nextInt(numOfKeys)];
+                });
+            }
+            LOG.info("Filling the foreign key " + foreignKey + " with [" + numOfKeys + "] keys");
+        }
+    }
+
+    private static IllegalStateException noReferencedRows(DBTableFixture fixture, DBTableFixture referencedFixture) {
+        return new IllegalStateException("The table [" + referencedFixture.getTableName() + "] referenced by the table [" + fixture.getTableName()
+            + "] has no rows");
+    }
+
+    /**
+     * Reads the distinct keys of the referenced table, column by column, in a stable order
+     */
+    private static Object[][] readKeys(DBTableFixture fixture, List<String> columnNames) {
+        String columnList = String.join(", ", columnNames);
+        List<Object[]> rows = fixture.getJdbcTemplate().query("SELECT DISTINCT " + columnList + " FROM " + fixture.getTableName() + " ORDER BY " + columnList,
+            (resultSet, rowNum) -> {
+                Object[] row = new Object[columnNames.size()];
+                for (int i = 0; i < row.length; i++) {
+                    row[i] = resultSet.getObject(i + 1);
+                }
+                return row;
+            });
+
+        Object[][] keys = new Object[columnNames.size()][rows.size()];
+        for (int rowIdx = 0; rowIdx < rows.size(); rowIdx++) {
+            for (int i = 0; i < columnNames.size(); i++) {
+                keys[i][rowIdx] = rows.get(rowIdx)[i];
+            }
+        }
+        return keys;
+    }
+}
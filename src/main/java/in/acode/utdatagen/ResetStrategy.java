@@ -0,0 +1,30 @@
+package in.acode.utdatagen;
+
+/**
+ * The ways in which a DBTableFixture can remove all the rows of its table, see <code>DBTableFixture.truncateTable()</code>
+ * <br>Any of them can be combined with disabling the foreign key checks, see <code>DBTableFixture.withForeignKeyChecksDisabled()</code>
+ */
+public enum ResetStrategy {
+
+    /**
+     * <code>DELETE FROM ...</code>, which deletes the rows one by one and logs each of them
+     * <br>Slow for big tables, but transactional, and it returns the number of deleted rows
+     */
+    DELETE,
+
+    /**
+     * <code>TRUNCATE TABLE ...</code>, which deallocates the data of the table instead of deleting its rows
+     * <br>Much faster for big tables. It usually resets the auto-increment counter, commits implicitly,
+     * and fails on a table referenced by foreign keys unless the checks are disabled. The number of rows is not known
+     */
+    TRUNCATE,
+
+    /**
+     * Drops the table and creates it again, from its DDL captured just before dropping it -
+     * <code>SHOW CREATE TABLE</code> on MySQL and <code>SCRIPT NODATA</code> on H2
+     * <br>Also frees any space or fragmentation left by the old data. Foreign keys of the table itself are recreated with it,
+     * but a table referenced by foreign keys of other tables can only be dropped on MySQL, with the foreign key checks disabled.
+     * The number of rows is not known
+     */
+    DROP_AND_RECREATE
+}
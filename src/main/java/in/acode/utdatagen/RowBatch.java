@@ -0,0 +1,131 @@
+package in.acode.utdatagen;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import org.springframework.jdbc.core.SqlTypeValue;
+import org.springframework.jdbc.core.StatementCreatorUtils;
+
+/**
+ * A batch of generated rows, held column-wise with an array per slot of the RowPlan
+ * <br>The values of the slots with a primitive ValueKind are held in primitive arrays - INT, LONG and BOOLEAN (as 0/1) in a long[],
+ * DOUBLE in a double[] - and are bound with the matching setter of the PreparedStatement, so they are never boxed.
+ * The values of the other slots are held as SQL arguments in an Object[]
+ * <br>A batch can be filled again once its rows have been written, so the arrays are allocated only once per batch
+ */
+class RowBatch {
+
+    private final RowPlan plan;
+    private final int capacity;
+    private final Object[][] objectValues;
+    private final long[][] longValues;
+    private final double[][] doubleValues;
+    private int size;
+
+    RowBatch(RowPlan plan, int capacity) {
+        int numOfColumns = plan.getNumOfColumns();
+        this.plan = plan;
+        this.capacity = capacity;
+        this.objectValues = new Object[numOfColumns][];
+        this.longValues = new long[numOfColumns][];
+        this.doubleValues = new double[numOfColumns][];
+        this.size = 0;
+
+        for (int slot = 0; slot < numOfColumns; slot++) {
+            switch (plan.getValueKind(slot)) {
+                case INT:
+                case LONG:
+                case BOOLEAN:
+                    this.longValues[slot] = new long[capacity];
+                    break;
+                case DOUBLE:
+                    this.doubleValues[slot] = new double[capacity];
+                    break;
+                default:
+                    this.objectValues[slot] = new Object[capacity];
+            }
+        }
+    }
+
+    /**
+     * Number of rows in the batch
+     */
+    int size() {
+        return size;
+    }
+
+    void setSize(int size) {
+        this.size = size;
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+
+    int getNumOfColumns() {
+        return plan.getNumOfColumns();
+    }
+
+    Object[] getObjectValues(int slot) {
+        return objectValues[slot];
+    }
+
+    long[] getLongValues(int slot) {
+        return longValues[slot];
+    }
+
+    double[] getDoubleValues(int slot) {
+        return doubleValues[slot];
+    }
+
+    /**
+     * Binds the value of a slot in a row to the specified parameter of the statement
+     * Objects are bound the same way as Spring's JdbcTemplate binds the arguments of a batch update
+     */
+    void bindValue(PreparedStatement preparedStatement, int parameterIdx, int rowIdx, int slot) throws SQLException {
+        switch (this.plan.getValueKind(slot)) {
+            case INT:
+                preparedStatement.setInt(parameterIdx, (int) this.longValues[slot][rowIdx]);
+                break;
+            case LONG:
+                preparedStatement.setLong(parameterIdx, this.longValues[slot][rowIdx]);
+                break;
+            case BOOLEAN:
+                preparedStatement.setBoolean(parameterIdx, this.longValues[slot][rowIdx] != 0);
+                break;
+            case DOUBLE:
+                preparedStatement.setDouble(parameterIdx, this.doubleValues[slot][rowIdx]);
+                break;
+            default:
+                StatementCreatorUtils.setParameterValue(preparedStatement, parameterIdx, SqlTypeValue.TYPE_UNKNOWN, this.objectValues[slot][rowIdx]);
+        }
+    }
+
+    /**
+     * Returns the value of a slot in a row, primitives are boxed
+     */
+    Object getValue(int rowIdx, int slot) {
+        switch (this.plan.getValueKind(slot)) {
+            case INT:
+                return (int) this.longValues[slot][rowIdx];
+            case LONG:
+                return this.longValues[slot][rowIdx];
+            case BOOLEAN:
+                return this.longValues[slot][rowIdx] != 0;
+            case DOUBLE:
+                return this.doubleValues[slot][rowIdx];
+            default:
+                return this.objectValues[slot][rowIdx];
+        }
+    }
+
+    /**
+     * Returns the values of a row as an array of SQL arguments, by slot
+     */
+    Object[] getRow(int rowIdx) {
+        Object[] sqlArgs = new Object[getNumOfColumns()];
+        for (int slot = 0; slot < sqlArgs.length; slot++) {
+            sqlArgs[slot] = getValue(rowIdx, slot);
+        }
+        return sqlArgs;
+    }
+}
@@ -0,0 +1,366 @@
+package in.acode.utdatagen;
+
+import in.acode.utdatagen.meta.DBColumnMetadata;
+import in.acode.utdatagen.suppliers.BooleanColumnSupplier;
+import in.acode.utdatagen.suppliers.CellRandom;
+import in.acode.utdatagen.suppliers.DoubleColumnSupplier;
+import in.acode.utdatagen.suppliers.IntColumnSupplier;
+import in.acode.utdatagen.suppliers.LongColumnSupplier;
+import in.acode.utdatagen.utils.JdbcTypeUtils;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Generates the rows described by a RowPlan, one batch at a time
+ * <br>The row-index and the value generated for the previous row are carried over from one batch to the next,
+ * so the generated data does not depend on the size of the batches
+ * <br>Only the editable columns get a value, in the same order as they appear in the list of columns
+ * <br>A batch is generated column by column. The slots with a primitive value-supplier are filled in the primitive arrays of the batch,
+ * and their previous value is carried over as a primitive, so nothing is boxed for them
+ * <br>CellRandom is positioned for the column and the row before each value-supplier is called,
+ * so the random values do not depend on the batches or on the range of the rows a generator produces
+ * <br>A generator can also produce just a range of the rows, e.g. for generating the rows in parallel.
+ * The value-suppliers still get the actual index of the row, and the previous values at the start of the range
+ * can be found with <code>getPrevValuesAt()</code>
+ * <br>A value of a unique slot, which was generated before, is generated again with CellRandom positioned for another attempt at the same cell,
+ * so the regenerated values are reproducible too. A value-supplier which gives no new value in <code>MAX_ATTEMPTS</code> attempts fails the generation,
+ * as does one which gives the same duplicate again without using CellRandom, as it would give it on every attempt
+ */
+class RowGenerator implements RowSource {
+
+    static final int MAX_ATTEMPTS = 100;
+
+    /**
+     * Mixed into the seed of a column, once per attempt, to position CellRandom for generating the value of a cell again
+     * <br>It is XOR-ed rather than added, as adding it would land on the cells of the next rows, and the attempts of the rows would overlap
+     */
+    private static final long ATTEMPT_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private final RowPlan plan;
+    private final int endRowIdx;
+    private int nextRowIdx;
+
+    /**
+     * Value of the previous row, by slot of the plan
+     * Slots with a primitive value-supplier use <code>prevLongValues</code> (INT, LONG and BOOLEAN as 0/1) or <code>prevDoubleValues</code> instead
+     */
+    private final Object[] prevValues;
+    private final long[] prevLongValues;
+    private final double[] prevDoubleValues;
+
+    /**
+     * Converter to SQL type for each slot, resolved for the class of the last value generated for the slot
+     */
+    private final Class<?>[] valueClasses;
+    private final Function<Object, Object>[] sqlTypeConverters;
+
+    /**
+     * Values generated so far for the unique slots, null if the plan has none
+     */
+    private final UniqueValues uniqueValues;
+
+    RowGenerator(InsertionCriteria criteria, List<DBColumnMetadata> columns) {
+        this(RowPlan.compile(criteria, columns));
+    }
+
+    RowGenerator(RowPlan plan) {
+        this(plan, 0, plan.getNumOfRows(), new Object[plan.getNumOfColumns()]);
+    }
+
+    /**
+     * Creates a generator for the rows in the range [startRowIdx, endRowIdx), with values unique only within the range
+     * @param prevValues values of the row before <code>startRowIdx</code>, by slot of the plan.
+     *                   A null means the previous value for the first row, for the slots with a primitive value-supplier
+     */
+    RowGenerator(RowPlan plan, int startRowIdx, int endRowIdx, Object[] prevValues) {
+        this(plan, startRowIdx, endRowIdx, prevValues, UniqueValues.forPlan(plan));
+    }
+
+    /**
+     * Creates a generator for the rows in the range [startRowIdx, endRowIdx)
+     * @param uniqueValues values of the unique slots generated so far, which may be shared with the generators of the other ranges
+     */
+    @SuppressWarnings("unchecked")
+    RowGenerator(RowPlan plan, int startRowIdx, int endRowIdx, Object[] prevValues, UniqueValues uniqueValues) {
+        int numOfColumns = plan.getNumOfColumns();
+        this.plan = plan;
+        this.endRowIdx = endRowIdx;
+        this.nextRowIdx = startRowIdx;
+        this.prevValues = prevValues.clone();
+        this.prevLongValues = new long[numOfColumns];
+        this.prevDoubleValues = new double[numOfColumns];
+        this.valueClasses = new Class<?>[numOfColumns];
+        this.sqlTypeConverters = new Function[numOfColumns];
+        this.uniqueValues = uniqueValues;
+
+        for (int slot = 0; slot < numOfColumns; slot++) {
+            Object prevValue = prevValues[slot] != null ? prevValues[slot] : plan.getInitialPrevValue(slot);
+            switch (plan.getValueKind(slot)) {
+                case INT:
+                case LONG:
+                    this.prevLongValues[slot] = ((Number) prevValue).longValue();
+                    break;
+                case BOOLEAN:
+                    this.prevLongValues[slot] = (Boolean) prevValue ? 1 : 0;
+                    break;
+                case DOUBLE:
+                    this.prevDoubleValues[slot] = ((Number) prevValue).doubleValue();
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Finds the values which would be passed as the previous value to the value-suppliers at the specified rows
+     * <br>Only the columns whose supplier depends on the previous value are replayed, from the first row onwards.
+     * The replay gives the same values as a full generation only if those suppliers depend on nothing but the row-index and the previous value
+     * @param rowIndexes indexes of the rows, in ascending order
+     * @return an array of previous values by slot of the plan, for each of the row indexes
+     */
+    static List<Object[]> getPrevValuesAt(RowPlan plan, int[] rowIndexes) {
+        return getPrevValuesAt(plan, 0, new Object[plan.getNumOfColumns()], rowIndexes);
+    }
+
+    /**
+     * Finds the values which would be passed as the previous value to the value-suppliers at the specified rows,
+     * replaying the suppliers from <code>startRowIdx</code> onwards instead of the first row
+     * @param startPrevValues previous values by slot at <code>startRowIdx</code>, a null means the previous value for the first row
+     * @param rowIndexes indexes of the rows, in ascending order and not before <code>startRowIdx</code>
+     */
+    static List<Object[]> getPrevValuesAt(RowPlan plan, int startRowIdx, Object[] startPrevValues, int[] rowIndexes) {
+        List<Object[]> prevValuesAtRows = new ArrayList<>(rowIndexes.length);
+        for (int i = 0; i < rowIndexes.length; i++) {
+            prevValuesAtRows.add(new Object[plan.getNumOfColumns()]);
+        }
+
+        for (int slot = 0; slot < plan.getNumOfColumns(); slot++) {
+            if (!plan.isPrevValueDependent(slot)) continue;
+
+            BiFunction<Integer, Object, Object> columnValueSupplier = plan.getSupplier(slot);
+            CellRandom cellRandom = CellRandom.current();
+            long columnSeed = plan.getColumnSeed(slot);
+            Object prevValue = startPrevValues[slot];
+            int rowIdx = startRowIdx;
+
+            for (int i = 0; i < rowIndexes.length; i++) {
+                while (rowIdx < rowIndexes[i]) {
+                    cellRandom.position(columnSeed, rowIdx);
+                    prevValue = columnValueSupplier.apply(rowIdx++, prevValue);
+                }
+                prevValuesAtRows.get(i)[slot] = prevValue;
+            }
+        }
+
+        return prevValuesAtRows;
+    }
+
+    /**
+     * Values generated so far for the unique slots, null if the plan has none
+     */
+    UniqueValues getUniqueValues() {
+        return uniqueValues;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return this.nextRowIdx < this.endRowIdx;
+    }
+
+    /**
+     * Creates a batch which can hold <code>batchSize</code> rows, or all the remaining rows if there are fewer
+     */
+    @Override
+    public RowBatch newBatch(int batchSize) {
+        return new RowBatch(this.plan, Math.max(Math.min(batchSize, this.endRowIdx - this.nextRowIdx), 0));
+    }
+
+    /**
+     * Generates the next batch of rows in a new batch
+     * @param batchSize max number of rows in the batch, the last batch may be smaller
+     */
+    RowBatch nextBatch(int batchSize) {
+        RowBatch batch = newBatch(batchSize);
+        nextBatch(batch);
+        return batch;
+    }
+
+    /**
+     * Generates the next batch of rows into the specified batch, replacing the rows it held
+     * @param batch a batch of this generator's plan, filled with as many rows as its capacity, or with the remaining rows if there are fewer
+     */
+    @Override
+    public void nextBatch(RowBatch batch) {
+        int startRowIdx = this.nextRowIdx;
+        int numOfRows = Math.max(Math.min(batch.getCapacity(), this.endRowIdx - startRowIdx), 0);
+        CellRandom cellRandom = CellRandom.current();
+
+        for (int slot = 0; slot < this.plan.getNumOfColumns(); slot++) {
+            switch (this.plan.getValueKind(slot)) {
+                case INT:
+                    fillIntColumn(slot, batch.getLongValues(slot), startRowIdx, numOfRows, cellRandom);
+                    break;
+                case LONG:
+                    fillLongColumn(slot, batch.getLongValues(slot), startRowIdx, numOfRows, cellRandom);
+                    break;
+                case BOOLEAN:
+                    fillBooleanColumn(slot, batch.getLongValues(slot), startRowIdx, numOfRows, cellRandom);
+                    break;
+                case DOUBLE:
+                    fillDoubleColumn(slot, batch.getDoubleValues(slot), startRowIdx, numOfRows, cellRandom);
+                    break;
+                default:
+                    fillObjectColumn(slot, batch.getObjectValues(slot), startRowIdx, numOfRows, cellRandom);
+            }
+        }
+
+        batch.setSize(numOfRows);
+        this.nextRowIdx += numOfRows;
+    }
+
+    private void fillIntColumn(int slot, long[] values, int startRowIdx, int numOfRows, CellRandom cellRandom) {
+        IntColumnSupplier columnValueSupplier = (IntColumnSupplier) this.plan.getPrimitiveSupplier(slot);
+        long columnSeed = this.plan.getColumnSeed(slot);
+        int prevValue = (int) this.prevLongValues[slot];
+        boolean unique = isUnique(slot);
+
+        for (int i = 0; i < numOfRows; i++) {
+            cellRandom.position(columnSeed, startRowIdx + i);
+            int value = columnValueSupplier.getAsInt(startRowIdx + i, prevValue);
+            for (int attempt = 1; unique && !this.uniqueValues.addLong(slot, value); attempt++) {
+                positionForAttempt(slot, startRowIdx + i, attempt, cellRandom);
+                int duplicateValue = value;
+                value = columnValueSupplier.getAsInt(startRowIdx + i, prevValue);
+                checkRegenerated(slot, startRowIdx + i, attempt, value == duplicateValue, cellRandom);
+            }
+            values[i] = prevValue = value;
+        }
+        this.prevLongValues[slot] = prevValue;
+    }
+
+    private void fillLongColumn(int slot, long[] values, int startRowIdx, int numOfRows, CellRandom cellRandom) {
+        LongColumnSupplier columnValueSupplier = (LongColumnSupplier) this.plan.getPrimitiveSupplier(slot);
+        long columnSeed = this.plan.getColumnSeed(slot);
+        long prevValue = this.prevLongValues[slot];
+        boolean unique = isUnique(slot);
+
+        for (int i = 0; i < numOfRows; i++) {
+            cellRandom.position(columnSeed, startRowIdx + i);
+            long value = columnValueSupplier.getAsLong(startRowIdx + i, prevValue);
+            for (int attempt = 1; unique && !this.uniqueValues.addLong(slot, value); attempt++) {
+                positionForAttempt(slot, startRowIdx + i, attempt, cellRandom);
+                long duplicateValue = value;
+                value = columnValueSupplier.getAsLong(startRowIdx + i, prevValue);
+                checkRegenerated(slot, startRowIdx + i, attempt, value == duplicateValue, cellRandom);
+            }
+            values[i] = prevValue = value;
+        }
+        this.prevLongValues[slot] = prevValue;
+    }
+
+    private void fillBooleanColumn(int slot, long[] values, int startRowIdx, int numOfRows, CellRandom cellRandom) {
+        BooleanColumnSupplier columnValueSupplier = (BooleanColumnSupplier) this.plan.getPrimitiveSupplier(slot);
+        long columnSeed = this.plan.getColumnSeed(slot);
+        boolean prevValue = this.prevLongValues[slot] != 0;
+
+        for (int i = 0; i < numOfRows; i++) {
+            cellRandom.position(columnSeed, startRowIdx + i);
+            prevValue = columnValueSupplier.getAsBoolean(startRowIdx + i, prevValue);
+            values[i] = prevValue ? 1 : 0;
+        }
+        this.prevLongValues[slot] = prevValue ? 1 : 0;
+    }
+
+    private void fillDoubleColumn(int slot, double[] values, int startRowIdx, int numOfRows, CellRandom cellRandom) {
+        DoubleColumnSupplier columnValueSupplier = (DoubleColumnSupplier) this.plan.getPrimitiveSupplier(slot);
+        long columnSeed = this.plan.getColumnSeed(slot);
+        double prevValue = this.prevDoubleValues[slot];
+        boolean unique = isUnique(slot);
+
+        for (int i = 0; i < numOfRows; i++) {
+            cellRandom.position(columnSeed, startRowIdx + i);
+            double value = columnValueSupplier.getAsDouble(startRowIdx + i, prevValue);
+            for (int attempt = 1; unique && !this.uniqueValues.addDouble(slot, value); attempt++) {
+                positionForAttempt(slot, startRowIdx + i, attempt, cellRandom);
+                double duplicateValue = value;
+                value = columnValueSupplier.getAsDouble(startRowIdx + i, prevValue);
+                checkRegenerated(slot, startRowIdx + i, attempt, Double.compare(value, duplicateValue) == 0, cellRandom);
+            }
+            values[i] = prevValue = value;
+        }
+        this.prevDoubleValues[slot] = prevValue;
+    }
+
+    private void fillObjectColumn(int slot, Object[] values, int startRowIdx, int numOfRows, CellRandom cellRandom) {
+        BiFunction<Integer, Object, Object> columnValueSupplier = this.plan.getSupplier(slot);
+        if (columnValueSupplier == null) {
+            Arrays.fill(values, 0, numOfRows, null);
+            return;
+        }
+
+        long columnSeed = this.plan.getColumnSeed(slot);
+        Object prevValue = this.prevValues[slot];
+        boolean unique = isUnique(slot);
+
+        for (int i = 0; i < numOfRows; i++) {
+            cellRandom.position(columnSeed, startRowIdx + i);
+            Object value = columnValueSupplier.apply(startRowIdx + i, prevValue);
+            Object sqlValue = toSQLType(slot, value);
+            for (int attempt = 1; unique && !this.uniqueValues.addObject(slot, sqlValue); attempt++) {
+                positionForAttempt(slot, startRowIdx + i, attempt, cellRandom);
+                Object duplicateValue = sqlValue;
+                value = columnValueSupplier.apply(startRowIdx + i, prevValue);
+                sqlValue = toSQLType(slot, value);
+                checkRegenerated(slot, startRowIdx + i, attempt, Objects.deepEquals(sqlValue, duplicateValue), cellRandom);
+            }
+            values[i] = sqlValue;
+            prevValue = value;
+        }
+        this.prevValues[slot] = prevValue;
+    }
+
+    private boolean isUnique(int slot) {
+        return this.uniqueValues != null && this.uniqueValues.isUnique(slot);
+    }
+
+    /**
+     * Positions CellRandom for generating the value of a cell of a unique slot again, after a duplicate
+     */
+    private void positionForAttempt(int slot, int rowIdx, int attempt, CellRandom cellRandom) {
+        if (attempt > MAX_ATTEMPTS) {
+            throw new IllegalStateException("Failed to generate a unique value for the column [" + this.plan.getColumnName(slot) + "] at row [" + rowIdx
+                + "] in [" + MAX_ATTEMPTS + "] attempts, its value-supplier does not give enough distinct values");
+        }
+        cellRandom.position(getAttemptSeed(slot, attempt), rowIdx);
+    }
+
+    /**
+     * Fails the generation when a value-supplier gave the same duplicate again without using CellRandom,
+     * e.g. one deriving the value from the row-index, as every further attempt would give it too
+     */
+    private void checkRegenerated(int slot, int rowIdx, int attempt, boolean sameValue, CellRandom cellRandom) {
+        if (sameValue && cellRandom.isAtPosition(getAttemptSeed(slot, attempt), rowIdx)) {
+            throw new IllegalStateException("Failed to generate a unique value for the column [" + this.plan.getColumnName(slot) + "] at row [" + rowIdx
+                + "], its value-supplier is deterministic and gave the same duplicate value again. Make it give distinct values, or don't guard the unique values");
+        }
+    }
+
+    private long getAttemptSeed(int slot, int attempt) {
+        return this.plan.getColumnSeed(slot) ^ (attempt * ATTEMPT_GAMMA);
+    }
+
+    private Object toSQLType(int slot, Object value) {
+        if (value == null) return null;
+
+        if (value.getClass() != this.valueClasses[slot]) {
+            this.valueClasses[slot] = value.getClass();
+            this.sqlTypeConverters[slot] = JdbcTypeUtils.getSQLTypeConverter(value.getClass());
+        }
+        return this.sqlTypeConverters[slot].apply(value);
+    }
+}
@@ -0,0 +1,104 @@
+package in.acode.utdatagen;
+
+import in.acode.utdatagen.meta.DBColumnMetadata;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Hashes the rows of a TableDigest, the same way whether the values are generated, read from a dataset file or read from the table
+ * <br>The hash of a row is the first 8 bytes of the SHA-256 of the text of its values, separated by '|', where the text of each value is -
+ * <br>&emsp;1. '(null)' for a null
+ * <br>&emsp;2. a number rounded to the scale of the column for DECIMAL and NUMERIC columns, e.g. '10.00', in plain notation
+ * <br>&emsp;3. '1' or '0' for a boolean
+ * <br>&emsp;4. 'yyyy-MM-dd HH:mm:ss' for a timestamp, followed by the fraction of the second without trailing zeros if it has one
+ * <br>&emsp;5. the value as a string otherwise, without the trailing spaces for CHAR columns
+ * <br>This is the text the DBs give for <code>CAST(column AS VARCHAR)</code>, so TableDigester computes the same hash in SQL
+ */
+class RowHasher {
+
+    static final String NULL_TEXT = "(null)";
+    static final String SEPARATOR = "|";
+
+    private final DBColumnMetadata[] columns;
+    private final MessageDigest digest;
+    private final StringBuilder rowText;
+
+    RowHasher(List<DBColumnMetadata> columns) {
+        this.columns = columns.toArray(new DBColumnMetadata[0]);
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        this.rowText = new StringBuilder();
+    }
+
+    /**
+     * @param values values of the columns of the hasher, in the same order
+     */
+    long hash(Object[] values) {
+        this.rowText.setLength(0);
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                this.rowText.append(SEPARATOR);
+            }
+            this.rowText.append(toText(values[i], this.columns[i]));
+        }
+        return ByteBuffer.wrap(this.digest.digest(this.rowText.toString().getBytes(StandardCharsets.UTF_8))).getLong();
+    }
+
+    static String toText(Object value, DBColumnMetadata column) {
+        if (value == null) return NULL_TEXT;
+
+        if (value instanceof Number && isDecimalType(column.getDataType())) {
+            BigDecimal decimal = value instanceof BigDecimal ? (BigDecimal) value : new BigDecimal(value.toString());
+            return decimal.setScale(column.getScale(), RoundingMode.HALF_UP).toPlainString();
+        }
+        if (value instanceof BigDecimal) {
+            return ((BigDecimal) value).toPlainString();
+        }
+        if (value instanceof Boolean) {
+            return (Boolean) value ? "1" : "0";
+        }
+        if (value instanceof LocalDateTime) {
+            return toText((LocalDateTime) value);
+        }
+        if (value instanceof java.util.Date && !(value instanceof java.sql.Date || value instanceof java.sql.Time)) {
+            Timestamp timestamp = value instanceof Timestamp ? (Timestamp) value : new Timestamp(((java.util.Date) value).getTime());
+            return toText(timestamp.toLocalDateTime());
+        }
+        if (value instanceof String && (column.getDataType() == Types.CHAR || column.getDataType() == Types.NCHAR)) {
+            String text = (String) value;
+            int length = text.length();
+            while (length > 0 && text.charAt(length - 1) == ' ') {
+                length--;
+            }
+            return text.substring(0, length);
+        }
+        return value.toString();
+    }
+
+    private static String toText(LocalDateTime dateTime) {
+        String text = String.format("%s %02d:%02d:%02d", dateTime.toLocalDate(), dateTime.getHour(), dateTime.getMinute(), dateTime.getSecond());
+        if (dateTime.getNano() == 0) return text;
+
+        String fraction = String.format("%09d", dateTime.getNano());
+        int length = fraction.length();
+        while (fraction.charAt(length - 1) == '0') {
+            length--;
+        }
+        return text + "." + fraction.substring(0, length);
+    }
+
+    static boolean isDecimalType(int dataType) {
+        return dataType == Types.DECIMAL || dataType == Types.NUMERIC;
+    }
+}
@@ -0,0 +1,142 @@
+package in.acode.utdatagen;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Runs a RowSource, e.g. a RowGenerator, on a separate thread, which puts the batches in a bounded queue
+ * <br>The consumer takes the batches from the queue using <code>take()</code>, and hands each one back with <code>recycle()</code>
+ * once it has been written, so that the generator can fill it again.
+ * When the queue is full, the generator blocks till the consumer catches up,
+ * so at most <code>depth</code> batches (plus the ones being generated and consumed) are ever allocated
+ */
+class RowPipeline implements AutoCloseable {
+
+    private final RowSource rowSource;
+    private final int batchSize;
+    private final BlockingQueue<RowBatch> queue;
+
+    /**
+     * Batches which have been written by the consumer, and can be filled again
+     */
+    private final BlockingQueue<RowBatch> freeBatches;
+    private final int maxNumOfBatches;
+    private int numOfBatchesAllocated;
+
+    /**
+     * Marks the end of the generated batches
+     */
+    private final RowBatch endOfRows;
+    private final Thread generatorThread;
+
+    private volatile Throwable failure;
+    private volatile long generationNanos;
+    private volatile long generatorWaitNanos;
+
+    RowPipeline(RowSource rowSource, int batchSize, int depth, String threadName) {
+        this.rowSource = rowSource;
+        this.batchSize = batchSize;
+        this.queue = new ArrayBlockingQueue<>(depth);
+        this.maxNumOfBatches = depth + 2;
+        this.freeBatches = new ArrayBlockingQueue<>(this.maxNumOfBatches);
+        this.numOfBatchesAllocated = 0;
+        this.endOfRows = rowSource.newBatch(0);
+        this.generatorThread = new Thread(this::generate, threadName);
+        this.generatorThread.setDaemon(true);
+    }
+
+    void start() {
+        this.generatorThread.start();
+    }
+
+    /**
+     * Waits for the next batch of rows
+     * @return the next batch, or null if all rows have been generated
+     */
+    RowBatch take() {
+        RowBatch batch;
+        try {
+            batch = this.queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for rows to be generated", e);
+        }
+
+        if (batch != this.endOfRows) {
+            return batch;
+        }
+
+        if (this.failure instanceof RuntimeException) {
+            throw (RuntimeException) this.failure;
+        }
+        if (this.failure instanceof Error) {
+            throw (Error) this.failure;
+        }
+        return null;
+    }
+
+    /**
+     * Hands back a batch returned by <code>take()</code>, which must not be used by the consumer after this
+     */
+    void recycle(RowBatch batch) {
+        this.freeBatches.offer(batch);
+    }
+
+    long getGenerationNanos() {
+        return generationNanos;
+    }
+
+    long getGeneratorWaitNanos() {
+        return generatorWaitNanos;
+    }
+
+    /**
+     * Stops the generator, if it is still running
+     */
+    @Override
+    public void close() {
+        this.generatorThread.interrupt();
+    }
+
+    private void generate() {
+        try {
+            while (this.rowSource.hasNext()) {
+                long waitStartTime = System.nanoTime();
+                RowBatch batch = getFreeBatch();
+                long startTime = System.nanoTime();
+                this.rowSource.nextBatch(batch);
+                long generatedTime = System.nanoTime();
+                this.queue.put(batch);
+                this.generationNanos += generatedTime - startTime;
+                this.generatorWaitNanos += (startTime - waitStartTime) + (System.nanoTime() - generatedTime);
+            }
+        } catch (InterruptedException e) {
+            //The consumer has stopped, so there is no one to take the end marker
+            return;
+        } catch (RuntimeException | Error e) {
+            this.failure = e;
+        }
+
+        try {
+            this.queue.put(this.endOfRows);
+        } catch (InterruptedException e) {
+            //The consumer has stopped
+        }
+    }
+
+    /**
+     * Returns a recycled batch, or allocates a new one till the max number of batches have been allocated
+     */
+    private RowBatch getFreeBatch() throws InterruptedException {
+        RowBatch batch = this.freeBatches.poll();
+        if (batch != null) {
+            return batch;
+        }
+
+        if (this.numOfBatchesAllocated < this.maxNumOfBatches) {
+            this.numOfBatchesAllocated++;
+            return this.rowSource.newBatch(this.batchSize);
+        }
+        return this.freeBatches.take();
+    }
+}
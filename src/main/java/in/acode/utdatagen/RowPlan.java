@@ -0,0 +1,321 @@
+package in.acode.utdatagen;
+
+import in.acode.utdatagen.meta.DBColumnMetadata;
+import in.acode.utdatagen.suppliers.BooleanColumnSupplier;
+import in.acode.utdatagen.suppliers.CellRandom;
+import in.acode.utdatagen.suppliers.DoubleColumnSupplier;
+import in.acode.utdatagen.suppliers.IntColumnSupplier;
+import in.acode.utdatagen.suppliers.LongColumnSupplier;
+import in.acode.utdatagen.suppliers.PrimitiveColumnSupplier;
+import java.sql.JDBCType;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+
+/**
+ * A compiled form of an InsertionCriteria for a specific list of columns
+ * <br>Everything that is the same for all the rows is resolved once, when the plan is compiled -
+ * the editable columns, their value-suppliers (custom or default), the kind of values they generate, whether they use the previous value
+ * and whether their values must be unique.
+ * These are held in arrays, with a slot per editable column, so generating a row only needs indexed access
+ * <br>The seed is resolved too - if the criteria has none, one is picked when the plan is compiled - along with the seed of each column for CellRandom
+ * <br>A plan is immutable, and can be shared by generators running on different threads
+ */
+class RowPlan {
+
+    /**
+     * Kind of values generated for a slot, which decides how the values are held in a RowBatch and bound to the statement
+     */
+    enum ValueKind {
+        OBJECT,
+        INT,
+        LONG,
+        DOUBLE,
+        BOOLEAN
+    }
+
+    private final int numOfRows;
+    private final long seed;
+    private final String[] columnNames;
+    private final long[] columnSeeds;
+    private final ValueKind[] valueKinds;
+
+    /**
+     * Value-supplier for each slot, null for columns which are left as null
+     * <br>For the slots with a primitive value-supplier of the criteria, this is its boxing equivalent
+     */
+    private final BiFunction<Integer, Object, Object>[] suppliers;
+    private final PrimitiveColumnSupplier[] primitiveSuppliers;
+    private final Object[] initialPrevValues;
+    private final boolean[] prevValueDependent;
+
+    /**
+     * Whether the values of each slot must be unique, whether they are compared ignoring case,
+     * and the SQL type of its column (from <code>java.sql.Types</code>), see UniqueValues
+     */
+    private final boolean[] unique;
+    private final boolean[] caseInsensitive;
+    private final int[] dataTypes;
+    private int maxGuardedValues;
+
+    @SuppressWarnings("unchecked")
+    private RowPlan(int numOfRows, long seed, int numOfColumns) {
+        this.numOfRows = numOfRows;
+        this.seed = seed;
+        this.columnNames = new String[numOfColumns];
+        this.columnSeeds = new long[numOfColumns];
+        this.valueKinds = new ValueKind[numOfColumns];
+        this.suppliers = new BiFunction[numOfColumns];
+        this.primitiveSuppliers = new PrimitiveColumnSupplier[numOfColumns];
+        this.initialPrevValues = new Object[numOfColumns];
+        this.prevValueDependent = new boolean[numOfColumns];
+        this.unique = new boolean[numOfColumns];
+        this.caseInsensitive = new boolean[numOfColumns];
+        this.dataTypes = new int[numOfColumns];
+        this.maxGuardedValues = UniqueValues.DEFAULT_MAX_GUARDED_VALUES;
+    }
+
+    /**
+     * Resolves the value-supplier of each editable column, in the order of the columns
+     * <br>Primitive value-suppliers are preferred, whether custom or default, so that the values of such columns are never boxed
+     */
+    static RowPlan compile(InsertionCriteria criteria, List<DBColumnMetadata> columns) {
+        return compile(criteria, columns, Collections.emptySet());
+    }
+
+    /**
+     * Same as <code>compile()</code>, with the columns whose values must be unique
+     * @param uniqueColumnNames lower-case names of the columns
+     */
+    static RowPlan compile(InsertionCriteria criteria, List<DBColumnMetadata> columns, Set<String> uniqueColumnNames) {
+        return compile(criteria, columns, uniqueColumnNames, Collections.emptySet());
+    }
+
+    /**
+     * Same as <code>compile()</code>, with the columns whose values must be unique, and those of them which the DB compares ignoring case
+     * @param caseInsensitiveColumnNames lower-case names of the columns
+     */
+    static RowPlan compile(InsertionCriteria criteria, List<DBColumnMetadata> columns, Set<String> uniqueColumnNames, Set<String> caseInsensitiveColumnNames) {
+        int numOfColumns = (int) columns.stream().filter(DBColumnMetadata::isValueEditable).count();
+        long seed = criteria.getSeed() != null ? criteria.getSeed() : ThreadLocalRandom.current().nextLong();
+        RowPlan plan = new RowPlan(criteria.getNumOfRows(), seed, numOfColumns);
+        plan.maxGuardedValues = criteria.getMaxGuardedValues();
+        int slot = 0;
+
+        for (DBColumnMetadata column : columns) {
+            if (!column.isValueEditable()) continue;
+
+            String columnName = column.getColumnName();
+            BiFunction<Integer, Object, Object> columnValueSupplier = criteria.getSupplierForColumn(columnName);
+            PrimitiveColumnSupplier primitiveValueSupplier = criteria.getPrimitiveSupplierForColumn(columnName);
+            Object initialPrevValue = criteria.getInitialPrevValue(columnName);
+
+            if (columnValueSupplier == null) {
+                if (!column.isNullable() || criteria.isInsertDefaultsForNullableColumns()) {
+                    primitiveValueSupplier = column.getDefaultPrimitiveValueSupplier();
+                    if (primitiveValueSupplier == null) {
+                        columnValueSupplier = column.getDefaultValueSupplier();
+                    }
+                }
+            }
+
+            plan.columnNames[slot] = columnName;
+            plan.columnSeeds[slot] = CellRandom.getColumnSeed(seed, columnName);
+            plan.suppliers[slot] = columnValueSupplier;
+            plan.primitiveSuppliers[slot] = primitiveValueSupplier;
+            plan.valueKinds[slot] = getValueKind(primitiveValueSupplier);
+            plan.initialPrevValues[slot] = initialPrevValue != null ? initialPrevValue : getZeroValue(plan.valueKinds[slot]);
+            plan.prevValueDependent[slot] = columnValueSupplier != null && criteria.dependsOnPrevValue(columnName);
+            plan.unique[slot] = uniqueColumnNames.contains(columnName.toLowerCase());
+            plan.caseInsensitive[slot] = caseInsensitiveColumnNames.contains(columnName.toLowerCase());
+            plan.dataTypes[slot] = column.getDataType();
+            slot++;
+        }
+
+        return plan;
+    }
+
+    /**
+     * Creates a plan without value-suppliers, for batches of rows which are read instead of generated, e.g. from a dataset file
+     */
+    static RowPlan forValueKinds(String[] columnNames, ValueKind[] valueKinds) {
+        RowPlan plan = new RowPlan(0, 0, columnNames.length);
+        for (int slot = 0; slot < columnNames.length; slot++) {
+            plan.columnNames[slot] = columnNames[slot];
+            plan.valueKinds[slot] = valueKinds[slot];
+            plan.initialPrevValues[slot] = getZeroValue(valueKinds[slot]);
+        }
+        return plan;
+    }
+
+    /**
+     * Creates a plan without value-suppliers for the editable columns, for batches of rows which are read from the table
+     * <br>The values of the NOT NULL numeric and boolean columns are held as primitives, as a primitive can't hold a null
+     */
+    static RowPlan forTableColumns(List<DBColumnMetadata> columns) {
+        List<DBColumnMetadata> editableColumns = columns.stream().filter(DBColumnMetadata::isValueEditable).collect(Collectors.toList());
+        String[] columnNames = new String[editableColumns.size()];
+        ValueKind[] valueKinds = new ValueKind[editableColumns.size()];
+
+        for (int slot = 0; slot < columnNames.length; slot++) {
+            DBColumnMetadata column = editableColumns.get(slot);
+            columnNames[slot] = column.getColumnName();
+            valueKinds[slot] = column.isNullable() ? ValueKind.OBJECT : getValueKind(column);
+        }
+        return forValueKinds(columnNames, valueKinds);
+    }
+
+    /**
+     * Creates a plan of just one of the slots of this plan, with the same value-supplier and seed
+     * <br>The values of a slot do not depend on the other slots, so the plan generates the same values for the column as this one
+     * @throws IllegalArgumentException if the column is not one of the editable columns of the plan
+     */
+    RowPlan select(String columnName) {
+        for (int slot = 0; slot < getNumOfColumns(); slot++) {
+            if (!this.columnNames[slot].equalsIgnoreCase(columnName)) continue;
+
+            RowPlan plan = new RowPlan(this.numOfRows, this.seed, 1);
+            plan.maxGuardedValues = this.maxGuardedValues;
+            plan.columnNames[0] = this.columnNames[slot];
+            plan.columnSeeds[0] = this.columnSeeds[slot];
+            plan.valueKinds[0] = this.valueKinds[slot];
+            plan.suppliers[0] = this.suppliers[slot];
+            plan.primitiveSuppliers[0] = this.primitiveSuppliers[slot];
+            plan.initialPrevValues[0] = this.initialPrevValues[slot];
+            plan.prevValueDependent[0] = this.prevValueDependent[slot];
+            plan.unique[0] = this.unique[slot];
+            plan.caseInsensitive[0] = this.caseInsensitive[slot];
+            plan.dataTypes[0] = this.dataTypes[slot];
+            return plan;
+        }
+        throw new IllegalArgumentException("The column [" + columnName + "] is not an editable column of the table");
+    }
+
+    private static ValueKind getValueKind(DBColumnMetadata column) {
+        String dataTypeName = column.getDataTypeName();
+        if (dataTypeName != null && dataTypeName.toUpperCase().contains("UNSIGNED")) {
+            //The unsigned values may not fit the signed primitive
+            return ValueKind.OBJECT;
+        }
+
+        JDBCType jdbcType;
+        try {
+            jdbcType = JDBCType.valueOf(column.getDataType());
+        } catch (IllegalArgumentException e) {
+            return ValueKind.OBJECT;
+        }
+
+        switch (jdbcType) {
+            case TINYINT:
+            case SMALLINT:
+            case INTEGER:
+                return ValueKind.INT;
+            case BIGINT:
+                return ValueKind.LONG;
+            case FLOAT:
+            case DOUBLE:
+                return ValueKind.DOUBLE;
+            case BOOLEAN:
+                return ValueKind.BOOLEAN;
+            case BIT:
+                return column.getPrecision() <= 1 ? ValueKind.BOOLEAN : ValueKind.OBJECT;
+            default:
+                return ValueKind.OBJECT;
+        }
+    }
+
+    private static ValueKind getValueKind(PrimitiveColumnSupplier primitiveValueSupplier) {
+        if (primitiveValueSupplier instanceof IntColumnSupplier) return ValueKind.INT;
+        if (primitiveValueSupplier instanceof LongColumnSupplier) return ValueKind.LONG;
+        if (primitiveValueSupplier instanceof DoubleColumnSupplier) return ValueKind.DOUBLE;
+        if (primitiveValueSupplier instanceof BooleanColumnSupplier) return ValueKind.BOOLEAN;
+        return ValueKind.OBJECT;
+    }
+
+    private static Object getZeroValue(ValueKind valueKind) {
+        switch (valueKind) {
+            case INT: return 0;
+            case LONG: return 0L;
+            case DOUBLE: return 0.0;
+            case BOOLEAN: return false;
+            default: return null;
+        }
+    }
+
+    int getNumOfRows() {
+        return numOfRows;
+    }
+
+    /**
+     * Number of slots i.e. editable columns
+     */
+    int getNumOfColumns() {
+        return columnNames.length;
+    }
+
+    /**
+     * Seed of the random values, either of the criteria or the one picked when compiling the plan
+     */
+    long getSeed() {
+        return seed;
+    }
+
+    String getColumnName(int slot) {
+        return columnNames[slot];
+    }
+
+    long getColumnSeed(int slot) {
+        return columnSeeds[slot];
+    }
+
+    ValueKind getValueKind(int slot) {
+        return valueKinds[slot];
+    }
+
+    BiFunction<Integer, Object, Object> getSupplier(int slot) {
+        return suppliers[slot];
+    }
+
+    /**
+     * Returns the primitive value-supplier of the slot, of the type matching its ValueKind
+     */
+    PrimitiveColumnSupplier getPrimitiveSupplier(int slot) {
+        return primitiveSuppliers[slot];
+    }
+
+    /**
+     * Returns the previous value for the first row of a slot with a primitive value-supplier, boxed
+     */
+    Object getInitialPrevValue(int slot) {
+        return initialPrevValues[slot];
+    }
+
+    boolean isPrevValueDependent(int slot) {
+        return prevValueDependent[slot];
+    }
+
+    boolean isUnique(int slot) {
+        return unique[slot];
+    }
+
+    /**
+     * Tells if the DB compares the values of the slot ignoring case, e.g. in a column of a case-insensitive collation
+     */
+    boolean isCaseInsensitive(int slot) {
+        return caseInsensitive[slot];
+    }
+
+    /**
+     * Max number of values of a unique slot which are held in memory, see <code>InsertionCriteria.withMaxGuardedValues()</code>
+     */
+    int getMaxGuardedValues() {
+        return maxGuardedValues;
+    }
+
+    int getDataType(int slot) {
+        return dataTypes[slot];
+    }
+}
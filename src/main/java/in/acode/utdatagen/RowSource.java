@@ -0,0 +1,22 @@
+package in.acode.utdatagen;
+
+/**
+ * A source of batches of rows to be written to a table, e.g. a RowGenerator or a DatasetReader
+ * <br>A source is used by one thread at a time
+ */
+interface RowSource {
+
+    boolean hasNext();
+
+    /**
+     * Creates a batch which can hold the rows of a call to <code>nextBatch()</code>
+     * @param batchSize preferred number of rows in a batch, a source may use another one
+     */
+    RowBatch newBatch(int batchSize);
+
+    /**
+     * Fills the next rows into the specified batch, replacing the rows it held
+     * @param batch a batch created by <code>newBatch()</code> of this source
+     */
+    void nextBatch(RowBatch batch);
+}
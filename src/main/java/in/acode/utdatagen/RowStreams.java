@@ -0,0 +1,293 @@
+package in.acode.utdatagen;
+
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.support.JdbcUtils;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Streams of the rows of a query, which are read as the stream is consumed, so only a few rows are held in memory however many rows there are
+ * <br>A stream over a cursor holds a connection until it is consumed to the end or closed, so it must be closed e.g. with try-with-resources.
+ * A stream over the pages of a keyset pagination holds no connection between the pages
+ * <br>The SQLExceptions are translated to DataAccessExceptions, the same way as by the JdbcTemplate
+ */
+class RowStreams {
+
+    private RowStreams() {
+    }
+
+    /**
+     * Opens a cursor over the rows of the query
+     * <br>The connection is the one bound to the current transaction if any, e.g. of a FixtureSession, else a new one from the DataSource.
+     * A new connection is taken out of auto-commit mode until the cursor is closed, as PostgreSQL ignores the fetch size in auto-commit mode
+     * and would read all the rows at once
+     * @param fetchSize number of rows fetched from the DB at a time, which is ignored for MySQL, where the rows are streamed one by one
+     */
+    static <T> Stream<T> openCursor(JdbcTemplate jdbcTemplate, String sql, Object[] args, int fetchSize, RowMapper<T> rowMapper) {
+        CursorIterator<T> iterator = new CursorIterator<>(jdbcTemplate, sql, rowMapper);
+        iterator.open(args, fetchSize);
+        return toStream(iterator).onClose(iterator::close);
+    }
+
+    /**
+     * Reads the rows of the table a page at a time, in the order of the key, each page starting after the key of the last row of the previous one
+     * @param columnList columns to read, which must include the key columns
+     * @param filter condition of a WHERE clause, null to read all the rows
+     */
+    static <T> Stream<T> openPages(JdbcTemplate jdbcTemplate, String tableName, String columnList, List<String> keyColumnNames,
+                                   String filter, Object[] filterArgs, int pageSize, RowMapper<T> rowMapper) {
+        return toStream(new PageIterator<>(jdbcTemplate, tableName, columnList, keyColumnNames, filter, filterArgs, pageSize, rowMapper));
+    }
+
+    /**
+     * Creates a mapper of each row to a map of the column labels and the values, which reads the labels once for all the rows
+     */
+    static RowMapper<Map<String, Object>> newMapRowMapper() {
+        String[][] columnLabels = new String[1][];
+        return (resultSet, rowNum) -> {
+            if (columnLabels[0] == null) {
+                ResultSetMetaData metaData = resultSet.getMetaData();
+                columnLabels[0] = new String[metaData.getColumnCount()];
+                for (int i = 0; i < columnLabels[0].length; i++) {
+                    columnLabels[0][i] = JdbcUtils.lookupColumnName(metaData, i + 1);
+                }
+            }
+
+            Map<String, Object> row = new HashMap<>((int) (columnLabels[0].length / 0.75f) + 1);
+            for (int i = 0; i < columnLabels[0].length; i++) {
+                row.put(columnLabels[0][i], resultSet.getObject(i + 1));
+            }
+            return row;
+        };
+    }
+
+    private static <T> Stream<T> toStream(Iterator<T> iterator) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Iterates over the rows of a forward-only, read-only ResultSet, and closes it along with its statement and connection after the last row
+     */
+    private static class CursorIterator<T> implements Iterator<T> {
+
+        private final JdbcTemplate jdbcTemplate;
+        private final DataSource dataSource;
+        private final String sql;
+        private final RowMapper<T> rowMapper;
+        private Connection connection;
+        private PreparedStatement statement;
+        private ResultSet resultSet;
+
+        /**
+         * Whether auto-commit was turned off for the cursor, to be turned on again when it is closed
+         */
+        private boolean autoCommitReset;
+
+        /**
+         * Whether the ResultSet is on a row which is not consumed yet, null if it is not moved to the next row yet
+         */
+        private Boolean hasNextRow;
+        private int rowNum;
+        private boolean closed;
+
+        CursorIterator(JdbcTemplate jdbcTemplate, String sql, RowMapper<T> rowMapper) {
+            this.jdbcTemplate = jdbcTemplate;
+            this.dataSource = jdbcTemplate.getDataSource();
+            this.sql = sql;
+            this.rowMapper = rowMapper;
+            this.rowNum = 0;
+            this.closed = false;
+        }
+
+        void open(Object[] args, int fetchSize) {
+            this.connection = DataSourceUtils.getConnection(this.dataSource);
+            try {
+                if (!DataSourceUtils.isConnectionTransactional(this.connection, this.dataSource) && this.connection.getAutoCommit()) {
+                    this.connection.setAutoCommit(false);
+                    this.autoCommitReset = true;
+                }
+                this.statement = this.connection.prepareStatement(this.sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                Dialect dialect = Dialect.getDialect(this.connection.getMetaData().getDatabaseProductName());
+                this.statement.setFetchSize(dialect == Dialect.MYSQL ? Integer.MIN_VALUE : fetchSize);
+
+                new ArgumentPreparedStatementSetter(args).setValues(this.statement);
+                this.resultSet = this.statement.executeQuery();
+            } catch (SQLException e) {
+                throw translate(e);
+            } catch (RuntimeException e) {
+                close();
+                throw e;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (this.closed) return false;
+
+            if (this.hasNextRow == null) {
+                try {
+                    this.hasNextRow = this.resultSet.next();
+                } catch (SQLException e) {
+                    throw translate(e);
+                }
+                if (!this.hasNextRow) {
+                    close();
+                }
+            }
+            return this.hasNextRow;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            this.hasNextRow = null;
+            try {
+                return this.rowMapper.mapRow(this.resultSet, this.rowNum++);
+            } catch (SQLException e) {
+                throw translate(e);
+            }
+        }
+
+        /**
+         * Closes the ResultSet, the statement and releases the connection, if not done yet
+         * <br>The read-only transaction of the cursor, if it started one, is ended and the connection is put back in auto-commit mode
+         */
+        void close() {
+            if (this.closed) return;
+
+            this.closed = true;
+            JdbcUtils.closeResultSet(this.resultSet);
+            JdbcUtils.closeStatement(this.statement);
+            if (this.autoCommitReset) {
+                try {
+                    this.connection.rollback();
+                    this.connection.setAutoCommit(true);
+                } catch (SQLException e) {
+                    //The pool resets the auto-commit mode of a connection it gets back anyway
+                }
+            }
+            DataSourceUtils.releaseConnection(this.connection, this.dataSource);
+        }
+
+        private RuntimeException translate(SQLException e) {
+            close();
+            return this.jdbcTemplate.getExceptionTranslator().translate("StreamRows", this.sql, e);
+        }
+    }
+
+    /**
+     * Iterates over the rows of the pages, reading the next page when the rows of the current one are consumed
+     * <br>A page after the first one picks up after the key of the last row, e.g. <code>(a > ?) OR (a = ? AND b > ?)</code> for a key of (a, b)
+     */
+    private static class PageIterator<T> implements Iterator<T> {
+
+        private final JdbcTemplate jdbcTemplate;
+        private final String firstPageSql;
+        private final String nextPageSql;
+        private final Object[] filterArgs;
+        private final List<String> keyColumnNames;
+        private final int pageSize;
+        private final RowMapper<T> rowMapper;
+
+        private List<T> page;
+        private int pageIdx;
+        private Object[] lastKey;
+        private boolean lastPage;
+        private int rowNum;
+
+        PageIterator(JdbcTemplate jdbcTemplate, String tableName, String columnList, List<String> keyColumnNames,
+                     String filter, Object[] filterArgs, int pageSize, RowMapper<T> rowMapper) {
+            this.jdbcTemplate = jdbcTemplate;
+            this.filterArgs = filterArgs;
+            this.keyColumnNames = keyColumnNames;
+            this.pageSize = pageSize;
+            this.rowMapper = rowMapper;
+            this.page = Collections.emptyList();
+            this.pageIdx = 0;
+            this.lastPage = false;
+            this.rowNum = 0;
+
+            List<String> keyConditions = new ArrayList<>();
+            for (int i = 0; i < keyColumnNames.size(); i++) {
+                StringBuilder keyCondition = new StringBuilder("(");
+                for (int j = 0; j < i; j++) {
+                    keyCondition.append(keyColumnNames.get(j)).append(" = ? AND ");
+                }
+                keyConditions.add(keyCondition.append(keyColumnNames.get(i)).append(" > ?)").toString());
+            }
+
+            String select = "SELECT " + columnList + " FROM " + tableName;
+            String orderBy = " ORDER BY " + String.join(", ", keyColumnNames) + " LIMIT " + pageSize;
+            String keysetCondition = "(" + String.join(" OR ", keyConditions) + ")";
+            this.firstPageSql = select + (filter != null ? " WHERE " + filter : "") + orderBy;
+            this.nextPageSql = select + " WHERE " + (filter != null ? "(" + filter + ") AND " : "") + keysetCondition + orderBy;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (this.pageIdx == this.page.size()) {
+                if (this.lastPage) return false;
+                readNextPage();
+            }
+            return true;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return this.page.get(this.pageIdx++);
+        }
+
+        private void readNextPage() {
+            List<Object> args = new ArrayList<>();
+            Collections.addAll(args, this.filterArgs);
+            if (this.lastKey != null) {
+                for (int i = 0; i < this.lastKey.length; i++) {
+                    for (int j = 0; j <= i; j++) {
+                        args.add(this.lastKey[j]);
+                    }
+                }
+            }
+
+            this.page = this.jdbcTemplate.query(this.lastKey == null ? this.firstPageSql : this.nextPageSql, args.toArray(), (ResultSetExtractor<List<T>>) resultSet -> {
+                List<T> rows = new ArrayList<>(this.pageSize);
+                while (resultSet.next()) {
+                    rows.add(this.rowMapper.mapRow(resultSet, this.rowNum++));
+                    if (this.lastKey == null) {
+                        this.lastKey = new Object[this.keyColumnNames.size()];
+                    }
+                    for (int i = 0; i < this.lastKey.length; i++) {
+                        this.lastKey[i] = resultSet.getObject(this.keyColumnNames.get(i));
+                    }
+                }
+                return rows;
+            });
+            this.pageIdx = 0;
+            this.lastPage = this.page.size() < this.pageSize;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package in.acode.utdatagen;
+
+import in.acode.utdatagen.meta.DBColumnMetadata;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Writes batches of generated rows to a table, over a single connection
+ * <br>Each InsertionStrategy has its own writer. A writer is used by one thread at a time, and must be closed after use
+ */
+abstract class RowWriter implements AutoCloseable {
+
+    protected final Connection connection;
+    protected final String tableName;
+
+    /**
+     * The editable columns of the table, in the same order as the values in the generated rows
+     */
+    protected final List<DBColumnMetadata> columns;
+
+    protected RowWriter(Connection connection, String tableName, List<DBColumnMetadata> columns) {
+        this.connection = connection;
+        this.tableName = tableName;
+        this.columns = columns;
+    }
+
+    /**
+     * Inserts a batch of rows, with a slot per column
+     * The batch may be filled again after this returns, so a writer must not keep a reference to it
+     */
+    abstract void write(RowBatch rows) throws SQLException;
+
+    @Override
+    public abstract void close() throws SQLException;
+
+    /**
+     * Returns the SQL to insert the specified number of rows in a single statement
+     */
+    protected String getInsertStatement(int numOfRows) {
+        StringBuilder sqlBuilder = new StringBuilder("INSERT INTO " + this.tableName + " (");
+        StringBuilder rowPlaceholdersBuilder = new StringBuilder("(");
+
+        for (DBColumnMetadata column : this.columns) {
+            sqlBuilder.append(column.getColumnName()).append(", ");
+            rowPlaceholdersBuilder.append("?, ");
+        }
+
+        sqlBuilder.setLength(sqlBuilder.length() - 2);
+        sqlBuilder.append(") VALUES ");
+
+        rowPlaceholdersBuilder.setLength(rowPlaceholdersBuilder.length() - 2);
+        rowPlaceholdersBuilder.append(")");
+
+        for (int i = 0; i < numOfRows; i++) {
+            sqlBuilder.append(rowPlaceholdersBuilder).append(", ");
+        }
+        sqlBuilder.setLength(sqlBuilder.length() - 2);
+
+        return sqlBuilder.toString();
+    }
+
+    /**
+     * Binds the values of a row of the batch, starting at the specified parameter index
+     * Primitive values are bound with the matching setter, see RowBatch
+     */
+    protected void bindRow(PreparedStatement preparedStatement, int startParameterIdx, RowBatch rows, int rowIdx) throws SQLException {
+        for (int slot = 0; slot < rows.getNumOfColumns(); slot++) {
+            rows.bindValue(preparedStatement, startParameterIdx + slot, rowIdx, slot);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package in.acode.utdatagen;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.function.BiConsumer;
+
+/**
+ * An InputStream which encodes rows as text, one row at a time, as they are read
+ * <br>Only the row being read is held in its encoded form, so the rows can be streamed to a bulk-loader
+ * without building the whole file in memory or on disk
+ * <br>Each row is passed to the encoder as an array of SQL arguments, so primitive values are boxed here
+ */
+class RowsInputStream extends InputStream {
+
+    private final RowBatch rows;
+    private int nextRowIdx;
+
+    /**
+     * Appends the text of a row, including the line separator, to the builder
+     */
+    private final BiConsumer<StringBuilder, Object[]> rowEncoder;
+
+    private final StringBuilder rowBuilder;
+    private byte[] buffer;
+    private int bufferPos;
+
+    RowsInputStream(RowBatch rows, BiConsumer<StringBuilder, Object[]> rowEncoder) {
+        this.rows = rows;
+        this.nextRowIdx = 0;
+        this.rowEncoder = rowEncoder;
+        this.rowBuilder = new StringBuilder();
+        this.buffer = new byte[0];
+        this.bufferPos = 0;
+    }
+
+    @Override
+    public int read() {
+        if (!ensureBufferHasData()) return -1;
+        return this.buffer[this.bufferPos++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+        if (len == 0) return 0;
+
+        int numOfBytesRead = 0;
+        while (numOfBytesRead < len && ensureBufferHasData()) {
+            int numOfBytesToCopy = Math.min(len - numOfBytesRead, this.buffer.length - this.bufferPos);
+            System.arraycopy(this.buffer, this.bufferPos, b, off + numOfBytesRead, numOfBytesToCopy);
+            this.bufferPos += numOfBytesToCopy;
+            numOfBytesRead += numOfBytesToCopy;
+        }
+
+        return numOfBytesRead == 0 ? -1 : numOfBytesRead;
+    }
+
+    /**
+     * Encodes the next row if all bytes of the current one have been read
+     * @return false if there is nothing more to read
+     */
+    private boolean ensureBufferHasData() {
+        while (this.bufferPos >= this.buffer.length) {
+            if (this.nextRowIdx >= this.rows.size()) return false;
+
+            this.rowBuilder.setLength(0);
+            this.rowEncoder.accept(this.rowBuilder, this.rows.getRow(this.nextRowIdx++));
+            this.buffer = this.rowBuilder.toString().getBytes(StandardCharsets.UTF_8);
+            this.bufferPos = 0;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,123 @@
+package in.acode.utdatagen;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Specifies which rows of a table are read by <code>DBTableFixture.streamRows()</code>, and how they are read
+ * <br>By default all the columns of all the rows are read, in no particular order, over a single cursor.
+ * The rows can be narrowed down with -
+ * <br>&emsp;1. <code>withColumns()</code>, the columns to read
+ * <br>&emsp;2. <code>withFilter()</code>, a WHERE clause with bind-parameters
+ * <br>The rows are read either -
+ * <br>&emsp;1. over a single cursor, which holds its connection until the stream is closed, see <code>withFetchSize()</code>
+ * <br>&emsp;2. or a page at a time, in the order of the primary key, with a query per page, see <code>withKeysetPagination()</code>
+ */
+public class SelectionCriteria {
+
+    private List<String> columnNames;
+    private String filter;
+    private Object[] filterArgs;
+    private List<String> orderByClause;
+    private int fetchSize;
+    private int pageSize;
+
+    private SelectionCriteria() {
+        this.columnNames = Collections.emptyList();
+        this.filterArgs = new Object[0];
+        this.orderByClause = Collections.emptyList();
+        this.fetchSize = 0;
+        this.pageSize = 0;
+    }
+
+    public static SelectionCriteria newInstance() {
+        return new SelectionCriteria();
+    }
+
+    /**
+     * Sets the columns to read, all the columns are read if none are specified
+     */
+    public SelectionCriteria withColumns(String... columnNames) {
+        this.columnNames = new ArrayList<>(Arrays.asList(columnNames));
+        return this;
+    }
+
+    public List<String> getColumnNames() {
+        return columnNames;
+    }
+
+    /**
+     * Sets the condition the rows must satisfy
+     * @param filter an SQL condition as in a WHERE clause, e.g. "int_column > ? AND varchar_column LIKE ?"
+     * @param filterArgs values of the bind-parameters of the condition
+     */
+    public SelectionCriteria withFilter(String filter, Object... filterArgs) {
+        this.filter = filter;
+        this.filterArgs = filterArgs;
+        return this;
+    }
+
+    public String getFilter() {
+        return filter;
+    }
+
+    public Object[] getFilterArgs() {
+        return filterArgs;
+    }
+
+    /**
+     * Sets the order of the rows read over a cursor, e.g. "EMPLOYEE_ID" or "EMPLOYEE_ID DESC"
+     * <br>The rows read with keyset pagination are always in the order of the primary key
+     */
+    public SelectionCriteria withOrderBy(String... orderByClause) {
+        this.orderByClause = new ArrayList<>(Arrays.asList(orderByClause));
+        return this;
+    }
+
+    public List<String> getOrderByClause() {
+        return orderByClause;
+    }
+
+    /**
+     * Sets the number of rows the JDBC driver fetches from the DB at a time over a cursor, the default is the batch size of the fixture
+     * <br>On MySQL, the rows are streamed one by one instead, as Connector/J holds all the rows in memory for any other fetch size,
+     * unless the connection has <code>useCursorFetch=true</code>. Other statements can't run on the connection of such a stream until it is closed
+     */
+    public SelectionCriteria withFetchSize(int fetchSize) {
+        if (fetchSize <= 0) {
+            throw new IllegalArgumentException("Fetch size must be more than 0");
+        }
+
+        this.fetchSize = fetchSize;
+        return this;
+    }
+
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    /**
+     * Sets the rows to be read a page at a time, each with a query of its own which picks up after the primary key of the last row read,
+     * e.g. <code>WHERE id > ? ORDER BY id LIMIT 1000</code>
+     * <br>No connection is held between the pages, and each page is found with the index of the primary key, however deep into the table it is.
+     * The table must have a primary key, whose columns are read even if they are not among the columns to read
+     */
+    public SelectionCriteria withKeysetPagination(int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be more than 0");
+        }
+
+        this.pageSize = pageSize;
+        return this;
+    }
+
+    public boolean isKeysetPagination() {
+        return pageSize > 0;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+}
@@ -0,0 +1,79 @@
+package in.acode.utdatagen;
+
+import in.acode.utdatagen.meta.DBForeignKeyMetadata;
+import in.acode.utdatagen.meta.DBTableMetadata;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Orders a set of fixtures by the foreign keys between their tables
+ * <br>The fixtures are split into layers, where a table only references the tables of the earlier layers. So -
+ * <br>&emsp;1. rows can be inserted layer by layer, parents first
+ * <br>&emsp;2. rows can be removed layer by layer in the reverse order, children first
+ * <br>The tables within a layer don't reference each other, so they can be handled in parallel
+ * <br>Only the foreign keys between the tables of the set are considered, and a table referencing itself is not a dependency.
+ * The tables of a cycle of foreign keys can't be ordered, they are put together in the last layer
+ */
+class TableDependencies {
+
+    private static final Log LOG = LogFactory.getLog(TableDependencies.class);
+
+    private TableDependencies() {
+    }
+
+    /**
+     * @return layers of fixtures, parents first
+     */
+    static List<List<DBTableFixture>> getLayers(List<DBTableFixture> fixtures) {
+        Map<String, DBTableFixture> fixturesByTable = new LinkedHashMap<>();
+        for (DBTableFixture fixture : fixtures) {
+            fixturesByTable.put(fixture.getTableName().toLowerCase(), fixture);
+        }
+
+        Map<String, Set<String>> referencedTables = new HashMap<>();
+        for (Map.Entry<String, DBTableFixture> tableFixture : fixturesByTable.entrySet()) {
+            Set<String> referenced = new HashSet<>();
+            DBTableMetadata tableMetadata = tableFixture.getValue().getTableMetadata();
+            if (tableMetadata != null) {
+                for (DBForeignKeyMetadata foreignKey : tableMetadata.getForeignKeys()) {
+                    String referencedTable = foreignKey.getReferencedTableName().toLowerCase();
+                    if (fixturesByTable.containsKey(referencedTable) && !referencedTable.equals(tableFixture.getKey())) {
+                        referenced.add(referencedTable);
+                    }
+                }
+            }
+            referencedTables.put(tableFixture.getKey(), referenced);
+        }
+
+        List<List<DBTableFixture>> layers = new ArrayList<>();
+        Set<String> remainingTables = new HashSet<>(fixturesByTable.keySet());
+        while (!remainingTables.isEmpty()) {
+            List<DBTableFixture> layer = new ArrayList<>();
+            for (Map.Entry<String, DBTableFixture> tableFixture : fixturesByTable.entrySet()) {
+                String table = tableFixture.getKey();
+                if (remainingTables.contains(table) && referencedTables.get(table).stream().noneMatch(remainingTables::contains)) {
+                    layer.add(tableFixture.getValue());
+                }
+            }
+
+            if (layer.isEmpty()) {
+                LOG.warn("The foreign keys of the tables " + remainingTables + " form a cycle, they can't be ordered");
+                fixturesByTable.forEach((table, fixture) -> {
+                    if (remainingTables.contains(table)) layer.add(fixture);
+                });
+            }
+
+            layer.forEach(fixture -> remainingTables.remove(fixture.getTableName().toLowerCase()));
+            layers.add(layer);
+        }
+
+        return layers;
+    }
+}
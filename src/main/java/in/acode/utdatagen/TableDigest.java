@@ -0,0 +1,273 @@
+package in.acode.utdatagen;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * An order-independent checksum of some columns of a set of rows, which tells whether two sets of rows are the same without comparing them row by row
+ * <br>The digest is the number of rows and the sum (wrapping around) of the 64-bit hashes of the rows, see RowHasher,
+ * so it does not depend on the order of the rows, and the digest of a set of rows is the sum of the digests of its parts.
+ * It can be computed -
+ * <br>&emsp;1. from the table, with SQL aggregates where the DB can hash the rows, else by streaming the rows, see <code>DBTableFixture.computeDigest()</code>
+ * <br>&emsp;2. from the rows generated by an InsertionCriteria, without inserting them
+ * <br>&emsp;3. from a dataset file saved earlier, as a snapshot of the expected rows
+ * <br>A digest with a key column also holds the digest of each chunk of the key, e.g. the keys 0 to 1023 for a chunk width of 1024,
+ * so that <code>DBTableFixture.findMismatchedKeyRanges()</code> can narrow a mismatch down to the chunks which differ
+ */
+public final class TableDigest {
+
+    /**
+     * Number of keys in a chunk of a digest, unless specified otherwise
+     */
+    public static final int DEFAULT_CHUNK_WIDTH = 1024;
+
+    private final List<String> columnNames;
+    private final String keyColumnName;
+    private final long chunkWidth;
+    private final long numOfRows;
+    private final long hash;
+
+    /**
+     * Number of rows and hash of each non-empty chunk, by the index of the chunk i.e. <code>floorDiv(key, chunkWidth)</code>
+     */
+    private final TreeMap<Long, long[]> chunks;
+
+    private TableDigest(List<String> columnNames, String keyColumnName, long chunkWidth, long numOfRows, long hash, TreeMap<Long, long[]> chunks) {
+        this.columnNames = Collections.unmodifiableList(new ArrayList<>(columnNames));
+        this.keyColumnName = keyColumnName;
+        this.chunkWidth = chunkWidth;
+        this.numOfRows = numOfRows;
+        this.hash = hash;
+        this.chunks = chunks;
+    }
+
+    public List<String> getColumnNames() {
+        return columnNames;
+    }
+
+    /**
+     * Column the chunks of the digest are keyed by, null if the digest has no chunks
+     */
+    public String getKeyColumnName() {
+        return keyColumnName;
+    }
+
+    public long getChunkWidth() {
+        return chunkWidth;
+    }
+
+    public long getNumOfRows() {
+        return numOfRows;
+    }
+
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * Number of chunks holding at least one row
+     */
+    public int getNumOfChunks() {
+        return chunks.size();
+    }
+
+    /**
+     * Checks whether the digest is of the same rows as another one
+     * @throws IllegalArgumentException if the digests are not of the same columns
+     */
+    public boolean matches(TableDigest otherDigest) {
+        if (!toLowerCase(this.columnNames).equals(toLowerCase(otherDigest.columnNames))) {
+            throw new IllegalArgumentException("The digests are of different columns " + this.columnNames + " and " + otherDigest.columnNames);
+        }
+        return this.numOfRows == otherDigest.numOfRows && this.hash == otherDigest.hash;
+    }
+
+    /**
+     * Returns the number of rows and the hash of the chunks from <code>fromChunkIdx</code> (inclusive) to <code>toChunkIdx</code> (exclusive)
+     */
+    long[] getChunkRangeDigest(long fromChunkIdx, long toChunkIdx) {
+        long[] rangeDigest = {0, 0};
+        for (long[] chunk : this.chunks.subMap(fromChunkIdx, toChunkIdx).values()) {
+            rangeDigest[0] += chunk[0];
+            rangeDigest[1] += chunk[1];
+        }
+        return rangeDigest;
+    }
+
+    /**
+     * Index of the first non-empty chunk, null if there are no rows
+     */
+    Long getFirstChunkIdx() {
+        return this.chunks.isEmpty() ? null : this.chunks.firstKey();
+    }
+
+    Long getLastChunkIdx() {
+        return this.chunks.isEmpty() ? null : this.chunks.lastKey();
+    }
+
+    private static List<String> toLowerCase(List<String> columnNames) {
+        return columnNames.stream().map(String::toLowerCase).collect(Collectors.toList());
+    }
+
+    /**
+     * Two digests are equal if they are of the same columns and the same rows, whatever the chunks they were computed with
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof TableDigest)) return false;
+
+        TableDigest that = (TableDigest) o;
+        return this.numOfRows == that.numOfRows && this.hash == that.hash && toLowerCase(this.columnNames).equals(toLowerCase(that.columnNames));
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(toLowerCase(columnNames), numOfRows, hash);
+    }
+
+    @Override
+    public String toString() {
+        return "TableDigest{"
+            + "rows=" + numOfRows
+            + ", hash=" + String.format("%016x", hash)
+            + ", columns=" + columnNames
+            + (keyColumnName != null ? ", key=" + keyColumnName + ", chunks=" + chunks.size() : "")
+            + "}";
+    }
+
+    /**
+     * Collects the hashes of the rows, or the digests of whole chunks, into a TableDigest
+     */
+    static class Builder {
+
+        private final List<String> columnNames;
+        private final String keyColumnName;
+        private final long chunkWidth;
+        private final TreeMap<Long, long[]> chunks;
+        private long numOfRows;
+        private long hash;
+
+        /**
+         * The last chunk a row was added to, as the rows often come in the order of their keys
+         */
+        private long lastChunkIdx;
+        private long[] lastChunk;
+
+        /**
+         * @param keyColumnName null for a digest without chunks
+         */
+        Builder(List<String> columnNames, String keyColumnName, long chunkWidth) {
+            this.columnNames = columnNames;
+            this.keyColumnName = keyColumnName;
+            this.chunkWidth = chunkWidth;
+            this.chunks = new TreeMap<>();
+            this.numOfRows = 0;
+            this.hash = 0;
+        }
+
+        /**
+         * Adds a row to a digest without chunks
+         */
+        void add(long rowHash) {
+            this.numOfRows++;
+            this.hash += rowHash;
+        }
+
+        void add(long key, long rowHash) {
+            long chunkIdx = Math.floorDiv(key, this.chunkWidth);
+            if (this.lastChunk == null || this.lastChunkIdx != chunkIdx) {
+                this.lastChunk = this.chunks.computeIfAbsent(chunkIdx, idx -> new long[2]);
+                this.lastChunkIdx = chunkIdx;
+            }
+            this.lastChunk[0]++;
+            this.lastChunk[1] += rowHash;
+            add(rowHash);
+        }
+
+        /**
+         * Adds the rows of a whole chunk, or of all the rows for a digest without chunks
+         */
+        void addChunk(Long chunkIdx, long numOfRows, long hash) {
+            if (chunkIdx != null) {
+                long[] chunk = this.chunks.computeIfAbsent(chunkIdx, idx -> new long[2]);
+                chunk[0] += numOfRows;
+                chunk[1] += hash;
+            }
+            this.numOfRows += numOfRows;
+            this.hash += hash;
+        }
+
+        TableDigest build() {
+            return new TableDigest(this.columnNames, this.keyColumnName, this.chunkWidth, this.numOfRows, this.hash, this.chunks);
+        }
+    }
+
+    /**
+     * A range of keys whose rows differ from the ones of the expected digest, see <code>DBTableFixture.findMismatchedKeyRanges()</code>
+     */
+    public static final class KeyRange {
+
+        private final String keyColumnName;
+        private final long fromKey;
+        private final long toKey;
+        private final long expectedNumOfRows;
+        private final long actualNumOfRows;
+
+        KeyRange(String keyColumnName, long fromKey, long toKey, long expectedNumOfRows, long actualNumOfRows) {
+            this.keyColumnName = keyColumnName;
+            this.fromKey = fromKey;
+            this.toKey = toKey;
+            this.expectedNumOfRows = expectedNumOfRows;
+            this.actualNumOfRows = actualNumOfRows;
+        }
+
+        public String getKeyColumnName() {
+            return keyColumnName;
+        }
+
+        /**
+         * First key of the range, inclusive
+         */
+        public long getFromKey() {
+            return fromKey;
+        }
+
+        /**
+         * Key after the last key of the range, exclusive
+         */
+        public long getToKey() {
+            return toKey;
+        }
+
+        public long getExpectedNumOfRows() {
+            return expectedNumOfRows;
+        }
+
+        public long getActualNumOfRows() {
+            return actualNumOfRows;
+        }
+
+        /**
+         * Creates a SelectionCriteria for just the rows of the range, to fetch them with <code>DBTableFixture.streamRows()</code>
+         */
+        public SelectionCriteria toSelectionCriteria() {
+            return SelectionCriteria.newInstance()
+                .withFilter(keyColumnName + " >= ? AND " + keyColumnName + " < ?", fromKey, toKey)
+                .withOrderBy(keyColumnName);
+        }
+
+        @Override
+        public String toString() {
+            return "KeyRange{"
+                + keyColumnName + "=[" + fromKey + ", " + toKey + ")"
+                + ", expectedRows=" + expectedNumOfRows
+                + ", actualRows=" + actualNumOfRows
+                + "}";
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package in.acode.utdatagen;
+
+import in.acode.utdatagen.meta.DBColumnMetadata;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Computes the TableDigest of some columns of a table, and narrows down the key ranges which differ from an expected digest
+ * <br>The rows are hashed in SQL aggregates, so that only the digests are read, where the DB can hash them the same way as RowHasher -
+ * <br>&emsp;1. MySQL (and MariaDB) with <code>SHA2()</code>
+ * <br>&emsp;2. PostgreSQL (11 and later) with <code>SHA256()</code>
+ * <br>&emsp;3. H2 with <code>HASH('SHA256', ...)</code>
+ * <br>and the columns are of types whose text is the same in the DB as in RowHasher - integers, decimals, strings, dates and timestamps
+ * (only without fractional seconds on MySQL, as it pads the fraction with zeros).
+ * Otherwise the rows are streamed, <code>fetchSize</code> at a time, and hashed with RowHasher
+ * <br>A mismatch is narrowed down by chunked bisection - the range of keys is split into <code>FAN_OUT</code> parts,
+ * whose digests are computed with a single query grouped by part, and only the parts which differ are split again, down to single chunks
+ */
+class TableDigester {
+
+    /**
+     * Number of parts a mismatched range of keys is split into, at each step of the bisection
+     */
+    static final int FAN_OUT = 16;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String tableName;
+    private final List<DBColumnMetadata> columns;
+    private final DBColumnMetadata keyColumn;
+    private final long chunkWidth;
+    private final int fetchSize;
+    private final Dialect dialect;
+
+    /**
+     * SQL expression of the hash of a row, null if the rows are hashed by streaming them
+     */
+    private final String hashExpression;
+
+    /**
+     * @param keyColumn an integer column, null for a digest without chunks
+     */
+    TableDigester(JdbcTemplate jdbcTemplate, String tableName, List<DBColumnMetadata> columns, DBColumnMetadata keyColumn, long chunkWidth, int fetchSize) {
+        if (keyColumn != null && !isIntegerType(keyColumn.getDataType())) {
+            throw new IllegalArgumentException("The key column [" + keyColumn.getColumnName() + "] is not an integer column");
+        }
+
+        this.jdbcTemplate = jdbcTemplate;
+        this.tableName = tableName;
+        this.columns = columns;
+        this.keyColumn = keyColumn;
+        this.chunkWidth = chunkWidth;
+        this.fetchSize = fetchSize;
+        this.dialect = jdbcTemplate.execute((ConnectionCallback<Dialect>) connection -> Dialect.getDialect(connection.getMetaData().getDatabaseProductName()));
+        this.hashExpression = getHashExpression(this.dialect, columns);
+    }
+
+    /**
+     * Whether the rows are hashed by the DB
+     */
+    boolean isPushedDown() {
+        return this.hashExpression != null;
+    }
+
+    TableDigest digest() {
+        TableDigest.Builder builder = new TableDigest.Builder(getColumnNames(), this.keyColumn != null ? this.keyColumn.getColumnName() : null, this.chunkWidth);
+
+        if (this.keyColumn == null) {
+            if (isPushedDown()) {
+                Map<String, Object> total = this.jdbcTemplate.queryForMap("SELECT COUNT(*) AS num_of_rows, SUM(" + this.hashExpression + ") AS hash FROM " + this.tableName);
+                builder.addChunk(null, ((Number) total.get("num_of_rows")).longValue(), toLong(total.get("hash")));
+            } else {
+                RowHasher rowHasher = new RowHasher(this.columns);
+                String sql = "SELECT " + String.join(", ", getColumnNames()) + " FROM " + this.tableName;
+                try (Stream<Long> rowHashes = RowStreams.openCursor(this.jdbcTemplate, sql, new Object[0], this.fetchSize,
+                    (resultSet, rowNum) -> rowHasher.hash(readValues(resultSet, 1)))) {
+                    rowHashes.forEach(builder::add);
+                }
+            }
+            return builder.build();
+        }
+
+        Long[] keyBounds = getKeyBounds();
+        if (keyBounds != null) {
+            long fromChunkIdx = Math.floorDiv(keyBounds[0], this.chunkWidth);
+            long toChunkIdx = Math.floorDiv(keyBounds[1], this.chunkWidth) + 1;
+            for (Map.Entry<Long, long[]> chunk : digestParts(fromChunkIdx, toChunkIdx, 1).entrySet()) {
+                builder.addChunk(fromChunkIdx + chunk.getKey(), chunk.getValue()[0], chunk.getValue()[1]);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Finds the chunks of keys whose rows in the table differ from the ones of the expected digest
+     * @param expectedDigest a digest with chunks of the same width, keyed by the key column of this digester
+     */
+    List<TableDigest.KeyRange> findMismatchedKeyRanges(TableDigest expectedDigest) {
+        Long[] keyBounds = getKeyBounds();
+        Long fromChunkIdx = min(keyBounds != null ? Math.floorDiv(keyBounds[0], this.chunkWidth) : null, expectedDigest.getFirstChunkIdx());
+        Long toChunkIdx = max(keyBounds != null ? Math.floorDiv(keyBounds[1], this.chunkWidth) : null, expectedDigest.getLastChunkIdx());
+
+        List<TableDigest.KeyRange> mismatchedKeyRanges = new ArrayList<>();
+        if (fromChunkIdx != null) {
+            bisect(fromChunkIdx, toChunkIdx + 1, expectedDigest, mismatchedKeyRanges);
+        }
+        return mismatchedKeyRanges;
+    }
+
+    private void bisect(long fromChunkIdx, long toChunkIdx, TableDigest expectedDigest, List<TableDigest.KeyRange> mismatchedKeyRanges) {
+        long partWidth = (toChunkIdx - fromChunkIdx + FAN_OUT - 1) / FAN_OUT;
+        TreeMap<Long, long[]> parts = digestParts(fromChunkIdx, toChunkIdx, partWidth);
+
+        for (long partFromChunkIdx = fromChunkIdx; partFromChunkIdx < toChunkIdx; partFromChunkIdx += partWidth) {
+            long partToChunkIdx = Math.min(partFromChunkIdx + partWidth, toChunkIdx);
+            long[] actual = parts.getOrDefault((partFromChunkIdx - fromChunkIdx) / partWidth, new long[2]);
+            long[] expected = expectedDigest.getChunkRangeDigest(partFromChunkIdx, partToChunkIdx);
+            if (actual[0] == expected[0] && actual[1] == expected[1]) continue;
+
+            if (partToChunkIdx - partFromChunkIdx == 1) {
+                mismatchedKeyRanges.add(new TableDigest.KeyRange(this.keyColumn.getColumnName(),
+                    partFromChunkIdx * this.chunkWidth, partToChunkIdx * this.chunkWidth, expected[0], actual[0]));
+            } else {
+                bisect(partFromChunkIdx, partToChunkIdx, expectedDigest, mismatchedKeyRanges);
+            }
+        }
+    }
+
+    /**
+     * Computes the number of rows and the hash of each part of the chunks from <code>fromChunkIdx</code> to <code>toChunkIdx</code>,
+     * by the index of the part, each part being <code>partWidth</code> chunks wide
+     */
+    private TreeMap<Long, long[]> digestParts(long fromChunkIdx, long toChunkIdx, long partWidth) {
+        String keyColumnName = this.keyColumn.getColumnName();
+        long fromKey = fromChunkIdx * this.chunkWidth;
+        long toKey = toChunkIdx * this.chunkWidth;
+        long partKeyWidth = partWidth * this.chunkWidth;
+        TreeMap<Long, long[]> parts = new TreeMap<>();
+
+        if (isPushedDown()) {
+            //The keys are never less than fromKey, so the integer division is the floor
+            String partIdxExpression = "((" + keyColumnName + " - " + fromKey + ")" + (this.dialect == Dialect.MYSQL ? " DIV " : " / ") + partKeyWidth + ")";
+            String sql = "SELECT " + partIdxExpression + " AS part_idx, COUNT(*) AS num_of_rows, SUM(" + this.hashExpression + ") AS hash"
+                + " FROM " + this.tableName + " WHERE " + keyColumnName + " >= ? AND " + keyColumnName + " < ?"
+                + " GROUP BY " + partIdxExpression;
+
+            this.jdbcTemplate.query(sql, new Object[] {fromKey, toKey}, resultSet -> {
+                parts.put(resultSet.getLong("part_idx"), new long[] {resultSet.getLong("num_of_rows"), toLong(resultSet.getObject("hash"))});
+            });
+            return parts;
+        }
+
+        RowHasher rowHasher = new RowHasher(this.columns);
+        String sql = "SELECT " + keyColumnName + ", " + String.join(", ", getColumnNames()) + " FROM " + this.tableName
+            + " WHERE " + keyColumnName + " >= ? AND " + keyColumnName + " < ?";
+        try (Stream<long[]> rows = RowStreams.openCursor(this.jdbcTemplate, sql, new Object[] {fromKey, toKey}, this.fetchSize,
+            (resultSet, rowNum) -> new long[] {resultSet.getLong(1), rowHasher.hash(readValues(resultSet, 2))})) {
+            rows.forEach(row -> {
+                long[] part = parts.computeIfAbsent((row[0] - fromKey) / partKeyWidth, partIdx -> new long[2]);
+                part[0]++;
+                part[1] += row[1];
+            });
+        }
+        return parts;
+    }
+
+    /**
+     * Returns the min and the max key of the table, null if it has no rows
+     */
+    private Long[] getKeyBounds() {
+        String keyColumnName = this.keyColumn.getColumnName();
+        Map<String, Object> bounds = this.jdbcTemplate.queryForMap("SELECT MIN(" + keyColumnName + ") AS min_key, MAX(" + keyColumnName + ") AS max_key FROM " + this.tableName);
+        if (bounds.get("min_key") == null) return null;
+
+        return new Long[] {((Number) bounds.get("min_key")).longValue(), ((Number) bounds.get("max_key")).longValue()};
+    }
+
+    private Object[] readValues(ResultSet resultSet, int firstColumnIdx) throws SQLException {
+        Object[] values = new Object[this.columns.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = resultSet.getObject(firstColumnIdx + i);
+        }
+        return values;
+    }
+
+    private List<String> getColumnNames() {
+        return this.columns.stream().map(DBColumnMetadata::getColumnName).collect(Collectors.toList());
+    }
+
+    /**
+     * Returns the low 64 bits of a sum of hashes, as the DBs sum them without wrapping around
+     */
+    private static long toLong(Object sum) {
+        if (sum == null) return 0;
+        if (sum instanceof BigDecimal) return ((BigDecimal) sum).toBigInteger().longValue();
+        return ((Number) sum).longValue();
+    }
+
+    private static Long min(Long a, Long b) {
+        if (a == null) return b;
+        return b == null ? a : Math.min(a, b);
+    }
+
+    private static Long max(Long a, Long b) {
+        if (a == null) return b;
+        return b == null ? a : Math.max(a, b);
+    }
+
+    /**
+     * Returns the SQL expression of the hash of a row, the same as <code>RowHasher.hash()</code>, null if the DB can't compute it for the columns
+     */
+    static String getHashExpression(Dialect dialect, List<DBColumnMetadata> columns) {
+        if (dialect == Dialect.OTHER) return null;
+
+        List<String> valueTexts = new ArrayList<>();
+        for (DBColumnMetadata column : columns) {
+            if (!isHashedAlike(dialect, column)) return null;
+
+            valueTexts.add("COALESCE(CAST(" + column.getColumnName() + " AS " + (dialect == Dialect.MYSQL ? "CHAR" : "VARCHAR") + "), '" + RowHasher.NULL_TEXT + "')");
+        }
+        String rowText = "CONCAT_WS('" + RowHasher.SEPARATOR + "', " + String.join(", ", valueTexts) + ")";
+
+        switch (dialect) {
+            case MYSQL:
+                return "CAST(CONV(LEFT(SHA2(" + rowText + ", 256), 16), 16, 10) AS UNSIGNED)";
+            case POSTGRESQL:
+                return "('x' || LEFT(ENCODE(SHA256(CONVERT_TO(" + rowText + ", 'UTF8')), 'hex'), 16))::BIT(64)::BIGINT";
+            default:
+                return "CAST(SUBSTRING(HASH('SHA256', STRINGTOUTF8(" + rowText + ")), 1, 8) AS BIGINT)";
+        }
+    }
+
+    /**
+     * Checks whether the text of the values of the column in the DB is the same as in RowHasher
+     */
+    private static boolean isHashedAlike(Dialect dialect, DBColumnMetadata column) {
+        String dataTypeName = column.getDataTypeName();
+        if (dataTypeName != null && dataTypeName.toUpperCase().contains("UNSIGNED") && dialect != Dialect.MYSQL) {
+            return false;
+        }
+
+        switch (column.getDataType()) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+            case Types.CHAR:
+            case Types.VARCHAR:
+            case Types.LONGVARCHAR:
+            case Types.NCHAR:
+            case Types.NVARCHAR:
+            case Types.LONGNVARCHAR:
+            case Types.DATE:
+                return true;
+            case Types.TIMESTAMP:
+                return dialect != Dialect.MYSQL || column.getScale() == 0;
+            default:
+                return false;
+        }
+    }
+
+    static boolean isIntegerType(int dataType) {
+        return dataType == Types.TINYINT || dataType == Types.SMALLINT || dataType == Types.INTEGER || dataType == Types.BIGINT;
+    }
+}
@@ -0,0 +1,161 @@
+package in.acode.utdatagen;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Removes all the rows of a table with a ResetStrategy, on a single connection
+ * <br>The foreign key checks, when disabled, are disabled only around the reset and only where the DB allows it without side effects on other sessions -
+ * <br>&emsp;1. MySQL - <code>SET FOREIGN_KEY_CHECKS</code> for the session
+ * <br>&emsp;2. H2 - <code>ALTER TABLE ... SET REFERENTIAL_INTEGRITY</code> for the table
+ */
+class TableResetter {
+
+    private static final Pattern H2_SEQUENCE_PATTERN = Pattern.compile("SEQUENCE (\"[^\"]+\"\\.\"[^\"]+\")");
+    private static final Pattern H2_SEQUENCE_START_PATTERN = Pattern.compile("START WITH -?\\d+");
+
+    /**
+     * The current value of the auto-increment counter in the DDL, removed so that the recreated table starts it again
+     */
+    private static final Pattern MYSQL_AUTO_INCREMENT_PATTERN = Pattern.compile(" AUTO_INCREMENT=\\d+");
+
+    private final Connection connection;
+    private final String tableName;
+    private final Dialect dialect;
+
+    TableResetter(Connection connection, String tableName) throws SQLException {
+        this.connection = connection;
+        this.tableName = tableName;
+        this.dialect = Dialect.getDialect(connection.getMetaData().getDatabaseProductName());
+    }
+
+    /**
+     * @return number of rows removed, or DBTableFixture.UNKNOWN_ROW_COUNT
+     */
+    int reset(ResetStrategy resetStrategy, boolean foreignKeyChecksDisabled) throws SQLException {
+        if (foreignKeyChecksDisabled) {
+            setForeignKeyChecks(false);
+        }
+
+        try {
+            switch (resetStrategy) {
+                case TRUNCATE:
+                    execute("TRUNCATE TABLE " + this.tableName);
+                    return DBTableFixture.UNKNOWN_ROW_COUNT;
+                case DROP_AND_RECREATE:
+                    dropAndRecreate();
+                    return DBTableFixture.UNKNOWN_ROW_COUNT;
+                default:
+                    try (Statement statement = this.connection.createStatement()) {
+                        return statement.executeUpdate("DELETE FROM " + this.tableName);
+                    }
+            }
+        } finally {
+            if (foreignKeyChecksDisabled) {
+                setForeignKeyChecks(true);
+            }
+        }
+    }
+
+    private void setForeignKeyChecks(boolean enabled) throws SQLException {
+        switch (this.dialect) {
+            case MYSQL:
+                execute("SET FOREIGN_KEY_CHECKS = " + (enabled ? 1 : 0));
+                break;
+            case H2:
+                execute("ALTER TABLE " + this.tableName + " SET REFERENTIAL_INTEGRITY " + (enabled ? "TRUE NOCHECK" : "FALSE"));
+                break;
+            default:
+                throw new IllegalStateException("Disabling the foreign key checks is not supported for the DB [" + this.dialect + "]");
+        }
+    }
+
+    private void dropAndRecreate() throws SQLException {
+        List<String> ddlStatements = captureDDL();
+        if (ddlStatements.isEmpty()) {
+            throw new IllegalStateException("Failed to capture the DDL of the table [" + this.tableName + "]");
+        }
+
+        execute("DROP TABLE " + this.tableName);
+        for (String ddlStatement : ddlStatements) {
+            execute(ddlStatement);
+        }
+    }
+
+    /**
+     * Captures the statements which create the table along with its keys, indexes and, on H2, the sequence of its auto-increment column
+     * <br>The auto-increment counter is left out, so it starts again like in a new table
+     */
+    List<String> captureDDL() throws SQLException {
+        List<String> ddlStatements = new ArrayList<>();
+
+        switch (this.dialect) {
+            case MYSQL:
+                try (Statement statement = this.connection.createStatement();
+                     ResultSet resultSet = statement.executeQuery("SHOW CREATE TABLE " + this.tableName)) {
+                    if (resultSet.next()) {
+                        ddlStatements.add(MYSQL_AUTO_INCREMENT_PATTERN.matcher(resultSet.getString(2)).replaceFirst(""));
+                    }
+                }
+                break;
+            case H2:
+                List<String> scriptStatements = new ArrayList<>();
+                try (Statement statement = this.connection.createStatement();
+                     ResultSet resultSet = statement.executeQuery("SCRIPT NODATA TABLE " + this.tableName)) {
+                    while (resultSet.next()) {
+                        scriptStatements.add(resultSet.getString(1));
+                    }
+                }
+                ddlStatements.addAll(getH2StatementsOfTable(scriptStatements, this.tableName));
+                break;
+            default:
+                throw new IllegalStateException("Capturing the DDL of a table is not supported for the DB [" + this.dialect + "]");
+        }
+
+        return ddlStatements;
+    }
+
+    /**
+     * The script of H2 also has the sequences of all the tables and the users, only the statements of the table and its own sequence are kept
+     */
+    static List<String> getH2StatementsOfTable(List<String> scriptStatements, String tableName) {
+        String quotedTableName = "\\.\"" + Pattern.quote(tableName) + "\"";
+        Pattern createTablePattern = Pattern.compile("^CREATE (CACHED |MEMORY )?TABLE \"[^\"]+\"" + quotedTableName + "\\(", Pattern.CASE_INSENSITIVE);
+        Pattern tableStatementPattern = Pattern.compile("^(ALTER TABLE \"[^\"]+\"" + quotedTableName + " |CREATE (UNIQUE )?INDEX \"[^\"]+\"\\.\"[^\"]+\" ON \"[^\"]+\"" + quotedTableName + "\\()",
+            Pattern.CASE_INSENSITIVE);
+
+        String createTableStatement = scriptStatements.stream().filter(s -> createTablePattern.matcher(s).find()).findFirst().orElse(null);
+        if (createTableStatement == null) {
+            return new ArrayList<>();
+        }
+
+        List<String> sequenceNames = new ArrayList<>();
+        Matcher sequenceMatcher = H2_SEQUENCE_PATTERN.matcher(createTableStatement);
+        while (sequenceMatcher.find()) {
+            sequenceNames.add(sequenceMatcher.group(1));
+        }
+
+        List<String> statements = new ArrayList<>();
+        for (String scriptStatement : scriptStatements) {
+            boolean isOwnSequence = sequenceNames.stream().anyMatch(sequenceName -> scriptStatement.startsWith("CREATE SEQUENCE " + sequenceName + " "));
+            if (isOwnSequence) {
+                statements.add(H2_SEQUENCE_START_PATTERN.matcher(scriptStatement).replaceFirst("START WITH 1"));
+            } else if (scriptStatement.equals(createTableStatement) || tableStatementPattern.matcher(scriptStatement).find()) {
+                statements.add(scriptStatement);
+            }
+        }
+        return statements;
+    }
+
+    private void execute(String sql) throws SQLException {
+        try (Statement statement = this.connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+}
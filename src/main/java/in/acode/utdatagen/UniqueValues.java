@@ -0,0 +1,484 @@
+package in.acode.utdatagen;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import java.math.BigDecimal;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongConsumer;
+
+/**
+ * Holds the values generated so far for the unique slots of a RowPlan, to tell whether a new value is a duplicate
+ * <br>Each unique slot gets the most compact set for its values -
+ * <br>&emsp;1. a bitset over the whole range of the column, for TINYINT and SMALLINT columns
+ * <br>&emsp;2. an open-addressing hash set of primitive longs, for the other integer columns and the double columns (by their bits)
+ * <br>&emsp;3. a Bloom filter in front of a hash set of 64-bit fingerprints, for the columns of any other values e.g. strings, see FingerprintSet.
+ * The strings are fingerprinted ignoring case only for the columns which the DB compares ignoring case, e.g. of a case-insensitive collation
+ * <br>A fingerprint stands in for its value, so two values may be taken as the same by chance, about once in 10^6 for 10^7 values,
+ * which only makes the generator pick another value
+ * <br>The memory is bounded by the max number of guarded values of the plan, about 4M by default, at which a set of primitive longs takes 64 MB.
+ * The set of an INT column which reaches it is replaced by a bitset over the whole range of int, which grows by pages of 8 KB up to 512 MB.
+ * A plan of more rows than that for any other unique slot is rejected up front, so the values are never left unguarded
+ * <br>The sets may be shared by the generators of the partitions of a parallel insertion, so the set of each slot is used under a lock of the slot
+ */
+class UniqueValues {
+
+    private static final Log LOG = LogFactory.getLog(UniqueValues.class);
+
+    /**
+     * Default max number of values of a slot held in a set, see <code>InsertionCriteria.withMaxGuardedValues()</code>
+     */
+    static final int DEFAULT_MAX_GUARDED_VALUES = 1 << 22;
+
+    private final RowPlan plan;
+    private final ValueSet[] valueSets;
+
+    /**
+     * Lock of each slot, held while its set is used, as the set of an INT slot may be replaced with a bitset
+     */
+    private final Object[] locks;
+
+    /**
+     * Number of duplicate values generated, which had to be generated again, by slot
+     */
+    private final long[] numOfDuplicates;
+
+    private UniqueValues(RowPlan plan) {
+        this.plan = plan;
+        this.valueSets = new ValueSet[plan.getNumOfColumns()];
+        this.locks = new Object[plan.getNumOfColumns()];
+        this.numOfDuplicates = new long[plan.getNumOfColumns()];
+    }
+
+    /**
+     * Creates the sets for the unique slots of the plan
+     * @return null if the plan has no unique slots
+     * @throws IllegalStateException if the plan has more rows than the max number of guarded values, for a slot which can't hold them in a bitset
+     */
+    static UniqueValues forPlan(RowPlan plan) {
+        UniqueValues uniqueValues = new UniqueValues(plan);
+        boolean hasUniqueSlots = false;
+
+        for (int slot = 0; slot < plan.getNumOfColumns(); slot++) {
+            if (!plan.isUnique(slot)) continue;
+
+            switch (plan.getValueKind(slot)) {
+                case INT:
+                case LONG:
+                    if (plan.getDataType(slot) == Types.TINYINT) {
+                        uniqueValues.valueSets[slot] = new BitSetValues(-128, 255);
+                    } else if (plan.getDataType(slot) == Types.SMALLINT) {
+                        uniqueValues.valueSets[slot] = new BitSetValues(-32768, 65535);
+                    } else {
+                        checkNumOfRows(plan, slot, plan.getValueKind(slot) == RowPlan.ValueKind.INT);
+                        uniqueValues.valueSets[slot] = new LongHashSet();
+                    }
+                    break;
+                case DOUBLE:
+                    checkNumOfRows(plan, slot, false);
+                    uniqueValues.valueSets[slot] = new LongHashSet();
+                    break;
+                case OBJECT:
+                    checkNumOfRows(plan, slot, false);
+                    uniqueValues.valueSets[slot] = new FingerprintSet(plan.getNumOfRows());
+                    break;
+                default:
+                    //A unique boolean column can't have more than 2 rows anyway
+                    continue;
+            }
+            uniqueValues.locks[slot] = new Object();
+            hasUniqueSlots = true;
+        }
+
+        return hasUniqueSlots ? uniqueValues : null;
+    }
+
+    private static void checkNumOfRows(RowPlan plan, int slot, boolean fitsInBitSet) {
+        if (!fitsInBitSet && plan.getNumOfRows() > plan.getMaxGuardedValues()) {
+            throw new IllegalStateException("The values of the unique column [" + plan.getColumnName(slot) + "] can't be kept unique for [" + plan.getNumOfRows()
+                + "] rows, as at most [" + plan.getMaxGuardedValues() + "] values are held in memory. Raise InsertionCriteria.withMaxGuardedValues(), "
+                + "or turn off InsertionCriteria.guardUniqueValues() if the value-supplier is unique by itself");
+        }
+    }
+
+    boolean isUnique(int slot) {
+        return this.valueSets[slot] != null;
+    }
+
+    /**
+     * Adds an integer value of the slot
+     * @return false if the value was added before
+     */
+    boolean addLong(int slot, long value) {
+        synchronized (this.locks[slot]) {
+            return add(slot, this.valueSets[slot], value);
+        }
+    }
+
+    boolean addDouble(int slot, double value) {
+        //+0.0 and -0.0 are the same value to the DB
+        return addLong(slot, Double.doubleToLongBits(value == 0 ? 0 : value));
+    }
+
+    /**
+     * Adds a value of the slot, a null is never a duplicate
+     * @return false if the value was added before
+     */
+    boolean addObject(int slot, Object value) {
+        if (value == null) return true;
+
+        long fingerprint = getFingerprint(value, this.plan.isCaseInsensitive(slot));
+        synchronized (this.locks[slot]) {
+            return add(slot, this.valueSets[slot], fingerprint);
+        }
+    }
+
+    /**
+     * Adds a value to the set of the slot, and moves the values of an INT slot into a bitset once its set is full. The caller holds the lock of the slot
+     */
+    private boolean add(int slot, ValueSet valueSet, long value) {
+        if (!valueSet.add(value)) {
+            this.numOfDuplicates[slot]++;
+            return false;
+        }
+        if (valueSet instanceof LongHashSet && valueSet.size() >= this.plan.getMaxGuardedValues() && this.plan.getValueKind(slot) == RowPlan.ValueKind.INT) {
+            this.valueSets[slot] = new PagedBitSetValues((LongHashSet) valueSet);
+            LOG.info("Moved the [" + valueSet.size() + "] values of [" + this.plan.getColumnName(slot) + "] into a bitset, to bound the memory");
+        }
+        return true;
+    }
+
+    /**
+     * Number of duplicates generated again, across all the unique slots
+     */
+    long getNumOfDuplicates() {
+        long numOfDuplicates = 0;
+        for (int slot = 0; slot < this.numOfDuplicates.length; slot++) {
+            if (this.locks[slot] == null) continue;
+
+            synchronized (this.locks[slot]) {
+                numOfDuplicates += this.numOfDuplicates[slot];
+            }
+        }
+        return numOfDuplicates;
+    }
+
+    /**
+     * Memory taken by all the sets, in bytes
+     */
+    long getMemoryBytes() {
+        long memoryBytes = 0;
+        for (int slot = 0; slot < this.valueSets.length; slot++) {
+            if (this.locks[slot] == null) continue;
+
+            synchronized (this.locks[slot]) {
+                memoryBytes += this.valueSets[slot].getMemoryBytes();
+            }
+        }
+        return memoryBytes;
+    }
+
+    /**
+     * Describes the number of values, the duplicates and the memory taken for each unique slot
+     */
+    @Override
+    public String toString() {
+        List<String> slots = new ArrayList<>();
+        for (int slot = 0; slot < this.valueSets.length; slot++) {
+            if (this.locks[slot] == null) continue;
+
+            synchronized (this.locks[slot]) {
+                ValueSet valueSet = this.valueSets[slot];
+                slots.add(this.plan.getColumnName(slot) + ": " + valueSet.size() + " values, " + this.numOfDuplicates[slot] + " duplicates generated again, "
+                    + (valueSet.getMemoryBytes() + 1023) / 1024 + " KB" + (valueSet instanceof PagedBitSetValues ? " in a bitset" : ""));
+            }
+        }
+        return "UniqueValues" + slots;
+    }
+
+    /**
+     * Computes a 64-bit fingerprint of a value, the same for the values which the DB would take as the same
+     * @param ignoreCase whether the strings which differ only in case are the same
+     */
+    static long getFingerprint(Object value, boolean ignoreCase) {
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            return mix64(((Number) value).longValue());
+        }
+        if (value instanceof CharSequence) {
+            CharSequence chars = (CharSequence) value;
+            long hash = 0xcbf29ce484222325L;
+            for (int i = 0; i < chars.length(); i++) {
+                char c = chars.charAt(i);
+                hash = (hash ^ (ignoreCase ? Character.toLowerCase(c) : c)) * 0x100000001b3L;
+            }
+            return mix64(hash);
+        }
+        if (value instanceof byte[]) {
+            long hash = 0xcbf29ce484222325L;
+            for (byte b : (byte[]) value) {
+                hash = (hash ^ (b & 0xff)) * 0x100000001b3L;
+            }
+            return mix64(hash);
+        }
+        if (value instanceof BigDecimal) {
+            return getFingerprint(((BigDecimal) value).stripTrailingZeros().toPlainString(), false);
+        }
+        return getFingerprint(value.toString(), ignoreCase);
+    }
+
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * A set of long values
+     */
+    private interface ValueSet {
+
+        /**
+         * @return false if the value was added before
+         */
+        boolean add(long value);
+
+        long size();
+
+        long getMemoryBytes();
+    }
+
+    /**
+     * A set of the values in a fixed range, with a bit per value of the range
+     */
+    private static class BitSetValues implements ValueSet {
+
+        private final long minValue;
+        private final long maxValue;
+        private final long[] bits;
+        private long size;
+
+        BitSetValues(long minValue, long maxValue) {
+            this.minValue = minValue;
+            this.maxValue = maxValue;
+            this.bits = new long[(int) ((maxValue - minValue) / 64) + 1];
+            this.size = 0;
+        }
+
+        @Override
+        public boolean add(long value) {
+            //A value out of the range is rejected by the DB anyway
+            if (value < this.minValue || value > this.maxValue) return true;
+
+            int bitIdx = (int) (value - this.minValue);
+            long mask = 1L << bitIdx;
+            if ((this.bits[bitIdx >>> 6] & mask) != 0) return false;
+
+            this.bits[bitIdx >>> 6] |= mask;
+            this.size++;
+            return true;
+        }
+
+        @Override
+        public long size() {
+            return this.size;
+        }
+
+        @Override
+        public long getMemoryBytes() {
+            return 8L * this.bits.length;
+        }
+    }
+
+    /**
+     * An open-addressing hash set of long values with linear probing, which is doubled when it is half full
+     * <br>0 marks an empty entry, so the value 0 itself is held apart
+     */
+    private static class LongHashSet implements ValueSet {
+
+        private long[] entries;
+        private int mask;
+        private long size;
+        private boolean hasZero;
+
+        LongHashSet() {
+            this.entries = new long[1024];
+            this.mask = this.entries.length - 1;
+            this.size = 0;
+            this.hasZero = false;
+        }
+
+        @Override
+        public boolean add(long value) {
+            if (value == 0) {
+                if (this.hasZero) return false;
+                this.hasZero = true;
+                this.size++;
+                return true;
+            }
+
+            int entryIdx = (int) mix64(value) & this.mask;
+            while (this.entries[entryIdx] != 0) {
+                if (this.entries[entryIdx] == value) return false;
+                entryIdx = (entryIdx + 1) & this.mask;
+            }
+
+            this.entries[entryIdx] = value;
+            if (++this.size * 2 > this.entries.length) {
+                grow();
+            }
+            return true;
+        }
+
+        void forEach(LongConsumer action) {
+            if (this.hasZero) action.accept(0);
+            for (long value : this.entries) {
+                if (value != 0) action.accept(value);
+            }
+        }
+
+        boolean contains(long value) {
+            if (value == 0) return this.hasZero;
+
+            int entryIdx = (int) mix64(value) & this.mask;
+            while (this.entries[entryIdx] != 0) {
+                if (this.entries[entryIdx] == value) return true;
+                entryIdx = (entryIdx + 1) & this.mask;
+            }
+            return false;
+        }
+
+        private void grow() {
+            long[] entries = this.entries;
+            this.entries = new long[entries.length * 2];
+            this.mask = this.entries.length - 1;
+
+            for (long value : entries) {
+                if (value == 0) continue;
+
+                int entryIdx = (int) mix64(value) & this.mask;
+                while (this.entries[entryIdx] != 0) {
+                    entryIdx = (entryIdx + 1) & this.mask;
+                }
+                this.entries[entryIdx] = value;
+            }
+        }
+
+        @Override
+        public long size() {
+            return this.size;
+        }
+
+        @Override
+        public long getMemoryBytes() {
+            return 8L * this.entries.length;
+        }
+    }
+
+    /**
+     * A set of int values, with a bit per value of the whole range of int, held in pages of 8 KB which are allocated as the values fall in them
+     * <br>It takes at most 512 MB, however many values it holds
+     */
+    private static class PagedBitSetValues implements ValueSet {
+
+        private static final int PAGE_BITS = 16;
+        private static final int PAGE_MASK = (1 << PAGE_BITS) - 1;
+
+        private final long[][] pages;
+        private int numOfPages;
+        private long size;
+
+        PagedBitSetValues(LongHashSet values) {
+            this.pages = new long[1 << (32 - PAGE_BITS)][];
+            this.numOfPages = 0;
+            this.size = 0;
+            values.forEach(this::add);
+        }
+
+        @Override
+        public boolean add(long value) {
+            //Positions the bits of the values from Integer.MIN_VALUE to Integer.MAX_VALUE
+            long bitIdx = value - Integer.MIN_VALUE;
+            int pageIdx = (int) (bitIdx >>> PAGE_BITS);
+            int pageBitIdx = (int) bitIdx & PAGE_MASK;
+
+            long[] page = this.pages[pageIdx];
+            if (page == null) {
+                page = this.pages[pageIdx] = new long[(PAGE_MASK + 1) >>> 6];
+                this.numOfPages++;
+            }
+
+            long mask = 1L << pageBitIdx;
+            if ((page[pageBitIdx >>> 6] & mask) != 0) return false;
+
+            page[pageBitIdx >>> 6] |= mask;
+            this.size++;
+            return true;
+        }
+
+        @Override
+        public long size() {
+            return this.size;
+        }
+
+        @Override
+        public long getMemoryBytes() {
+            return 8L * this.pages.length + (long) this.numOfPages * ((PAGE_MASK + 1) >>> 3);
+        }
+    }
+
+    /**
+     * A set of fingerprints, checked first against a Bloom filter of about 10 bits per expected value with 7 hashes, which tells most of the new values apart.
+     * Only the values which the Bloom filter may have seen, the duplicates and about 1% of the new ones, are looked up in the hash set of the fingerprints
+     * <br>The Bloom filter is sized for the number of rows of the plan, which is at most its max number of guarded values
+     */
+    private static class FingerprintSet implements ValueSet {
+
+        private static final int NUM_OF_HASHES = 7;
+
+        private long[] bloomFilter;
+        private long bloomFilterMask;
+        private final LongHashSet fingerprints;
+        private long size;
+
+        FingerprintSet(int expectedNumOfValues) {
+            long numOfBits = Long.highestOneBit(Math.max(10L * expectedNumOfValues, 64) - 1) << 1;
+            this.bloomFilter = new long[(int) (numOfBits >>> 6)];
+            this.bloomFilterMask = numOfBits - 1;
+            this.fingerprints = new LongHashSet();
+            this.size = 0;
+        }
+
+        @Override
+        public boolean add(long fingerprint) {
+            int hash1 = (int) fingerprint;
+            int hash2 = (int) (fingerprint >>> 32);
+
+            boolean mayContain = true;
+            for (int i = 0; i < NUM_OF_HASHES; i++) {
+                long bitIdx = (hash1 + (long) i * hash2) & this.bloomFilterMask;
+                long mask = 1L << bitIdx;
+                if ((this.bloomFilter[(int) (bitIdx >>> 6)] & mask) == 0) {
+                    mayContain = false;
+                    this.bloomFilter[(int) (bitIdx >>> 6)] |= mask;
+                }
+            }
+
+            if (mayContain && this.fingerprints.contains(fingerprint)) return false;
+
+            this.fingerprints.add(fingerprint);
+            this.size++;
+            return true;
+        }
+
+        @Override
+        public long size() {
+            return this.size;
+        }
+
+        @Override
+        public long getMemoryBytes() {
+            return 8L * this.bloomFilter.length + this.fingerprints.getMemoryBytes();
+        }
+    }
+}
@@ -1,5 +1,14 @@
 package in.acode.utdatagen.meta;
 
+import in.acode.utdatagen.suppliers.BooleanColumnSupplier;
+import in.acode.utdatagen.suppliers.CellRandom;
+import in.acode.utdatagen.suppliers.DecimalSuppliers;
+import in.acode.utdatagen.suppliers.DoubleColumnSupplier;
+import in.acode.utdatagen.suppliers.IntColumnSupplier;
+import in.acode.utdatagen.suppliers.LongColumnSupplier;
+import in.acode.utdatagen.suppliers.PrimitiveColumnSupplier;
+import in.acode.utdatagen.suppliers.StringGenerator;
+import in.acode.utdatagen.suppliers.StringGeneratorBuilder;
 import java.math.BigDecimal;
 import java.sql.Date;
 import java.sql.JDBCType;
@@ -12,9 +21,8 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Set;
-import java.util.UUID;
-import java.util.concurrent.ThreadLocalRandom;
 import java.util.function.BiFunction;
+import java.util.function.Supplier;
 
 /**
  * Encapsulates the meta-data about a single database column
@@ -25,15 +33,27 @@ public class DBColumnMetadata {
     /**
      * A map of jdbc-types and their default-value-supplier
      * Used for getting default values of columns
+     * Random values come from CellRandom, so they are reproducible with the seed of the InsertionCriteria
      */
     private final static HashMap<JDBCType, BiFunction<Integer, Object, Object>> DEFAULT_VALUE_SUPPLIERS;
 
+    /**
+     * A map of jdbc-types and their default-value-supplier which generates primitive values
+     * These generate the same kind of values as the ones in DEFAULT_VALUE_SUPPLIERS, without boxing them
+     */
+    private final static HashMap<JDBCType, PrimitiveColumnSupplier> DEFAULT_PRIMITIVE_VALUE_SUPPLIERS;
+
     /**
      * A map of jdbc-types and a function that can generate their default-value-supplier
      * This extra-level of redirection is needed so that the default-value will be according to the max-size/precision/scale
      */
     private final static HashMap<JDBCType, BiFunction<Integer, Integer, BiFunction<Integer, Object, Object>>> DEFAULT_VALUE_SUPPLIER_GENERATORS;
 
+    /**
+     * Length of the default value of character columns, or less if the column's max size is less
+     */
+    private final static int DEFAULT_MAX_STRING_LENGTH = 36;
+
     private final static Set<JDBCType> CHARACTER_TYPES;
     private final static Set<JDBCType> DECIMAL_TYPES;
 
@@ -42,25 +62,38 @@ public class DBColumnMetadata {
         //Initialize default value suppliers
         DEFAULT_VALUE_SUPPLIERS = new HashMap<>();
 
-        DEFAULT_VALUE_SUPPLIERS.put(JDBCType.INTEGER, (idx, prevValue) -> ThreadLocalRandom.current().nextInt(0, Integer.MAX_VALUE));
-        DEFAULT_VALUE_SUPPLIERS.put(JDBCType.BIGINT, (idx, prevValue) -> ThreadLocalRandom.current().nextLong(0, Long.MAX_VALUE));
-        DEFAULT_VALUE_SUPPLIERS.put(JDBCType.SMALLINT, (idx, prevValue) -> ThreadLocalRandom.current().nextInt(0, Short.MAX_VALUE));
-        DEFAULT_VALUE_SUPPLIERS.put(JDBCType.TINYINT, (idx, prevValue) -> ThreadLocalRandom.current().nextInt(0, Byte.MAX_VALUE));
-        DEFAULT_VALUE_SUPPLIERS.put(JDBCType.BIT, (idx, prevValue) -> ThreadLocalRandom.current().nextInt(0, 2));
-        DEFAULT_VALUE_SUPPLIERS.put(JDBCType.BOOLEAN, (idx, prevValue) -> ThreadLocalRandom.current().nextBoolean());
-        DEFAULT_VALUE_SUPPLIERS.put(JDBCType.REAL, (idx, prevValue) -> ThreadLocalRandom.current().nextFloat());
-        DEFAULT_VALUE_SUPPLIERS.put(JDBCType.DOUBLE, (idx, prevValue) -> ThreadLocalRandom.current().nextDouble());
+        DEFAULT_VALUE_SUPPLIERS.put(JDBCType.INTEGER, (idx, prevValue) -> CellRandom.current().nextInt(0, Integer.MAX_VALUE));
+        DEFAULT_VALUE_SUPPLIERS.put(JDBCType.BIGINT, (idx, prevValue) -> CellRandom.current().nextLong(0, Long.MAX_VALUE));
+        DEFAULT_VALUE_SUPPLIERS.put(JDBCType.SMALLINT, (idx, prevValue) -> CellRandom.current().nextInt(0, Short.MAX_VALUE));
+        DEFAULT_VALUE_SUPPLIERS.put(JDBCType.TINYINT, (idx, prevValue) -> CellRandom.current().nextInt(0, Byte.MAX_VALUE));
+        DEFAULT_VALUE_SUPPLIERS.put(JDBCType.BIT, (idx, prevValue) -> CellRandom.current().nextInt(0, 2));
+        DEFAULT_VALUE_SUPPLIERS.put(JDBCType.BOOLEAN, (idx, prevValue) -> CellRandom.current().nextBoolean());
+        DEFAULT_VALUE_SUPPLIERS.put(JDBCType.REAL, (idx, prevValue) -> CellRandom.current().nextFloat());
+        DEFAULT_VALUE_SUPPLIERS.put(JDBCType.DOUBLE, (idx, prevValue) -> CellRandom.current().nextDouble());
         DEFAULT_VALUE_SUPPLIERS.put(JDBCType.TIMESTAMP_WITH_TIMEZONE, (idx, prevValue) -> Timestamp.valueOf(LocalDateTime.now()));
         DEFAULT_VALUE_SUPPLIERS.put(JDBCType.TIMESTAMP, (idx, prevValue) -> Timestamp.valueOf(LocalDateTime.now()));
         DEFAULT_VALUE_SUPPLIERS.put(JDBCType.DATE, (idx, prevValue) -> Date.valueOf(LocalDate.now()));
         DEFAULT_VALUE_SUPPLIERS.put(JDBCType.TIME_WITH_TIMEZONE, (idx, prevValue) -> Time.valueOf(LocalTime.now()));
         DEFAULT_VALUE_SUPPLIERS.put(JDBCType.TIME, (idx, prevValue) -> Time.valueOf(LocalTime.now()));
 
+        DEFAULT_PRIMITIVE_VALUE_SUPPLIERS = new HashMap<>();
+
+        DEFAULT_PRIMITIVE_VALUE_SUPPLIERS.put(JDBCType.INTEGER, (IntColumnSupplier) (idx, prevValue) -> CellRandom.current().nextInt(0, Integer.MAX_VALUE));
+        DEFAULT_PRIMITIVE_VALUE_SUPPLIERS.put(JDBCType.BIGINT, (LongColumnSupplier) (idx, prevValue) -> CellRandom.current().nextLong(0, Long.MAX_VALUE));
+        DEFAULT_PRIMITIVE_VALUE_SUPPLIERS.put(JDBCType.SMALLINT, (IntColumnSupplier) (idx, prevValue) -> CellRandom.current().nextInt(0, Short.MAX_VALUE));
+        DEFAULT_PRIMITIVE_VALUE_SUPPLIERS.put(JDBCType.TINYINT, (IntColumnSupplier) (idx, prevValue) -> CellRandom.current().nextInt(0, Byte.MAX_VALUE));
+        DEFAULT_PRIMITIVE_VALUE_SUPPLIERS.put(JDBCType.BIT, (IntColumnSupplier) (idx, prevValue) -> CellRandom.current().nextInt(0, 2));
+        DEFAULT_PRIMITIVE_VALUE_SUPPLIERS.put(JDBCType.BOOLEAN, (BooleanColumnSupplier) (idx, prevValue) -> CellRandom.current().nextBoolean());
+        DEFAULT_PRIMITIVE_VALUE_SUPPLIERS.put(JDBCType.REAL, (DoubleColumnSupplier) (idx, prevValue) -> CellRandom.current().nextFloat());
+        DEFAULT_PRIMITIVE_VALUE_SUPPLIERS.put(JDBCType.DOUBLE, (DoubleColumnSupplier) (idx, prevValue) -> CellRandom.current().nextDouble());
+
         //Initialize generators of default value suppliers
         DEFAULT_VALUE_SUPPLIER_GENERATORS = new HashMap<>();
-        BiFunction<Integer, Integer, BiFunction<Integer, Object, Object>> boundedSizeStringSupplierGenerator = (maxSize, ignore) -> (idx, prevValue) -> {
-            String s = UUID.randomUUID().toString();
-            return s.substring(0, Math.min(maxSize, s.length()));
+        BiFunction<Integer, Integer, BiFunction<Integer, Object, Object>> boundedSizeStringSupplierGenerator = (maxSize, ignore) -> {
+            StringGenerator stringGenerator = StringGeneratorBuilder.getInstance()
+                .withLength(Math.max(0, Math.min(maxSize, DEFAULT_MAX_STRING_LENGTH)))
+                .createStringGenerator();
+            return (idx, prevValue) -> stringGenerator.get();
         };
         DEFAULT_VALUE_SUPPLIER_GENERATORS.put(JDBCType.CHAR, boundedSizeStringSupplierGenerator);
         DEFAULT_VALUE_SUPPLIER_GENERATORS.put(JDBCType.VARCHAR, boundedSizeStringSupplierGenerator);
@@ -70,10 +103,9 @@ public class DBColumnMetadata {
 
         CHARACTER_TYPES = new HashSet<>(Arrays.asList(JDBCType.CHAR, JDBCType.VARCHAR, JDBCType.LONGNVARCHAR));
 
-        BiFunction<Integer, Integer, BiFunction<Integer, Object, Object>> boundedDecimalSupplierGenerator = (precision, scale) -> (idx, prevValue) -> {
-            int leftSide = ThreadLocalRandom.current().nextInt(0, (int)Math.pow(10, precision - scale));
-            int rightSide = ThreadLocalRandom.current().nextInt(0, (int)Math.pow(10, scale));
-            return new BigDecimal(leftSide + "." + rightSide);
+        BiFunction<Integer, Integer, BiFunction<Integer, Object, Object>> boundedDecimalSupplierGenerator = (precision, scale) -> {
+            Supplier<BigDecimal> decimalSupplier = DecimalSuppliers.random(precision, scale);
+            return (idx, prevValue) -> decimalSupplier.get();
         };
         DEFAULT_VALUE_SUPPLIER_GENERATORS.put(JDBCType.DECIMAL, boundedDecimalSupplierGenerator);
         DEFAULT_VALUE_SUPPLIER_GENERATORS.put(JDBCType.NUMERIC, boundedDecimalSupplierGenerator);
@@ -178,4 +210,13 @@ public class DBColumnMetadata {
 
         throw new IllegalStateException("No default value supplier defined for data-type : [" + jdbcType + "]");
     }
+
+    /**
+     * Gets the default value supplier which generates primitive values, based on the column's data-type
+     * @return an IntColumnSupplier, LongColumnSupplier, DoubleColumnSupplier or BooleanColumnSupplier,
+     * or null if the values of the data-type are not primitives
+     */
+    public PrimitiveColumnSupplier getDefaultPrimitiveValueSupplier() {
+        return DEFAULT_PRIMITIVE_VALUE_SUPPLIERS.get(JDBCType.valueOf(this.dataType));
+    }
 }
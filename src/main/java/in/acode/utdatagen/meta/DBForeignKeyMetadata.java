@@ -0,0 +1,52 @@
+package in.acode.utdatagen.meta;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Encapsulates the meta-data about a foreign key of a table i.e. the columns of the table which reference the (primary) key of another table
+ * The columns are in the order of the key, so the i-th column references the i-th referenced column
+ */
+public class DBForeignKeyMetadata {
+
+    private final String name;
+    private final List<String> columnNames;
+    private final String referencedTableName;
+    private final List<String> referencedColumnNames;
+
+    DBForeignKeyMetadata(String name, List<String> columnNames, String referencedTableName, List<String> referencedColumnNames) {
+        this.name = name;
+        this.columnNames = Collections.unmodifiableList(columnNames);
+        this.referencedTableName = referencedTableName;
+        this.referencedColumnNames = Collections.unmodifiableList(referencedColumnNames);
+    }
+
+    /**
+     * Name of the constraint, may be null if the DB does not name it
+     */
+    public String getName() {
+        return name;
+    }
+
+    public List<String> getColumnNames() {
+        return columnNames;
+    }
+
+    public String getReferencedTableName() {
+        return referencedTableName;
+    }
+
+    public List<String> getReferencedColumnNames() {
+        return referencedColumnNames;
+    }
+
+    @Override
+    public String toString() {
+        return "DBForeignKeyMetadata{" +
+            "name='" + name + '\'' +
+            ", columnNames=" + columnNames +
+            ", referencedTableName='" + referencedTableName + '\'' +
+            ", referencedColumnNames=" + referencedColumnNames +
+            '}';
+    }
+}
@@ -0,0 +1,41 @@
+package in.acode.utdatagen.meta;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Encapsulates the meta-data about an index of a table, with its columns in the order of the index
+ */
+public class DBIndexMetadata {
+
+    private final String name;
+    private final boolean isUnique;
+    private final List<String> columnNames;
+
+    DBIndexMetadata(String name, boolean isUnique, List<String> columnNames) {
+        this.name = name;
+        this.isUnique = isUnique;
+        this.columnNames = Collections.unmodifiableList(columnNames);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isUnique() {
+        return isUnique;
+    }
+
+    public List<String> getColumnNames() {
+        return columnNames;
+    }
+
+    @Override
+    public String toString() {
+        return "DBIndexMetadata{" +
+            "name='" + name + '\'' +
+            ", isUnique=" + isUnique +
+            ", columnNames=" + columnNames +
+            '}';
+    }
+}
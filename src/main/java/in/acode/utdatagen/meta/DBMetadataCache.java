@@ -0,0 +1,304 @@
+package in.acode.utdatagen.meta;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A process-wide cache of the column metadata of DB tables, shared by all the fixtures
+ * <br>The tables are cached by DataSource, catalog, schema and table name. A null catalog/schema means the current one of the connection.
+ * Concurrent lookups of the same table wait for a single introspection, so any number of fixtures on a table cost one metadata query.
+ * The table is read outside of the cache's map, which is locked only to put the table in it, so the lookups of the other tables don't wait for it
+ * <br>The metadata is read on a connection borrowed through the JdbcTemplate, which is always released
+ * <br>The cached metadata of a table goes stale when its DDL changes. It can be dropped -
+ * <br>&emsp;1. explicitly with <code>invalidate()</code>, e.g. after running a migration in a test
+ * <br>&emsp;2. after a time-to-live, if one is set with <code>withTimeToLive()</code>. There is none by default
+ * <br>Tables which don't exist (i.e. have no columns) are not cached, so they can be created later
+ * <br>The keys and indexes of a table are read only when they are asked for. DBSchemaIntrospector reads all of them for a whole schema
+ * and puts them in the cache, and the lookups of a DataSource wait while it is being introspected in the background
+ * <br>The DataSources are held weakly, so a closed test context does not keep its metadata in memory
+ */
+public class DBMetadataCache {
+
+    private static final Log LOG = LogFactory.getLog(DBMetadataCache.class);
+
+    private static final DBMetadataCache INSTANCE = new DBMetadataCache();
+
+    private final Map<DataSource, ConcurrentMap<TableKey, CachedTable>> tablesByDataSource;
+    private final Map<DataSource, CompletableFuture<?>> pendingIntrospections;
+
+    /**
+     * The reads of tables in progress, by DataSource, which the other lookups of the same tables wait for
+     */
+    private final Map<DataSource, ConcurrentMap<TableKey, CompletableFuture<CachedTable>>> pendingReads;
+    private volatile long timeToLiveNanos;
+
+    private DBMetadataCache() {
+        this.tablesByDataSource = Collections.synchronizedMap(new WeakHashMap<>());
+        this.pendingIntrospections = Collections.synchronizedMap(new WeakHashMap<>());
+        this.pendingReads = Collections.synchronizedMap(new WeakHashMap<>());
+        this.timeToLiveNanos = 0;
+    }
+
+    public static DBMetadataCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Sets how long the metadata of a table is used before it is read again from the DB, 0 to keep it until invalidated
+     */
+    public DBMetadataCache withTimeToLive(long timeToLive, TimeUnit unit) {
+        if (timeToLive < 0) {
+            throw new IllegalArgumentException("Time to live must not be less than 0");
+        }
+
+        this.timeToLiveNanos = unit.toNanos(timeToLive);
+        return this;
+    }
+
+    /**
+     * Returns the columns of a table, reading them from the DB if they are not cached
+     * @param catalog catalog of the table, or null for the current catalog of the connection
+     * @param schema schema of the table, or null for the current schema of the connection
+     * @return an unmodifiable list of columns, empty if the table does not exist
+     */
+    public List<DBColumnMetadata> getColumns(JdbcTemplate jdbcTemplate, String catalog, String schema, String tableName) {
+        DBTableMetadata table = getTable(jdbcTemplate, catalog, schema, tableName, false);
+        return table != null ? table.getColumns() : Collections.emptyList();
+    }
+
+    /**
+     * Returns the metadata of a table along with its keys and indexes, reading them from the DB if they are not cached
+     * @return metadata of the table, null if the table does not exist
+     */
+    public DBTableMetadata getTable(JdbcTemplate jdbcTemplate, String catalog, String schema, String tableName) {
+        return getTable(jdbcTemplate, catalog, schema, tableName, true);
+    }
+
+    private DBTableMetadata getTable(JdbcTemplate jdbcTemplate, String catalog, String schema, String tableName, boolean withKeys) {
+        DataSource dataSource = jdbcTemplate.getDataSource();
+        ConcurrentMap<TableKey, CachedTable> tables = getTables(dataSource);
+        TableKey tableKey = new TableKey(catalog, schema, tableName);
+
+        CachedTable cachedTable = tables.get(tableKey);
+        if (isUsable(cachedTable, withKeys)) {
+            return cachedTable.table;
+        }
+
+        awaitIntrospection(dataSource);
+        ConcurrentMap<TableKey, CompletableFuture<CachedTable>> reads = this.pendingReads.computeIfAbsent(dataSource, ds -> new ConcurrentHashMap<>());
+        while (true) {
+            cachedTable = tables.get(tableKey);
+            if (isUsable(cachedTable, withKeys)) {
+                return cachedTable.table;
+            }
+
+            CompletableFuture<CachedTable> read = new CompletableFuture<>();
+            CompletableFuture<CachedTable> pendingRead = reads.putIfAbsent(tableKey, read);
+            if (pendingRead == null) {
+                return readAndPut(jdbcTemplate, tables, tableKey, withKeys, read, reads);
+            }
+
+            //A read of the table without its keys is waited for, and the table is read again with them
+            CachedTable loadedTable = awaitRead(pendingRead);
+            if (loadedTable == null || isUsable(loadedTable, withKeys)) {
+                return loadedTable != null ? loadedTable.table : null;
+            }
+        }
+    }
+
+    /**
+     * Reads a table and puts it in the cache, unless a newer one was put while it was being read, then completes the read for the lookups waiting for it
+     */
+    private DBTableMetadata readAndPut(JdbcTemplate jdbcTemplate, ConcurrentMap<TableKey, CachedTable> tables, TableKey tableKey, boolean withKeys,
+                                       CompletableFuture<CachedTable> read, ConcurrentMap<TableKey, CompletableFuture<CachedTable>> reads) {
+        try {
+            CachedTable existing = tables.get(tableKey);
+            CachedTable cachedTable = existing;
+            if (!isUsable(existing, withKeys)) {
+                DBTableMetadata table = readTable(jdbcTemplate, tableKey, withKeys, isUsable(existing, false) ? existing.table : null);
+                CachedTable loadedTable = table != null ? new CachedTable(table) : null;
+                cachedTable = tables.compute(tableKey, (key, current) -> current != existing && isUsable(current, withKeys) ? current : loadedTable);
+            }
+            read.complete(cachedTable);
+            return cachedTable != null ? cachedTable.table : null;
+        } catch (RuntimeException e) {
+            read.completeExceptionally(e);
+            throw e;
+        } finally {
+            reads.remove(tableKey, read);
+        }
+    }
+
+    private static CachedTable awaitRead(CompletableFuture<CachedTable> read) {
+        try {
+            return read.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Caches the metadata of a table which was read elsewhere, replacing the cached one if any
+     */
+    public void put(DataSource dataSource, String catalog, String schema, DBTableMetadata table) {
+        if (table.getColumns().isEmpty()) return;
+
+        getTables(dataSource).put(new TableKey(catalog, schema, table.getTableName()), new CachedTable(table));
+    }
+
+    /**
+     * Caches the metadata of all the tables of a schema, under its catalog and schema
+     */
+    void putAll(DataSource dataSource, DBSchemaMetadata schemaMetadata) {
+        for (DBTableMetadata table : schemaMetadata.getTables().values()) {
+            put(dataSource, schemaMetadata.getCatalog(), schemaMetadata.getSchema(), table);
+        }
+    }
+
+    /**
+     * Checks whether the metadata of a table is cached and not expired
+     */
+    public boolean contains(DataSource dataSource, String catalog, String schema, String tableName) {
+        ConcurrentMap<TableKey, CachedTable> tables = this.tablesByDataSource.get(dataSource);
+        CachedTable cachedTable = tables != null ? tables.get(new TableKey(catalog, schema, tableName)) : null;
+        return cachedTable != null && !isExpired(cachedTable);
+    }
+
+    /**
+     * Drops the cached columns of a table in the current catalog/schema, e.g. after altering it
+     */
+    public void invalidate(DataSource dataSource, String tableName) {
+        invalidate(dataSource, null, null, tableName);
+    }
+
+    public void invalidate(DataSource dataSource, String catalog, String schema, String tableName) {
+        ConcurrentMap<TableKey, CachedTable> tables = this.tablesByDataSource.get(dataSource);
+        if (tables != null) {
+            tables.remove(new TableKey(catalog, schema, tableName));
+        }
+    }
+
+    /**
+     * Drops the cached columns of all the tables of a DataSource, e.g. after running a migration on it
+     */
+    public void invalidate(DataSource dataSource) {
+        this.tablesByDataSource.remove(dataSource);
+    }
+
+    public void invalidateAll() {
+        this.tablesByDataSource.clear();
+    }
+
+    private ConcurrentMap<TableKey, CachedTable> getTables(DataSource dataSource) {
+        return this.tablesByDataSource.computeIfAbsent(dataSource, ds -> new ConcurrentHashMap<>());
+    }
+
+    /**
+     * Makes the lookups of tables missing from the cache wait for an introspection of the DataSource which is in progress,
+     * instead of reading the tables it is about to cache
+     */
+    void registerIntrospection(DataSource dataSource, CompletableFuture<?> introspection) {
+        this.pendingIntrospections.put(dataSource, introspection);
+        introspection.whenComplete((result, e) -> this.pendingIntrospections.remove(dataSource, introspection));
+    }
+
+    private void awaitIntrospection(DataSource dataSource) {
+        CompletableFuture<?> introspection = this.pendingIntrospections.get(dataSource);
+        if (introspection == null) return;
+
+        try {
+            introspection.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            LOG.warn("Introspection of the schema failed, reading the table instead", e.getCause());
+        }
+    }
+
+    private boolean isUsable(CachedTable cachedTable, boolean withKeys) {
+        return cachedTable != null && !isExpired(cachedTable) && (!withKeys || cachedTable.table.hasKeys());
+    }
+
+    private boolean isExpired(CachedTable cachedTable) {
+        long timeToLiveNanos = this.timeToLiveNanos;
+        return timeToLiveNanos > 0 && System.nanoTime() - cachedTable.loadedAtNanos >= timeToLiveNanos;
+    }
+
+    /**
+     * Reads a table on a connection borrowed from the JdbcTemplate
+     * @param cachedTable metadata of the table cached without its keys, whose columns are reused, or null
+     */
+    private static DBTableMetadata readTable(JdbcTemplate jdbcTemplate, TableKey key, boolean withKeys, DBTableMetadata cachedTable) {
+        LOG.info("Starting to read the metadata of table [" + key.tableName + "]");
+        DBTableMetadata table = jdbcTemplate.execute((ConnectionCallback<DBTableMetadata>) connection -> {
+            try {
+                List<DBColumnMetadata> columns = cachedTable != null ? cachedTable.getColumns()
+                    : DBMetadataReader.readTableColumns(connection, key.catalog, key.schema, key.tableName);
+                if (columns.isEmpty()) return null;
+
+                return withKeys ? DBMetadataReader.readTableWithKeys(connection, key.catalog, key.schema, key.tableName, columns)
+                    : new DBTableMetadata(key.tableName, columns);
+            } catch (SQLException e) {
+                throw new DataRetrievalFailureException("Failed to fetch DB metadata", e);
+            }
+        });
+        LOG.info("Finished reading the metadata of table [" + key.tableName + "], found [" + (table != null ? table.getColumns().size() : 0) + "] columns");
+        return table;
+    }
+
+    private static class TableKey {
+
+        private final String catalog;
+        private final String schema;
+        private final String tableName;
+
+        TableKey(String catalog, String schema, String tableName) {
+            this.catalog = catalog;
+            this.schema = schema;
+            this.tableName = tableName;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof TableKey)) return false;
+            TableKey that = (TableKey) o;
+            return Objects.equals(catalog, that.catalog) && Objects.equals(schema, that.schema) && tableName.equals(that.tableName);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(catalog, schema, tableName);
+        }
+    }
+
+    private static class CachedTable {
+
+        private final DBTableMetadata table;
+        private final long loadedAtNanos;
+
+        CachedTable(DBTableMetadata table) {
+            this.table = table;
+            this.loadedAtNanos = System.nanoTime();
+        }
+    }
+}
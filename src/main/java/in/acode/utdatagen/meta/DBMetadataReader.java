@@ -0,0 +1,171 @@
+package in.acode.utdatagen.meta;
+
+import in.acode.utdatagen.utils.StringUtils;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Reads the metadata of columns from DatabaseMetaData into DBColumnMetadata
+ * <br>The caller owns the connection, the result-sets opened here are always closed
+ */
+class DBMetadataReader {
+
+    private DBMetadataReader() {
+    }
+
+    /**
+     * Reads the columns of all the tables matching the pattern, in the order returned by the driver
+     * @param catalog catalog of the tables, or null for the current catalog of the connection
+     * @param schema schema of the tables, or null for the current schema of the connection
+     * @param tableNamePattern a pattern as accepted by <code>DatabaseMetaData.getColumns()</code> e.g. "%" for all the tables
+     * @return list of columns by table name
+     */
+    static Map<String, List<DBColumnMetadata>> readColumns(Connection connection, String catalog, String schema, String tableNamePattern) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        Map<String, List<DBColumnMetadata>> columnsByTable = new LinkedHashMap<>();
+
+        try (ResultSet columns = metaData.getColumns(resolveCatalog(connection, catalog), resolveSchema(connection, schema), tableNamePattern, null)) {
+            while (columns.next()) {
+                DBColumnMetadata dbColumnMetadata = DBColumnMetadataBuilder.getInstance()
+                        .withColumnName(columns.getString("COLUMN_NAME"))
+                        .withDataType(columns.getInt("DATA_TYPE"))
+                        .withDataTypeName(columns.getString("TYPE_NAME"))
+                        .withPrecision(columns.getInt("COLUMN_SIZE"))
+                        .withScale(columns.getInt("DECIMAL_DIGITS"))
+                        .withIsNullable(columns.getInt("NULLABLE") == 1)
+                        .withHasDefaultValue(!StringUtils.isEmpty(columns.getString("COLUMN_DEF")))
+                        .withMaxSize(columns.getInt("CHAR_OCTET_LENGTH"))
+                        .withOrdinalPos(columns.getInt("ORDINAL_POSITION"))
+                        .withIsAutoInc("YES".equals(columns.getString("IS_AUTOINCREMENT")))
+                        .withIsGenerated("YES".equals(columns.getString("IS_GENERATEDCOLUMN")))
+                        .createDBColumnMetadata();
+                columnsByTable.computeIfAbsent(columns.getString("TABLE_NAME"), t -> new ArrayList<>()).add(dbColumnMetadata);
+            }
+        }
+
+        return columnsByTable;
+    }
+
+    /**
+     * Reads the columns of a single table
+     * <br>As "_" is a wildcard in the table name pattern, the columns of the table with exactly the same name are picked.
+     * If there is none, but a single table matched, it is taken as the same table in a different case
+     * @return list of columns, empty if the table does not exist
+     */
+    static List<DBColumnMetadata> readTableColumns(Connection connection, String catalog, String schema, String tableName) throws SQLException {
+        Map<String, List<DBColumnMetadata>> columnsByTable = readColumns(connection, catalog, schema, tableName);
+
+        List<DBColumnMetadata> columns = columnsByTable.get(tableName);
+        if (columns == null && columnsByTable.size() == 1) {
+            columns = columnsByTable.values().iterator().next();
+        }
+        return columns != null ? columns : new ArrayList<>();
+    }
+
+    /**
+     * Reads the primary key, foreign keys and indexes of a table, whose columns were already read
+     * <br>JDBC needs the exact name of the table for these, so each table takes three metadata queries
+     */
+    static DBTableMetadata readTableWithKeys(Connection connection, String catalog, String schema, String tableName,
+                                             List<DBColumnMetadata> columns) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        String resolvedCatalog = resolveCatalog(connection, catalog);
+        String resolvedSchema = resolveSchema(connection, schema);
+
+        return new DBTableMetadata(tableName, columns,
+            readPrimaryKey(metaData, resolvedCatalog, resolvedSchema, tableName),
+            readForeignKeys(metaData, resolvedCatalog, resolvedSchema, tableName),
+            readIndexes(metaData, resolvedCatalog, resolvedSchema, tableName));
+    }
+
+    private static List<String> readPrimaryKey(DatabaseMetaData metaData, String catalog, String schema, String tableName) throws SQLException {
+        Map<Integer, String> columnNamesBySeq = new TreeMap<>();
+
+        try (ResultSet primaryKeys = metaData.getPrimaryKeys(catalog, schema, tableName)) {
+            while (primaryKeys.next()) {
+                columnNamesBySeq.put(primaryKeys.getInt("KEY_SEQ"), primaryKeys.getString("COLUMN_NAME"));
+            }
+        }
+
+        return new ArrayList<>(columnNamesBySeq.values());
+    }
+
+    /**
+     * The rows of the imported keys are ordered by the referenced table and then by the position in the key,
+     * so the columns of a key are collected by its name and the referenced table
+     */
+    private static List<DBForeignKeyMetadata> readForeignKeys(DatabaseMetaData metaData, String catalog, String schema, String tableName) throws SQLException {
+        Map<List<String>, Map<Integer, String[]>> columnNamesByKey = new LinkedHashMap<>();
+
+        try (ResultSet importedKeys = metaData.getImportedKeys(catalog, schema, tableName)) {
+            while (importedKeys.next()) {
+                List<String> key = Arrays.asList(importedKeys.getString("FK_NAME"), importedKeys.getString("PKTABLE_NAME"));
+                columnNamesByKey.computeIfAbsent(key, k -> new TreeMap<>())
+                    .put(importedKeys.getInt("KEY_SEQ"), new String[]{importedKeys.getString("FKCOLUMN_NAME"), importedKeys.getString("PKCOLUMN_NAME")});
+            }
+        }
+
+        List<DBForeignKeyMetadata> foreignKeys = new ArrayList<>();
+        columnNamesByKey.forEach((key, columnNamesBySeq) -> {
+            List<String> columnNames = new ArrayList<>();
+            List<String> referencedColumnNames = new ArrayList<>();
+            for (String[] columnNamePair : columnNamesBySeq.values()) {
+                columnNames.add(columnNamePair[0]);
+                referencedColumnNames.add(columnNamePair[1]);
+            }
+            foreignKeys.add(new DBForeignKeyMetadata(key.get(0), columnNames, key.get(1), referencedColumnNames));
+        });
+        return foreignKeys;
+    }
+
+    private static List<DBIndexMetadata> readIndexes(DatabaseMetaData metaData, String catalog, String schema, String tableName) throws SQLException {
+        Map<String, Map<Integer, String>> columnNamesByIndex = new LinkedHashMap<>();
+        Map<String, Boolean> uniqueByIndex = new HashMap<>();
+
+        try (ResultSet indexInfo = metaData.getIndexInfo(catalog, schema, tableName, false, true)) {
+            while (indexInfo.next()) {
+                String indexName = indexInfo.getString("INDEX_NAME");
+                if (indexName == null || indexInfo.getShort("TYPE") == DatabaseMetaData.tableIndexStatistic) continue;
+
+                columnNamesByIndex.computeIfAbsent(indexName, k -> new TreeMap<>())
+                    .put((int) indexInfo.getShort("ORDINAL_POSITION"), indexInfo.getString("COLUMN_NAME"));
+                uniqueByIndex.put(indexName, !indexInfo.getBoolean("NON_UNIQUE"));
+            }
+        }
+
+        List<DBIndexMetadata> indexes = new ArrayList<>();
+        columnNamesByIndex.forEach((indexName, columnNamesByPos) ->
+            indexes.add(new DBIndexMetadata(indexName, uniqueByIndex.get(indexName), new ArrayList<>(columnNamesByPos.values()))));
+        return indexes;
+    }
+
+    /**
+     * Current catalog of the connection, when none is specified
+     * This keeps the lookups to the DB the connection is using e.g. on MySQL, where a catalog is a database
+     */
+    static String resolveCatalog(Connection connection, String catalog) throws SQLException {
+        return catalog != null ? catalog : connection.getCatalog();
+    }
+
+    /**
+     * Current schema of the connection, when none is specified, or null if the driver does not support it
+     */
+    static String resolveSchema(Connection connection, String schema) {
+        if (schema != null) return schema;
+
+        try {
+            return connection.getSchema();
+        } catch (SQLException | AbstractMethodError e) {
+            return null;
+        }
+    }
+}
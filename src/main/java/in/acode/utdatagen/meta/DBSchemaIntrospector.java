@@ -0,0 +1,161 @@
+package in.acode.utdatagen.meta;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Reads the metadata of all the tables of a schema at once, and primes DBMetadataCache with it
+ * <br>The columns of all the tables are read with a single wildcard query, instead of a query per table by each fixture.
+ * The primary keys, foreign keys and indexes are read for each table on the same connection, as JDBC needs the exact name of the table for them
+ * <br>Once primed, every DBTableFixture of these tables finds its metadata in the cache. The fixtures look up the current catalog/schema
+ * of the connection, so they use the metadata of an introspection without a catalog and schema
+ * <br>It can run in the background, e.g. while the test context starts - <code>introspectInBackground()</code>.
+ * In the meantime, the fixtures of the same DataSource wait for it rather than reading their own tables
+ */
+public class DBSchemaIntrospector {
+
+    private static final Log LOG = LogFactory.getLog(DBSchemaIntrospector.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private String catalog;
+    private String schema;
+    private String tableNamePattern;
+    private boolean withKeys;
+
+    private DBSchemaIntrospector(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.catalog = null;
+        this.schema = null;
+        this.tableNamePattern = "%";
+        this.withKeys = true;
+    }
+
+    public static DBSchemaIntrospector getInstance(JdbcTemplate jdbcTemplate) {
+        return new DBSchemaIntrospector(jdbcTemplate);
+    }
+
+    /**
+     * Sets the catalog to introspect, by default the current catalog of the connection
+     */
+    public DBSchemaIntrospector withCatalog(String catalog) {
+        this.catalog = catalog;
+        return this;
+    }
+
+    /**
+     * Sets the schema to introspect, by default the current schema of the connection
+     */
+    public DBSchemaIntrospector withSchema(String schema) {
+        this.schema = schema;
+        return this;
+    }
+
+    /**
+     * Limits the introspection to the tables matching a pattern as accepted by <code>DatabaseMetaData.getColumns()</code> e.g. "order%"
+     */
+    public DBSchemaIntrospector withTableNamePattern(String tableNamePattern) {
+        if (tableNamePattern == null || tableNamePattern.isEmpty()) {
+            throw new IllegalArgumentException("Table name pattern must not be empty");
+        }
+
+        this.tableNamePattern = tableNamePattern;
+        return this;
+    }
+
+    /**
+     * Sets whether the primary keys, foreign keys and indexes are read along with the columns, they are by default
+     * <br>Without them, the whole introspection is a single query
+     */
+    public DBSchemaIntrospector withKeys(boolean withKeys) {
+        this.withKeys = withKeys;
+        return this;
+    }
+
+    /**
+     * Reads the metadata of the tables and puts it in DBMetadataCache
+     */
+    public DBSchemaMetadata introspect() {
+        LOG.info("Starting introspection of the tables [" + this.tableNamePattern + "] of schema [" + this.schema + "]");
+        long startTime = System.currentTimeMillis();
+
+        DBSchemaMetadata schemaMetadata = this.jdbcTemplate.execute((ConnectionCallback<DBSchemaMetadata>) connection -> {
+            try {
+                Map<String, List<DBColumnMetadata>> columnsByTable = DBMetadataReader.readColumns(connection, this.catalog, this.schema, this.tableNamePattern);
+                Map<String, DBTableMetadata> tables = new LinkedHashMap<>();
+
+                for (Map.Entry<String, List<DBColumnMetadata>> tableColumns : columnsByTable.entrySet()) {
+                    String tableName = tableColumns.getKey();
+                    tables.put(tableName, this.withKeys
+                        ? DBMetadataReader.readTableWithKeys(connection, this.catalog, this.schema, tableName, tableColumns.getValue())
+                        : new DBTableMetadata(tableName, tableColumns.getValue()));
+                }
+                return new DBSchemaMetadata(this.catalog, this.schema, this.tableNamePattern, tables);
+            } catch (SQLException e) {
+                throw new DataRetrievalFailureException("Failed to fetch DB metadata", e);
+            }
+        });
+
+        DBMetadataCache.getInstance().putAll(this.jdbcTemplate.getDataSource(), schemaMetadata);
+
+        LOG.info("Finished introspection of [" + schemaMetadata.getTables().size() + "] tables in [" + (System.currentTimeMillis() - startTime) + "] ms");
+        return schemaMetadata;
+    }
+
+    JdbcTemplate getJdbcTemplate() {
+        return jdbcTemplate;
+    }
+
+    /**
+     * Checks whether the metadata is of the same tables as this introspector would read, e.g. when it was read from a DBSchemaSnapshot
+     */
+    boolean isOf(DBSchemaMetadata schemaMetadata) {
+        return Objects.equals(this.catalog, schemaMetadata.getCatalog())
+            && Objects.equals(this.schema, schemaMetadata.getSchema())
+            && this.tableNamePattern.equals(schemaMetadata.getTableNamePattern())
+            && (!this.withKeys || schemaMetadata.getTables().values().stream().allMatch(DBTableMetadata::hasKeys));
+    }
+
+    /**
+     * Runs <code>introspect()</code> on a new daemon thread
+     */
+    public CompletableFuture<DBSchemaMetadata> introspectInBackground() {
+        return introspectInBackground(command -> {
+            Thread thread = new Thread(command, "utdatagen-schema-introspector");
+            thread.setDaemon(true);
+            thread.start();
+        });
+    }
+
+    /**
+     * Runs <code>introspect()</code> on the executor
+     * <br>Until it completes, the lookups in DBMetadataCache of tables of the same DataSource which are not cached wait for it
+     */
+    public CompletableFuture<DBSchemaMetadata> introspectInBackground(Executor executor) {
+        CompletableFuture<DBSchemaMetadata> introspection = new CompletableFuture<>();
+        DBMetadataCache.getInstance().registerIntrospection(this.jdbcTemplate.getDataSource(), introspection);
+
+        try {
+            executor.execute(() -> {
+                try {
+                    introspection.complete(introspect());
+                } catch (Throwable e) {
+                    introspection.completeExceptionally(e);
+                }
+            });
+        } catch (RuntimeException e) {
+            introspection.completeExceptionally(e);
+            throw e;
+        }
+        return introspection;
+    }
+}
@@ -0,0 +1,63 @@
+package in.acode.utdatagen.meta;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Metadata of the tables of a schema, as read by DBSchemaIntrospector
+ */
+public class DBSchemaMetadata {
+
+    private final String catalog;
+    private final String schema;
+    private final String tableNamePattern;
+    private final Map<String, DBTableMetadata> tables;
+
+    DBSchemaMetadata(String catalog, String schema, String tableNamePattern, Map<String, DBTableMetadata> tables) {
+        this.catalog = catalog;
+        this.schema = schema;
+        this.tableNamePattern = tableNamePattern;
+        this.tables = Collections.unmodifiableMap(tables);
+    }
+
+    /**
+     * Catalog which was introspected, null for the current catalog of the connection
+     */
+    public String getCatalog() {
+        return catalog;
+    }
+
+    /**
+     * Schema which was introspected, null for the current schema of the connection
+     */
+    public String getSchema() {
+        return schema;
+    }
+
+    /**
+     * Pattern of the names of the tables which were introspected
+     */
+    public String getTableNamePattern() {
+        return tableNamePattern;
+    }
+
+    /**
+     * Names of the tables, in the order returned by the DB
+     */
+    public List<String> getTableNames() {
+        return new ArrayList<>(tables.keySet());
+    }
+
+    /**
+     * Returns the metadata of a table, null if the schema has no such table
+     */
+    public DBTableMetadata getTable(String tableName) {
+        return tables.get(tableName);
+    }
+
+    public Map<String, DBTableMetadata> getTables() {
+        return tables;
+    }
+}
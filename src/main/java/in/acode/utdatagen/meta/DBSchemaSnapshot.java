@@ -0,0 +1,349 @@
+package in.acode.utdatagen.meta;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.CRC32;
+
+/**
+ * A schema introspected by DBSchemaIntrospector, persisted to a file, so that the fixtures of later runs start without reading the metadata from the DB
+ * <br><code>load()</code> primes DBMetadataCache from the file, or introspects the schema and writes the file if it is missing or unreadable.
+ * The file is compact binary, with a checksum of the schema that is also used to find out whether the schema has changed
+ * <br>A snapshot goes stale when the schema changes. This can be found out -
+ * <br>&emsp;1. cheaply when loading, with a version query whose result changes with the schema, see <code>withVersionQuery()</code>.
+ * E.g. the latest migration of Flyway, or <code>SELECT MAX(CREATE_TIME) FROM information_schema.TABLES WHERE TABLE_SCHEMA = DATABASE()</code> on MySQL
+ * <br>&emsp;2. lazily, after loading, with <code>verify()</code> or <code>verifyInBackground()</code>, which introspect the schema again
+ * and rewrite the snapshot if its checksum differs
+ */
+public class DBSchemaSnapshot {
+
+    private static final Log LOG = LogFactory.getLog(DBSchemaSnapshot.class);
+
+    private static final int MAGIC = 0x55544453;
+    private static final short FORMAT_VERSION = 1;
+
+    private final DBSchemaIntrospector introspector;
+    private final Path path;
+    private String versionQuery;
+
+    private DBSchemaSnapshot(DBSchemaIntrospector introspector, Path path) {
+        this.introspector = introspector;
+        this.path = path;
+        this.versionQuery = null;
+    }
+
+    /**
+     * @param introspector introspector of the schema, which also decides the catalog, schema and tables of the snapshot
+     * @param path file of the snapshot, which should be different for each DB
+     */
+    public static DBSchemaSnapshot getInstance(DBSchemaIntrospector introspector, Path path) {
+        return new DBSchemaSnapshot(introspector, path);
+    }
+
+    /**
+     * Sets a query returning a single value which changes whenever the schema changes
+     * <br>Its result is stored in the snapshot, and a snapshot with a different result is not used
+     */
+    public DBSchemaSnapshot withVersionQuery(String versionQuery) {
+        this.versionQuery = versionQuery;
+        return this;
+    }
+
+    /**
+     * Primes DBMetadataCache with the tables of the snapshot
+     * <br>If the snapshot is missing, unreadable, of other tables or of another version, the schema is introspected and the snapshot rewritten
+     * @return metadata of the schema, from the snapshot or the DB
+     */
+    public DBSchemaMetadata load() {
+        String version = getVersion();
+        DBSchemaMetadata schemaMetadata = readIfValid(version);
+        if (schemaMetadata != null) {
+            DBMetadataCache.getInstance().putAll(this.introspector.getJdbcTemplate().getDataSource(), schemaMetadata);
+            LOG.info("Loaded [" + schemaMetadata.getTables().size() + "] tables from the schema snapshot [" + this.path + "]");
+            return schemaMetadata;
+        }
+
+        schemaMetadata = this.introspector.introspect();
+        write(schemaMetadata, version, this.path);
+        return schemaMetadata;
+    }
+
+    /**
+     * Introspects the schema, which primes DBMetadataCache with the current metadata, and rewrites the snapshot if the schema has changed
+     * @return true if the snapshot was up to date
+     */
+    public boolean verify() {
+        String version = getVersion();
+        DBSchemaMetadata schemaMetadata = this.introspector.introspect();
+        Long snapshotChecksum = readChecksum(this.path, version);
+
+        if (snapshotChecksum != null && snapshotChecksum == checksum(schemaMetadata)) {
+            return true;
+        }
+
+        LOG.warn("The schema snapshot [" + this.path + "] is out of date, rewriting it");
+        write(schemaMetadata, version, this.path);
+        return false;
+    }
+
+    /**
+     * Runs <code>verify()</code> on a new daemon thread, the fixtures keep using the snapshot in the meantime
+     */
+    public CompletableFuture<Boolean> verifyInBackground() {
+        CompletableFuture<Boolean> verification = new CompletableFuture<>();
+        Thread thread = new Thread(() -> {
+            try {
+                verification.complete(verify());
+            } catch (Throwable e) {
+                verification.completeExceptionally(e);
+            }
+        }, "utdatagen-schema-snapshot-verifier");
+        thread.setDaemon(true);
+        thread.start();
+        return verification;
+    }
+
+    /**
+     * Checksum of the metadata of a schema, which changes if any of the metadata in the snapshot changes
+     */
+    public static long checksum(DBSchemaMetadata schemaMetadata) {
+        return checksum(serialize(schemaMetadata));
+    }
+
+    private String getVersion() {
+        if (this.versionQuery == null) return null;
+
+        JdbcTemplate jdbcTemplate = this.introspector.getJdbcTemplate();
+        return Objects.toString(jdbcTemplate.queryForObject(this.versionQuery, Object.class), null);
+    }
+
+    private DBSchemaMetadata readIfValid(String version) {
+        if (!Files.exists(this.path)) return null;
+
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(this.path)))) {
+            if (in.readInt() != MAGIC || in.readShort() != FORMAT_VERSION) {
+                LOG.warn("The schema snapshot [" + this.path + "] is not of this format, ignoring it");
+                return null;
+            }
+
+            long checksum = in.readLong();
+            String snapshotVersion = readNullableUTF(in);
+            int bodyLength = in.readInt();
+            byte[] body = bodyLength >= 0 && bodyLength <= in.available() ? new byte[bodyLength] : null;
+            if (body != null) {
+                in.readFully(body);
+            }
+
+            if (body == null || checksum(body) != checksum) {
+                LOG.warn("The schema snapshot [" + this.path + "] is corrupt, ignoring it");
+                return null;
+            }
+            if (!Objects.equals(version, snapshotVersion)) {
+                LOG.info("The schema snapshot [" + this.path + "] is of version [" + snapshotVersion + "] instead of [" + version + "], ignoring it");
+                return null;
+            }
+
+            DBSchemaMetadata schemaMetadata = deserialize(body);
+            if (!this.introspector.isOf(schemaMetadata)) {
+                LOG.info("The schema snapshot [" + this.path + "] is of other tables, ignoring it");
+                return null;
+            }
+            return schemaMetadata;
+        } catch (IOException e) {
+            LOG.warn("Failed to read the schema snapshot [" + this.path + "], ignoring it", e);
+            return null;
+        }
+    }
+
+    /**
+     * Reads the checksum of the snapshot, null if it is not a snapshot of the specified version
+     */
+    private static Long readChecksum(Path path, String version) {
+        if (!Files.exists(path)) return null;
+
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(path))) {
+            if (in.readInt() != MAGIC || in.readShort() != FORMAT_VERSION) return null;
+
+            long checksum = in.readLong();
+            return Objects.equals(version, readNullableUTF(in)) ? checksum : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Writes the snapshot to a temporary file and moves it in place, so a concurrent reader never sees half of it
+     */
+    static void write(DBSchemaMetadata schemaMetadata, String version, Path path) {
+        byte[] body = serialize(schemaMetadata);
+
+        try {
+            Path parent = path.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path tmpPath = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+
+            try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(tmpPath))) {
+                out.writeInt(MAGIC);
+                out.writeShort(FORMAT_VERSION);
+                out.writeLong(checksum(body));
+                writeNullableUTF(out, version);
+                out.writeInt(body.length);
+                out.write(body);
+            }
+            Files.move(tmpPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write the schema snapshot [" + path + "]", e);
+        }
+
+        LOG.info("Wrote [" + schemaMetadata.getTables().size() + "] tables to the schema snapshot [" + path + "]");
+    }
+
+    private static long checksum(byte[] body) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(body);
+        return crc32.getValue();
+    }
+
+    private static byte[] serialize(DBSchemaMetadata schemaMetadata) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writeNullableUTF(out, schemaMetadata.getCatalog());
+            writeNullableUTF(out, schemaMetadata.getSchema());
+            out.writeUTF(schemaMetadata.getTableNamePattern());
+            out.writeInt(schemaMetadata.getTables().size());
+
+            for (DBTableMetadata table : schemaMetadata.getTables().values()) {
+                out.writeUTF(table.getTableName());
+                out.writeInt(table.getColumns().size());
+                for (DBColumnMetadata column : table.getColumns()) {
+                    out.writeUTF(column.getColumnName());
+                    out.writeInt(column.getDataType());
+                    writeNullableUTF(out, column.getDataTypeName());
+                    out.writeInt(column.getPrecision());
+                    out.writeInt(column.getScale());
+                    out.writeBoolean(column.isNullable());
+                    out.writeBoolean(column.isHasDefaultValue());
+                    out.writeInt(column.getMaxSize());
+                    out.writeInt(column.getOrdinalPos());
+                    out.writeBoolean(column.isAutoInc());
+                    out.writeBoolean(column.isGenerated());
+                }
+
+                out.writeBoolean(table.hasKeys());
+                if (!table.hasKeys()) continue;
+
+                writeNames(out, table.getPrimaryKeyColumnNames());
+                out.writeInt(table.getForeignKeys().size());
+                for (DBForeignKeyMetadata foreignKey : table.getForeignKeys()) {
+                    writeNullableUTF(out, foreignKey.getName());
+                    writeNames(out, foreignKey.getColumnNames());
+                    out.writeUTF(foreignKey.getReferencedTableName());
+                    writeNames(out, foreignKey.getReferencedColumnNames());
+                }
+                out.writeInt(table.getIndexes().size());
+                for (DBIndexMetadata index : table.getIndexes()) {
+                    out.writeUTF(index.getName());
+                    out.writeBoolean(index.isUnique());
+                    writeNames(out, index.getColumnNames());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    private static DBSchemaMetadata deserialize(byte[] body) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+        String catalog = readNullableUTF(in);
+        String schema = readNullableUTF(in);
+        String tableNamePattern = in.readUTF();
+        int numOfTables = in.readInt();
+        Map<String, DBTableMetadata> tables = new LinkedHashMap<>();
+
+        for (int t = 0; t < numOfTables; t++) {
+            String tableName = in.readUTF();
+            int numOfColumns = in.readInt();
+            List<DBColumnMetadata> columns = new ArrayList<>(numOfColumns);
+            for (int c = 0; c < numOfColumns; c++) {
+                columns.add(DBColumnMetadataBuilder.getInstance()
+                    .withColumnName(in.readUTF())
+                    .withDataType(in.readInt())
+                    .withDataTypeName(readNullableUTF(in))
+                    .withPrecision(in.readInt())
+                    .withScale(in.readInt())
+                    .withIsNullable(in.readBoolean())
+                    .withHasDefaultValue(in.readBoolean())
+                    .withMaxSize(in.readInt())
+                    .withOrdinalPos(in.readInt())
+                    .withIsAutoInc(in.readBoolean())
+                    .withIsGenerated(in.readBoolean())
+                    .createDBColumnMetadata());
+            }
+
+            if (!in.readBoolean()) {
+                tables.put(tableName, new DBTableMetadata(tableName, columns));
+                continue;
+            }
+
+            List<String> primaryKeyColumnNames = readNames(in);
+            int numOfForeignKeys = in.readInt();
+            List<DBForeignKeyMetadata> foreignKeys = new ArrayList<>(numOfForeignKeys);
+            for (int k = 0; k < numOfForeignKeys; k++) {
+                foreignKeys.add(new DBForeignKeyMetadata(readNullableUTF(in), readNames(in), in.readUTF(), readNames(in)));
+            }
+            int numOfIndexes = in.readInt();
+            List<DBIndexMetadata> indexes = new ArrayList<>(numOfIndexes);
+            for (int i = 0; i < numOfIndexes; i++) {
+                indexes.add(new DBIndexMetadata(in.readUTF(), in.readBoolean(), readNames(in)));
+            }
+            tables.put(tableName, new DBTableMetadata(tableName, columns, primaryKeyColumnNames, foreignKeys, indexes));
+        }
+
+        return new DBSchemaMetadata(catalog, schema, tableNamePattern, tables);
+    }
+
+    private static void writeNames(DataOutputStream out, List<String> names) throws IOException {
+        out.writeInt(names.size());
+        for (String name : names) {
+            out.writeUTF(name);
+        }
+    }
+
+    private static List<String> readNames(DataInputStream in) throws IOException {
+        int numOfNames = in.readInt();
+        List<String> names = new ArrayList<>(numOfNames);
+        for (int i = 0; i < numOfNames; i++) {
+            names.add(in.readUTF());
+        }
+        return names;
+    }
+
+    private static void writeNullableUTF(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullableUTF(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -0,0 +1,67 @@
+package in.acode.utdatagen.meta;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Encapsulates the meta-data about a single database table - its columns and, if they were read, its keys and indexes
+ * <br>The columns are always there. The keys and indexes are read only when they are needed, e.g. by DBSchemaIntrospector,
+ * see <code>hasKeys()</code>
+ */
+public class DBTableMetadata {
+
+    private final String tableName;
+    private final List<DBColumnMetadata> columns;
+    private final List<String> primaryKeyColumnNames;
+    private final List<DBForeignKeyMetadata> foreignKeys;
+    private final List<DBIndexMetadata> indexes;
+
+    DBTableMetadata(String tableName, List<DBColumnMetadata> columns) {
+        this(tableName, columns, null, null, null);
+    }
+
+    DBTableMetadata(String tableName, List<DBColumnMetadata> columns, List<String> primaryKeyColumnNames,
+                    List<DBForeignKeyMetadata> foreignKeys, List<DBIndexMetadata> indexes) {
+        this.tableName = tableName;
+        this.columns = Collections.unmodifiableList(columns);
+        this.primaryKeyColumnNames = primaryKeyColumnNames != null ? Collections.unmodifiableList(primaryKeyColumnNames) : null;
+        this.foreignKeys = foreignKeys != null ? Collections.unmodifiableList(foreignKeys) : null;
+        this.indexes = indexes != null ? Collections.unmodifiableList(indexes) : null;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public List<DBColumnMetadata> getColumns() {
+        return columns;
+    }
+
+    /**
+     * Whether the primary key, foreign keys and indexes were read along with the columns
+     */
+    public boolean hasKeys() {
+        return primaryKeyColumnNames != null;
+    }
+
+    /**
+     * Columns of the primary key in the order of the key, empty if the table has none
+     */
+    public List<String> getPrimaryKeyColumnNames() {
+        return primaryKeyColumnNames != null ? primaryKeyColumnNames : Collections.emptyList();
+    }
+
+    /**
+     * Foreign keys of this table i.e. its references to other tables (the imported keys)
+     */
+    public List<DBForeignKeyMetadata> getForeignKeys() {
+        return foreignKeys != null ? foreignKeys : Collections.emptyList();
+    }
+
+    /**
+     * Indexes of this table, including the one of the primary key if the DB reports it
+     */
+    public List<DBIndexMetadata> getIndexes() {
+        return indexes != null ? indexes : Collections.emptyList();
+    }
+}
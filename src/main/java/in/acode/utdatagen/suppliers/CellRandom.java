@@ -0,0 +1,171 @@
+package in.acode.utdatagen.suppliers;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Source of random values for the value-suppliers, which makes the generated data reproducible
+ * <br>While a row is being generated, the random of the current thread is positioned at a state derived from
+ * the seed of the InsertionCriteria, the column and the row-index, before each value-supplier is called.
+ * So the random values of a cell do not depend on the order in which the rows are generated, on the batch size,
+ * on the number of threads or on how the rows are partitioned between them
+ * <br>All the built-in suppliers and the default values use it, and custom value-suppliers can use it as -
+ * <code>CellRandom.current().nextInt(100)</code>
+ * <br>The values are generated with the SplitMix64 algorithm, the same one as in java.util.SplittableRandom.
+ * Each thread has its own instance, so there is no contention between the threads
+ * <br>Outside of a row generation, e.g. when a supplier is called directly, the random just continues from its last state
+ */
+public final class CellRandom {
+
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+    private static final double DOUBLE_UNIT = 0x1.0p-53;
+    private static final float FLOAT_UNIT = 0x1.0p-24f;
+
+    private static final ThreadLocal<CellRandom> CURRENT = ThreadLocal.withInitial(() -> new CellRandom(ThreadLocalRandom.current().nextLong()));
+
+    private long state;
+
+    private CellRandom(long state) {
+        this.state = state;
+    }
+
+    /**
+     * Creates a random which is not tied to any thread, for generating data outside of the rows e.g. a corpus
+     */
+    static CellRandom newInstance(long seed) {
+        return new CellRandom(seed);
+    }
+
+    /**
+     * Returns the random of the current thread
+     */
+    public static CellRandom current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Derives the seed of a column from the seed of the whole data-set
+     */
+    public static long getColumnSeed(long seed, String columnName) {
+        return mix64(seed + mix64(columnName.hashCode() * GOLDEN_GAMMA));
+    }
+
+    /**
+     * Positions the random at the state for a cell, this is done by the row generator before calling the value-supplier of the cell
+     * @param columnSeed seed of the column, see <code>getColumnSeed()</code>
+     */
+    public void position(long columnSeed, int rowIdx) {
+        this.state = mix64(columnSeed + rowIdx * GOLDEN_GAMMA);
+    }
+
+    /**
+     * Tells if no random value was taken since the random was positioned at the state for the cell, i.e. the value-supplier did not use it
+     */
+    public boolean isAtPosition(long columnSeed, int rowIdx) {
+        return this.state == mix64(columnSeed + rowIdx * GOLDEN_GAMMA);
+    }
+
+    public long nextLong() {
+        this.state += GOLDEN_GAMMA;
+        return mix64(this.state);
+    }
+
+    public int nextInt() {
+        return (int)(nextLong() >>> 32);
+    }
+
+    /**
+     * Returns a random value between 0 (inclusive) and the bound (exclusive)
+     */
+    public int nextInt(int bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("Bound must be more than 0");
+        }
+
+        int r = nextInt();
+        int m = bound - 1;
+        if ((bound & m) == 0) {
+            return r & m;
+        }
+        for (int u = r >>> 1; u + m - (r = u % bound) < 0; u = nextInt() >>> 1);
+        return r;
+    }
+
+    /**
+     * Returns a random value between the origin (inclusive) and the bound (exclusive)
+     */
+    public int nextInt(int origin, int bound) {
+        if (origin >= bound) {
+            throw new IllegalArgumentException("Bound must be more than the origin");
+        }
+
+        int n = bound - origin;
+        if (n > 0) {
+            return nextInt(n) + origin;
+        }
+
+        int r;
+        do {
+            r = nextInt();
+        } while (r < origin || r >= bound);
+        return r;
+    }
+
+    /**
+     * Returns a random value between the origin (inclusive) and the bound (exclusive)
+     */
+    public long nextLong(long origin, long bound) {
+        if (origin >= bound) {
+            throw new IllegalArgumentException("Bound must be more than the origin");
+        }
+
+        long r = nextLong();
+        long n = bound - origin;
+        long m = n - 1;
+        if ((n & m) == 0L) {
+            return (r & m) + origin;
+        }
+        if (n > 0L) {
+            for (long u = r >>> 1; u + m - (r = u % n) < 0L; u = nextLong() >>> 1);
+            return r + origin;
+        }
+
+        while (r < origin || r >= bound) {
+            r = nextLong();
+        }
+        return r;
+    }
+
+    /**
+     * Returns a random value between 0.0 (inclusive) and 1.0 (exclusive)
+     */
+    public double nextDouble() {
+        return (nextLong() >>> 11) * DOUBLE_UNIT;
+    }
+
+    /**
+     * Returns a random value between 0.0 (inclusive) and 1.0 (exclusive)
+     */
+    public float nextFloat() {
+        return (nextInt() >>> 8) * FLOAT_UNIT;
+    }
+
+    public boolean nextBoolean() {
+        return nextInt() < 0;
+    }
+
+    /**
+     * Returns a random (version 4) UUID
+     */
+    public UUID nextUUID() {
+        long mostSigBits = (nextLong() & ~0xF000L) | 0x4000L;
+        long leastSigBits = (nextLong() & ~0xC000000000000000L) | 0x8000000000000000L;
+        return new UUID(mostSigBits, leastSigBits);
+    }
+
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -2,7 +2,6 @@ package in.acode.utdatagen.suppliers;
 
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
-import java.util.Random;
 import java.util.function.Supplier;
 
 public class DateSuppliers {
@@ -14,10 +13,9 @@ public class DateSuppliers {
         checkBounds(lowerBoundIncl, upperBoundIncl);
 
         int daysDiff = (int)ChronoUnit.DAYS.between(lowerBoundIncl, upperBoundIncl);
-        Random random = new Random();
 
         return () -> {
-            int rand = random.nextInt(daysDiff + 1);
+            int rand = CellRandom.current().nextInt(daysDiff + 1);
             return lowerBoundIncl.plusDays(rand);
         };
     }
@@ -16,7 +16,7 @@ public class DateTimeSuppliers {
         long high = upperBoundIncl.toEpochSecond(ZoneOffset.UTC);
 
         return () -> {
-            long rand = low + (long)(Math.random() * (high - low));
+            long rand = low + (long)(CellRandom.current().nextDouble() * (high - low));
             return LocalDateTime.ofEpochSecond(rand, 0, ZoneOffset.UTC);
         };
     }
@@ -0,0 +1,64 @@
+package in.acode.utdatagen.suppliers;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.function.Supplier;
+
+/**
+ * Built-in suppliers of BigDecimal values
+ */
+public class DecimalSuppliers {
+
+    /**
+     * Max number of digits of the values generated for a column, the values of wider columns have fewer digits than the column allows
+     * Some DBs report a huge precision for columns without one e.g. 131089 for NUMERIC in PostgreSQL
+     */
+    public static final int MAX_RANDOM_PRECISION = 38;
+
+    /**
+     * Max number of digits which always fit in a long
+     */
+    private static final int MAX_LONG_DIGITS = 18;
+
+    private static final long[] LONG_POWERS_OF_TEN = new long[MAX_LONG_DIGITS + 1];
+    private static final BigInteger MAX_LONG_DIGITS_POWER_OF_TEN;
+
+    static {
+        LONG_POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < LONG_POWERS_OF_TEN.length; i++) {
+            LONG_POWERS_OF_TEN[i] = LONG_POWERS_OF_TEN[i - 1] * 10;
+        }
+        MAX_LONG_DIGITS_POWER_OF_TEN = BigInteger.valueOf(LONG_POWERS_OF_TEN[MAX_LONG_DIGITS]);
+    }
+
+    /**
+     * Returns a supplier, which in-turn would supply a random non-negative value which fits in a DECIMAL(precision, scale) column
+     * <br>The values are uniformly spread over the whole range i.e. from 0 to 10^(precision - scale) excluded, with <code>scale</code> decimal places.
+     * Values with up to 18 digits are built from a long without any intermediate objects, wider ones from a BigInteger
+     */
+    public static Supplier<BigDecimal> random(int precision, int scale) {
+        int numOfDigits = Math.min(Math.max(precision, 0), MAX_RANDOM_PRECISION);
+
+        if (numOfDigits <= MAX_LONG_DIGITS) {
+            long bound = LONG_POWERS_OF_TEN[numOfDigits];
+            return () -> BigDecimal.valueOf(CellRandom.current().nextLong(0, bound), scale);
+        }
+
+        return () -> new BigDecimal(nextUnscaledValue(numOfDigits), scale);
+    }
+
+    /**
+     * Builds a random value of the specified number of digits, 18 digits at a time
+     */
+    private static BigInteger nextUnscaledValue(int numOfDigits) {
+        CellRandom random = CellRandom.current();
+        int numOfLeadingDigits = numOfDigits % MAX_LONG_DIGITS;
+        BigInteger value = BigInteger.valueOf(numOfLeadingDigits == 0 ? 0 : random.nextLong(0, LONG_POWERS_OF_TEN[numOfLeadingDigits]));
+
+        for (int i = numOfLeadingDigits; i < numOfDigits; i += MAX_LONG_DIGITS) {
+            value = value.multiply(MAX_LONG_DIGITS_POWER_OF_TEN).add(BigInteger.valueOf(random.nextLong(0, LONG_POWERS_OF_TEN[MAX_LONG_DIGITS])));
+        }
+        return value;
+    }
+
+}
@@ -0,0 +1,10 @@
+package in.acode.utdatagen.suppliers;
+
+/**
+ * Supplies a double value for a column, given the index of the row being inserted and the value inserted in the previous row
+ */
+@FunctionalInterface
+public interface DoubleColumnSupplier extends PrimitiveColumnSupplier {
+
+    double getAsDouble(int rowIdx, double prevValue);
+}
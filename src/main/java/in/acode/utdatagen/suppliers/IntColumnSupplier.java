@@ -0,0 +1,10 @@
+package in.acode.utdatagen.suppliers;
+
+/**
+ * Supplies an int value for a column, given the index of the row being inserted and the value inserted in the previous row
+ */
+@FunctionalInterface
+public interface IntColumnSupplier extends PrimitiveColumnSupplier {
+
+    int getAsInt(int rowIdx, int prevValue);
+}
@@ -1,9 +1,12 @@
 package in.acode.utdatagen.suppliers;
 
 import in.acode.utdatagen.utils.Validator;
-import java.util.Random;
 import java.util.function.Supplier;
 
+/**
+ * Built-in suppliers of int values
+ * The random values come from CellRandom, so they are reproducible with the seed of the InsertionCriteria
+ */
 public class IntSuppliers {
 
     /**
@@ -11,9 +14,7 @@ public class IntSuppliers {
      */
     public static Supplier<Integer> random(int lowerBoundIncl, int upperBoundIncl) {
         Validator.validateBounds(lowerBoundIncl, upperBoundIncl);
-        Random random = new Random();
-
-        return () -> random.nextInt(upperBoundIncl - lowerBoundIncl + 1) + lowerBoundIncl;
+        return () -> CellRandom.current().nextInt(upperBoundIncl - lowerBoundIncl + 1) + lowerBoundIncl;
     }
 
     /**
@@ -22,25 +23,41 @@ public class IntSuppliers {
      */
     public static Supplier<Integer> multipleOf(int multipleOf, int lowerBoundIncl, int upperBoundIncl) {
         Validator.validateBounds(lowerBoundIncl, upperBoundIncl);
-        Random random = new Random();
+        return () -> nextMultipleOf(multipleOf, lowerBoundIncl, upperBoundIncl);
+    }
+
+    /**
+     * Same as <code>random()</code>, but returns a supplier of primitive ints, for use with <code>InsertionCriteria.withIntCondition()</code>
+     */
+    public static IntColumnSupplier randomAsInt(int lowerBoundIncl, int upperBoundIncl) {
+        Validator.validateBounds(lowerBoundIncl, upperBoundIncl);
+        return (idx, prevValue) -> CellRandom.current().nextInt(upperBoundIncl - lowerBoundIncl + 1) + lowerBoundIncl;
+    }
+
+    /**
+     * Same as <code>multipleOf()</code>, but returns a supplier of primitive ints, for use with <code>InsertionCriteria.withIntCondition()</code>
+     */
+    public static IntColumnSupplier multipleOfAsInt(int multipleOf, int lowerBoundIncl, int upperBoundIncl) {
+        Validator.validateBounds(lowerBoundIncl, upperBoundIncl);
+        return (idx, prevValue) -> nextMultipleOf(multipleOf, lowerBoundIncl, upperBoundIncl);
+    }
 
-        return () -> {
-            int num = random.nextInt(upperBoundIncl - lowerBoundIncl + 1) + lowerBoundIncl;
+    private static int nextMultipleOf(int multipleOf, int lowerBoundIncl, int upperBoundIncl) {
+        int num = CellRandom.current().nextInt(upperBoundIncl - lowerBoundIncl + 1) + lowerBoundIncl;
 
-            num = (num / multipleOf) * multipleOf; //Make the number a multiple of required number
+        num = (num / multipleOf) * multipleOf; //Make the number a multiple of required number
 
-            //The number may slip below the lower-bound, if so, bring-it-up
-            if (num < lowerBoundIncl) {
-                num = ((lowerBoundIncl / multipleOf) + 1) * multipleOf;
+        //The number may slip below the lower-bound, if so, bring-it-up
+        if (num < lowerBoundIncl) {
+            num = ((lowerBoundIncl / multipleOf) + 1) * multipleOf;
 
-                if (num > upperBoundIncl) {
-                    throw new IllegalArgumentException("No multiple of [" + multipleOf + "] "
-                        + "fits between [" + lowerBoundIncl + "] and [" + upperBoundIncl + "]");
-                }
+            if (num > upperBoundIncl) {
+                throw new IllegalArgumentException("No multiple of [" + multipleOf + "] "
+                    + "fits between [" + lowerBoundIncl + "] and [" + upperBoundIncl + "]");
             }
+        }
 
-            return num;
-        };
+        return num;
     }
 
 }
@@ -0,0 +1,8 @@
+package in.acode.utdatagen.suppliers;
+
+/**
+ * Common type of the value-suppliers which generate primitive values, without boxing the row-index, the previous value or the result
+ * <br>Use one of the sub-types - IntColumnSupplier, LongColumnSupplier, DoubleColumnSupplier or BooleanColumnSupplier
+ */
+public interface PrimitiveColumnSupplier {
+}
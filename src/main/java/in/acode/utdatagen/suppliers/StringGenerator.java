@@ -0,0 +1,128 @@
+package in.acode.utdatagen.suppliers;
+
+import java.util.function.Supplier;
+
+/**
+ * Generates random strings quickly, without any cryptographic quality
+ * <br>A string is made of characters of an alphabet, and its length is picked uniformly between the min and max lengths (both inclusive).
+ * The characters are drawn from CellRandom, three characters per random long, into a char buffer which is reused by the thread,
+ * so the only allocation per value is the String itself
+ * <br>With a corpus, a random string of characters is generated once, and each value is a slice of it at a random offset.
+ * This is the fastest way, at the cost of values which are less random
+ * <br>Use StringGeneratorBuilder to create a generator. A generator is immutable and thread-safe
+ */
+public class StringGenerator implements Supplier<String> {
+
+    /**
+     * Built-in alphabets
+     * <br>WORDS generates lower-case words of 2 to 8 letters, separated by single spaces
+     */
+    public enum Alphabet {
+        ALPHANUMERIC("ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789"),
+        ALPHABETIC("ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz"),
+        NUMERIC("0123456789"),
+        HEX("0123456789abcdef"),
+        WORDS("abcdefghijklmnopqrstuvwxyz");
+
+        private final String characters;
+
+        Alphabet(String characters) {
+            this.characters = characters;
+        }
+
+        public String getCharacters() {
+            return characters;
+        }
+    }
+
+    private static final int MIN_WORD_LENGTH = 2;
+    private static final int MAX_WORD_LENGTH = 8;
+
+    /**
+     * Bits of a random long used for each character, three characters are drawn from a long
+     */
+    private static final int BITS_PER_CHAR = 21;
+    private static final long CHAR_BITS_MASK = (1L << BITS_PER_CHAR) - 1;
+
+    /**
+     * Seed of the corpus, a fixed one so that the corpus is the same in every run
+     */
+    private static final long CORPUS_SEED = 0x5eed5eed5eed5eedL;
+
+    private static final ThreadLocal<char[]> BUFFERS = ThreadLocal.withInitial(() -> new char[64]);
+
+    private final char[] alphabet;
+    private final boolean words;
+    private final int minLength;
+    private final int maxLength;
+    private final char[] corpus;
+
+    StringGenerator(String alphabet, boolean words, int minLength, int maxLength, int corpusSize) {
+        this.alphabet = alphabet.toCharArray();
+        this.words = words;
+        this.minLength = minLength;
+        this.maxLength = maxLength;
+        this.corpus = corpusSize > 0 ? generateCorpus(corpusSize) : null;
+    }
+
+    public int getMinLength() {
+        return minLength;
+    }
+
+    public int getMaxLength() {
+        return maxLength;
+    }
+
+    /**
+     * Returns the next random string, drawn from the CellRandom of the current thread
+     */
+    @Override
+    public String get() {
+        CellRandom random = CellRandom.current();
+        int length = this.minLength == this.maxLength ? this.minLength : random.nextInt(this.minLength, this.maxLength + 1);
+
+        if (this.corpus != null) {
+            return new String(this.corpus, random.nextInt(this.corpus.length - length + 1), length);
+        }
+
+        char[] buffer = getBuffer(length);
+        fill(buffer, length, random);
+        return new String(buffer, 0, length);
+    }
+
+    private char[] generateCorpus(int corpusSize) {
+        char[] corpus = new char[corpusSize];
+        fill(corpus, corpusSize, CellRandom.newInstance(CORPUS_SEED));
+        return corpus;
+    }
+
+    /**
+     * Fills the first <code>length</code> characters of the buffer
+     */
+    private void fill(char[] buffer, int length, CellRandom random) {
+        int numOfChars = this.alphabet.length;
+        int i = 0;
+        while (i < length) {
+            long r = random.nextLong();
+            for (int k = 0; k < 3 && i < length; k++, r >>>= BITS_PER_CHAR) {
+                buffer[i++] = this.alphabet[(int)(((r & CHAR_BITS_MASK) * numOfChars) >>> BITS_PER_CHAR)];
+            }
+        }
+
+        if (this.words) {
+            for (int spaceIdx = random.nextInt(MIN_WORD_LENGTH, MAX_WORD_LENGTH + 1); spaceIdx < length - MIN_WORD_LENGTH;
+                 spaceIdx += 1 + random.nextInt(MIN_WORD_LENGTH, MAX_WORD_LENGTH + 1)) {
+                buffer[spaceIdx] = ' ';
+            }
+        }
+    }
+
+    private static char[] getBuffer(int length) {
+        char[] buffer = BUFFERS.get();
+        if (buffer.length < length) {
+            buffer = new char[Math.max(length, buffer.length * 2)];
+            BUFFERS.set(buffer);
+        }
+        return buffer;
+    }
+}
@@ -0,0 +1,85 @@
+package in.acode.utdatagen.suppliers;
+
+import in.acode.utdatagen.utils.Validator;
+
+/**
+ * Builds a StringGenerator, by default of alphanumeric strings of length 1 to 10 without a corpus
+ */
+public class StringGeneratorBuilder {
+
+    private String alphabet;
+    private boolean words;
+    private int minLength;
+    private int maxLength;
+    private int corpusSize;
+
+    private StringGeneratorBuilder() {
+        this.alphabet = StringGenerator.Alphabet.ALPHANUMERIC.getCharacters();
+        this.words = false;
+        this.minLength = 1;
+        this.maxLength = 10;
+        this.corpusSize = 0;
+    }
+
+    public static StringGeneratorBuilder getInstance() {
+        return new StringGeneratorBuilder();
+    }
+
+    public StringGeneratorBuilder withAlphabet(StringGenerator.Alphabet alphabet) {
+        this.alphabet = alphabet.getCharacters();
+        this.words = alphabet == StringGenerator.Alphabet.WORDS;
+        return this;
+    }
+
+    /**
+     * Uses a custom alphabet, with each character of the string being equally likely
+     */
+    public StringGeneratorBuilder withAlphabet(String characters) {
+        if (characters == null || characters.isEmpty()) {
+            throw new IllegalArgumentException("Alphabet must contain at least one character");
+        }
+
+        this.alphabet = characters;
+        this.words = false;
+        return this;
+    }
+
+    /**
+     * Sets the length of the strings, picked uniformly between the min and the max lengths (both inclusive)
+     */
+    public StringGeneratorBuilder withLength(int minLength, int maxLength) {
+        if (minLength < 0) {
+            throw new IllegalArgumentException("Min length must not be less than 0");
+        }
+        Validator.validateBounds(minLength, maxLength);
+
+        this.minLength = minLength;
+        this.maxLength = maxLength;
+        return this;
+    }
+
+    public StringGeneratorBuilder withLength(int length) {
+        return withLength(length, length);
+    }
+
+    /**
+     * Makes the generator slice its strings from a corpus of the specified number of characters, generated once.
+     * The corpus must be at least as big as the max length
+     */
+    public StringGeneratorBuilder withCorpus(int corpusSize) {
+        if (corpusSize <= 0) {
+            throw new IllegalArgumentException("Corpus size must be more than 0");
+        }
+
+        this.corpusSize = corpusSize;
+        return this;
+    }
+
+    public StringGenerator createStringGenerator() {
+        if (this.corpusSize > 0 && this.corpusSize < this.maxLength) {
+            throw new IllegalArgumentException("Corpus size must not be less than the max length");
+        }
+
+        return new StringGenerator(this.alphabet, this.words, this.minLength, this.maxLength, this.corpusSize);
+    }
+}
@@ -1,31 +1,34 @@
 package in.acode.utdatagen.suppliers;
 
-import in.acode.utdatagen.utils.Validator;
-import java.util.UUID;
 import java.util.function.Supplier;
 
+/**
+ * Built-in suppliers of String values, see StringGenerator for more options
+ */
 public class StringSuppliers {
 
     /**
-     * Returns a supplier of random strings within the min and max size limits
+     * Returns a supplier of random alphanumeric strings within the min and max size limits
      */
     public static Supplier<String> random(int minSize, int maxSize) {
-        Validator.validateBounds(minSize, maxSize);
-
-        return () -> {
-            String s = UUID.randomUUID().toString();
-            while(s.length() < minSize) {
-                s += UUID.randomUUID().toString();
-            }
-            return s.substring(0, Math.min(maxSize, s.length()));
-        };
+        return random(StringGenerator.Alphabet.ALPHANUMERIC, minSize, maxSize);
     }
 
     /**
-     * Returns a supplier of random strings within the max size limit
+     * Returns a supplier of random alphanumeric strings within the max size limit
      */
     public static Supplier<String> random(int maxSize) {
         return random(1, maxSize);
     }
 
+    /**
+     * Returns a supplier of random strings of the specified alphabet, within the min and max size limits
+     */
+    public static Supplier<String> random(StringGenerator.Alphabet alphabet, int minSize, int maxSize) {
+        return StringGeneratorBuilder.getInstance()
+            .withAlphabet(alphabet)
+            .withLength(minSize, maxSize)
+            .createStringGenerator();
+    }
+
 }
@@ -1,11 +1,13 @@
 package in.acode.utdatagen.utils;
 
+import java.math.BigDecimal;
 import java.sql.Date;
 import java.sql.Time;
 import java.sql.Timestamp;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.function.Function;
 
 public class JdbcTypeUtils {
 
@@ -32,6 +34,47 @@ public class JdbcTypeUtils {
         return javaTypeObject;
     }
 
+    /**
+     * Returns a function which does the same conversion as <code>toSQLType()</code>, for objects of the specified class
+     * Lets callers that see many values of the same class resolve the conversion once
+     */
+    public static Function<Object, Object> getSQLTypeConverter(Class<?> javaType) {
+        if (LocalDate.class.equals(javaType)) {
+            return javaTypeObject -> Date.valueOf((LocalDate)javaTypeObject);
+        }
+
+        if (LocalTime.class.equals(javaType)) {
+            return javaTypeObject -> Time.valueOf((LocalTime)javaTypeObject);
+        }
 
+        if (LocalDateTime.class.equals(javaType)) {
+            return javaTypeObject -> Timestamp.valueOf((LocalDateTime)javaTypeObject);
+        }
+
+        return Function.identity();
+    }
+
+    /**
+     * Converts an object of an SQL type (as returned by <code>toSQLType()</code>) to text,
+     * in a form which the bulk-loaders of the DBs (e.g. LOAD DATA of MySQL, COPY of PostgreSQL) accept for the column
+     * Returns null for null, it is up to the caller to encode it in the format of the loader
+     */
+    public static String toSQLText(Object sqlTypeObject) {
+        if (sqlTypeObject == null) return null;
+
+        if (sqlTypeObject instanceof Boolean) {
+            return (Boolean) sqlTypeObject ? "1" : "0";
+        }
+
+        if (sqlTypeObject instanceof BigDecimal) {
+            return ((BigDecimal) sqlTypeObject).toPlainString();
+        }
+
+        if (sqlTypeObject instanceof java.util.Date && !(sqlTypeObject instanceof Date || sqlTypeObject instanceof Time || sqlTypeObject instanceof Timestamp)) {
+            return new Timestamp(((java.util.Date) sqlTypeObject).getTime()).toString();
+        }
+
+        return sqlTypeObject.toString();
+    }
 
 }
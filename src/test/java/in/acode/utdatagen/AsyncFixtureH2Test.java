@@ -0,0 +1,106 @@
+package in.acode.utdatagen;
+
+import static org.junit.Assert.*;
+
+import com.zaxxer.hikari.HikariDataSource;
+import in.acode.utdatagen.datasources.H2DataSource;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.TransactionAwareDataSourceProxy;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+
+/**
+ * Tests for the async operations of the fixtures, against an in-memory H2 DB in MySQL mode
+ */
+@RunWith(SpringRunner.class)
+@ActiveProfiles("test")
+@SpringBootTest
+@ContextConfiguration(classes = {H2DataSource.class})
+public class AsyncFixtureH2Test {
+
+    @Autowired
+    @Qualifier("h2-jdbc-template")
+    private JdbcTemplate jdbcTemplate;
+
+    private DBTableFixture testTableFixture;
+    private DBTableFixture parentTableFixture;
+
+    @Before
+    public void setup() {
+        testTableFixture = DBTableFixture.getInstance("test_table", jdbcTemplate);
+        parentTableFixture = DBTableFixture.getInstance("test_parent_table", jdbcTemplate);
+        DBTableFixture.truncateTables(Arrays.asList(testTableFixture, parentTableFixture,
+            DBTableFixture.getInstance("test_child_table", jdbcTemplate)), 2);
+    }
+
+    @Test
+    public void shouldSeedTablesConcurrentlyAndJoin() {
+        CompletableFuture<InsertionStats> testTableInsertion = testTableFixture.insertRowsAsync(InsertionCriteria.newInstance()
+            .forNumberOfRows(200)
+            .withCondition("int_column", (Integer rowIndex) -> rowIndex));
+        CompletableFuture<InsertionStats> parentTableInsertion = parentTableFixture.insertRowsAsync(InsertionCriteria.newInstance()
+            .forNumberOfRows(50)
+            .withCondition("code", (Integer rowIndex) -> "code-" + rowIndex));
+        CompletableFuture.allOf(testTableInsertion, parentTableInsertion).join();
+
+        assertEquals(200, testTableInsertion.join().getNumOfRows());
+        List<Map<String, Object>> parentRows = parentTableFixture.getAllRowsAsync("code").join();
+        assertEquals(50, parentRows.size());
+        assertEquals(200, testTableFixture.getAllRowsAsync().join().size());
+
+        assertEquals(200, (int) testTableFixture.truncateTableAsync().join());
+        assertTrue(testTableFixture.getAllRows().isEmpty());
+    }
+
+    @Test
+    public void shouldRunOnTheConfiguredExecutorOrInTheSession() {
+        AtomicInteger numOfTasks = new AtomicInteger();
+        testTableFixture.withAsyncExecutor(task -> {
+            numOfTasks.incrementAndGet();
+            new Thread(task).start();
+        });
+        testTableFixture.insertRowsAsync(InsertionCriteria.newInstance().forNumberOfRows(10)).join();
+        assertEquals(1, numOfTasks.get());
+
+        try (FixtureSession session = FixtureSession.begin(jdbcTemplate)) {
+            CompletableFuture<InsertionStats> insertion = testTableFixture.insertRowsAsync(InsertionCriteria.newInstance().forNumberOfRows(5));
+            assertTrue(insertion.isDone());
+            assertEquals(1, numOfTasks.get());
+            assertEquals(15, testTableFixture.getAllRows().size());
+
+            CompletableFuture<Integer> truncation = testTableFixture.withResetStrategy(ResetStrategy.TRUNCATE).truncateTableAsync();
+            assertTrue(truncation.isCompletedExceptionally());
+            try {
+                truncation.join();
+                fail("TRUNCATE is not allowed inside a session");
+            } catch (CompletionException e) {
+                assertTrue(e.getCause() instanceof IllegalStateException);
+            }
+        }
+        assertEquals(10, testTableFixture.getAllRows().size());
+    }
+
+    @Test
+    public void shouldBoundTheExecutorByThePoolSize() {
+        try (HikariDataSource pooledDataSource = new HikariDataSource()) {
+            pooledDataSource.setMaximumPoolSize(3);
+            assertEquals(3, AsyncExecutors.getPoolSize(pooledDataSource));
+            assertEquals(3, AsyncExecutors.getPoolSize(new TransactionAwareDataSourceProxy(pooledDataSource)));
+        }
+        assertEquals(Runtime.getRuntime().availableProcessors(), AsyncExecutors.getPoolSize(jdbcTemplate.getDataSource()));
+        assertSame(AsyncExecutors.forDataSource(jdbcTemplate.getDataSource()), AsyncExecutors.forDataSource(jdbcTemplate.getDataSource()));
+    }
+}
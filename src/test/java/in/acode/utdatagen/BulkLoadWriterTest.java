@@ -0,0 +1,58 @@
+package in.acode.utdatagen;
+
+import static org.junit.Assert.assertEquals;
+
+import in.acode.utdatagen.meta.DBColumnMetadataBuilder;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.Arrays;
+import org.junit.Test;
+
+public class BulkLoadWriterTest {
+
+    @Test
+    public void shouldEncodeRowsInTextFormat() {
+        StringBuilder rowBuilder = new StringBuilder();
+        BulkLoadWriter.appendTextRow(rowBuilder, new Object[] {"a\tb\\c\nd", null, true, new BigDecimal("1E+2"), Date.valueOf(LocalDate.of(2020, 1, 2))}, Dialect.MYSQL);
+
+        assertEquals("a\\tb\\\\c\\nd\t\\N\t1\t100\t2020-01-02\n", rowBuilder.toString());
+    }
+
+    @Test
+    public void shouldEncodeRowsInCsvFormat() {
+        StringBuilder rowBuilder = new StringBuilder();
+        BulkLoadWriter.appendCsvRow(rowBuilder, new Object[] {"say \"hi\", bye", null, "", 10});
+
+        assertEquals("\"say \"\"hi\"\", bye\",,\"\",\"10\"\n", rowBuilder.toString());
+    }
+
+    @Test
+    public void shouldEncodeBinaryValuesAsHex() {
+        byte[] bytes = {0x00, 0x7f, (byte) 0x80, (byte) 0xff};
+        StringBuilder rowBuilder = new StringBuilder();
+        BulkLoadWriter.appendTextRow(rowBuilder, new Object[] {bytes, 1}, Dialect.MYSQL);
+        BulkLoadWriter.appendTextRow(rowBuilder, new Object[] {bytes, 1}, Dialect.POSTGRESQL);
+
+        assertEquals("007f80ff\t1\n" + "\\\\x007f80ff\t1\n", rowBuilder.toString());
+        assertEquals(" (id, @payload) SET payload = UNHEX(@payload)", BulkLoadWriter.getMySqlColumnList(Arrays.asList(
+            DBColumnMetadataBuilder.getInstance().withColumnName("id").withDataType(Types.INTEGER).createDBColumnMetadata(),
+            DBColumnMetadataBuilder.getInstance().withColumnName("payload").withDataType(Types.VARBINARY).createDBColumnMetadata())));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectValuesWithoutATextForm() {
+        BulkLoadWriter.appendTextRow(new StringBuilder(), new Object[] {new Object()}, Dialect.POSTGRESQL);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectBinaryValuesOnH2() {
+        BulkLoadWriter.appendCsvRow(new StringBuilder(), new Object[] {new byte[] {1}});
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldRejectUnsupportedDBs() {
+        BulkLoadWriter.getSupportedDialect("Oracle");
+    }
+}
@@ -0,0 +1,272 @@
+package in.acode.utdatagen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import in.acode.utdatagen.datasources.H2DataSource;
+import in.acode.utdatagen.suppliers.CellRandom;
+import in.acode.utdatagen.suppliers.DateSuppliers;
+import in.acode.utdatagen.suppliers.StringSuppliers;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+
+/**
+ * Tests for the insertion paths, against an in-memory H2 DB in MySQL mode
+ */
+@RunWith(SpringRunner.class)
+@ActiveProfiles("test")
+@SpringBootTest
+@ContextConfiguration(classes = {H2DataSource.class})
+public class DBTableFixtureH2Test {
+
+    @Autowired
+    @Qualifier("h2-jdbc-template")
+    private JdbcTemplate jdbcTemplate;
+
+    DBTableFixture testTableFixture;
+
+    @Before
+    public void setup() {
+        testTableFixture = DBTableFixture.getInstance("test_table", jdbcTemplate);
+        testTableFixture.truncateTable();
+    }
+
+    @Test
+    public void shouldInsertTheSameRowsWithAllInsertionStrategies() {
+        for (InsertionStrategy insertionStrategy : InsertionStrategy.values()) {
+            testTableFixture.truncateTable();
+            testTableFixture.withInsertionStrategy(insertionStrategy).withBatchSize(7);
+            testTableFixture.insertRows(getDeterministicCriteria(50));
+
+            List<Map<String, Object>> allRows = testTableFixture.getAllRows("int_column");
+            assertEquals(insertionStrategy.name(), 50, allRows.size());
+            verifyDeterministicRows(allRows);
+        }
+    }
+
+    @Test
+    public void shouldInsertTheSameRowsWhenPipelinedOrParallel() {
+        testTableFixture.withBatchSize(6).insertRowsPipelined(getDeterministicCriteria(40));
+        verifyDeterministicRows(testTableFixture.getAllRows("int_column"));
+
+        testTableFixture.truncateTable();
+        testTableFixture.withBatchSize(3).insertRowsInParallel(getDeterministicCriteria(40), 3);
+        verifyDeterministicRows(testTableFixture.getAllRows("int_column"));
+    }
+
+    @Test
+    public void shouldBulkLoadSpecialCharactersAndNulls() {
+        InsertionCriteria insertionCriteria = InsertionCriteria.newInstance()
+            .forNumberOfRows(4)
+            .withCondition("int_column", 1, 2, 3, 4)
+            .withCondition("varchar_column", "comma,quote\"", "tab\tbackslash\\", "new\nline", "");
+
+        testTableFixture.withInsertionStrategy(InsertionStrategy.BULK_LOAD).insertRows(insertionCriteria);
+
+        List<Map<String, Object>> allRows = testTableFixture.getAllRows("int_column");
+        assertEquals(4, allRows.size());
+        assertEquals("comma,quote\"", allRows.get(0).get("varchar_column"));
+        assertEquals("tab\tbackslash\\", allRows.get(1).get("varchar_column"));
+        assertEquals("new\nline", allRows.get(2).get("varchar_column"));
+        assertEquals("", allRows.get(3).get("varchar_column"));
+        assertNull(allRows.get(0).get("numeric_column"));
+        assertNull(allRows.get(0).get("date_column"));
+    }
+
+    @Test
+    public void shouldInsertPrimitiveValuesWithAllInsertionStrategies() {
+        InsertionCriteria insertionCriteria = InsertionCriteria.newInstance()
+            .forNumberOfRows(30)
+            .withIntCondition("int_column", -1, (rowIndex, prevValue) -> prevValue + 1)
+            .withLongCondition("numeric_column", (rowIndex, prevValue) -> rowIndex * 3L)
+            .withDoubleCondition("float_column", (rowIndex, prevValue) -> rowIndex / 4.0)
+            .withBooleanCondition("boolean_column", (rowIndex, prevValue) -> !prevValue);
+
+        for (InsertionStrategy insertionStrategy : InsertionStrategy.values()) {
+            testTableFixture.truncateTable();
+            testTableFixture.withInsertionStrategy(insertionStrategy).withBatchSize(8);
+            testTableFixture.insertRows(insertionCriteria);
+
+            List<Map<String, Object>> allRows = testTableFixture.getAllRows("int_column");
+            assertEquals(insertionStrategy.name(), 30, allRows.size());
+            for (int i = 0; i < allRows.size(); i++) {
+                Map<String, Object> row = allRows.get(i);
+                assertEquals(i, row.get("int_column"));
+                assertEquals(new BigDecimal(i * 3).setScale(2), row.get("numeric_column"));
+                assertEquals(i / 4.0, ((Number) row.get("float_column")).doubleValue(), 0.0);
+                assertEquals(i % 2 == 0 ? 1 : 0, ((Number) row.get("boolean_column")).intValue());
+            }
+        }
+    }
+
+    @Test
+    public void shouldInsertTheSameRandomRowsWithTheSameSeed() {
+        InsertionCriteria insertionCriteria = InsertionCriteria.newInstance()
+            .forNumberOfRows(40)
+            .withSeed(20200101)
+            .withCondition("int_column", (Integer rowIndex) -> rowIndex)
+            .withCondition("varchar_column", StringSuppliers.random(5, 20))
+            .withCondition("date_column", DateSuppliers.random(LocalDate.of(2020, 1, 1), LocalDate.of(2020, 12, 31)))
+            .withDoubleCondition("float_column", (rowIndex, prevValue) -> CellRandom.current().nextDouble());
+
+        InsertionStats stats = testTableFixture.withBatchSize(7).insertRows(insertionCriteria);
+        assertEquals(20200101, stats.getSeed());
+        List<Map<String, Object>> serialRows = testTableFixture.getAllRows("int_column");
+
+        testTableFixture.truncateTable();
+        testTableFixture.insertRowsInParallel(insertionCriteria, 3);
+        List<Map<String, Object>> parallelRows = testTableFixture.getAllRows("int_column");
+
+        assertEquals(40, parallelRows.size());
+        for (int i = 0; i < serialRows.size(); i++) {
+            serialRows.get(i).remove("id");
+            parallelRows.get(i).remove("id");
+            assertEquals(serialRows.get(i), parallelRows.get(i));
+        }
+    }
+
+    @Test
+    public void shouldContinueTheSequencesWhenAppendingToTheTable() {
+        testTableFixture.withBatchSize(8).insertRows(getDeterministicCriteria(20));
+        testTableFixture.insertRows(getDeterministicCriteria(10).appendToTable(true));
+        testTableFixture.insertRowsPipelined(getDeterministicCriteria(10).appendToTable(true));
+        testTableFixture.insertRowsInParallel(getDeterministicCriteria(15).appendToTable(true), 3);
+
+        List<Map<String, Object>> allRows = testTableFixture.getAllRows("int_column");
+        assertEquals(55, allRows.size());
+        verifyDeterministicRows(allRows);
+
+        testTableFixture.truncateTable();
+        InsertionCriteria primitiveCriteria = InsertionCriteria.newInstance()
+            .forNumberOfRows(5)
+            .appendToTable(true)
+            .withIntCondition("int_column", 99, (rowIndex, prevValue) -> prevValue + 1);
+        testTableFixture.insertRows(primitiveCriteria);
+        testTableFixture.insertRows(primitiveCriteria);
+        assertEquals(109, (int) jdbcTemplate.queryForObject("SELECT MAX(int_column) FROM test_table", Integer.class));
+    }
+
+    @Test
+    public void shouldGetAllRowsAsMapsOverTheColumns() {
+        testTableFixture.insertRows(InsertionCriteria.newInstance()
+            .forNumberOfRows(100)
+            .withCondition("int_column", (Integer rowIndex) -> rowIndex % 3 == 0 ? null : rowIndex)
+            .withCondition("varchar_column", (Integer rowIndex) -> "row-" + rowIndex));
+
+        List<Map<String, Object>> allRows = testTableFixture.getAllRows("id");
+        List<Map<String, Object>> expectedRows = jdbcTemplate.queryForList("SELECT * FROM test_table ORDER BY id");
+        assertEquals(100, allRows.size());
+        assertEquals(expectedRows.size(), allRows.size());
+
+        for (int i = 0; i < allRows.size(); i++) {
+            Map<String, Object> row = allRows.get(i);
+            assertEquals(testTableFixture.getColumns().size(), row.size());
+            assertTrue(row.containsKey("int_column"));
+            assertEquals(i % 3 == 0 ? null : i, row.get("int_column"));
+            assertEquals(new HashMap<>(row), row);
+            assertEquals(new HashMap<>(row).hashCode(), row.hashCode());
+            assertEquals(expectedRows.get(i).get("varchar_column"), row.get("varchar_column"));
+        }
+
+        allRows.get(1).remove("id");
+        allRows.get(1).put("extra_column", 1);
+        assertEquals(testTableFixture.getColumns().size(), allRows.get(1).size());
+        assertFalse(allRows.get(1).containsKey("id"));
+        assertEquals(1, allRows.get(1).get("int_column"));
+        assertTrue(allRows.get(2).containsKey("id"));
+
+        assertTrue(allRows.get(3).keySet().remove("id"));
+        assertFalse(allRows.get(3).containsKey("id"));
+        allRows.get(4).entrySet().removeIf(entry -> entry.getValue() == null);
+        assertEquals(3, allRows.get(4).size());
+        allRows.get(5).keySet().retainAll(Collections.singleton("varchar_column"));
+        assertEquals(Collections.singletonMap("varchar_column", "row-5"), allRows.get(5));
+        for (Map.Entry<String, Object> entry : allRows.get(6).entrySet()) {
+            if (entry.getKey().equals("int_column")) {
+                assertNull(entry.setValue(60));
+            }
+        }
+        assertEquals(60, allRows.get(6).get("int_column"));
+        assertEquals(expectedRows.get(7).get("id"), allRows.get(7).get("id"));
+    }
+
+    @Test
+    public void shouldAddAndRemoveRowsLikeAnArrayList() {
+        testTableFixture.insertRows(InsertionCriteria.newInstance()
+            .forNumberOfRows(10)
+            .withCondition("int_column", (Integer rowIndex) -> rowIndex));
+
+        List<Map<String, Object>> allRows = testTableFixture.getAllRows("id");
+        Map<String, Object> firstRow = allRows.get(0);
+        Map<String, Object> lastRow = allRows.get(9);
+        allRows.get(1).put("int_column", 100);
+
+        assertEquals(0, allRows.remove(0).get("int_column"));
+        assertEquals(100, allRows.get(0).get("int_column"));
+        assertTrue(allRows.removeIf(row -> (int) row.get("int_column") % 2 == 0));
+        assertEquals(Arrays.asList(3, 5, 7, 9), allRows.stream().map(row -> row.get("int_column")).collect(Collectors.toList()));
+
+        lastRow.put("int_column", 90);
+        assertEquals(90, allRows.get(3).get("int_column"));
+        assertEquals(0, firstRow.get("int_column"));
+
+        allRows.add(Collections.singletonMap("int_column", 11));
+        assertEquals(5, allRows.size());
+        assertEquals(11, allRows.get(4).get("int_column"));
+        allRows.clear();
+        assertTrue(allRows.isEmpty());
+    }
+
+    private InsertionCriteria getDeterministicCriteria(int numOfRows) {
+        BiFunction<Integer, Object, Object> runningTotalSupplier = (rowIndex, prevValue) -> prevValue == null ? 0 : (int) prevValue + rowIndex;
+        LocalDate firstDate = LocalDate.of(2020, 1, 1);
+
+        return InsertionCriteria.newInstance()
+            .forNumberOfRows(numOfRows)
+            .withCondition("int_column", runningTotalSupplier)
+            .withCondition("varchar_column", (Integer rowIndex) -> "row-" + rowIndex)
+            .withCondition("numeric_column", (Integer rowIndex) -> new BigDecimal(rowIndex).movePointLeft(2))
+            .withCondition("date_column", (Integer rowIndex) -> firstDate.plusDays(rowIndex))
+            .withCondition("timestamp_column", (Integer rowIndex) -> firstDate.atStartOfDay().plusMinutes(rowIndex))
+            .withCondition("boolean_column", true, false);
+    }
+
+    private void verifyDeterministicRows(List<Map<String, Object>> rowsOrderedByIntColumn) {
+        LocalDate firstDate = LocalDate.of(2020, 1, 1);
+        int runningTotal = 0;
+
+        for (int i = 0; i < rowsOrderedByIntColumn.size(); i++) {
+            Map<String, Object> row = rowsOrderedByIntColumn.get(i);
+            runningTotal += i;
+
+            assertEquals(runningTotal, row.get("int_column"));
+            assertEquals("row-" + i, row.get("varchar_column"));
+            assertEquals(new BigDecimal(i).movePointLeft(2).setScale(2), row.get("numeric_column"));
+            assertEquals(Date.valueOf(firstDate.plusDays(i)), row.get("date_column"));
+            assertEquals(Timestamp.valueOf(firstDate.atStartOfDay().plusMinutes(i)), row.get("timestamp_column"));
+            assertEquals(i % 2 == 0 ? 1 : 0, ((Number) row.get("boolean_column")).intValue());
+            assertNull(row.get("char_column"));
+        }
+    }
+}
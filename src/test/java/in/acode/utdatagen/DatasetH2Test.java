@@ -0,0 +1,174 @@
+package in.acode.utdatagen;
+
+import static org.junit.Assert.*;
+
+import in.acode.utdatagen.datasources.H2DataSource;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+
+/**
+ * Tests for saving datasets to files and restoring them, against an in-memory H2 DB in MySQL mode
+ */
+@RunWith(SpringRunner.class)
+@ActiveProfiles("test")
+@SpringBootTest
+@ContextConfiguration(classes = {H2DataSource.class})
+public class DatasetH2Test {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Autowired
+    @Qualifier("h2-jdbc-template")
+    private JdbcTemplate jdbcTemplate;
+
+    private DBTableFixture testTableFixture;
+    private Path datasetPath;
+
+    @Before
+    public void setup() {
+        testTableFixture = DBTableFixture.getInstance("test_table", jdbcTemplate).withBatchSize(300);
+        testTableFixture.truncateTable();
+        datasetPath = temporaryFolder.getRoot().toPath().resolve("test_table.dataset");
+    }
+
+    @Test
+    public void shouldRestoreTheGeneratedRows() {
+        for (boolean compressed : new boolean[] {false, true}) {
+            InsertionCriteria criteria = InsertionCriteria.newInstance().forNumberOfRows(1000).withSeed(42L);
+            testTableFixture.insertRows(criteria);
+            List<Map<String, Object>> insertedRows = getRowsWithoutIds();
+            testTableFixture.truncateTable();
+
+            assertEquals(1000, testTableFixture.withDatasetCompression(compressed).saveDataset(criteria, datasetPath));
+            assertEquals(0, testTableFixture.getAllRows().size());
+
+            InsertionStats stats = testTableFixture.restoreDataset(datasetPath);
+            assertEquals(1000, stats.getNumOfRows());
+            assertEquals(42L, stats.getSeed());
+            assertEquals(4, stats.getNumOfBatches());
+            assertEquals(insertedRows, getRowsWithoutIds());
+            testTableFixture.truncateTable();
+        }
+    }
+
+    @Test
+    public void shouldRestoreTheRowsOfTheTable() {
+        testTableFixture.insertRows(InsertionCriteria.newInstance()
+            .forNumberOfRows(700)
+            .withIntCondition("int_column", (rowIdx, prevValue) -> rowIdx % 3 == 0 ? prevValue : rowIdx)
+            .withCondition("varchar_column", (rowIdx, prevValue) -> rowIdx % 5 == 0 ? null : "value-é-" + rowIdx));
+        List<Map<String, Object>> savedRows = getRowsWithoutIds();
+
+        assertEquals(700, testTableFixture.withDatasetCompression(true).saveTableDataset(datasetPath));
+        testTableFixture.truncateTable();
+
+        assertEquals(700, testTableFixture.restoreDataset(datasetPath).getNumOfRows());
+        assertEquals(savedRows, getRowsWithoutIds());
+    }
+
+    @Test
+    public void shouldNotRestoreACorruptDataset() throws Exception {
+        testTableFixture.saveDataset(InsertionCriteria.newInstance().forNumberOfRows(100), datasetPath);
+        try (RandomAccessFile file = new RandomAccessFile(datasetPath.toFile(), "rw")) {
+            file.seek(file.length() - 100);
+            int value = file.read();
+            file.seek(file.length() - 100);
+            file.write(value ^ 0xff);
+        }
+
+        try {
+            testTableFixture.restoreDataset(datasetPath);
+            fail("A corrupt dataset must not be restored");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().contains("corrupt"));
+        }
+    }
+
+    @Test
+    public void shouldNotRestoreADatasetOfOtherColumns() throws Exception {
+        testTableFixture.saveDataset(InsertionCriteria.newInstance().forNumberOfRows(10), datasetPath);
+        assertTrue(Files.size(datasetPath) > 0);
+
+        try {
+            DBTableFixture.getInstance("test_parent_table", jdbcTemplate).restoreDataset(datasetPath);
+            fail("A dataset of other columns must not be restored");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().contains("don't match"));
+        }
+    }
+
+    @Test
+    public void shouldRestoreDatesAndTimesAsTheyReadInAnyTimeZone() throws Exception {
+        RowPlan plan = RowPlan.compile(InsertionCriteria.newInstance().forNumberOfRows(1), testTableFixture.getTableMetadata().getColumns());
+        int dateSlot = getSlot(plan, "date_column");
+        int timeSlot = getSlot(plan, "varchar_column");
+        int timestampSlot = getSlot(plan, "timestamp_column");
+
+        TimeZone defaultTimeZone = TimeZone.getDefault();
+        try {
+            TimeZone.setDefault(TimeZone.getTimeZone("Asia/Kolkata"));
+            Date date = Date.valueOf("2020-03-29");
+            Time time = Time.valueOf("02:30:15");
+            time.setTime(time.getTime() + 250);
+            Timestamp timestamp = Timestamp.valueOf("2020-03-29 02:30:15.123456789");
+            RowBatch batch = new RowBatch(plan, 1);
+            batch.getObjectValues(dateSlot)[0] = date;
+            batch.getObjectValues(timeSlot)[0] = time;
+            batch.getObjectValues(timestampSlot)[0] = timestamp;
+            batch.setSize(1);
+            try (DatasetWriter datasetWriter = new DatasetWriter(datasetPath, plan, 1, null, false)) {
+                datasetWriter.write(batch);
+                datasetWriter.finish();
+            }
+
+            TimeZone.setDefault(TimeZone.getTimeZone("America/Los_Angeles"));
+            try (DatasetReader datasetReader = new DatasetReader(datasetPath)) {
+                RowBatch restoredBatch = datasetReader.newBatch(1);
+                datasetReader.nextBatch(restoredBatch);
+                assertEquals(LocalDate.of(2020, 3, 29), ((Date) restoredBatch.getValue(0, dateSlot)).toLocalDate());
+                assertEquals(LocalTime.of(2, 30, 15), ((Time) restoredBatch.getValue(0, timeSlot)).toLocalTime());
+                assertEquals(250, ((Time) restoredBatch.getValue(0, timeSlot)).getTime() % 1000);
+                assertEquals(LocalDateTime.of(2020, 3, 29, 2, 30, 15, 123456789), ((Timestamp) restoredBatch.getValue(0, timestampSlot)).toLocalDateTime());
+            }
+        } finally {
+            TimeZone.setDefault(defaultTimeZone);
+        }
+    }
+
+    private List<Map<String, Object>> getRowsWithoutIds() {
+        List<Map<String, Object>> rows = testTableFixture.getAllRows("id");
+        rows.forEach(row -> row.remove("id"));
+        return rows;
+    }
+
+    private static int getSlot(RowPlan plan, String columnName) {
+        int slot = 0;
+        while (!plan.getColumnName(slot).equalsIgnoreCase(columnName)) {
+            slot++;
+        }
+        return slot;
+    }
+}
@@ -0,0 +1,18 @@
+package in.acode.utdatagen;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class DialectTest {
+
+    @Test
+    public void shouldTellTheDialectByTheProductName() {
+        assertEquals(Dialect.MYSQL, Dialect.getDialect("MySQL"));
+        assertEquals(Dialect.MYSQL, Dialect.getDialect("MariaDB"));
+        assertEquals(Dialect.POSTGRESQL, Dialect.getDialect("PostgreSQL"));
+        assertEquals(Dialect.H2, Dialect.getDialect("H2"));
+        assertEquals(Dialect.OTHER, Dialect.getDialect("Oracle"));
+        assertEquals(Dialect.OTHER, Dialect.getDialect(null));
+    }
+}
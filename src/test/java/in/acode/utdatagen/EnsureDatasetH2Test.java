@@ -0,0 +1,130 @@
+package in.acode.utdatagen;
+
+import static org.junit.Assert.*;
+
+import in.acode.utdatagen.datasources.H2DataSource;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+
+/**
+ * Tests for skipping the insertion of a dataset which the table already holds, against an in-memory H2 DB in MySQL mode
+ */
+@RunWith(SpringRunner.class)
+@ActiveProfiles("test")
+@SpringBootTest
+@ContextConfiguration(classes = {H2DataSource.class})
+public class EnsureDatasetH2Test {
+
+    @Autowired
+    @Qualifier("h2-jdbc-template")
+    private JdbcTemplate jdbcTemplate;
+
+    private DBTableFixture testTableFixture;
+
+    @Before
+    public void setup() {
+        testTableFixture = DBTableFixture.getInstance("test_table", jdbcTemplate);
+        testTableFixture.truncateTable();
+    }
+
+    @Test
+    public void shouldSkipTheInsertionOfTheSameDataset() {
+        assertFalse(testTableFixture.insertRows(getCriteria(500, 7L)).isSkipped());
+        assertTrue(testTableFixture.insertRows(getCriteria(500, 7L)).isSkipped());
+        assertTrue(testTableFixture.insertRowsPipelined(getCriteria(500, 7L)).isSkipped());
+        assertTrue(testTableFixture.insertRowsInParallel(getCriteria(500, 7L), 2).isSkipped());
+        assertEquals(500, testTableFixture.getAllRows().size());
+    }
+
+    @Test
+    public void shouldReplaceADifferentDataset() {
+        testTableFixture.insertRows(getCriteria(500, 7L));
+
+        assertFalse(testTableFixture.insertRows(getCriteria(500, 8L)).isSkipped());
+        assertFalse(testTableFixture.insertRows(getCriteria(300, 8L)).isSkipped());
+        assertFalse(testTableFixture.insertRows(getCriteria(300, 8L).withDatasetVersion("other")
+            .withCondition("varchar_column", (rowIdx, prevValue) -> "other-" + rowIdx)).isSkipped());
+        assertEquals(300, testTableFixture.getAllRows().size());
+        assertEquals(300, (int) jdbcTemplate.queryForObject("SELECT COUNT(*) FROM test_table WHERE varchar_column LIKE 'other-%'", Integer.class));
+    }
+
+    @Test
+    public void shouldInsertAgainWhenTheFixtureHasChangedTheRows() {
+        testTableFixture.insertRows(getCriteria(500, 7L));
+        testTableFixture.truncateTable();
+        assertFalse(testTableFixture.insertRows(getCriteria(500, 7L)).isSkipped());
+        assertEquals(500, testTableFixture.getAllRows().size());
+
+        testTableFixture.insertRows(getCriteria(10, 7L).ensureDataset(false));
+        assertFalse(testTableFixture.insertRows(getCriteria(500, 7L)).isSkipped());
+        assertEquals(500, testTableFixture.getAllRows().size());
+    }
+
+    @Test
+    public void shouldSkipTheInsertionWithTheDefaultsOfTemporalColumns() {
+        DBTableFixture auditedTableFixture = DBTableFixture.getInstance("test_audited_table", jdbcTemplate);
+        auditedTableFixture.truncateTable();
+        InsertionCriteria criteria = InsertionCriteria.newInstance()
+            .forNumberOfRows(100)
+            .withSeed(7L)
+            .withCondition("name", (Integer rowIdx) -> "name-" + rowIdx)
+            .ensureDataset(true);
+
+        assertFalse(auditedTableFixture.insertRows(criteria).isSkipped());
+        assertTrue(auditedTableFixture.insertRows(criteria).isSkipped());
+        assertEquals(100, auditedTableFixture.getAllRows().size());
+    }
+
+    @Test
+    public void shouldTellSuppliersApartByTheirCapturedValuesOrTheDatasetVersion() {
+        testTableFixture.insertRows(getCriteria(100, 7L).withCondition("int_column", 1, 2));
+        assertTrue(testTableFixture.insertRows(getCriteria(100, 7L).withCondition("int_column", 1, 2)).isSkipped());
+        assertFalse(testTableFixture.insertRows(getCriteria(100, 7L).withCondition("int_column", 1, 3)).isSkipped());
+
+        testTableFixture.insertRows(getCriteria(100, 7L).withCondition("int_column", (Integer rowIdx) -> rowIdx));
+        assertTrue(testTableFixture.insertRows(getCriteria(100, 7L).withCondition("int_column", (Integer rowIdx) -> rowIdx)).isSkipped());
+        assertFalse(testTableFixture.insertRows(getCriteria(100, 7L).withDatasetVersion("2")
+            .withCondition("int_column", (Integer rowIdx) -> rowIdx + 1)).isSkipped());
+        assertEquals(100, (int) jdbcTemplate.queryForObject("SELECT MAX(int_column) FROM test_table", Integer.class));
+    }
+
+    @Test
+    public void shouldNotCallTheSuppliersToFingerprintTheDataset() {
+        AtomicInteger counter = new AtomicInteger();
+        InsertionCriteria criteria = getCriteria(10, 7L).withCondition("int_column", (Integer rowIdx) -> counter.incrementAndGet());
+
+        assertFalse(testTableFixture.insertRows(criteria).isSkipped());
+        assertEquals(1, (int) jdbcTemplate.queryForObject("SELECT MIN(int_column) FROM test_table", Integer.class));
+        assertTrue(testTableFixture.insertRows(criteria).isSkipped());
+        assertEquals(10, counter.get());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldNotEnsureADatasetInsideASession() {
+        try (FixtureSession session = FixtureSession.begin(jdbcTemplate)) {
+            testTableFixture.insertRows(getCriteria(10, 7L));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNeedASeed() {
+        testTableFixture.insertRows(InsertionCriteria.newInstance().forNumberOfRows(10).ensureDataset(true));
+    }
+
+    private InsertionCriteria getCriteria(int numOfRows, long seed) {
+        return InsertionCriteria.newInstance()
+            .forNumberOfRows(numOfRows)
+            .withSeed(seed)
+            .withCondition("varchar_column", (rowIdx, prevValue) -> "value-" + rowIdx)
+            .ensureDataset(true);
+    }
+}
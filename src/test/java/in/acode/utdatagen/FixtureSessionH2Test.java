@@ -0,0 +1,117 @@
+package in.acode.utdatagen;
+
+import static org.junit.Assert.*;
+
+import in.acode.utdatagen.datasources.H2DataSource;
+import java.sql.Savepoint;
+import java.util.Arrays;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+
+/**
+ * Tests for the rollback-based cleanup of FixtureSession, against an in-memory H2 DB in MySQL mode
+ */
+@RunWith(SpringRunner.class)
+@ActiveProfiles("test")
+@SpringBootTest
+@ContextConfiguration(classes = {H2DataSource.class})
+public class FixtureSessionH2Test {
+
+    @Autowired
+    @Qualifier("h2-jdbc-template")
+    private JdbcTemplate jdbcTemplate;
+
+    private DBTableFixture testTableFixture;
+
+    @Before
+    public void setup() {
+        testTableFixture = DBTableFixture.getInstance("test_table", jdbcTemplate);
+        testTableFixture.truncateTable();
+    }
+
+    @Test
+    public void shouldRollBackTheRowsInsertedInASession() {
+        try (FixtureSession session = FixtureSession.begin(jdbcTemplate)) {
+            assertFalse(session.isNested());
+            testTableFixture.insertRows(InsertionCriteria.newInstance().forNumberOfRows(20));
+            assertEquals(20, testTableFixture.getAllRows().size());
+        }
+
+        assertFalse(FixtureSession.isActive(jdbcTemplate.getDataSource()));
+        assertEquals(0, testTableFixture.getAllRows().size());
+    }
+
+    @Test
+    public void shouldKeepTheBaselineOfTheOuterSessionAfterANestedSession() {
+        try (FixtureSession baseline = FixtureSession.begin(jdbcTemplate)) {
+            testTableFixture.insertRows(InsertionCriteria.newInstance().forNumberOfRows(10));
+
+            for (int i = 0; i < 3; i++) {
+                try (FixtureSession session = FixtureSession.begin(jdbcTemplate)) {
+                    assertTrue(session.isNested());
+                    testTableFixture.insertRows(InsertionCriteria.newInstance().forNumberOfRows(5));
+                    DBTableFixture.truncateTables(Arrays.asList(testTableFixture), 2);
+                    assertEquals(0, testTableFixture.getAllRows().size());
+                }
+                assertEquals(10, testTableFixture.getAllRows().size());
+            }
+        }
+
+        assertEquals(0, testTableFixture.getAllRows().size());
+    }
+
+    @Test
+    public void shouldRollBackToASavepoint() {
+        try (FixtureSession session = FixtureSession.begin(jdbcTemplate)) {
+            testTableFixture.insertRows(InsertionCriteria.newInstance().forNumberOfRows(10));
+            Savepoint savepoint = session.createSavepoint();
+
+            testTableFixture.insertRows(InsertionCriteria.newInstance().forNumberOfRows(5));
+            session.rollbackToSavepoint(savepoint);
+            assertEquals(10, testTableFixture.getAllRows().size());
+
+            testTableFixture.insertRows(InsertionCriteria.newInstance().forNumberOfRows(7));
+            session.rollbackToSavepoint(savepoint);
+            assertEquals(10, testTableFixture.getAllRows().size());
+            session.releaseSavepoint(savepoint);
+        }
+
+        assertEquals(0, testTableFixture.getAllRows().size());
+    }
+
+    @Test
+    public void shouldInsertInParallelWithinTheSession() {
+        try (FixtureSession session = FixtureSession.begin(jdbcTemplate)) {
+            testTableFixture.insertRowsInParallel(InsertionCriteria.newInstance().forNumberOfRows(100), 4);
+            assertEquals(100, testTableFixture.getAllRows().size());
+        }
+
+        assertEquals(0, testTableFixture.getAllRows().size());
+    }
+
+    @Test
+    public void shouldNotAllowResetStrategiesWhichCommitImplicitly() {
+        try (FixtureSession session = FixtureSession.begin(jdbcTemplate)) {
+            testTableFixture.insertRows(InsertionCriteria.newInstance().forNumberOfRows(5));
+            try {
+                testTableFixture.withResetStrategy(ResetStrategy.TRUNCATE).truncateTable();
+                fail("TRUNCATE must not be allowed inside a session");
+            } catch (IllegalStateException e) {
+                // expected
+            }
+            assertEquals(5, testTableFixture.getAllRows().size());
+        } finally {
+            testTableFixture.withResetStrategy(ResetStrategy.DELETE);
+        }
+
+        assertEquals(0, testTableFixture.getAllRows().size());
+    }
+}
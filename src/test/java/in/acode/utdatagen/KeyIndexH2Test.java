@@ -0,0 +1,124 @@
+package in.acode.utdatagen;
+
+import static org.junit.Assert.*;
+
+import in.acode.utdatagen.datasources.H2DataSource;
+import in.acode.utdatagen.suppliers.LongColumnSupplier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+
+/**
+ * Tests for indexing the keys of a table and picking from them, against an in-memory H2 DB in MySQL mode
+ */
+@RunWith(SpringRunner.class)
+@ActiveProfiles("test")
+@SpringBootTest
+@ContextConfiguration(classes = {H2DataSource.class})
+public class KeyIndexH2Test {
+
+    @Autowired
+    @Qualifier("h2-jdbc-template")
+    private JdbcTemplate jdbcTemplate;
+
+    private DBTableFixture parentTableFixture;
+    private DBTableFixture childTableFixture;
+    private InsertionCriteria parentCriteria;
+
+    @Before
+    public void setup() {
+        parentTableFixture = DBTableFixture.getInstance("test_parent_table", jdbcTemplate).withBatchSize(30);
+        childTableFixture = DBTableFixture.getInstance("test_child_table", jdbcTemplate);
+        DBTableFixture.truncateTables(Arrays.asList(parentTableFixture, childTableFixture), 1);
+
+        parentCriteria = InsertionCriteria.newInstance()
+            .forNumberOfRows(100)
+            .withSeed(11L)
+            .withCondition("code", (rowIdx, prevValue) -> "code-" + (char) ('a' + rowIdx % 26) + rowIdx);
+    }
+
+    @Test
+    public void shouldLoadTheDistinctKeysInOrder() {
+        parentTableFixture.insertRows(parentCriteria);
+        List<Long> ids = jdbcTemplate.queryForList("SELECT id FROM test_parent_table ORDER BY id", Long.class);
+
+        KeyIndex keyIndex = parentTableFixture.loadKeyIndex("id");
+        assertTrue(keyIndex.hasLongKeys());
+        assertEquals(100, keyIndex.size());
+        for (int i = 0; i < ids.size(); i++) {
+            assertEquals((long) ids.get(i), keyIndex.getAsLong(i));
+        }
+
+        KeyIndex parentIdIndex = KeyIndex.of(Arrays.asList(3, 1, null, 3, 2));
+        assertEquals(Arrays.asList(1, 2, 3), Arrays.asList(parentIdIndex.get(0), parentIdIndex.get(1), parentIdIndex.get(2)));
+    }
+
+    @Test
+    public void shouldGenerateTheKeysWhichAreInserted() {
+        KeyIndex generatedIndex = parentTableFixture.generateKeyIndex(parentCriteria, "code");
+        assertEquals(0, parentTableFixture.getAllRows().size());
+
+        parentTableFixture.insertRows(parentCriteria);
+        KeyIndex loadedIndex = parentTableFixture.loadKeyIndex("code");
+
+        assertFalse(generatedIndex.hasLongKeys());
+        assertEquals(100, generatedIndex.size());
+        assertEquals(loadedIndex.size(), generatedIndex.size());
+        for (int i = 0; i < generatedIndex.size(); i++) {
+            assertEquals(loadedIndex.get(i), generatedIndex.get(i));
+        }
+    }
+
+    @Test
+    public void shouldFillAForeignKeyColumnWithTheKeys() {
+        parentTableFixture.insertRows(parentCriteria);
+        KeyIndex keyIndex = parentTableFixture.loadKeyIndex("id");
+
+        childTableFixture.insertRows(InsertionCriteria.newInstance().forNumberOfRows(500).withSeed(3L).withLongCondition("parent_id", keyIndex.randomAsLong()));
+        List<Long> parentIds = jdbcTemplate.queryForList("SELECT parent_id FROM test_child_table ORDER BY id", Long.class);
+        assertEquals(0, (int) jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM test_child_table c WHERE NOT EXISTS (SELECT 1 FROM test_parent_table p WHERE p.id = c.parent_id)", Integer.class));
+        assertTrue(jdbcTemplate.queryForObject("SELECT COUNT(DISTINCT parent_id) FROM test_child_table", Integer.class) > 90);
+
+        childTableFixture.truncateTable();
+        childTableFixture.insertRows(InsertionCriteria.newInstance().forNumberOfRows(500).withSeed(3L).withLongCondition("parent_id", keyIndex.randomAsLong()));
+        assertEquals(parentIds, jdbcTemplate.queryForList("SELECT parent_id FROM test_child_table ORDER BY id", Long.class));
+    }
+
+    @Test
+    public void shouldPickTheKeysInOrderOrSkewed() {
+        KeyIndex keyIndex = KeyIndex.ofLongs(40, 10, 30, 20, 10);
+        assertEquals(4, keyIndex.size());
+
+        LongColumnSupplier sequential = keyIndex.sequentialAsLong();
+        List<Long> keys = new ArrayList<>();
+        for (int rowIdx = 0; rowIdx < 6; rowIdx++) {
+            keys.add(sequential.getAsLong(rowIdx, 0));
+        }
+        assertEquals(Arrays.asList(10L, 20L, 30L, 40L, 10L, 20L), keys);
+
+        LongColumnSupplier skewed = keyIndex.skewedAsLong(3);
+        int numOfSmallestKeys = 0;
+        for (int rowIdx = 0; rowIdx < 1000; rowIdx++) {
+            if (skewed.getAsLong(rowIdx, 0) == 10L) numOfSmallestKeys++;
+        }
+        assertTrue(numOfSmallestKeys > 500);
+
+        try {
+            KeyIndex.of(Arrays.asList("a", "b")).randomAsLong();
+            fail("String keys must not be picked as longs");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().contains("not integers"));
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package in.acode.utdatagen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import in.acode.utdatagen.meta.DBColumnMetadata;
+import in.acode.utdatagen.meta.DBColumnMetadataBuilder;
+import java.sql.JDBCType;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+public class MultiRowValuesWriterTest {
+
+    @Test
+    public void shouldLimitRowsPerStatementByBindParameters() {
+        List<DBColumnMetadata> columns = getIntColumns(50);
+
+        assertEquals(65535 / 50, MultiRowValuesWriter.getRowsPerStatement(columns, 65535, Integer.MAX_VALUE));
+        assertEquals(2099 / 50, MultiRowValuesWriter.getRowsPerStatement(columns, 2099, Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void shouldLimitRowsPerStatementByPacketSize() {
+        List<DBColumnMetadata> columns = getIntColumns(10);
+        long rowSize = MultiRowValuesWriter.estimateRowSize(columns);
+
+        assertEquals(100, MultiRowValuesWriter.getRowsPerStatement(columns, 65535, (int) rowSize * 100));
+    }
+
+    @Test
+    public void shouldInsertAtLeastOneRowPerStatement() {
+        List<DBColumnMetadata> columns = getIntColumns(200);
+
+        assertEquals(1, MultiRowValuesWriter.getRowsPerStatement(columns, 100, 10));
+    }
+
+    @Test
+    public void shouldEstimateWiderRowsForLongerStrings() {
+        List<DBColumnMetadata> shortStringColumns = new ArrayList<>();
+        shortStringColumns.add(getColumn("varchar_column", JDBCType.VARCHAR, 10));
+        List<DBColumnMetadata> longStringColumns = new ArrayList<>();
+        longStringColumns.add(getColumn("varchar_column", JDBCType.VARCHAR, 1000));
+
+        assertTrue(MultiRowValuesWriter.estimateRowSize(longStringColumns) > MultiRowValuesWriter.estimateRowSize(shortStringColumns));
+    }
+
+    @Test
+    public void shouldKnowBindParameterLimitsOfCommonDBs() {
+        assertEquals(65535, MultiRowValuesWriter.getMaxBindParameters("MySQL"));
+        assertEquals(32767, MultiRowValuesWriter.getMaxBindParameters("PostgreSQL"));
+        assertEquals(MultiRowValuesWriter.DEFAULT_MAX_BIND_PARAMETERS, MultiRowValuesWriter.getMaxBindParameters("SomeOtherDB"));
+    }
+
+    private List<DBColumnMetadata> getIntColumns(int numOfColumns) {
+        List<DBColumnMetadata> columns = new ArrayList<>();
+        for (int i = 0; i < numOfColumns; i++) {
+            columns.add(getColumn("int_column_" + i, JDBCType.INTEGER, 0));
+        }
+        return columns;
+    }
+
+    private DBColumnMetadata getColumn(String columnName, JDBCType jdbcType, int maxSize) {
+        return DBColumnMetadataBuilder.getInstance()
+            .withColumnName(columnName)
+            .withDataType(jdbcType.getVendorTypeNumber())
+            .withMaxSize(maxSize)
+            .createDBColumnMetadata();
+    }
+}
@@ -0,0 +1,113 @@
+package in.acode.utdatagen;
+
+import static org.junit.Assert.*;
+
+import in.acode.utdatagen.datasources.H2DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+
+/**
+ * Tests for the insertion of tables related by foreign keys, against an in-memory H2 DB in MySQL mode
+ */
+@RunWith(SpringRunner.class)
+@ActiveProfiles("test")
+@SpringBootTest
+@ContextConfiguration(classes = {H2DataSource.class})
+public class MultiTableFixtureH2Test {
+
+    @Autowired
+    @Qualifier("h2-jdbc-template")
+    private JdbcTemplate jdbcTemplate;
+
+    private MultiTableFixture multiTableFixture;
+
+    @Before
+    public void setup() {
+        multiTableFixture = MultiTableFixture.getInstance()
+            .withTable(DBTableFixture.getInstance("test_child_table", jdbcTemplate), InsertionCriteria.newInstance().forNumberOfRows(200).withSeed(5L))
+            .withTable(DBTableFixture.getInstance("test_table", jdbcTemplate), InsertionCriteria.newInstance().forNumberOfRows(50))
+            .withTable(DBTableFixture.getInstance("test_parent_table", jdbcTemplate), InsertionCriteria.newInstance()
+                .forNumberOfRows(20)
+                .withCondition("code", (rowIdx, prevValue) -> "code-" + rowIdx))
+            .withNumOfWorkers(2);
+        multiTableFixture.truncateTables();
+    }
+
+    @Test
+    public void shouldInsertTheParentsBeforeTheChildren() {
+        Map<String, InsertionStats> stats = multiTableFixture.insertRows();
+
+        List<String> tableNames = new ArrayList<>(stats.keySet());
+        assertEquals(3, tableNames.size());
+        assertTrue(tableNames.indexOf("test_parent_table") < tableNames.indexOf("test_child_table"));
+        assertEquals(200, stats.get("test_child_table").getNumOfRows());
+
+        assertEquals(0, (int) jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM test_child_table c WHERE NOT EXISTS (SELECT 1 FROM test_parent_table p WHERE p.id = c.parent_id)", Integer.class));
+        assertTrue(jdbcTemplate.queryForObject("SELECT COUNT(DISTINCT parent_id) FROM test_child_table", Integer.class) > 10);
+    }
+
+    @Test
+    public void shouldPickTheSameKeysWithTheSameSeed() {
+        multiTableFixture.insertRows();
+        List<Integer> parentIndexes = getParentIndexesOfChildren();
+
+        multiTableFixture.truncateTables();
+        multiTableFixture.insertRows();
+        assertEquals(parentIndexes, getParentIndexesOfChildren());
+    }
+
+    @Test
+    public void shouldKeepTheOwnSupplierOfAForeignKeyColumn() {
+        multiTableFixture.withTable(DBTableFixture.getInstance("test_child_table", jdbcTemplate), InsertionCriteria.newInstance()
+            .forNumberOfRows(10)
+            .withCondition("parent_id", (rowIdx, prevValue) -> jdbcTemplate.queryForObject("SELECT MAX(id) FROM test_parent_table", Integer.class)));
+
+        multiTableFixture.insertRows();
+        int maxParentId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM test_parent_table", Integer.class);
+        assertEquals(Arrays.asList(maxParentId), jdbcTemplate.queryForList("SELECT DISTINCT parent_id FROM test_child_table", Integer.class));
+    }
+
+    @Test
+    public void shouldFillTheForeignKeysWithTheKeysOfEachInsertion() {
+        InsertionCriteria childCriteria = InsertionCriteria.newInstance().forNumberOfRows(50).withSeed(5L);
+        multiTableFixture.withTable(DBTableFixture.getInstance("test_child_table", jdbcTemplate), childCriteria);
+
+        multiTableFixture.insertRows();
+        assertNull(childCriteria.getSupplierForColumn("parent_id"));
+
+        multiTableFixture.truncateTables();
+        multiTableFixture.insertRows();
+        assertNull(childCriteria.getSupplierForColumn("parent_id"));
+        assertEquals(0, (int) jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM test_child_table c WHERE NOT EXISTS (SELECT 1 FROM test_parent_table p WHERE p.id = c.parent_id)", Integer.class));
+    }
+
+    @Test
+    public void shouldInsertInTheOrderOfTheForeignKeysInASession() {
+        try (FixtureSession session = FixtureSession.begin(jdbcTemplate)) {
+            multiTableFixture.insertRows();
+            assertEquals(200, (int) jdbcTemplate.queryForObject("SELECT COUNT(*) FROM test_child_table", Integer.class));
+        }
+        assertEquals(0, (int) jdbcTemplate.queryForObject("SELECT COUNT(*) FROM test_child_table", Integer.class));
+    }
+
+    /**
+     * Position of the parent of each child among the parents, which does not depend on the auto-increment ids
+     */
+    private List<Integer> getParentIndexesOfChildren() {
+        return jdbcTemplate.queryForList("SELECT c.parent_id - (SELECT MIN(id) FROM test_parent_table) FROM test_child_table c ORDER BY c.id", Integer.class);
+    }
+}
@@ -0,0 +1,91 @@
+package in.acode.utdatagen;
+
+import in.acode.utdatagen.meta.DBColumnMetadata;
+import in.acode.utdatagen.meta.DBColumnMetadataBuilder;
+import java.sql.JDBCType;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures the rows/sec of the row generation alone (no DB), for tables of different widths
+ * <br>Not a unit test, run the main method e.g. -
+ * <br>mvn test-compile exec:java -Dexec.mainClass=in.acode.utdatagen.RowGenerationBenchmark -Dexec.classpathScope=test
+ */
+public class RowGenerationBenchmark {
+
+    private static final int CELLS_PER_ITERATION = 4_000_000;
+    private static final int WARMUP_ITERATIONS = 3;
+    private static final int MEASURED_ITERATIONS = 5;
+
+    public static void main(String[] args) {
+        for (int numOfColumns : new int[] {10, 50, 200}) {
+            List<DBColumnMetadata> columns = getColumns(numOfColumns);
+            InsertionCriteria criteria = getCriteria(columns, CELLS_PER_ITERATION / numOfColumns);
+
+            for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+                generateAllRows(criteria, columns);
+            }
+
+            long totalNanos = 0;
+            for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+                totalNanos += generateAllRows(criteria, columns);
+            }
+
+            double rowsPerSecond = criteria.getNumOfRows() * MEASURED_ITERATIONS * 1e9 / totalNanos;
+            System.out.printf("%3d columns : %,12.0f rows/sec%n", numOfColumns, rowsPerSecond);
+        }
+    }
+
+    private static long generateAllRows(InsertionCriteria criteria, List<DBColumnMetadata> columns) {
+        long startTime = System.nanoTime();
+        RowGenerator rowGenerator = new RowGenerator(criteria, columns);
+        long checksum = 0;
+        while (rowGenerator.hasNext()) {
+            checksum += rowGenerator.nextBatch(DBTableFixture.DEFAULT_BATCH_SIZE).size();
+        }
+        if (checksum != criteria.getNumOfRows()) {
+            throw new IllegalStateException("Generated [" + checksum + "] rows instead of [" + criteria.getNumOfRows() + "]");
+        }
+        return System.nanoTime() - startTime;
+    }
+
+    /**
+     * A mix of column types, a quarter each of - INTEGER, DECIMAL(10,2), VARCHAR(45) and DATE
+     */
+    private static List<DBColumnMetadata> getColumns(int numOfColumns) {
+        JDBCType[] types = {JDBCType.INTEGER, JDBCType.DECIMAL, JDBCType.VARCHAR, JDBCType.DATE};
+        List<DBColumnMetadata> columns = new ArrayList<>();
+
+        for (int i = 0; i < numOfColumns; i++) {
+            columns.add(DBColumnMetadataBuilder.getInstance()
+                .withColumnName("column_" + i)
+                .withDataType(types[i % types.length].getVendorTypeNumber())
+                .withPrecision(10)
+                .withScale(2)
+                .withMaxSize(45)
+                .withOrdinalPos(i + 1)
+                .withIsNullable(false)
+                .createDBColumnMetadata());
+        }
+        return columns;
+    }
+
+    /**
+     * INTEGER and DECIMAL columns get the default values, VARCHAR columns cycle through some values
+     * and DATE columns get a LocalDate, which needs a conversion to an SQL type
+     */
+    private static InsertionCriteria getCriteria(List<DBColumnMetadata> columns, int numOfRows) {
+        InsertionCriteria criteria = InsertionCriteria.newInstance().forNumberOfRows(numOfRows);
+        LocalDate today = LocalDate.now();
+
+        for (DBColumnMetadata column : columns) {
+            if (column.getDataType() == JDBCType.VARCHAR.getVendorTypeNumber()) {
+                criteria.withCondition(column.getColumnName(), "alpha", "beta", "gamma");
+            } else if (column.getDataType() == JDBCType.DATE.getVendorTypeNumber()) {
+                criteria.withCondition(column.getColumnName(), today);
+            }
+        }
+        return criteria;
+    }
+}
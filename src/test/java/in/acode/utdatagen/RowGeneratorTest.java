@@ -0,0 +1,198 @@
+package in.acode.utdatagen;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import in.acode.utdatagen.meta.DBColumnMetadata;
+import in.acode.utdatagen.meta.DBColumnMetadataBuilder;
+import in.acode.utdatagen.suppliers.IntSuppliers;
+import java.sql.JDBCType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiFunction;
+import org.junit.Test;
+
+public class RowGeneratorTest {
+
+    private List<DBColumnMetadata> columns = Arrays.asList(
+        DBColumnMetadataBuilder.getInstance()
+            .withColumnName("id").withDataType(JDBCType.INTEGER.getVendorTypeNumber())
+            .withOrdinalPos(1).withIsAutoInc(true).createDBColumnMetadata(),
+        DBColumnMetadataBuilder.getInstance()
+            .withColumnName("int_column").withDataType(JDBCType.INTEGER.getVendorTypeNumber())
+            .withOrdinalPos(2).withIsNullable(true).createDBColumnMetadata(),
+        DBColumnMetadataBuilder.getInstance()
+            .withColumnName("idx_column").withDataType(JDBCType.INTEGER.getVendorTypeNumber())
+            .withOrdinalPos(3).withIsNullable(true).createDBColumnMetadata());
+
+    @Test
+    public void shouldCarryRowIndexAndPreviousValueAcrossBatches() {
+        BiFunction<Integer, Object, Object> incrementingValueSupplier = (rowIndex, prevValue) -> prevValue == null ? 1 : (int) prevValue + 1;
+        InsertionCriteria insertionCriteria = InsertionCriteria.newInstance()
+            .forNumberOfRows(10)
+            .withCondition("int_column", incrementingValueSupplier)
+            .withCondition("idx_column", (Integer rowIndex) -> rowIndex);
+
+        RowGenerator rowGenerator = new RowGenerator(insertionCriteria, columns);
+        List<Object[]> allRows = new ArrayList<>();
+        while (rowGenerator.hasNext()) {
+            RowBatch batch = rowGenerator.nextBatch(3);
+            assertTrue(batch.size() <= 3);
+            allRows.addAll(getRows(batch));
+        }
+
+        assertEquals(10, allRows.size());
+        for (int i = 0; i < allRows.size(); i++) {
+            Object[] row = allRows.get(i);
+            assertEquals(2, row.length); //auto-increment column is not set
+            assertEquals(i + 1, row[0]);
+            assertEquals(i, row[1]);
+        }
+    }
+
+    @Test
+    public void shouldStopAfterTheRequestedNumberOfRows() {
+        RowGenerator rowGenerator = new RowGenerator(new InsertionCriteria(5), columns);
+
+        assertEquals(5, rowGenerator.nextBatch(100).size());
+        assertFalse(rowGenerator.hasNext());
+        assertEquals(0, rowGenerator.nextBatch(100).size());
+    }
+
+    @Test
+    public void shouldGenerateTheSameRowsWhenSplitInPartitions() {
+        BiFunction<Integer, Object, Object> fibonacciLikeSupplier = (rowIndex, prevValue) -> prevValue == null ? 1 : (int) prevValue + rowIndex;
+        InsertionCriteria insertionCriteria = InsertionCriteria.newInstance()
+            .forNumberOfRows(20)
+            .withCondition("int_column", fibonacciLikeSupplier)
+            .withCondition("idx_column", (Integer rowIndex) -> rowIndex * 10);
+
+        List<Object[]> expectedRows = getRows(new RowGenerator(insertionCriteria, columns).nextBatch(20));
+
+        int[] partitionStarts = {0, 6, 13};
+        RowPlan plan = RowPlan.compile(insertionCriteria, columns);
+        List<Object[]> prevValues = RowGenerator.getPrevValuesAt(plan, partitionStarts);
+        List<Object[]> partitionedRows = new ArrayList<>();
+        for (int i = 0; i < partitionStarts.length; i++) {
+            int endRowIdx = i == partitionStarts.length - 1 ? 20 : partitionStarts[i + 1];
+            RowGenerator rowGenerator = new RowGenerator(plan, partitionStarts[i], endRowIdx, prevValues.get(i));
+            partitionedRows.addAll(getRows(rowGenerator.nextBatch(20)));
+        }
+
+        assertEquals(expectedRows.size(), partitionedRows.size());
+        for (int i = 0; i < expectedRows.size(); i++) {
+            assertArrayEquals(expectedRows.get(i), partitionedRows.get(i));
+        }
+    }
+
+    @Test
+    public void shouldGeneratePrimitiveValuesAcrossRefilledBatchesAndPartitions() {
+        InsertionCriteria insertionCriteria = InsertionCriteria.newInstance()
+            .forNumberOfRows(20)
+            .withIntCondition("int_column", 100, (rowIndex, prevValue) -> prevValue + rowIndex)
+            .withCondition("idx_column", 7);
+
+        RowPlan plan = RowPlan.compile(insertionCriteria, columns);
+        assertEquals(RowPlan.ValueKind.INT, plan.getValueKind(0));
+        assertEquals(RowPlan.ValueKind.INT, plan.getValueKind(1));
+
+        RowGenerator rowGenerator = new RowGenerator(plan);
+        RowBatch batch = rowGenerator.newBatch(6);
+        List<Object[]> expectedRows = new ArrayList<>();
+        while (rowGenerator.hasNext()) {
+            rowGenerator.nextBatch(batch);
+            expectedRows.addAll(getRows(batch));
+        }
+
+        int runningTotal = 100;
+        for (int i = 0; i < expectedRows.size(); i++) {
+            runningTotal += i;
+            assertEquals(runningTotal, expectedRows.get(i)[0]);
+            assertEquals(7, expectedRows.get(i)[1]);
+        }
+
+        int[] partitionStarts = {0, 9};
+        List<Object[]> prevValues = RowGenerator.getPrevValuesAt(plan, partitionStarts);
+        List<Object[]> partitionedRows = getRows(new RowGenerator(plan, 0, 9, prevValues.get(0)).nextBatch(20));
+        partitionedRows.addAll(getRows(new RowGenerator(plan, 9, 20, prevValues.get(1)).nextBatch(20)));
+        for (int i = 0; i < expectedRows.size(); i++) {
+            assertArrayEquals(expectedRows.get(i), partitionedRows.get(i));
+        }
+    }
+
+    @Test
+    public void shouldGenerateTheSameRandomValuesWithTheSameSeedInAnyPartitioning() {
+        InsertionCriteria insertionCriteria = InsertionCriteria.newInstance()
+            .forNumberOfRows(30)
+            .withSeed(1234)
+            .insertDefaultsForNullableColumns(true)
+            .withCondition("idx_column", IntSuppliers.random(1, 1000));
+
+        List<Object[]> expectedRows = getRows(new RowGenerator(insertionCriteria, columns).nextBatch(30));
+        assertEquals(30, expectedRows.size());
+
+        RowPlan plan = RowPlan.compile(insertionCriteria, columns);
+        assertEquals(1234, plan.getSeed());
+        List<Object[]> partitionedRows = getRows(new RowGenerator(plan, 0, 11, new Object[2]).nextBatch(30));
+        RowGenerator lastPartition = new RowGenerator(plan, 11, 30, new Object[2]);
+        while (lastPartition.hasNext()) {
+            partitionedRows.addAll(getRows(lastPartition.nextBatch(4)));
+        }
+
+        for (int i = 0; i < expectedRows.size(); i++) {
+            assertArrayEquals(expectedRows.get(i), partitionedRows.get(i));
+        }
+
+        List<Object[]> rowsWithAnotherSeed = getRows(new RowGenerator(insertionCriteria.withSeed(5678), columns).nextBatch(30));
+        boolean anyDifference = false;
+        for (int i = 0; i < expectedRows.size(); i++) {
+            anyDifference |= !Arrays.equals(expectedRows.get(i), rowsWithAnotherSeed.get(i));
+        }
+        assertTrue(anyDifference);
+    }
+
+    @Test
+    public void shouldGenerateTheDuplicatesOfAUniqueColumnAgain() {
+        InsertionCriteria insertionCriteria = InsertionCriteria.newInstance()
+            .forNumberOfRows(500)
+            .withSeed(7L)
+            .withIntCondition("int_column", IntSuppliers.randomAsInt(1, 1000));
+        RowPlan plan = RowPlan.compile(insertionCriteria, columns, Collections.singleton("int_column"));
+
+        RowBatch batch = new RowGenerator(plan).nextBatch(500);
+        Set<Object> values = new HashSet<>();
+        for (Object[] row : getRows(batch)) {
+            values.add(row[0]);
+        }
+        assertEquals(500, values.size());
+
+        List<Object[]> rows = getRows(batch);
+        List<Object[]> rowsGeneratedAgain = getRows(new RowGenerator(plan).nextBatch(500));
+        for (int i = 0; i < rows.size(); i++) {
+            assertArrayEquals(rows.get(i), rowsGeneratedAgain.get(i));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldFailWhenAUniqueColumnRunsOutOfValues() {
+        InsertionCriteria insertionCriteria = InsertionCriteria.newInstance()
+            .forNumberOfRows(11)
+            .withIntCondition("int_column", IntSuppliers.randomAsInt(1, 10));
+
+        new RowGenerator(RowPlan.compile(insertionCriteria, columns, Collections.singleton("int_column"))).nextBatch(11);
+    }
+
+    private List<Object[]> getRows(RowBatch batch) {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            rows.add(batch.getRow(i));
+        }
+        return rows;
+    }
+}
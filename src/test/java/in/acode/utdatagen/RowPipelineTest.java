@@ -0,0 +1,59 @@
+package in.acode.utdatagen;
+
+import static org.junit.Assert.assertEquals;
+
+import in.acode.utdatagen.meta.DBColumnMetadata;
+import in.acode.utdatagen.meta.DBColumnMetadataBuilder;
+import java.sql.JDBCType;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+
+public class RowPipelineTest {
+
+    private List<DBColumnMetadata> columns = Collections.singletonList(
+        DBColumnMetadataBuilder.getInstance()
+            .withColumnName("int_column").withDataType(JDBCType.INTEGER.getVendorTypeNumber())
+            .withOrdinalPos(1).withIsNullable(true).createDBColumnMetadata());
+
+    @Test
+    public void shouldSupplyAllBatchesInOrder() {
+        InsertionCriteria insertionCriteria = InsertionCriteria.newInstance()
+            .forNumberOfRows(100)
+            .withCondition("int_column", (Integer rowIndex) -> rowIndex);
+
+        int expectedValue = 0;
+        try (RowPipeline pipeline = new RowPipeline(new RowGenerator(insertionCriteria, columns), 7, 2, "test-generator")) {
+            pipeline.start();
+
+            RowBatch batch;
+            while ((batch = pipeline.take()) != null) {
+                for (int i = 0; i < batch.size(); i++) {
+                    assertEquals(expectedValue++, batch.getValue(i, 0));
+                }
+                pipeline.recycle(batch);
+            }
+        }
+
+        assertEquals(100, expectedValue);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void shouldPassGenerationFailuresToTheConsumer() {
+        InsertionCriteria insertionCriteria = InsertionCriteria.newInstance()
+            .forNumberOfRows(100)
+            .withCondition("int_column", (Integer rowIndex) -> {
+                if (rowIndex == 50) throw new UnsupportedOperationException();
+                return rowIndex;
+            });
+
+        try (RowPipeline pipeline = new RowPipeline(new RowGenerator(insertionCriteria, columns), 7, 2, "test-generator")) {
+            pipeline.start();
+
+            RowBatch batch;
+            while ((batch = pipeline.take()) != null) {
+                pipeline.recycle(batch);
+            }
+        }
+    }
+}
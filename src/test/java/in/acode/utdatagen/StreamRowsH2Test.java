@@ -0,0 +1,128 @@
+package in.acode.utdatagen;
+
+import static org.junit.Assert.*;
+
+import in.acode.utdatagen.datasources.H2DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+
+/**
+ * Tests for streaming the rows of a table, against an in-memory H2 DB in MySQL mode
+ */
+@RunWith(SpringRunner.class)
+@ActiveProfiles("test")
+@SpringBootTest
+@ContextConfiguration(classes = {H2DataSource.class})
+public class StreamRowsH2Test {
+
+    @Autowired
+    @Qualifier("h2-jdbc-template")
+    private JdbcTemplate jdbcTemplate;
+
+    private DBTableFixture testTableFixture;
+
+    @Before
+    public void setup() {
+        testTableFixture = DBTableFixture.getInstance("test_table", jdbcTemplate).withBatchSize(7);
+        testTableFixture.truncateTable();
+        testTableFixture.insertRows(InsertionCriteria.newInstance()
+            .forNumberOfRows(50)
+            .withCondition("int_column", (index, prevValue) -> index));
+    }
+
+    @Test
+    public void shouldStreamTheRowsOverACursor() {
+        try (Stream<Map<String, Object>> rows = testTableFixture.streamRows(SelectionCriteria.newInstance().withOrderBy("id"))) {
+            List<Map<String, Object>> rowList = rows.collect(Collectors.toList());
+            assertEquals(50, rowList.size());
+            assertEquals(testTableFixture.getAllRows("id"), rowList);
+        }
+
+        try (Stream<Map<String, Object>> rows = testTableFixture.streamRows(SelectionCriteria.newInstance().withFetchSize(3))) {
+            assertEquals(5, rows.limit(5).count());
+        }
+    }
+
+    @Test
+    public void shouldTurnOffAutoCommitOnlyWhileTheCursorIsOpen() throws SQLException {
+        try (Connection connection = jdbcTemplate.getDataSource().getConnection()) {
+            SingleConnectionDataSource dataSource = new SingleConnectionDataSource(connection, true);
+            DBTableFixture fixture = DBTableFixture.getInstance("test_table", new JdbcTemplate(dataSource));
+
+            try (Stream<Map<String, Object>> rows = fixture.streamRows(SelectionCriteria.newInstance())) {
+                assertEquals(5, rows.limit(5).count());
+                assertFalse(connection.getAutoCommit());
+            }
+            assertTrue(connection.getAutoCommit());
+        }
+    }
+
+    @Test
+    public void shouldStreamTheSelectedColumnsOfTheFilteredRows() {
+        SelectionCriteria criteria = SelectionCriteria.newInstance()
+            .withColumns("int_column")
+            .withFilter("int_column >= ? AND int_column < ?", 10, 20)
+            .withOrderBy("int_column DESC");
+
+        try (Stream<Integer> values = testTableFixture.streamRows(criteria, (resultSet, rowNum) -> resultSet.getInt(1))) {
+            List<Integer> valueList = values.collect(Collectors.toList());
+            assertEquals(10, valueList.size());
+            assertEquals(19, (int) valueList.get(0));
+            assertEquals(10, (int) valueList.get(9));
+        }
+    }
+
+    @Test
+    public void shouldStreamThePagesInTheOrderOfThePrimaryKey() {
+        SelectionCriteria criteria = SelectionCriteria.newInstance()
+            .withColumns("int_column")
+            .withFilter("int_column < ?", 45)
+            .withKeysetPagination(10);
+
+        List<Map<String, Object>> rows = testTableFixture.streamRows(criteria).collect(Collectors.toList());
+        assertEquals(45, rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            assertEquals(2, rows.get(i).size());
+            assertEquals(i, ((Number) rows.get(i).get("int_column")).intValue());
+            if (i > 0) {
+                assertTrue(((Number) rows.get(i).get("id")).longValue() > ((Number) rows.get(i - 1).get("id")).longValue());
+            }
+        }
+
+        try {
+            testTableFixture.streamRows(criteria.withOrderBy("int_column"));
+            fail("The order of a keyset pagination is the primary key");
+        } catch (IllegalArgumentException e) {
+            //expected
+        }
+    }
+
+    @Test
+    public void shouldSeeTheRowsInsertedInASession() {
+        try (FixtureSession session = FixtureSession.begin(jdbcTemplate)) {
+            testTableFixture.insertRows(InsertionCriteria.newInstance().forNumberOfRows(10));
+
+            try (Stream<Map<String, Object>> rows = testTableFixture.streamRows(SelectionCriteria.newInstance())) {
+                assertEquals(60, rows.count());
+            }
+            assertEquals(60, testTableFixture.getAllRows().size());
+        }
+
+        assertEquals(50, testTableFixture.streamRows(SelectionCriteria.newInstance()).count());
+    }
+}
@@ -0,0 +1,64 @@
+package in.acode.utdatagen;
+
+import in.acode.utdatagen.suppliers.StringGenerator;
+import in.acode.utdatagen.suppliers.StringGeneratorBuilder;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Measures the strings/sec of the ways of generating random strings of length 5 to 30
+ * <br>Not a unit test, run the main method e.g. -
+ * <br>mvn test-compile exec:java -Dexec.mainClass=in.acode.utdatagen.StringGenerationBenchmark -Dexec.classpathScope=test
+ */
+public class StringGenerationBenchmark {
+
+    private static final int STRINGS_PER_ITERATION = 2_000_000;
+    private static final int WARMUP_ITERATIONS = 3;
+    private static final int MEASURED_ITERATIONS = 5;
+
+    public static void main(String[] args) {
+        //The way the strings were generated before StringGenerator
+        Supplier<String> uuidStrings = () -> {
+            String s = UUID.randomUUID().toString();
+            while (s.length() < 5) {
+                s += UUID.randomUUID().toString();
+            }
+            return s.substring(0, Math.min(30, s.length()));
+        };
+        StringGenerator generatedStrings = StringGeneratorBuilder.getInstance().withLength(5, 30).createStringGenerator();
+        StringGenerator corpusStrings = StringGeneratorBuilder.getInstance().withLength(5, 30).withCorpus(1 << 20).createStringGenerator();
+        StringGenerator words = StringGeneratorBuilder.getInstance()
+            .withAlphabet(StringGenerator.Alphabet.WORDS).withLength(5, 30).createStringGenerator();
+
+        measure("UUID", uuidStrings);
+        measure("StringGenerator", generatedStrings);
+        measure("StringGenerator with corpus", corpusStrings);
+        measure("StringGenerator of words", words);
+    }
+
+    private static void measure(String name, Supplier<String> supplier) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            generateStrings(supplier);
+        }
+
+        long totalNanos = 0;
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            totalNanos += generateStrings(supplier);
+        }
+
+        double stringsPerSecond = (double)STRINGS_PER_ITERATION * MEASURED_ITERATIONS * 1e9 / totalNanos;
+        System.out.printf("%-30s : %,14.0f strings/sec%n", name, stringsPerSecond);
+    }
+
+    private static long generateStrings(Supplier<String> supplier) {
+        long startTime = System.nanoTime();
+        long totalLength = 0;
+        for (int i = 0; i < STRINGS_PER_ITERATION; i++) {
+            totalLength += supplier.get().length();
+        }
+        if (totalLength == 0) {
+            throw new IllegalStateException("Generated only empty strings");
+        }
+        return System.nanoTime() - startTime;
+    }
+}
@@ -0,0 +1,149 @@
+package in.acode.utdatagen;
+
+import static org.junit.Assert.*;
+
+import in.acode.utdatagen.datasources.H2DataSource;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+
+/**
+ * Tests for the digests of a table, against an in-memory H2 DB in MySQL mode
+ */
+@RunWith(SpringRunner.class)
+@ActiveProfiles("test")
+@SpringBootTest
+@ContextConfiguration(classes = {H2DataSource.class})
+public class TableDigestH2Test {
+
+    private static final String[] HASHED_IN_DB_COLUMNS = {"int_column", "varchar_column", "numeric_column", "date_column", "timestamp_column", "char_column", "boolean_column"};
+
+    @Autowired
+    @Qualifier("h2-jdbc-template")
+    private JdbcTemplate jdbcTemplate;
+
+    private DBTableFixture testTableFixture;
+
+    @Before
+    public void setup() {
+        testTableFixture = DBTableFixture.getInstance("test_table", jdbcTemplate).withBatchSize(64).withDigestChunkWidth(16);
+        testTableFixture.truncateTable();
+    }
+
+    @Test
+    public void shouldComputeTheSameDigestInTheDBAsForTheGeneratedRows() {
+        testTableFixture.insertRows(getCriteria(1000));
+
+        TableDigest generatedDigest = testTableFixture.computeDigest(getCriteria(1000), "int_column", HASHED_IN_DB_COLUMNS);
+        TableDigest tableDigest = testTableFixture.computeDigest("int_column", HASHED_IN_DB_COLUMNS);
+        assertEquals(1000, tableDigest.getNumOfRows());
+        assertEquals(63, tableDigest.getNumOfChunks());
+        assertEquals(generatedDigest, tableDigest);
+        assertTrue(tableDigest.matches(generatedDigest));
+        assertTrue(testTableFixture.findMismatchedKeyRanges(generatedDigest).isEmpty());
+
+        TableDigest totalDigest = testTableFixture.computeDigest(null, HASHED_IN_DB_COLUMNS);
+        assertEquals(tableDigest, totalDigest);
+        assertEquals(0, totalDigest.getNumOfChunks());
+    }
+
+    @Test
+    public void shouldComputeTheSameDigestByStreamingTheRows() {
+        //A FLOAT column can't be hashed in the DB, so the rows are streamed
+        String[] columnNames = {"int_column", "varchar_column", "float_column"};
+        testTableFixture.insertRows(getCriteria(300));
+
+        TableDigest generatedDigest = testTableFixture.computeDigest(getCriteria(300), "int_column", columnNames);
+        assertEquals(generatedDigest, testTableFixture.computeDigest("int_column", columnNames));
+        assertEquals(generatedDigest, testTableFixture.computeDigest(null, columnNames));
+
+        jdbcTemplate.update("UPDATE test_table SET float_column = 0.5 WHERE int_column = 123");
+        assertFalse(generatedDigest.matches(testTableFixture.computeDigest(null, columnNames)));
+        List<TableDigest.KeyRange> mismatchedKeyRanges = testTableFixture.findMismatchedKeyRanges(generatedDigest);
+        assertEquals(1, mismatchedKeyRanges.size());
+        assertEquals(112, mismatchedKeyRanges.get(0).getFromKey());
+        assertEquals(128, mismatchedKeyRanges.get(0).getToKey());
+    }
+
+    @Test
+    public void shouldNarrowTheMismatchesDownToTheChunksOfKeys() {
+        testTableFixture.insertRows(getCriteria(1000));
+        TableDigest expectedDigest = testTableFixture.computeDigest(getCriteria(1000), "int_column", HASHED_IN_DB_COLUMNS);
+
+        jdbcTemplate.update("UPDATE test_table SET varchar_column = 'changed' WHERE int_column IN (100, 700, 701)");
+        jdbcTemplate.update("DELETE FROM test_table WHERE int_column = 450");
+        jdbcTemplate.update("INSERT INTO test_table (int_column) VALUES (5000)");
+
+        assertNotEquals(expectedDigest, testTableFixture.computeDigest("int_column", HASHED_IN_DB_COLUMNS));
+        List<TableDigest.KeyRange> mismatchedKeyRanges = testTableFixture.findMismatchedKeyRanges(expectedDigest);
+        assertEquals(4, mismatchedKeyRanges.size());
+        assertEquals(96, mismatchedKeyRanges.get(0).getFromKey());
+        assertEquals(448, mismatchedKeyRanges.get(1).getFromKey());
+        assertEquals(15, mismatchedKeyRanges.get(1).getActualNumOfRows());
+        assertEquals(16, mismatchedKeyRanges.get(1).getExpectedNumOfRows());
+        assertEquals(688, mismatchedKeyRanges.get(2).getFromKey());
+        assertEquals(4992, mismatchedKeyRanges.get(3).getFromKey());
+        assertEquals(0, mismatchedKeyRanges.get(3).getExpectedNumOfRows());
+
+        try (Stream<Map<String, Object>> rows = testTableFixture.streamRows(mismatchedKeyRanges.get(2).toSelectionCriteria())) {
+            List<Object> varcharValues = rows.map(row -> row.get("varchar_column")).collect(Collectors.toList());
+            assertEquals(16, varcharValues.size());
+            assertEquals("changed", varcharValues.get(700 - 688));
+        }
+    }
+
+    @Test
+    public void shouldCompareTheTableWithTheDigestOfADatasetFile() throws IOException {
+        Path file = Files.createTempFile("utdatagen-digest", ".dataset");
+        try {
+            testTableFixture.saveDataset(getCriteria(200), file);
+            TableDigest snapshotDigest = testTableFixture.computeDigest(file, "int_column", HASHED_IN_DB_COLUMNS);
+            assertEquals(200, snapshotDigest.getNumOfRows());
+
+            testTableFixture.restoreDataset(file);
+            assertEquals(snapshotDigest, testTableFixture.computeDigest("int_column", HASHED_IN_DB_COLUMNS));
+            assertTrue(testTableFixture.findMismatchedKeyRanges(snapshotDigest).isEmpty());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+
+        try {
+            testTableFixture.computeDigest("varchar_column", "int_column");
+            fail("A key column must be an integer column");
+        } catch (IllegalArgumentException e) {
+            //expected
+        }
+    }
+
+    private InsertionCriteria getCriteria(int numOfRows) {
+        LocalDate firstDate = LocalDate.of(2020, 1, 1);
+
+        return InsertionCriteria.newInstance()
+            .forNumberOfRows(numOfRows)
+            .withSeed(23L)
+            .withIntCondition("int_column", -1, (rowIndex, prevValue) -> prevValue + 1)
+            .withCondition("varchar_column", (Integer rowIndex) -> "row-" + rowIndex)
+            .withCondition("numeric_column", (Integer rowIndex) -> new BigDecimal(rowIndex).movePointLeft(2))
+            .withCondition("date_column", (Integer rowIndex) -> firstDate.plusDays(rowIndex))
+            .withCondition("timestamp_column", (Integer rowIndex) -> firstDate.atStartOfDay().plusSeconds(rowIndex * 61L))
+            .withCondition("char_column", (Integer rowIndex) -> rowIndex % 5 == 0 ? null : "c" + rowIndex)
+            .withBooleanCondition("boolean_column", (rowIndex, prevValue) -> rowIndex % 3 == 0)
+            .withDoubleCondition("float_column", (rowIndex, prevValue) -> rowIndex / 8.0);
+    }
+}
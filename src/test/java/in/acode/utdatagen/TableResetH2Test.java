@@ -0,0 +1,109 @@
+package in.acode.utdatagen;
+
+import static org.junit.Assert.*;
+
+import in.acode.utdatagen.datasources.H2DataSource;
+import java.util.Arrays;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+
+/**
+ * Tests for the reset strategies, against an in-memory H2 DB in MySQL mode
+ */
+@RunWith(SpringRunner.class)
+@ActiveProfiles("test")
+@SpringBootTest
+@ContextConfiguration(classes = {H2DataSource.class})
+public class TableResetH2Test {
+
+    @Autowired
+    @Qualifier("h2-jdbc-template")
+    private JdbcTemplate jdbcTemplate;
+
+    private DBTableFixture testTableFixture;
+    private DBTableFixture parentTableFixture;
+    private DBTableFixture childTableFixture;
+
+    @Before
+    public void setup() {
+        testTableFixture = DBTableFixture.getInstance("test_table", jdbcTemplate);
+        parentTableFixture = DBTableFixture.getInstance("test_parent_table", jdbcTemplate);
+        childTableFixture = DBTableFixture.getInstance("test_child_table", jdbcTemplate);
+        DBTableFixture.truncateTables(Arrays.asList(parentTableFixture, childTableFixture, testTableFixture), 1);
+    }
+
+    @Test
+    public void shouldRemoveAllRowsWithAllResetStrategies() {
+        for (ResetStrategy resetStrategy : ResetStrategy.values()) {
+            testTableFixture.withResetStrategy(resetStrategy);
+            testTableFixture.insertRows(InsertionCriteria.newInstance().forNumberOfRows(20));
+
+            int rowCount = testTableFixture.truncateTable();
+            assertEquals(resetStrategy.name(), resetStrategy == ResetStrategy.DELETE ? 20 : DBTableFixture.UNKNOWN_ROW_COUNT, rowCount);
+            assertEquals(resetStrategy.name(), 0, testTableFixture.getAllRows().size());
+        }
+    }
+
+    @Test
+    public void shouldRecreateTheTableWithItsKeys() {
+        childTableFixture.withResetStrategy(ResetStrategy.DROP_AND_RECREATE).truncateTable();
+        childTableFixture.refreshMetadata();
+
+        assertEquals(3, childTableFixture.getColumns().size());
+        assertEquals(Arrays.asList("id"), childTableFixture.getTableMetadata().getPrimaryKeyColumnNames());
+        assertEquals("test_parent_table", childTableFixture.getTableMetadata().getForeignKeys().get(0).getReferencedTableName());
+
+        insertParentsAndChildren();
+        assertEquals(1, (int) jdbcTemplate.queryForObject("SELECT MIN(id) FROM test_child_table", Integer.class));
+    }
+
+    @Test
+    public void shouldTruncateAReferencedTableOnlyWithTheForeignKeyChecksDisabled() {
+        parentTableFixture.withResetStrategy(ResetStrategy.TRUNCATE);
+        try {
+            parentTableFixture.truncateTable();
+            fail("A table referenced by a foreign key must not be truncated with the checks enabled");
+        } catch (DataAccessException e) {
+            // expected
+        }
+
+        parentTableFixture.insertRows(getParentCriteria(5));
+        assertEquals(DBTableFixture.UNKNOWN_ROW_COUNT, parentTableFixture.withForeignKeyChecksDisabled(true).truncateTable());
+        assertEquals(0, parentTableFixture.getAllRows().size());
+    }
+
+    @Test
+    public void shouldTruncateTablesInTheOrderOfTheirForeignKeys() {
+        insertParentsAndChildren();
+
+        Map<String, Integer> rowCounts = DBTableFixture.truncateTables(Arrays.asList(parentTableFixture, testTableFixture, childTableFixture), 2);
+        assertEquals(Arrays.asList("test_child_table", "test_parent_table", "test_table"), Arrays.asList(rowCounts.keySet().toArray()));
+        assertEquals(10, (int) rowCounts.get("test_child_table"));
+        assertEquals(5, (int) rowCounts.get("test_parent_table"));
+        assertEquals(0, (int) rowCounts.get("test_table"));
+    }
+
+    private void insertParentsAndChildren() {
+        parentTableFixture.insertRows(getParentCriteria(5));
+        int minParentId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM test_parent_table", Integer.class);
+        childTableFixture.insertRows(InsertionCriteria.newInstance()
+            .forNumberOfRows(10)
+            .withIntCondition("parent_id", (rowIdx, prevValue) -> minParentId + rowIdx % 5));
+    }
+
+    private InsertionCriteria getParentCriteria(int numOfRows) {
+        return InsertionCriteria.newInstance()
+            .forNumberOfRows(numOfRows)
+            .withCondition("code", (rowIdx, prevValue) -> "code-" + rowIdx);
+    }
+}
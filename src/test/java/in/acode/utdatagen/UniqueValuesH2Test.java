@@ -0,0 +1,158 @@
+package in.acode.utdatagen;
+
+import static org.junit.Assert.*;
+
+import in.acode.utdatagen.datasources.H2DataSource;
+import in.acode.utdatagen.suppliers.CellRandom;
+import java.util.Collections;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+
+/**
+ * Tests for keeping the values of the unique columns unique, against an in-memory H2 DB in MySQL mode
+ */
+@RunWith(SpringRunner.class)
+@ActiveProfiles("test")
+@SpringBootTest
+@ContextConfiguration(classes = {H2DataSource.class})
+public class UniqueValuesH2Test {
+
+    @Autowired
+    @Qualifier("h2-jdbc-template")
+    private JdbcTemplate jdbcTemplate;
+
+    private DBTableFixture parentTableFixture;
+
+    @Before
+    public void setup() {
+        DBTableFixture.getInstance("test_child_table", jdbcTemplate).truncateTable();
+        parentTableFixture = DBTableFixture.getInstance("test_parent_table", jdbcTemplate).withBatchSize(100);
+        parentTableFixture.truncateTable();
+    }
+
+    @Test
+    public void shouldGenerateTheDuplicatesOfAUniqueIndexAgain() {
+        InsertionStats stats = parentTableFixture.insertRows(getCriteria(300, 400));
+
+        assertEquals(300, stats.getNumOfRows());
+        assertEquals(300, (int) jdbcTemplate.queryForObject("SELECT COUNT(DISTINCT code) FROM test_parent_table", Integer.class));
+    }
+
+    @Test
+    public void shouldKeepTheValuesUniqueAcrossTheWorkers() {
+        parentTableFixture.insertRowsInParallel(getCriteria(300, 400), 3);
+
+        assertEquals(300, (int) jdbcTemplate.queryForObject("SELECT COUNT(DISTINCT code) FROM test_parent_table", Integer.class));
+    }
+
+    @Test
+    public void shouldFailWithoutEnoughDistinctValues() {
+        try {
+            parentTableFixture.insertRows(getCriteria(300, 200));
+            fail("300 unique values can't be picked from 200");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().contains("unique value for the column [code]"));
+        }
+        parentTableFixture.truncateTable();
+
+        try {
+            parentTableFixture.insertRows(getCriteria(300, 400).guardUniqueValues(false));
+            fail("The duplicates must fail the insertion when they are not generated again");
+        } catch (DuplicateKeyException e) {
+            //expected
+        }
+    }
+
+    @Test
+    public void shouldIgnoreCaseOnlyForCaseInsensitiveColumns() {
+        InsertionCriteria criteria = InsertionCriteria.newInstance()
+            .forNumberOfRows(100)
+            .withCondition("code", (Integer rowIdx) -> (rowIdx % 2 == 0 ? "aB-" : "Ab-") + rowIdx / 2);
+        assertEquals(100, parentTableFixture.insertRows(criteria).getNumOfRows());
+
+        RowPlan plan = RowPlan.compile(criteria, parentTableFixture.getTableMetadata().getColumns(), Collections.singleton("code"), Collections.singleton("code"));
+        UniqueValues uniqueValues = UniqueValues.forPlan(plan);
+        int slot = getSlot(plan, "code");
+        assertTrue(uniqueValues.addObject(slot, "aB-1"));
+        assertFalse(uniqueValues.addObject(slot, "Ab-1"));
+    }
+
+    @Test
+    public void shouldFailFastWhenADeterministicSupplierGivesADuplicate() {
+        try {
+            parentTableFixture.insertRows(InsertionCriteria.newInstance()
+                .forNumberOfRows(10)
+                .withCondition("code", (Integer rowIdx) -> "code-" + rowIdx / 2));
+            fail("A deterministic supplier gives the same duplicate on every attempt");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().contains("at row [1], its value-supplier is deterministic"));
+        }
+    }
+
+    @Test
+    public void shouldFailUpFrontWhenTheValuesCantBeHeld() {
+        try {
+            parentTableFixture.insertRows(getCriteria(300, 400).withMaxGuardedValues(200));
+            fail("300 values can't be kept unique in a set of 200");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().contains("withMaxGuardedValues()"));
+        }
+        assertTrue(parentTableFixture.getAllRows().isEmpty());
+        assertEquals(300, parentTableFixture.insertRows(getCriteria(300, 400).withMaxGuardedValues(300)).getNumOfRows());
+    }
+
+    @Test
+    public void shouldKeepGuardingAnIntSlotInABitSetOnceItsSetIsFull() {
+        InsertionCriteria criteria = InsertionCriteria.newInstance()
+            .forNumberOfRows(1000)
+            .withMaxGuardedValues(100)
+            .withIntCondition("parent_id", (rowIdx, prevValue) -> rowIdx);
+        RowPlan plan = RowPlan.compile(criteria, DBTableFixture.getInstance("test_child_table", jdbcTemplate).getTableMetadata().getColumns(),
+            Collections.singleton("parent_id"));
+        UniqueValues uniqueValues = UniqueValues.forPlan(plan);
+        int slot = getSlot(plan, "parent_id");
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(uniqueValues.addLong(slot, i * 1000L));
+        }
+        assertTrue(uniqueValues.toString().contains("100 values, 0 duplicates generated again"));
+        assertTrue(uniqueValues.toString().contains("in a bitset"));
+        assertFalse(uniqueValues.addLong(slot, 0));
+        assertFalse(uniqueValues.addLong(slot, 99000));
+        assertEquals(2, uniqueValues.getNumOfDuplicates());
+        assertTrue(uniqueValues.addLong(slot, Integer.MIN_VALUE));
+        assertTrue(uniqueValues.addLong(slot, Integer.MAX_VALUE));
+        assertFalse(uniqueValues.addLong(slot, Integer.MAX_VALUE));
+        assertEquals(3, uniqueValues.getNumOfDuplicates());
+    }
+
+    private static int getSlot(RowPlan plan, String columnName) {
+        int slot = 0;
+        while (!plan.getColumnName(slot).equalsIgnoreCase(columnName)) {
+            slot++;
+        }
+        return slot;
+    }
+
+    /**
+     * Picks the codes at random from a fixed number of codes, differing only in case half of the time
+     */
+    private InsertionCriteria getCriteria(int numOfRows, int numOfCodes) {
+        return InsertionCriteria.newInstance()
+            .forNumberOfRows(numOfRows)
+            .withSeed(19L)
+            .withCondition("code", () -> {
+                int code = CellRandom.current().nextInt(numOfCodes);
+                return (code % 2 == 0 ? "CODE-" : "code-") + code;
+            });
+    }
+}
@@ -0,0 +1,31 @@
+package in.acode.utdatagen.datasources;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import javax.sql.DataSource;
+
+/**
+ * An in-memory H2 database in MySQL mode, a stand-in for MySQL for the tests which don't need a real MySQL server
+ */
+@Configuration
+public class H2DataSource {
+
+    @Bean("h2-data-source")
+    public DataSource h2DataSource() {
+        return new EmbeddedDatabaseBuilder()
+            .setType(EmbeddedDatabaseType.H2)
+            .setName("utdatagen_utdb;MODE=MySQL;DATABASE_TO_LOWER=true")
+            .addScript("ddls/h2/h2_ddls.sql")
+            .build();
+    }
+
+    @Bean("h2-jdbc-template")
+    public JdbcTemplate h2JdbcTemplate() {
+        return new JdbcTemplate(h2DataSource());
+    }
+
+}
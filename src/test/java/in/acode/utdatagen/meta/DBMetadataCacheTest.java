@@ -0,0 +1,130 @@
+package in.acode.utdatagen.meta;
+
+import static org.junit.Assert.*;
+
+import in.acode.utdatagen.DBTableFixture;
+import in.acode.utdatagen.datasources.H2DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+
+@RunWith(SpringRunner.class)
+@ActiveProfiles("test")
+@SpringBootTest
+@ContextConfiguration(classes = {H2DataSource.class})
+public class DBMetadataCacheTest {
+
+    @Autowired
+    @Qualifier("h2-jdbc-template")
+    private JdbcTemplate jdbcTemplate;
+
+    private DBMetadataCache cache = DBMetadataCache.getInstance();
+
+    @Before
+    public void setup() {
+        cache.invalidate(jdbcTemplate.getDataSource());
+    }
+
+    @After
+    public void tearDown() {
+        cache.withTimeToLive(0, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void shouldShareTheMetadataOfATableBetweenFixtures() {
+        List<DBColumnMetadata> columns = cache.getColumns(jdbcTemplate, null, null, "test_table");
+        assertEquals(9, columns.size());
+        assertEquals("id", columns.get(0).getColumnName());
+
+        DBTableFixture fixture1 = DBTableFixture.getInstance("test_table", jdbcTemplate);
+        DBTableFixture fixture2 = DBTableFixture.getInstance("test_table", jdbcTemplate);
+        fixture1.getAllRows();
+        fixture2.getAllRows();
+        assertSame(columns, fixture1.getColumns());
+        assertSame(columns, fixture2.getColumns());
+    }
+
+    @Test
+    public void shouldReadTheMetadataAgainWhenInvalidated() {
+        List<DBColumnMetadata> columns = cache.getColumns(jdbcTemplate, null, null, "test_table");
+        assertTrue(cache.contains(jdbcTemplate.getDataSource(), null, null, "test_table"));
+
+        cache.invalidate(jdbcTemplate.getDataSource(), "test_table");
+        assertFalse(cache.contains(jdbcTemplate.getDataSource(), null, null, "test_table"));
+
+        List<DBColumnMetadata> reloadedColumns = cache.getColumns(jdbcTemplate, null, null, "test_table");
+        assertNotSame(columns, reloadedColumns);
+        assertEquals(columns.size(), reloadedColumns.size());
+
+        DBTableFixture fixture = DBTableFixture.getInstance("test_table", jdbcTemplate).refreshMetadata();
+        assertNotSame(reloadedColumns, fixture.getColumns());
+        assertSame(fixture.getColumns(), cache.getColumns(jdbcTemplate, null, null, "test_table"));
+    }
+
+    @Test
+    public void shouldReadTheMetadataAgainAfterTheTimeToLive() throws InterruptedException {
+        cache.withTimeToLive(50, TimeUnit.MILLISECONDS);
+        List<DBColumnMetadata> columns = cache.getColumns(jdbcTemplate, null, null, "test_table");
+        assertSame(columns, cache.getColumns(jdbcTemplate, null, null, "test_table"));
+
+        Thread.sleep(100);
+        assertFalse(cache.contains(jdbcTemplate.getDataSource(), null, null, "test_table"));
+        assertNotSame(columns, cache.getColumns(jdbcTemplate, null, null, "test_table"));
+    }
+
+    @Test
+    public void shouldReadATableOnceForConcurrentLookups() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<DBTableMetadata>> lookups = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                lookups.add(executor.submit(() -> {
+                    start.await();
+                    return cache.getTable(jdbcTemplate, null, null, "test_child_table");
+                }));
+            }
+            start.countDown();
+
+            DBTableMetadata table = lookups.get(0).get();
+            assertEquals(1, table.getForeignKeys().size());
+            for (Future<DBTableMetadata> lookup : lookups) {
+                assertSame(table, lookup.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shouldNotCacheMissingTables() {
+        assertTrue(cache.getColumns(jdbcTemplate, null, null, "missing_table").isEmpty());
+        assertFalse(cache.contains(jdbcTemplate.getDataSource(), null, null, "missing_table"));
+    }
+
+    @Test
+    public void shouldPickTheTableWithTheExactName() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS testXtable (other_column INT)");
+        try {
+            List<DBColumnMetadata> columns = cache.getColumns(jdbcTemplate, null, null, "test_table");
+            assertEquals(9, columns.size());
+        } finally {
+            jdbcTemplate.execute("DROP TABLE testXtable");
+        }
+    }
+}
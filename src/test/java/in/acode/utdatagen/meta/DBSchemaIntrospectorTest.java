@@ -0,0 +1,102 @@
+package in.acode.utdatagen.meta;
+
+import static org.junit.Assert.*;
+
+import in.acode.utdatagen.DBTableFixture;
+import in.acode.utdatagen.datasources.H2DataSource;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+
+@RunWith(SpringRunner.class)
+@ActiveProfiles("test")
+@SpringBootTest
+@ContextConfiguration(classes = {H2DataSource.class})
+public class DBSchemaIntrospectorTest {
+
+    @Autowired
+    @Qualifier("h2-jdbc-template")
+    private JdbcTemplate jdbcTemplate;
+
+    @Before
+    public void setup() {
+        DBMetadataCache.getInstance().invalidate(jdbcTemplate.getDataSource());
+    }
+
+    @Test
+    public void shouldReadAllTablesWithTheirKeysAndIndexes() {
+        DBSchemaMetadata schemaMetadata = DBSchemaIntrospector.getInstance(jdbcTemplate).introspect();
+        assertTrue(schemaMetadata.getTableNames().containsAll(Arrays.asList("test_table", "test_parent_table", "test_child_table")));
+
+        DBTableMetadata testTable = schemaMetadata.getTable("test_table");
+        assertEquals(9, testTable.getColumns().size());
+        assertEquals(Collections.singletonList("id"), testTable.getPrimaryKeyColumnNames());
+        assertTrue(testTable.getForeignKeys().isEmpty());
+
+        DBTableMetadata childTable = schemaMetadata.getTable("test_child_table");
+        assertEquals(1, childTable.getForeignKeys().size());
+        DBForeignKeyMetadata foreignKey = childTable.getForeignKeys().get(0);
+        assertEquals(Collections.singletonList("parent_id"), foreignKey.getColumnNames());
+        assertEquals("test_parent_table", foreignKey.getReferencedTableName());
+        assertEquals(Collections.singletonList("id"), foreignKey.getReferencedColumnNames());
+
+        DBTableMetadata parentTable = schemaMetadata.getTable("test_parent_table");
+        assertTrue(parentTable.getIndexes().stream()
+            .anyMatch(index -> index.isUnique() && index.getColumnNames().equals(Collections.singletonList("code"))));
+    }
+
+    @Test
+    public void shouldPrimeTheFixtures() {
+        DBSchemaMetadata schemaMetadata = DBSchemaIntrospector.getInstance(jdbcTemplate).introspect();
+        DBMetadataCache cache = DBMetadataCache.getInstance();
+        for (String tableName : schemaMetadata.getTableNames()) {
+            assertTrue(tableName, cache.contains(jdbcTemplate.getDataSource(), null, null, tableName));
+        }
+
+        DBTableFixture fixture = DBTableFixture.getInstance("test_child_table", jdbcTemplate);
+        fixture.getAllRows();
+        assertSame(schemaMetadata.getTable("test_child_table").getColumns(), fixture.getColumns());
+        assertSame(schemaMetadata.getTable("test_child_table"), fixture.getTableMetadata());
+    }
+
+    @Test
+    public void shouldReadOnlyTheColumnsWithoutKeys() {
+        DBSchemaMetadata schemaMetadata = DBSchemaIntrospector.getInstance(jdbcTemplate)
+            .withTableNamePattern("test_child%")
+            .withKeys(false)
+            .introspect();
+        assertEquals(Collections.singletonList("test_child_table"), schemaMetadata.getTableNames());
+        assertFalse(schemaMetadata.getTable("test_child_table").hasKeys());
+
+        DBTableMetadata tableMetadata = DBTableFixture.getInstance("test_child_table", jdbcTemplate).getTableMetadata();
+        assertTrue(tableMetadata.hasKeys());
+        assertEquals(schemaMetadata.getTable("test_child_table").getColumns(), tableMetadata.getColumns());
+    }
+
+    @Test
+    public void shouldMakeTheFixturesWaitForTheBackgroundIntrospection() throws Exception {
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        try {
+            CompletableFuture<DBSchemaMetadata> introspection = DBSchemaIntrospector.getInstance(jdbcTemplate).introspectInBackground(executorService);
+
+            List<DBColumnMetadata> columns = DBMetadataCache.getInstance().getColumns(jdbcTemplate, null, null, "test_table");
+            assertTrue(introspection.isDone());
+            assertSame(introspection.get().getTable("test_table").getColumns(), columns);
+        } finally {
+            executorService.shutdown();
+        }
+    }
+}
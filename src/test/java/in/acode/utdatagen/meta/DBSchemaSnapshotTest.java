@@ -0,0 +1,126 @@
+package in.acode.utdatagen.meta;
+
+import static org.junit.Assert.*;
+
+import in.acode.utdatagen.datasources.H2DataSource;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+
+@RunWith(SpringRunner.class)
+@ActiveProfiles("test")
+@SpringBootTest
+@ContextConfiguration(classes = {H2DataSource.class})
+public class DBSchemaSnapshotTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Autowired
+    @Qualifier("h2-jdbc-template")
+    private JdbcTemplate jdbcTemplate;
+
+    private Path snapshotPath;
+
+    @Before
+    public void setup() {
+        snapshotPath = temporaryFolder.getRoot().toPath().resolve("schema.snapshot");
+        DBMetadataCache.getInstance().invalidate(jdbcTemplate.getDataSource());
+    }
+
+    @Test
+    public void shouldLoadTheSnapshotWithoutTheDB() {
+        DBSchemaMetadata introspected = DBSchemaSnapshot.getInstance(DBSchemaIntrospector.getInstance(jdbcTemplate), snapshotPath).load();
+        assertTrue(Files.exists(snapshotPath));
+
+        JdbcTemplate unreachableJdbcTemplate = new JdbcTemplate(new UnreachableDataSource());
+        DBSchemaMetadata loaded = DBSchemaSnapshot.getInstance(DBSchemaIntrospector.getInstance(unreachableJdbcTemplate), snapshotPath).load();
+        assertEquals(introspected.getTableNames(), loaded.getTableNames());
+        assertEquals(DBSchemaSnapshot.checksum(introspected), DBSchemaSnapshot.checksum(loaded));
+
+        DBTableMetadata childTable = DBMetadataCache.getInstance().getTable(unreachableJdbcTemplate, null, null, "test_child_table");
+        assertEquals(3, childTable.getColumns().size());
+        assertEquals("test_parent_table", childTable.getForeignKeys().get(0).getReferencedTableName());
+    }
+
+    @Test
+    public void shouldIntrospectAgainWhenTheSnapshotIsCorrupt() throws Exception {
+        DBSchemaSnapshot snapshot = DBSchemaSnapshot.getInstance(DBSchemaIntrospector.getInstance(jdbcTemplate), snapshotPath);
+        DBSchemaMetadata introspected = snapshot.load();
+
+        try (RandomAccessFile file = new RandomAccessFile(snapshotPath.toFile(), "rw")) {
+            file.seek(file.length() - 1);
+            int lastByte = file.read();
+            file.seek(file.length() - 1);
+            file.write(lastByte ^ 0xFF);
+        }
+        try {
+            DBSchemaSnapshot.getInstance(DBSchemaIntrospector.getInstance(new JdbcTemplate(new UnreachableDataSource())), snapshotPath).load();
+            fail("A corrupt snapshot must not be used");
+        } catch (Exception e) {
+            // the schema is introspected again, which needs the DB
+        }
+
+        assertEquals(DBSchemaSnapshot.checksum(introspected), DBSchemaSnapshot.checksum(snapshot.load()));
+    }
+
+    @Test
+    public void shouldIntrospectAgainWhenTheVersionChanges() {
+        String versionQuery = "SELECT COUNT(*) FROM information_schema.columns";
+        DBSchemaSnapshot.getInstance(DBSchemaIntrospector.getInstance(jdbcTemplate), snapshotPath).withVersionQuery(versionQuery).load();
+
+        jdbcTemplate.execute("CREATE TABLE snapshot_test_table (id INT)");
+        try {
+            DBSchemaMetadata loaded = DBSchemaSnapshot.getInstance(DBSchemaIntrospector.getInstance(jdbcTemplate), snapshotPath)
+                .withVersionQuery(versionQuery)
+                .load();
+            assertNotNull(loaded.getTable("snapshot_test_table"));
+        } finally {
+            jdbcTemplate.execute("DROP TABLE snapshot_test_table");
+        }
+    }
+
+    @Test
+    public void shouldRewriteAnOutOfDateSnapshotWhenVerified() throws Exception {
+        DBSchemaSnapshot snapshot = DBSchemaSnapshot.getInstance(DBSchemaIntrospector.getInstance(jdbcTemplate), snapshotPath);
+        snapshot.load();
+        assertTrue(snapshot.verifyInBackground().get());
+
+        jdbcTemplate.execute("CREATE TABLE snapshot_test_table (id INT)");
+        try {
+            assertFalse(snapshot.verify());
+            assertNotNull(snapshot.load().getTable("snapshot_test_table"));
+            assertTrue(snapshot.verify());
+        } finally {
+            jdbcTemplate.execute("DROP TABLE snapshot_test_table");
+        }
+    }
+
+    private static class UnreachableDataSource extends AbstractDataSource {
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            throw new SQLException("The DB must not be used");
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            throw new SQLException("The DB must not be used");
+        }
+    }
+}
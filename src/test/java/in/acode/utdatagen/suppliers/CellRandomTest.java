@@ -0,0 +1,48 @@
+package in.acode.utdatagen.suppliers;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class CellRandomTest {
+
+    @Test
+    public void shouldGenerateTheSameValuesAtTheSamePosition() {
+        CellRandom random = CellRandom.current();
+        long columnSeed = CellRandom.getColumnSeed(42, "int_column");
+
+        random.position(columnSeed, 7);
+        long first = random.nextLong(), second = random.nextLong();
+
+        random.position(columnSeed, 8);
+        assertNotEquals(first, random.nextLong());
+
+        random.position(columnSeed, 7);
+        assertEquals(first, random.nextLong());
+        assertEquals(second, random.nextLong());
+
+        random.position(CellRandom.getColumnSeed(42, "other_column"), 7);
+        assertNotEquals(first, random.nextLong());
+    }
+
+    @Test
+    public void shouldGenerateValuesWithinBounds() {
+        CellRandom random = CellRandom.current();
+
+        for (int i=0; i<1000; i++) {
+            int num = random.nextInt(-5, 6);
+            assertTrue(num >= -5 && num < 6);
+
+            long longNum = random.nextLong(0, Long.MAX_VALUE);
+            assertTrue(longNum >= 0);
+
+            double d = random.nextDouble();
+            assertTrue(d >= 0.0 && d < 1.0);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldCheckIfBoundIsMoreThanOrigin() {
+        CellRandom.current().nextInt(5, 5);
+    }
+}
@@ -0,0 +1,63 @@
+package in.acode.utdatagen.suppliers;
+
+import static org.junit.Assert.*;
+
+import java.math.BigDecimal;
+import java.util.function.Supplier;
+import org.junit.Test;
+
+public class DecimalSuppliersTest {
+
+    @Test
+    public void shouldSupplyValuesWhichFitThePrecisionAndScale() {
+        verifyValuesFit(5, 2);
+        verifyValuesFit(15, 4);
+        verifyValuesFit(18, 0);
+        verifyValuesFit(30, 10);
+        verifyValuesFit(38, 38);
+    }
+
+    @Test
+    public void shouldSupplyValuesBeyondTheRangeOfAnInt() {
+        Supplier<BigDecimal> supplier = DecimalSuppliers.random(15, 2);
+        BigDecimal maxIntValue = BigDecimal.valueOf(Integer.MAX_VALUE);
+
+        boolean beyondIntRange = false;
+        for (int i=0; i<100; i++) {
+            beyondIntRange |= supplier.get().compareTo(maxIntValue) > 0;
+        }
+        assertTrue(beyondIntRange);
+    }
+
+    @Test
+    public void shouldKeepLeadingZerosOfTheFraction() {
+        Supplier<BigDecimal> supplier = DecimalSuppliers.random(4, 3);
+
+        boolean leadingZeroSeen = false;
+        for (int i=0; i<1000; i++) {
+            BigDecimal value = supplier.get();
+            leadingZeroSeen |= value.remainder(BigDecimal.ONE).compareTo(new BigDecimal("0.1")) < 0;
+        }
+        assertTrue(leadingZeroSeen);
+    }
+
+    @Test
+    public void shouldLimitTheDigitsOfVeryWideColumns() {
+        BigDecimal value = DecimalSuppliers.random(131089, 0).get();
+
+        assertTrue(value.precision() <= DecimalSuppliers.MAX_RANDOM_PRECISION);
+    }
+
+    private void verifyValuesFit(int precision, int scale) {
+        Supplier<BigDecimal> supplier = DecimalSuppliers.random(precision, scale);
+        BigDecimal upperBound = BigDecimal.TEN.pow(precision - scale);
+
+        for (int i=0; i<1000; i++) {
+            BigDecimal value = supplier.get();
+
+            assertEquals(scale, value.scale());
+            assertTrue(value.signum() >= 0);
+            assertTrue(value + " for DECIMAL(" + precision + ", " + scale + ")", value.compareTo(upperBound) < 0);
+        }
+    }
+}
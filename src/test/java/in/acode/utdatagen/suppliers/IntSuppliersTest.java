@@ -47,4 +47,22 @@ public class IntSuppliersTest {
         multipleOf.get();
     }
 
-}
\ No newline at end of file
+    @Test
+    public void shouldSupplyPrimitiveValuesWithinBounds() {
+        int multiplier = 5, lowerBound = 2, upperBound = 100;
+        IntColumnSupplier random = IntSuppliers.randomAsInt(lowerBound, upperBound);
+        IntColumnSupplier multipleOf = IntSuppliers.multipleOfAsInt(multiplier, lowerBound, upperBound);
+
+        for (int i=0; i<10; i++) {
+            int num = random.getAsInt(i, 0);
+            assertTrue(num >= lowerBound);
+            assertTrue(num <= upperBound);
+
+            num = multipleOf.getAsInt(i, 0);
+            assertTrue(num % multiplier == 0);
+            assertTrue(num >= lowerBound);
+            assertTrue(num <= upperBound);
+        }
+    }
+
+}
@@ -0,0 +1,73 @@
+package in.acode.utdatagen.suppliers;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class StringGeneratorTest {
+
+    @Test
+    public void shouldGenerateStringsOfTheAlphabetWithinTheLengthLimits() {
+        StringGenerator generator = StringGeneratorBuilder.getInstance()
+            .withAlphabet(StringGenerator.Alphabet.HEX)
+            .withLength(3, 5)
+            .createStringGenerator();
+
+        boolean[] lengthsSeen = new boolean[6];
+        for (int i=0; i<1000; i++) {
+            String s = generator.get();
+
+            assertTrue(s.length() >= 3 && s.length() <= 5);
+            assertTrue(s, s.matches("[0-9a-f]*"));
+            lengthsSeen[s.length()] = true;
+        }
+        assertTrue(lengthsSeen[3] && lengthsSeen[4] && lengthsSeen[5]);
+    }
+
+    @Test
+    public void shouldGenerateWordsSeparatedBySingleSpaces() {
+        StringGenerator generator = StringGeneratorBuilder.getInstance()
+            .withAlphabet(StringGenerator.Alphabet.WORDS)
+            .withLength(40)
+            .createStringGenerator();
+
+        for (int i=0; i<100; i++) {
+            String s = generator.get();
+
+            assertEquals(40, s.length());
+            assertTrue(s, s.matches("[a-z]{2,}( [a-z]{2,})*"));
+        }
+    }
+
+    @Test
+    public void shouldSliceStringsFromTheCorpus() {
+        StringGenerator generator = StringGeneratorBuilder.getInstance()
+            .withAlphabet("xyz")
+            .withLength(0, 8)
+            .withCorpus(100)
+            .createStringGenerator();
+
+        for (int i=0; i<100; i++) {
+            String s = generator.get();
+
+            assertTrue(s.length() <= 8);
+            assertTrue(s, s.matches("[xyz]*"));
+        }
+    }
+
+    @Test
+    public void shouldGenerateTheSameStringAtTheSamePosition() {
+        StringGenerator generator = StringGeneratorBuilder.getInstance().withLength(1, 30).createStringGenerator();
+        long columnSeed = CellRandom.getColumnSeed(99, "varchar_column");
+
+        CellRandom.current().position(columnSeed, 3);
+        String first = generator.get();
+        CellRandom.current().position(columnSeed, 3);
+        assertEquals(first, generator.get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldCheckIfCorpusIsSmallerThanMaxLength() {
+        StringGeneratorBuilder.getInstance().withLength(10, 20).withCorpus(15).createStringGenerator();
+    }
+}
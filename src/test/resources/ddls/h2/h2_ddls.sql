@@ -0,0 +1,31 @@
+CREATE TABLE test_table (
+  id INT NOT NULL AUTO_INCREMENT,
+  varchar_column VARCHAR(45) NULL,
+  numeric_column DECIMAL(5,2) NULL,
+  timestamp_column DATETIME NULL,
+  date_column DATE NULL,
+  int_column INT NULL,
+  char_column CHAR(20) NULL,
+  boolean_column TINYINT NULL,
+  float_column FLOAT NULL,
+  PRIMARY KEY (id));
+
+CREATE TABLE test_parent_table (
+  id INT NOT NULL AUTO_INCREMENT,
+  code VARCHAR(20) NOT NULL,
+  name VARCHAR(45) NULL,
+  PRIMARY KEY (id),
+  UNIQUE KEY uk_test_parent_code (code));
+
+CREATE TABLE test_child_table (
+  id INT NOT NULL AUTO_INCREMENT,
+  parent_id INT NOT NULL,
+  quantity INT NULL,
+  PRIMARY KEY (id),
+  CONSTRAINT fk_test_child_parent FOREIGN KEY (parent_id) REFERENCES test_parent_table (id));
+
+CREATE TABLE test_audited_table (
+  id INT NOT NULL AUTO_INCREMENT,
+  name VARCHAR(20) NOT NULL,
+  created_at DATETIME NOT NULL,
+  PRIMARY KEY (id));
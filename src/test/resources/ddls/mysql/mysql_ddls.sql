@@ -9,3 +9,17 @@ CREATE TABLE `utdatagen_utdb`.`test_table` (
   `boolean_column` TINYINT NULL,
   `float_column` FLOAT NULL,
   PRIMARY KEY (`id`));
+
+CREATE TABLE `utdatagen_utdb`.`test_parent_table` (
+  `id` INT NOT NULL AUTO_INCREMENT,
+  `code` VARCHAR(20) NOT NULL,
+  `name` VARCHAR(45) NULL,
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_test_parent_code` (`code`));
+
+CREATE TABLE `utdatagen_utdb`.`test_child_table` (
+  `id` INT NOT NULL AUTO_INCREMENT,
+  `parent_id` INT NOT NULL,
+  `quantity` INT NULL,
+  PRIMARY KEY (`id`),
+  CONSTRAINT `fk_test_child_parent` FOREIGN KEY (`parent_id`) REFERENCES `utdatagen_utdb`.`test_parent_table` (`id`));